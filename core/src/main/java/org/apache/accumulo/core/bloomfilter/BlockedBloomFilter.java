@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.bloomfilter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+import org.apache.accumulo.core.data.ByteSequence;
+
+/**
+ * A bloom filter that sets all of the bits for a key within a single 512 bit block, the size of a
+ * cache line on most processors. A membership test touches one cache line no matter how many hash
+ * functions are used, where {@link BloomFilter} touches one per hash function. For the same number
+ * of bits per key the false positive rate is slightly higher than a standard bloom filter.
+ *
+ * <p>
+ * Keys are added and tested by 64 bit hash, computed incrementally over one or more
+ * {@link ByteSequence}s with {@link #hash(long, ByteSequence)} starting from {@link #HASH_SEED}.
+ * This allows callers to hash the fields of a key in place without first copying them into a single
+ * array.
+ *
+ * <p>
+ * The serialized form is the block count and hash count followed by the blocks as big endian longs.
+ * The blocks can be used directly from a buffer holding that data, such as a block read from a
+ * cache or a mapped file, without being copied into a bit set.
+ */
+public class BlockedBloomFilter {
+
+  public static final long HASH_SEED = 0xcbf29ce484222325L;
+
+  private static final int BLOCK_BITS = 512;
+  private static final int WORDS_PER_BLOCK = BLOCK_BITS / Long.SIZE;
+  private static final int BLOCK_BYTES = BLOCK_BITS / Byte.SIZE;
+  private static final int MAX_BLOCKS = Integer.MAX_VALUE / BLOCK_BYTES;
+  private static final int MAX_HASH_COUNT = 16;
+
+  private final LongBuffer words;
+  private final int numBlocks;
+  private final int hashCount;
+
+  /**
+   * Creates an empty filter sized for the expected number of keys and false positive rate.
+   */
+  public BlockedBloomFilter(int expectedKeys, double errorRate) {
+    if (expectedKeys <= 0) {
+      throw new IllegalArgumentException("Expected keys must be positive : " + expectedKeys);
+    }
+    if (errorRate <= 0 || errorRate >= 1) {
+      throw new IllegalArgumentException("Error rate must be between 0 and 1 : " + errorRate);
+    }
+
+    double bitsPerKey = -Math.log(errorRate) / (Math.log(2) * Math.log(2));
+    long blocks = (long) Math.ceil(bitsPerKey * expectedKeys / BLOCK_BITS);
+    this.numBlocks = (int) Math.max(1, Math.min(MAX_BLOCKS, blocks));
+    this.hashCount =
+        (int) Math.max(1, Math.min(MAX_HASH_COUNT, Math.round(bitsPerKey * Math.log(2))));
+    this.words = LongBuffer.allocate(numBlocks * WORDS_PER_BLOCK);
+  }
+
+  /**
+   * Uses the serialized blocks of a filter in place.
+   *
+   * @param data
+   *          the blocks of the filter, as written by {@link #write(DataOutput)} after the block and
+   *          hash counts
+   */
+  public BlockedBloomFilter(ByteBuffer data, int hashCount) {
+    if (data.remaining() == 0 || data.remaining() % BLOCK_BYTES != 0) {
+      throw new IllegalArgumentException("Invalid bloom filter length : " + data.remaining());
+    }
+    if (hashCount < 1 || hashCount > MAX_HASH_COUNT) {
+      throw new IllegalArgumentException("Invalid hash count : " + hashCount);
+    }
+    this.words = data.slice().asLongBuffer();
+    this.numBlocks = data.remaining() / BLOCK_BYTES;
+    this.hashCount = hashCount;
+  }
+
+  /**
+   * Continues a hash with the bytes of a sequence.
+   */
+  public static long hash(long hash, ByteSequence data) {
+    if (data.isBackedByArray()) {
+      return hash(hash, data.getBackingArray(), data.offset(), data.length());
+    }
+    long h = hash;
+    for (int i = 0; i < data.length(); i++) {
+      h = (h ^ (data.byteAt(i) & 0xff)) * 0x100000001b3L;
+    }
+    return h;
+  }
+
+  /**
+   * Continues a hash with a range of bytes from an array.
+   */
+  public static long hash(long hash, byte[] data, int offset, int length) {
+    long h = hash;
+    int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      h = (h ^ (data[i] & 0xff)) * 0x100000001b3L;
+    }
+    return h;
+  }
+
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private int getBlockOffset(long h) {
+    // maps the high 32 bits of the hash onto [0, numBlocks) without division
+    return (int) (((h >>> 32) * numBlocks) >>> 32) * WORDS_PER_BLOCK;
+  }
+
+  public void add(long hash) {
+    long h = mix(hash);
+    int offset = getBlockOffset(h);
+    int bit = (int) h;
+    int step = (int) mix(h) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      int index = offset + ((bit & (BLOCK_BITS - 1)) >>> 6);
+      words.put(index, words.get(index) | (1L << bit));
+      bit += step;
+    }
+  }
+
+  public boolean membershipTest(long hash) {
+    long h = mix(hash);
+    int offset = getBlockOffset(h);
+    int bit = (int) h;
+    int step = (int) mix(h) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      if ((words.get(offset + ((bit & (BLOCK_BITS - 1)) >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+      bit += step;
+    }
+    return true;
+  }
+
+  public int getHashCount() {
+    return hashCount;
+  }
+
+  /**
+   * @return the size of the serialized blocks in bytes
+   */
+  public int getSize() {
+    return numBlocks * BLOCK_BYTES;
+  }
+
+  public void write(DataOutput out) throws IOException {
+    out.writeInt(numBlocks);
+    out.writeInt(hashCount);
+    for (int i = 0; i < words.limit(); i++) {
+      out.writeLong(words.get(i));
+    }
+  }
+
+  /**
+   * @return the number of bytes written by {@link #write(DataOutput)}
+   */
+  public int getSerializedSize() {
+    return 2 * Integer.BYTES + getSize();
+  }
+
+  /**
+   * Uses a serialized filter in place, without copying its blocks.
+   *
+   * @param offset
+   *          the offset of the data written by {@link #write(DataOutput)} in the array
+   */
+  public static BlockedBloomFilter wrap(byte[] data, int offset) throws IOException {
+    if (offset < 0 || data.length - offset < 2 * Integer.BYTES) {
+      throw new IOException("Bloom filter truncated");
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(data, offset, data.length - offset);
+    int numBlocks = buffer.getInt();
+    int hashCount = buffer.getInt();
+    if (numBlocks < 1 || numBlocks > MAX_BLOCKS || buffer.remaining() < numBlocks * BLOCK_BYTES) {
+      throw new IOException("Invalid bloom filter block count : " + numBlocks);
+    }
+    buffer.limit(buffer.position() + numBlocks * BLOCK_BYTES);
+    try {
+      return new BlockedBloomFilter(buffer, hashCount);
+    } catch (IllegalArgumentException e) {
+      throw new IOException(e);
+    }
+  }
+
+  public static BlockedBloomFilter read(DataInput in) throws IOException {
+    int numBlocks = in.readInt();
+    int hashCount = in.readInt();
+    if (numBlocks < 1 || numBlocks > MAX_BLOCKS) {
+      throw new IOException("Invalid bloom filter block count : " + numBlocks);
+    }
+    byte[] data = new byte[numBlocks * BLOCK_BYTES];
+    in.readFully(data);
+    try {
+      return new BlockedBloomFilter(ByteBuffer.wrap(data), hashCount);
+    } catch (IllegalArgumentException e) {
+      throw new IOException(e);
+    }
+  }
+}
@@ -22,6 +22,7 @@ import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -264,8 +265,13 @@ public class ClientSideIteratorScanner extends ScannerOptions implements Scanner
       colfs.add(new ArrayByteSequence(c.getColumnFamily()));
     }
 
+    Range scanRange = applyRowPrefix(range);
+    if (scanRange == null) {
+      return Collections.emptyIterator();
+    }
+
     try {
-      skvi.seek(range, colfs, true);
+      skvi.seek(scanRange, colfs, true);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
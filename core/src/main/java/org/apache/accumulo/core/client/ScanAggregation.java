@@ -0,0 +1,368 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.client;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.LongCombiner;
+import org.apache.accumulo.core.iterators.user.AggregatingIterator;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Computes counts, sums, minimums, maximums and distinct row counts over the entries of a scan
+ * without sending the entries to the client. An {@link AggregatingIterator} on each tablet server
+ * reduces the entries of each tablet to partial {@link Result}s per group, returning a partial as
+ * often as the {@link Builder#partialLimits(long, long) partial limits} require, and
+ * {@link #aggregate(ScannerBase)} merges the partials of all tablets.
+ *
+ * <p>
+ * Distinct rows are counted per scanned range, so a batch scan whose ranges share a row counts that
+ * row once for each range.
+ *
+ * @since 2.1.0
+ */
+public class ScanAggregation {
+
+  public static final String ITERATOR_NAME = "scanAggregation";
+  // above every other scan iterator, the filters of a ScanPredicate move aside for it
+  public static final int DEFAULT_PRIORITY = Integer.MAX_VALUE;
+
+  /**
+   * What entries are aggregated together.
+   *
+   * @since 2.1.0
+   */
+  public enum GroupBy {
+    /**
+     * aggregate all entries into a single result, keyed by the empty text
+     */
+    NONE,
+    /**
+     * aggregate the entries of each row, keyed by row
+     */
+    ROW,
+    /**
+     * aggregate the entries of each column family, keyed by family
+     */
+    FAMILY
+  }
+
+  private final GroupBy groupBy;
+  private final LongCombiner.Type valueType;
+  private final int priority;
+  private final long maxPartialEntries;
+  private final long maxPartialMillis;
+
+  private ScanAggregation(Builder b) {
+    this.groupBy = b.groupBy;
+    this.valueType = b.valueType;
+    this.priority = b.priority;
+    this.maxPartialEntries = b.maxPartialEntries;
+    this.maxPartialMillis = b.maxPartialMillis;
+  }
+
+  public GroupBy getGroupBy() {
+    return groupBy;
+  }
+
+  /**
+   * @return the encoding of the values to sum, minimize and maximize, or null if only entries and
+   *         rows are counted
+   */
+  public LongCombiner.Type getValueType() {
+    return valueType;
+  }
+
+  public int getPriority() {
+    return priority;
+  }
+
+  public long getMaxPartialEntries() {
+    return maxPartialEntries;
+  }
+
+  public long getMaxPartialMillis() {
+    return maxPartialMillis;
+  }
+
+  /**
+   * @return the settings of the iterator that computes the partial results on the tablet servers
+   */
+  public IteratorSetting toIteratorSetting() {
+    IteratorSetting is = new IteratorSetting(priority, ITERATOR_NAME, AggregatingIterator.class);
+    AggregatingIterator.setGroupBy(is, groupBy);
+    AggregatingIterator.setPartialLimits(is, maxPartialEntries, maxPartialMillis);
+    if (valueType != null) {
+      LongCombiner.setEncodingType(is, valueType);
+    }
+    return is;
+  }
+
+  /**
+   * Runs this aggregation over the ranges of a scanner. The aggregation iterator is added to the
+   * scanner for the duration of the call and removed before it returns.
+   *
+   * @return the merged result of each group, sorted by group
+   */
+  public SortedMap<Text,Result> aggregate(ScannerBase scanner) {
+    IteratorSetting is = toIteratorSetting();
+    scanner.addScanIterator(is);
+    try {
+      SortedMap<Text,Result> results = new TreeMap<>();
+      for (Entry<Key,Value> entry : scanner) {
+        Result.decode(entry.getValue())
+            .forEach((group, partial) -> results.merge(group, partial, (r1, r2) -> {
+              r1.merge(r2);
+              return r1;
+            }));
+      }
+      return results;
+    } finally {
+      scanner.removeScanIterator(is.getName());
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "groupBy=" + groupBy + " valueType=" + valueType + " priority=" + priority
+        + " maxPartialEntries=" + maxPartialEntries + " maxPartialMillis=" + maxPartialMillis;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @since 2.1.0
+   */
+  public static class Builder {
+    private GroupBy groupBy = GroupBy.NONE;
+    private LongCombiner.Type valueType;
+    private int priority = DEFAULT_PRIORITY;
+    private long maxPartialEntries = AggregatingIterator.DEFAULT_MAX_ENTRIES;
+    private long maxPartialMillis = AggregatingIterator.DEFAULT_MAX_MILLIS;
+
+    private Builder() {}
+
+    /**
+     * Sets what entries are aggregated together. Defaults to {@link GroupBy#NONE}.
+     */
+    public Builder groupBy(GroupBy groupBy) {
+      this.groupBy = requireNonNull(groupBy);
+      return this;
+    }
+
+    /**
+     * Decodes values as longs with the given encoding and computes their sum, minimum and maximum.
+     * Without a value type only entries and rows are counted and values may hold anything.
+     */
+    public Builder valueType(LongCombiner.Type valueType) {
+      this.valueType = requireNonNull(valueType);
+      return this;
+    }
+
+    /**
+     * Sets the priority of the aggregation iterator, which must be higher than the priority of any
+     * other scan iterator so that it sees their output. This includes the timestamp and value
+     * filters of a {@link ScanPredicate}, which otherwise filter the encoded partial results
+     * instead of entries. Defaults to {@value #DEFAULT_PRIORITY}, the highest priority, which the
+     * filters of a predicate move aside for.
+     */
+    public Builder priority(int priority) {
+      this.priority = priority;
+      return this;
+    }
+
+    /**
+     * Sets the most entries a tablet server aggregates, and the most time it spends aggregating,
+     * before returning a partial result. Smaller limits let a scan of a large tablet return sooner
+     * and be interrupted, at the cost of more partial results to merge. Defaults to
+     * {@value AggregatingIterator#DEFAULT_MAX_ENTRIES} entries and
+     * {@value AggregatingIterator#DEFAULT_MAX_MILLIS} milliseconds.
+     */
+    public Builder partialLimits(long maxEntries, long maxMillis) {
+      checkArgument(maxEntries > 0, "maxEntries must be positive : %s", maxEntries);
+      checkArgument(maxMillis > 0, "maxMillis must be positive : %s", maxMillis);
+      this.maxPartialEntries = maxEntries;
+      this.maxPartialMillis = maxMillis;
+      return this;
+    }
+
+    public ScanAggregation build() {
+      return new ScanAggregation(this);
+    }
+  }
+
+  /**
+   * The aggregate of a group of entries. Like the sums of a SummingCombiner, sums saturate at
+   * {@link Long#MAX_VALUE} and {@link Long#MIN_VALUE} instead of overflowing.
+   *
+   * @since 2.1.0
+   */
+  public static class Result implements Writable {
+    private long count = 0;
+    private long sum = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private long distinctRows = 0;
+
+    /**
+     * Adds an entry whose value was not decoded
+     */
+    public void addEntry() {
+      count++;
+    }
+
+    /**
+     * Adds an entry with a decoded value
+     */
+    public void addEntry(long value) {
+      count++;
+      sum = LongCombiner.safeAdd(sum, value);
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+    }
+
+    /**
+     * Adds a row that was not seen before
+     */
+    public void addRow() {
+      distinctRows++;
+    }
+
+    /**
+     * Adds the entries and rows of another result to this one
+     */
+    public void merge(Result other) {
+      count += other.count;
+      sum = LongCombiner.safeAdd(sum, other.sum);
+      min = Math.min(min, other.min);
+      max = Math.max(max, other.max);
+      distinctRows += other.distinctRows;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * @return the sum of the values, or 0 if no values were decoded
+     */
+    public long getSum() {
+      return sum;
+    }
+
+    /**
+     * @return the smallest value, or {@link Long#MAX_VALUE} if no values were decoded
+     */
+    public long getMin() {
+      return min;
+    }
+
+    /**
+     * @return the largest value, or {@link Long#MIN_VALUE} if no values were decoded
+     */
+    public long getMax() {
+      return max;
+    }
+
+    public long getDistinctRows() {
+      return distinctRows;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+      WritableUtils.writeVLong(out, count);
+      WritableUtils.writeVLong(out, sum);
+      WritableUtils.writeVLong(out, min);
+      WritableUtils.writeVLong(out, max);
+      WritableUtils.writeVLong(out, distinctRows);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+      count = WritableUtils.readVLong(in);
+      sum = WritableUtils.readVLong(in);
+      min = WritableUtils.readVLong(in);
+      max = WritableUtils.readVLong(in);
+      distinctRows = WritableUtils.readVLong(in);
+    }
+
+    @Override
+    public String toString() {
+      return "count=" + count + " sum=" + sum + " min=" + min + " max=" + max + " distinctRows="
+          + distinctRows;
+    }
+
+    /**
+     * Encodes the results of a set of groups into a single value
+     */
+    public static Value encode(Map<Text,Result> results) {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      try (DataOutputStream out = new DataOutputStream(baos)) {
+        WritableUtils.writeVInt(out, results.size());
+        for (Entry<Text,Result> entry : results.entrySet()) {
+          entry.getKey().write(out);
+          entry.getValue().write(out);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return new Value(baos.toByteArray());
+    }
+
+    /**
+     * Decodes a value created by {@link #encode(Map)}
+     */
+    public static SortedMap<Text,Result> decode(Value value) {
+      SortedMap<Text,Result> results = new TreeMap<>();
+      try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(value.get()))) {
+        int size = WritableUtils.readVInt(in);
+        for (int i = 0; i < size; i++) {
+          Text group = new Text();
+          group.readFields(in);
+          Result result = new Result();
+          result.readFields(in);
+          results.put(group, result);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return results;
+    }
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.client;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.accumulo.core.iterators.user.CfCqSliceSeekingFilter;
+import org.apache.accumulo.core.iterators.user.RegExFilter;
+import org.apache.accumulo.core.iterators.user.TimestampFilter;
+import org.apache.hadoop.io.Text;
+
+/**
+ * Restricts a scan to the entries that match all of a set of simple conditions. Unlike filtering
+ * entries after they reach the client, the conditions are evaluated by the tablet servers:
+ *
+ * <ul>
+ * <li>A row prefix narrows the ranges that are scanned.</li>
+ * <li>A set of columns is fetched as if by {@link ScannerBase#fetchColumn(IteratorSetting.Column)}.
+ * </li>
+ * <li>A column slice runs a {@link CfCqSliceSeekingFilter}, which seeks past columns outside the
+ * slice.</li>
+ * <li>A timestamp range runs a {@link TimestampFilter}.</li>
+ * <li>A value pattern runs a {@link RegExFilter}.</li>
+ * </ul>
+ *
+ * <p>
+ * The column slice, timestamp and value filters run at priorities {@value #SLICE_PRIORITY},
+ * {@value #TIMESTAMP_PRIORITY} and {@value #VALUE_PRIORITY}, after the table's iterators and other
+ * scan iterators. They see the entries that the scan would otherwise return, not the entries as
+ * they are stored, so they do not change what table iterators that work on whole rows return, such
+ * as a RowDeletingIterator, a WholeRowIterator or a row filter. The slice filter still seeks past
+ * columns outside the slice, through the iterators beneath it. Like
+ * {@link ScannerBase#fetchColumn(IteratorSetting.Column)}, the columns of the predicate are
+ * selected before the table's iterators run. If a scan iterator is added at one of the priorities
+ * of the filters, or already uses it, the filter moves to the nearest free lower priority. A
+ * {@link ScanAggregation} runs at the highest priority, above the filters, so it aggregates the
+ * entries that match the predicate.
+ *
+ * @see ScannerBase#setPredicate(ScanPredicate)
+ * @since 2.1.0
+ */
+public class ScanPredicate {
+
+  public static final int SLICE_PRIORITY = Integer.MAX_VALUE - 2;
+  public static final int TIMESTAMP_PRIORITY = Integer.MAX_VALUE - 1;
+  public static final int VALUE_PRIORITY = Integer.MAX_VALUE;
+
+  private final Text rowPrefix;
+  private final List<IteratorSetting.Column> columns;
+  private final String[] columnSlice;
+  private final Long minTimestamp;
+  private final Long maxTimestamp;
+  private final String valueRegex;
+
+  private ScanPredicate(Builder b) {
+    this.rowPrefix = b.rowPrefix;
+    this.columns = Collections.unmodifiableList(new ArrayList<>(b.columns));
+    this.columnSlice = b.columnSlice;
+    this.minTimestamp = b.minTimestamp;
+    this.maxTimestamp = b.maxTimestamp;
+    this.valueRegex = b.valueRegex;
+  }
+
+  /**
+   * @return the prefix of the rows to scan, or null to scan all rows
+   */
+  public Text getRowPrefix() {
+    return rowPrefix == null ? null : new Text(rowPrefix);
+  }
+
+  /**
+   * @return the columns to scan, or an empty list to scan all columns
+   */
+  public List<IteratorSetting.Column> getColumns() {
+    return columns;
+  }
+
+  /**
+   * @return the minimum family, maximum family, minimum qualifier and maximum qualifier of the
+   *         column slice to scan, where null means unbounded, or null to not restrict the slice
+   */
+  public String[] getColumnSlice() {
+    return columnSlice == null ? null : columnSlice.clone();
+  }
+
+  /**
+   * @return the smallest timestamp to scan, inclusive, or null if there is no lower bound
+   */
+  public Long getMinTimestamp() {
+    return minTimestamp;
+  }
+
+  /**
+   * @return the largest timestamp to scan, inclusive, or null if there is no upper bound
+   */
+  public Long getMaxTimestamp() {
+    return maxTimestamp;
+  }
+
+  /**
+   * @return the regular expression entire values must match, or null to not match values
+   */
+  public String getValueRegex() {
+    return valueRegex;
+  }
+
+  @Override
+  public String toString() {
+    return "rowPrefix=" + rowPrefix + " columns=" + columns + " columnSlice="
+        + (columnSlice == null ? null : String.join(",", columnSlice)) + " timestamps=["
+        + minTimestamp + "," + maxTimestamp + "] valueRegex=" + valueRegex;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @since 2.1.0
+   */
+  public static class Builder {
+    private Text rowPrefix;
+    private final List<IteratorSetting.Column> columns = new ArrayList<>();
+    private String[] columnSlice;
+    private Long minTimestamp;
+    private Long maxTimestamp;
+    private String valueRegex;
+
+    private Builder() {}
+
+    /**
+     * Only scan rows that start with a prefix
+     */
+    public Builder rowPrefix(CharSequence prefix) {
+      return rowPrefix(new Text(requireNonNull(prefix).toString()));
+    }
+
+    /**
+     * Only scan rows that start with a prefix
+     */
+    public Builder rowPrefix(Text prefix) {
+      this.rowPrefix = new Text(requireNonNull(prefix));
+      return this;
+    }
+
+    /**
+     * Only scan the given columns. A column without a qualifier selects its whole family.
+     */
+    public Builder columns(Collection<IteratorSetting.Column> columns) {
+      this.columns.addAll(requireNonNull(columns));
+      return this;
+    }
+
+    /**
+     * Only scan columns whose family is between two families and whose qualifier is between two
+     * qualifiers, inclusive. A null bound is unbounded.
+     */
+    public Builder columnSlice(CharSequence minFamily, CharSequence maxFamily,
+        CharSequence minQualifier, CharSequence maxQualifier) {
+      this.columnSlice = new String[] {toString(minFamily), toString(maxFamily),
+          toString(minQualifier), toString(maxQualifier)};
+      return this;
+    }
+
+    private static String toString(CharSequence cs) {
+      return cs == null ? null : cs.toString();
+    }
+
+    /**
+     * Only scan entries with a timestamp between two timestamps, inclusive
+     */
+    public Builder timestampRange(long min, long max) {
+      checkArgument(min <= max, "min timestamp %s is greater than max %s", min, max);
+      this.minTimestamp = min;
+      this.maxTimestamp = max;
+      return this;
+    }
+
+    /**
+     * Only scan entries whose entire value, decoded as UTF-8, matches a regular expression
+     */
+    public Builder valueRegex(String regex) {
+      // fail on a bad expression here, rather than on the tablet servers
+      Pattern.compile(regex);
+      this.valueRegex = regex;
+      return this;
+    }
+
+    public ScanPredicate build() {
+      return new ScanPredicate(this);
+    }
+  }
+}
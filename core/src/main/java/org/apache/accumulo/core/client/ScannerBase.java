@@ -356,4 +356,19 @@ public interface ScannerBase extends Iterable<Entry<Key,Value>>, AutoCloseable {
   default void setExecutionHints(Map<String,String> hints) {
     throw new UnsupportedOperationException();
   }
+
+  /**
+   * Restricts this scan to the entries that match a predicate. The tablet servers evaluate the
+   * predicate, narrowing the scanned ranges to its row prefix, fetching its columns and running
+   * filters for its other conditions, so entries that do not match never reach the client. Setting
+   * a predicate replaces the row prefix and filters of an earlier one. Its columns are added to the
+   * fetched columns and are removed by {@link #clearColumns()}; its row prefix and filters are
+   * removed by {@link #clearScanIterators()}.
+   *
+   * @see ScanPredicate
+   * @since 2.1.0
+   */
+  default void setPredicate(ScanPredicate predicate) {
+    throw new UnsupportedOperationException();
+  }
 }
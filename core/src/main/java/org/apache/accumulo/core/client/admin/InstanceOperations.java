@@ -140,4 +140,15 @@ public interface InstanceOperations {
    * @since 2.0.0
    */
   String getInstanceID();
+
+  /**
+   * Gets the latencies of the RPCs this client made to each server, and the health it scored each
+   * server with. Batch readers and writers start work on healthier servers first. Servers that were
+   * not called for ten minutes are forgotten. The returned statistics are a snapshot and do not
+   * change as the client makes more calls.
+   *
+   * @return the statistics of each server the client called recently
+   * @since 2.1.0
+   */
+  List<RpcStatistics> getRpcStatistics();
 }
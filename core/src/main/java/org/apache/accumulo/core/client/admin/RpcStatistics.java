@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.client.admin;
+
+import java.util.Map;
+
+/**
+ * The latencies of the RPCs a client made to one server, and the health the client scored the
+ * server with. See {@link InstanceOperations#getRpcStatistics()}.
+ *
+ * @since 2.1.0
+ */
+public interface RpcStatistics {
+
+  /**
+   * Latency statistics of one RPC, in microseconds. Latencies are counted in log-linear buckets, so
+   * reported values are within about 3% of the measured ones.
+   *
+   * @since 2.1.0
+   */
+  interface Latency {
+
+    /**
+     * @return the number of timed calls
+     */
+    long getCount();
+
+    /**
+     * @return the mean latency in microseconds, or 0 if nothing was timed
+     */
+    double getMean();
+
+    /**
+     * @return the largest latency in microseconds
+     */
+    long getMax();
+
+    /**
+     * @param percentile
+     *          a percentile between 0 and 100
+     * @return the latency in microseconds that the given percentage of calls completed within
+     */
+    long getValueAtPercentile(double percentile);
+  }
+
+  /**
+   * @return the address of the server
+   */
+  String getServer();
+
+  /**
+   * @return the health of the server, between 0 for a server that only fails and 1 for a server
+   *         that is as fast as its peers and never fails
+   */
+  double getHealth();
+
+  /**
+   * @return the latencies of the RPCs that were called on the server, by RPC name
+   */
+  Map<String,Latency> getLatencies();
+}
@@ -48,6 +48,7 @@ import org.apache.accumulo.core.data.Column;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.dataImpl.thrift.IterInfo;
 import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheConfiguration;
 import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheManagerFactory;
 import org.apache.accumulo.core.file.blockfile.impl.BasicCacheProvider;
@@ -383,15 +384,22 @@ class RFileScanner extends ScannerOptions implements Scanner {
           iterator = IterConfigUtil.loadIterators(iterator,
               il.iterEnv(new IterEnv()).useAccumuloClassLoader(true));
         } else {
+          // stack the iterators by priority, like a tablet server does
+          List<IterInfo> iters = new ArrayList<>(serverSideIteratorList);
+          iters.sort(IterConfigUtil.ITER_INFO_COMPARATOR);
           iterator = IterConfigUtil.loadIterators(iterator,
-              new IterLoad().iters(serverSideIteratorList).iterOpts(serverSideIteratorOptions)
-                  .iterEnv(new IterEnv()).useAccumuloClassLoader(false));
+              new IterLoad().iters(iters).iterOpts(serverSideIteratorOptions).iterEnv(new IterEnv())
+                  .useAccumuloClassLoader(false));
         }
       } catch (IOException e) {
         throw new RuntimeException(e);
       }
 
-      iterator.seek(getRange() == null ? EMPTY_RANGE : getRange(), families, !families.isEmpty());
+      Range scanRange = applyRowPrefix(getRange() == null ? EMPTY_RANGE : getRange());
+      if (scanRange == null) {
+        return Collections.emptyIterator();
+      }
+      iterator.seek(scanRange, families, !families.isEmpty());
       return new IteratorAdapter(iterator);
 
     } catch (IOException e) {
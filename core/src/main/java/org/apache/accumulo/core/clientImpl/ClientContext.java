@@ -55,14 +55,17 @@ import org.apache.accumulo.core.client.admin.TableOperations;
 import org.apache.accumulo.core.client.security.tokens.AuthenticationToken;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.ClientProperty;
+import org.apache.accumulo.core.conf.ConfigurationTypeHelper;
 import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.file.rfile.bcfile.Compression.Algorithm;
 import org.apache.accumulo.core.master.state.tables.TableState;
 import org.apache.accumulo.core.metadata.RootTable;
 import org.apache.accumulo.core.metadata.schema.Ample;
 import org.apache.accumulo.core.metadata.schema.AmpleImpl;
 import org.apache.accumulo.core.metadata.schema.TabletMetadata.Location;
 import org.apache.accumulo.core.metadata.schema.TabletMetadata.LocationType;
+import org.apache.accumulo.core.rpc.CompressedTransport;
 import org.apache.accumulo.core.rpc.SaslConnectionParams;
 import org.apache.accumulo.core.rpc.SslConnectionParams;
 import org.apache.accumulo.core.security.Authorizations;
@@ -106,7 +109,11 @@ public class ClientContext implements AccumuloClient {
   private Supplier<Long> timeoutSupplier;
   private Supplier<SaslConnectionParams> saslSupplier;
   private Supplier<SslConnectionParams> sslSupplier;
+  private Supplier<Integer> rpcMultiplexedConnectionsSupplier;
+  private Supplier<Algorithm> rpcCompressionCodecSupplier;
+  private Supplier<Integer> rpcCompressionThresholdSupplier;
   private TCredentials rpcCreds;
+  private final RpcLatencyTracker rpcLatencyTracker = new RpcLatencyTracker();
 
   private volatile boolean closed = false;
 
@@ -144,13 +151,33 @@ public class ClientContext implements AccumuloClient {
     timeoutSupplier = memoizeWithExpiration(
         () -> getConfiguration().getTimeInMillis(Property.GENERAL_RPC_TIMEOUT));
     sslSupplier = memoizeWithExpiration(() -> SslConnectionParams.forClient(getConfiguration()));
+    rpcMultiplexedConnectionsSupplier = memoizeWithExpiration(
+        () -> getConfiguration().getCount(Property.GENERAL_RPC_MULTIPLEX_CONNECTIONS));
     saslSupplier = memoizeWithExpiration(
         () -> SaslConnectionParams.from(getConfiguration(), getCredentials().getToken()));
+    rpcCompressionCodecSupplier = memoizeWithExpiration(
+        () -> CompressedTransport.getCodec(getClientValue(ClientProperty.RPC_COMPRESSION_TYPE,
+            Property.GENERAL_RPC_COMPRESSION_TYPE)));
+    rpcCompressionThresholdSupplier =
+        memoizeWithExpiration(() -> (int) ConfigurationTypeHelper.getMemoryAsBytes(getClientValue(
+            ClientProperty.RPC_COMPRESSION_THRESHOLD, Property.GENERAL_RPC_COMPRESSION_THRESHOLD)));
     this.singletonReservation = Objects.requireNonNull(reservation);
     this.tableops = new TableOperationsImpl(this);
     this.namespaceops = new NamespaceOperationsImpl(this, tableops);
   }
 
+  /**
+   * @return the value of a client property when it is set, otherwise the configured value of the
+   *         property it overrides
+   */
+  private String getClientValue(ClientProperty clientProperty, Property property) {
+    Properties props = info.getProperties();
+    if (clientProperty.isEmpty(props)) {
+      return getConfiguration().get(property);
+    }
+    return clientProperty.getValue(props);
+  }
+
   /**
    * Retrieve the instance used to construct this context
    *
@@ -272,6 +299,39 @@ public class ClientContext implements AccumuloClient {
     return sslSupplier.get();
   }
 
+  /**
+   * @return the number of multiplexed connections to open to each server, or 0 to use a connection
+   *         for each concurrent call
+   */
+  public int getRpcMultiplexedConnections() {
+    ensureOpen();
+    return rpcMultiplexedConnectionsSupplier.get();
+  }
+
+  /**
+   * @return the codec to compress RPC messages to servers with, or null to send them uncompressed
+   */
+  public Algorithm getRpcCompressionCodec() {
+    ensureOpen();
+    return rpcCompressionCodecSupplier.get();
+  }
+
+  /**
+   * @return the size below which RPC messages are sent uncompressed
+   */
+  public int getRpcCompressionThreshold() {
+    ensureOpen();
+    return rpcCompressionThresholdSupplier.get();
+  }
+
+  /**
+   * @return the latency histograms and health scores of the servers this client has called, which
+   *         users read through {@link InstanceOperations#getRpcStatistics()}
+   */
+  public RpcLatencyTracker getRpcLatencyTracker() {
+    return rpcLatencyTracker;
+  }
+
   /**
    * Retrieve SASL configuration to initiate an RPC connection to a server
    */
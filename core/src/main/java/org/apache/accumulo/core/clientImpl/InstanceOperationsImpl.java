@@ -38,6 +38,7 @@ import org.apache.accumulo.core.client.TableNotFoundException;
 import org.apache.accumulo.core.client.admin.ActiveCompaction;
 import org.apache.accumulo.core.client.admin.ActiveScan;
 import org.apache.accumulo.core.client.admin.InstanceOperations;
+import org.apache.accumulo.core.client.admin.RpcStatistics;
 import org.apache.accumulo.core.clientImpl.thrift.ConfigurationType;
 import org.apache.accumulo.core.clientImpl.thrift.ThriftSecurityException;
 import org.apache.accumulo.core.tabletserver.thrift.TabletClientService.Client;
@@ -227,4 +228,9 @@ public class InstanceOperationsImpl implements InstanceOperations {
   public String getInstanceID() {
     return context.getInstanceID();
   }
+
+  @Override
+  public List<RpcStatistics> getRpcStatistics() {
+    return context.getRpcLatencyTracker().getStatistics();
+  }
 }
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.accumulo.core.client.admin.RpcStatistics;
+
+/**
+ * A lock free histogram of latencies in microseconds. Buckets are log-linear, in the same way as
+ * HdrHistogram with {@value #SUB_BUCKETS} sub-buckets: values below {@value #SUB_BUCKETS} are
+ * counted exactly, and every power of two range above that is split into {@value #HALF} linear
+ * sub-buckets, so any recorded value is reported within about 3% of its true value. Values from one
+ * microsecond to roughly nine hours can be recorded; larger values are counted in the last bucket.
+ */
+public class LatencyHistogram implements RpcStatistics.Latency {
+
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF = SUB_BUCKETS / 2;
+  private static final long MAX_VALUE = (1L << 35) - 1;
+  private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder total = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+
+  static int index(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) micros;
+    }
+    int shift = 64 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+    return SUB_BUCKETS + (shift - 1) * HALF + (int) ((micros >>> shift) - HALF);
+  }
+
+  /**
+   * @return the largest value that is counted in the bucket at the given index
+   */
+  static long highestEquivalentValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = (index - SUB_BUCKETS) / HALF + 1;
+    long sub = (index - SUB_BUCKETS) % HALF + HALF;
+    return ((sub + 1) << shift) - 1;
+  }
+
+  /**
+   * @return a copy of this histogram, that does not change when values are recorded here
+   */
+  public LatencyHistogram copy() {
+    LatencyHistogram copy = new LatencyHistogram();
+    for (int i = 0; i < BUCKETS; i++) {
+      long count = counts.get(i);
+      copy.counts.set(i, count);
+      copy.total.add(count);
+    }
+    copy.sum.add(sum.sum());
+    return copy;
+  }
+
+  public void record(long duration, TimeUnit unit) {
+    long micros = Math.min(Math.max(unit.toMicros(duration), 0), MAX_VALUE);
+    counts.incrementAndGet(index(micros));
+    total.increment();
+    sum.add(micros);
+  }
+
+  /**
+   * @return the number of recorded values
+   */
+  @Override
+  public long getCount() {
+    return total.sum();
+  }
+
+  /**
+   * @return the mean of the recorded values in microseconds, or 0 if nothing was recorded
+   */
+  @Override
+  public double getMean() {
+    long count = total.sum();
+    return count == 0 ? 0 : (double) sum.sum() / count;
+  }
+
+  /**
+   * @return the largest recorded value in microseconds, to the precision of the histogram
+   */
+  @Override
+  public long getMax() {
+    for (int i = BUCKETS - 1; i >= 0; i--) {
+      if (counts.get(i) > 0) {
+        return highestEquivalentValue(i);
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @param percentile
+   *          a percentile between 0 and 100
+   * @return the value in microseconds that the given percentage of recorded values are at or below,
+   *         to the precision of the histogram
+   */
+  @Override
+  public long getValueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile out of range " + percentile);
+    }
+    long[] snapshot = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      count += snapshot[i];
+    }
+    long target = Math.max(1, (long) Math.ceil(count * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= target) {
+        return highestEquivalentValue(i);
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("count=%d mean=%.1fus p50=%dus p99=%dus p999=%dus max=%dus", getCount(),
+        getMean(), getValueAtPercentile(50), getValueAtPercentile(99), getValueAtPercentile(99.9),
+        getMax());
+  }
+}
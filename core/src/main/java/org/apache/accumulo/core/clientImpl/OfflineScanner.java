@@ -20,6 +20,7 @@ package org.apache.accumulo.core.clientImpl;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map.Entry;
 
@@ -84,7 +85,11 @@ public class OfflineScanner extends ScannerOptions implements Scanner {
 
   @Override
   public Iterator<Entry<Key,Value>> iterator() {
-    return new OfflineIterator(this, context, authorizations, tableId, range);
+    Range scanRange = applyRowPrefix(range);
+    if (scanRange == null) {
+      return Collections.emptyIterator();
+    }
+    return new OfflineIterator(this, context, authorizations, tableId, scanRange);
   }
 
   @Override
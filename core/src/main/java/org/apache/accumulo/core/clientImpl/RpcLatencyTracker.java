@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.apache.accumulo.core.client.admin.RpcStatistics;
+import org.apache.thrift.TException;
+import org.apache.thrift.TServiceClient;
+import org.apache.thrift.TServiceClientFactory;
+import org.apache.thrift.protocol.TMessage;
+import org.apache.thrift.protocol.TMessageType;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolDecorator;
+
+/**
+ * Records the latency of every RPC a client makes, per server and per RPC, and scores the health of
+ * each server from it. A server's health is between 0 and 1. It drops as the server's recent
+ * latency for an RPC grows past the median recent latency of all servers for the same RPC, and as
+ * the share of its recent RPCs that failed grows. Servers that have not been called are healthy.
+ * Servers that have not been called for a while are forgotten.
+ */
+public class RpcLatencyTracker {
+
+  // weight of the newest sample in the moving averages
+  private static final double ALPHA = 0.1;
+  // a server's latency for an RPC is ignored until this many calls were timed
+  private static final long MIN_SAMPLES = 5;
+  // the stats of servers that were not called for this long are dropped
+  private static final long EXPIRATION_NANOS = MINUTES.toNanos(10);
+  // the lowest weight a server gets when shuffling, so that failing servers are still shuffled
+  private static final double MIN_WEIGHT = 0.01;
+
+  private static final Random random = new SecureRandom();
+
+  private static class Stats {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    private double recentLatency = -1;
+
+    synchronized void record(long nanos) {
+      histogram.record(nanos, NANOSECONDS);
+      recentLatency = recentLatency < 0 ? nanos : recentLatency + ALPHA * (nanos - recentLatency);
+    }
+
+    synchronized double getRecentLatency() {
+      return histogram.getCount() < MIN_SAMPLES ? -1 : recentLatency;
+    }
+  }
+
+  private static class ServerStats {
+    final Map<String,Stats> rpcs = new ConcurrentHashMap<>();
+    private double recentFailures = 0;
+    volatile long lastCalled;
+
+    synchronized void recordOutcome(boolean failed) {
+      recentFailures += ALPHA * ((failed ? 1 : 0) - recentFailures);
+    }
+
+    synchronized double getRecentFailures() {
+      return recentFailures;
+    }
+  }
+
+  private final Map<String,ServerStats> servers = new ConcurrentHashMap<>();
+  private final LongSupplier nanoTime;
+
+  public RpcLatencyTracker() {
+    this(System::nanoTime);
+  }
+
+  RpcLatencyTracker(LongSupplier nanoTime) {
+    this.nanoTime = nanoTime;
+  }
+
+  private ServerStats server(String server) {
+    long now = nanoTime.getAsLong();
+    ServerStats stats = servers.get(server);
+    if (stats == null) {
+      // only a new server grows the map, so drop the expired ones first
+      servers.values().removeIf(s -> now - s.lastCalled > EXPIRATION_NANOS);
+      stats = servers.computeIfAbsent(server, s -> new ServerStats());
+    }
+    stats.lastCalled = now;
+    return stats;
+  }
+
+  /**
+   * Records a successful call of an RPC on a server
+   */
+  public void record(String server, String rpc, long nanos) {
+    ServerStats stats = server(server);
+    stats.rpcs.computeIfAbsent(rpc, r -> new Stats()).record(nanos);
+    stats.recordOutcome(false);
+  }
+
+  /**
+   * Records a call to a server that failed before a response was read
+   */
+  public void recordFailure(String server) {
+    server(server).recordOutcome(true);
+  }
+
+  /**
+   * @return the servers that were called
+   */
+  public List<String> getServers() {
+    return new ArrayList<>(servers.keySet());
+  }
+
+  /**
+   * @return the latency histograms of the RPCs that were called on a server, by RPC name
+   */
+  public Map<String,LatencyHistogram> getHistograms(String server) {
+    ServerStats stats = servers.get(server);
+    if (stats == null) {
+      return Collections.emptyMap();
+    }
+    Map<String,LatencyHistogram> histograms = new HashMap<>();
+    stats.rpcs.forEach((rpc, s) -> histograms.put(rpc, s.histogram));
+    return histograms;
+  }
+
+  /**
+   * @return a snapshot of the latencies and health of every server that was called
+   */
+  public List<RpcStatistics> getStatistics() {
+    Map<String,Double> medians = new HashMap<>();
+    List<RpcStatistics> statistics = new ArrayList<>();
+    for (Entry<String,ServerStats> entry : servers.entrySet()) {
+      Map<String,RpcStatistics.Latency> latencies = new HashMap<>();
+      entry.getValue().rpcs.forEach((rpc, s) -> latencies.put(rpc, s.histogram.copy()));
+      statistics.add(new ServerStatistics(entry.getKey(), health(entry.getKey(), medians),
+          Collections.unmodifiableMap(latencies)));
+    }
+    return statistics;
+  }
+
+  private static class ServerStatistics implements RpcStatistics {
+    private final String server;
+    private final double health;
+    private final Map<String,Latency> latencies;
+
+    ServerStatistics(String server, double health, Map<String,Latency> latencies) {
+      this.server = server;
+      this.health = health;
+      this.latencies = latencies;
+    }
+
+    @Override
+    public String getServer() {
+      return server;
+    }
+
+    @Override
+    public double getHealth() {
+      return health;
+    }
+
+    @Override
+    public Map<String,Latency> getLatencies() {
+      return latencies;
+    }
+  }
+
+  /**
+   * @return the health of a server, between 0 for a server that only fails and 1 for a server that
+   *         is as fast as its peers and never fails
+   */
+  public double getHealth(String server) {
+    return health(server, new HashMap<>());
+  }
+
+  /**
+   * @return the health of every server that was called
+   */
+  public Map<String,Double> getHealth() {
+    Map<String,Double> medians = new HashMap<>();
+    Map<String,Double> health = new HashMap<>();
+    for (String server : servers.keySet()) {
+      health.put(server, health(server, medians));
+    }
+    return health;
+  }
+
+  private double health(String server, Map<String,Double> medians) {
+    ServerStats stats = servers.get(server);
+    if (stats == null) {
+      return 1.0;
+    }
+    double speed = 0;
+    int rated = 0;
+    for (Entry<String,Stats> entry : stats.rpcs.entrySet()) {
+      double latency = entry.getValue().getRecentLatency();
+      double median = medians.computeIfAbsent(entry.getKey(), this::medianLatency);
+      if (latency > 0 && median > 0) {
+        speed += Math.min(1.0, median / latency);
+        rated++;
+      }
+    }
+    return (1.0 - stats.getRecentFailures()) * (rated == 0 ? 1.0 : speed / rated);
+  }
+
+  private double medianLatency(String rpc) {
+    List<Double> latencies = new ArrayList<>();
+    for (ServerStats stats : servers.values()) {
+      Stats s = stats.rpcs.get(rpc);
+      double latency = s == null ? -1 : s.getRecentLatency();
+      if (latency > 0) {
+        latencies.add(latency);
+      }
+    }
+    if (latencies.isEmpty()) {
+      return -1;
+    }
+    Collections.sort(latencies);
+    return latencies.get(latencies.size() / 2);
+  }
+
+  /**
+   * Shuffles servers so that less healthy servers tend to come later. The order is random, so many
+   * clients do not start on the same servers at once, but each server is weighted by its health.
+   * Work for servers that are slow or failing then tends to start after the work for their healthy
+   * peers.
+   */
+  public void shuffleByHealth(List<String> servers) {
+    Map<String,Double> medians = new HashMap<>();
+    Map<String,Double> keys = new HashMap<>();
+    for (String server : servers) {
+      // a random key weighted by health, sorting by it draws a weighted random permutation
+      double weight = Math.max(MIN_WEIGHT, health(server, medians));
+      keys.put(server, Math.pow(random.nextDouble(), 1.0 / weight));
+    }
+    servers.sort(Comparator.comparingDouble(server -> -keys.get(server)));
+  }
+
+  /**
+   * Creates a client for a server that times every RPC it calls
+   */
+  public <T extends TServiceClient> T createClient(TServiceClientFactory<T> factory, String server,
+      TProtocol in, TProtocol out) {
+    Call call = new Call(server);
+    return factory.getClient(new TimedInput(in, call), new TimedOutput(out, call));
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (Entry<String,ServerStats> entry : servers.entrySet()) {
+      sb.append(String.format("%s health=%.2f%n", entry.getKey(), getHealth(entry.getKey())));
+      entry.getValue().rpcs.forEach((rpc, s) -> sb.append("  ").append(rpc).append(' ')
+          .append(s.histogram).append(String.format("%n")));
+    }
+    return sb.toString();
+  }
+
+  // the call in progress on a client, shared by its input and output protocols
+  private static class Call {
+    final String server;
+    String rpc;
+    long start;
+
+    Call(String server) {
+      this.server = server;
+    }
+  }
+
+  private class TimedOutput extends TProtocolDecorator {
+    private final Call call;
+
+    TimedOutput(TProtocol protocol, Call call) {
+      super(protocol);
+      this.call = call;
+    }
+
+    @Override
+    public void writeMessageBegin(TMessage message) throws TException {
+      // one way calls have no response to time
+      call.rpc = message.type == TMessageType.ONEWAY ? null : message.name;
+      call.start = System.nanoTime();
+      super.writeMessageBegin(message);
+    }
+  }
+
+  private class TimedInput extends TProtocolDecorator {
+    private final Call call;
+
+    TimedInput(TProtocol protocol, Call call) {
+      super(protocol);
+      this.call = call;
+    }
+
+    @Override
+    public TMessage readMessageBegin() throws TException {
+      try {
+        return super.readMessageBegin();
+      } catch (TException | RuntimeException e) {
+        if (call.rpc != null) {
+          call.rpc = null;
+          recordFailure(call.server);
+        }
+        throw e;
+      }
+    }
+
+    @Override
+    public void readMessageEnd() throws TException {
+      super.readMessageEnd();
+      if (call.rpc != null) {
+        record(call.server, call.rpc, System.nanoTime() - call.start);
+        call.rpc = null;
+      }
+    }
+  }
+}
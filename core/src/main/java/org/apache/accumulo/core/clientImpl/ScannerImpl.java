@@ -20,6 +20,7 @@ package org.apache.accumulo.core.clientImpl;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -150,7 +151,11 @@ public class ScannerImpl extends ScannerOptions implements Scanner {
   @Override
   public synchronized Iterator<Entry<Key,Value>> iterator() {
     ensureOpen();
-    ScannerIterator iter = new ScannerIterator(context, tableId, authorizations, range, size,
+    Range scanRange = applyRowPrefix(range);
+    if (scanRange == null) {
+      return Collections.emptyIterator();
+    }
+    ScannerIterator iter = new ScannerIterator(context, tableId, authorizations, scanRange, size,
         getTimeout(TimeUnit.SECONDS), this, isolated, readaheadThreshold, new Reporter());
 
     iters.put(iter, iterCount++);
@@ -24,6 +24,7 @@ import static java.util.Objects.requireNonNull;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -35,12 +36,18 @@ import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.ScanPredicate;
 import org.apache.accumulo.core.client.ScannerBase;
 import org.apache.accumulo.core.client.sample.SamplerConfiguration;
 import org.apache.accumulo.core.data.Column;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.dataImpl.thrift.IterInfo;
+import org.apache.accumulo.core.iterators.user.CfCqSliceOpts;
+import org.apache.accumulo.core.iterators.user.CfCqSliceSeekingFilter;
+import org.apache.accumulo.core.iterators.user.RegExFilter;
+import org.apache.accumulo.core.iterators.user.TimestampFilter;
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.accumulo.core.util.TextUtil;
 import org.apache.hadoop.io.Text;
@@ -64,6 +71,12 @@ public class ScannerOptions implements ScannerBase {
 
   protected Map<String,String> executionHints = Collections.emptyMap();
 
+  private Text rowPrefix = null;
+
+  private static final String SLICE_ITER_NAME = "predicateColumnSlice";
+  private static final String TIMESTAMP_ITER_NAME = "predicateTimestamps";
+  private static final String VALUE_ITER_NAME = "predicateValues";
+
   protected ScannerOptions() {}
 
   public ScannerOptions(ScannerOptions so) {
@@ -77,11 +90,16 @@ public class ScannerOptions implements ScannerBase {
       serverSideIteratorList = new ArrayList<>();
     }
 
-    for (IterInfo ii : serverSideIteratorList) {
+    for (int i = 0; i < serverSideIteratorList.size(); i++) {
+      IterInfo ii = serverSideIteratorList.get(i);
       if (ii.iterName.equals(si.getName())) {
         throw new IllegalArgumentException("Iterator name is already in use " + si.getName());
       }
-      if (ii.getPriority() == si.getPriority()) {
+      if (ii.getPriority() == si.getPriority() && isPredicateIterator(ii.iterName)
+          && !isPredicateIterator(si.getName())) {
+        // the filters of a predicate give way to iterators set by the user
+        movePredicateIterator(i);
+      } else if (ii.getPriority() == si.getPriority()) {
         throw new IllegalArgumentException(
             "Iterator priority is already in use " + si.getPriority());
       }
@@ -96,6 +114,39 @@ public class ScannerOptions implements ScannerBase {
         .putAll(si.getOptions());
   }
 
+  private static boolean isPredicateIterator(String iterName) {
+    return iterName.equals(SLICE_ITER_NAME) || iterName.equals(TIMESTAMP_ITER_NAME)
+        || iterName.equals(VALUE_ITER_NAME);
+  }
+
+  /**
+   * Moves a predicate filter to the nearest free lower priority, so it stays above the iterators
+   * beneath it.
+   */
+  private void movePredicateIterator(int index) {
+    IterInfo ii = serverSideIteratorList.get(index);
+    int priority = freePredicatePriority(ii.getPriority());
+    // copies of this scanner's options share the IterInfo objects, so replace rather than modify
+    serverSideIteratorList.set(index, new IterInfo(priority, ii.getClassName(), ii.getIterName()));
+  }
+
+  private int freePredicatePriority(int priority) {
+    Set<Integer> used = new HashSet<>();
+    serverSideIteratorList.forEach(other -> used.add(other.getPriority()));
+    while (used.contains(priority)) {
+      priority--;
+    }
+    return priority;
+  }
+
+  /**
+   * Adds a predicate filter at the nearest free priority to the one it asks for
+   */
+  private void addPredicateIterator(IteratorSetting is) {
+    is.setPriority(freePredicatePriority(is.getPriority()));
+    addScanIterator(is);
+  }
+
   @Override
   public synchronized void removeScanIterator(String iteratorName) {
     checkArgument(iteratorName != null, "iteratorName is null");
@@ -160,6 +211,7 @@ public class ScannerOptions implements ScannerBase {
     serverSideIteratorList = Collections.emptyList();
     serverSideIteratorOptions = Collections.emptyMap();
     regexIterName = null;
+    rowPrefix = null;
   }
 
   protected static void setOptions(ScannerOptions dst, ScannerOptions src) {
@@ -181,6 +233,7 @@ public class ScannerOptions implements ScannerBase {
 
         // its an immutable map, so can avoid copy here
         dst.executionHints = src.executionHints;
+        dst.rowPrefix = src.rowPrefix;
       }
     }
   }
@@ -272,4 +325,63 @@ public class ScannerOptions implements ScannerBase {
     this.executionHints = Map.copyOf(Objects.requireNonNull(hints));
   }
 
+  @Override
+  public synchronized void setPredicate(ScanPredicate predicate) {
+    requireNonNull(predicate);
+    removeScanIterator(SLICE_ITER_NAME);
+    removeScanIterator(TIMESTAMP_ITER_NAME);
+    removeScanIterator(VALUE_ITER_NAME);
+
+    rowPrefix = predicate.getRowPrefix();
+
+    for (IteratorSetting.Column column : predicate.getColumns()) {
+      if (column.getColumnQualifier() == null) {
+        fetchColumnFamily(column.getColumnFamily());
+      } else {
+        fetchColumn(column);
+      }
+    }
+
+    String[] slice = predicate.getColumnSlice();
+    if (slice != null) {
+      IteratorSetting is = new IteratorSetting(ScanPredicate.SLICE_PRIORITY, SLICE_ITER_NAME,
+          CfCqSliceSeekingFilter.class);
+      String[] opts = {CfCqSliceOpts.OPT_MIN_CF, CfCqSliceOpts.OPT_MAX_CF, CfCqSliceOpts.OPT_MIN_CQ,
+          CfCqSliceOpts.OPT_MAX_CQ};
+      for (int i = 0; i < opts.length; i++) {
+        if (slice[i] != null) {
+          is.addOption(opts[i], slice[i]);
+        }
+      }
+      is.addOption(CfCqSliceOpts.OPT_MIN_INCLUSIVE, "true");
+      is.addOption(CfCqSliceOpts.OPT_MAX_INCLUSIVE, "true");
+      addPredicateIterator(is);
+    }
+
+    if (predicate.getMinTimestamp() != null) {
+      IteratorSetting is = new IteratorSetting(ScanPredicate.TIMESTAMP_PRIORITY,
+          TIMESTAMP_ITER_NAME, TimestampFilter.class);
+      TimestampFilter.setRange(is, predicate.getMinTimestamp(), true, predicate.getMaxTimestamp(),
+          true);
+      addPredicateIterator(is);
+    }
+
+    if (predicate.getValueRegex() != null) {
+      IteratorSetting is =
+          new IteratorSetting(ScanPredicate.VALUE_PRIORITY, VALUE_ITER_NAME, RegExFilter.class);
+      RegExFilter.setRegexs(is, null, null, null, predicate.getValueRegex(), false);
+      addPredicateIterator(is);
+    }
+  }
+
+  /**
+   * @return the part of a range that holds rows with the row prefix of the predicate, or null if no
+   *         rows in the range have the prefix
+   */
+  protected synchronized Range applyRowPrefix(Range range) {
+    if (rowPrefix == null) {
+      return range;
+    }
+    return Range.prefix(rowPrefix).clip(range, true);
+  }
 }
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.accumulo.core.clientImpl.TabletLocator.TabletLocation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.hadoop.io.Writable;
+
+/**
+ * A saved copy of cached tablet locations. A process that has located the tablets of a table, such
+ * as a MapReduce job driver, can capture a snapshot and hand it to short lived processes, such as
+ * the job's tasks. Loading the snapshot lets them skip reading the metadata table for locations
+ * that are still current. Stale locations are found and looked up again the same way as any other
+ * stale cache entry.
+ */
+public class TabletLocationSnapshot implements Writable {
+
+  private static final byte VERSION = 1;
+
+  private List<TabletLocation> locations;
+
+  public TabletLocationSnapshot() {
+    this.locations = Collections.emptyList();
+  }
+
+  public TabletLocationSnapshot(List<TabletLocation> locations) {
+    this.locations = locations;
+  }
+
+  /**
+   * Captures the cached locations of the tablets that overlap a range. Locators that do not cache
+   * locations give an empty snapshot.
+   */
+  public static TabletLocationSnapshot capture(TabletLocator locator, Range range) {
+    if (locator instanceof TabletLocatorImpl) {
+      return new TabletLocationSnapshot(((TabletLocatorImpl) locator).getCachedLocations(range));
+    }
+    return new TabletLocationSnapshot();
+  }
+
+  /**
+   * Adds the locations in this snapshot to the cache of a locator
+   */
+  public void loadInto(TabletLocator locator) {
+    if (locator instanceof TabletLocatorImpl && !locations.isEmpty()) {
+      ((TabletLocatorImpl) locator).preloadCache(locations);
+    }
+  }
+
+  public List<TabletLocation> getLocations() {
+    return Collections.unmodifiableList(locations);
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    out.writeByte(VERSION);
+    out.writeInt(locations.size());
+    for (TabletLocation tl : locations) {
+      tl.tablet_extent.write(out);
+      out.writeUTF(tl.tablet_location);
+      out.writeUTF(tl.tablet_session);
+    }
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    byte version = in.readByte();
+    if (version != VERSION) {
+      throw new IOException("Unknown tablet location snapshot version " + version);
+    }
+    int size = in.readInt();
+    locations = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      KeyExtent extent = new KeyExtent();
+      extent.readFields(in);
+      locations.add(new TabletLocation(extent, in.readUTF(), in.readUTF()));
+    }
+  }
+
+  @Override
+  public String toString() {
+    return locations.toString();
+  }
+}
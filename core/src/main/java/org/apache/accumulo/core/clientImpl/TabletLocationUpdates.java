@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.accumulo.core.Constants;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.fate.zookeeper.ZooCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A feed of the most recent changes to the locations of the tablets of a table, kept in ZooKeeper.
+ * Tablet servers add an update to the feed when they load, split or unload a tablet. Clients watch
+ * the feed through their {@link ZooCache} and apply the updates to their cached locations, so they
+ * learn that a tablet moved without a failed call and a metadata lookup.
+ *
+ * <p>
+ * Each update is a small sequential node under the feed, so publishing an update is a single create
+ * that does not contend with other tablet servers publishing to the same table. Publishers delete
+ * the updates that are more than {@link #MAX_UPDATES} behind the newest one every
+ * {@link #COMPACT_INTERVAL} updates. A client that misses updates still finds out about the moved
+ * tablets the usual way, when a call to the old location fails.
+ */
+public class TabletLocationUpdates {
+
+  private static final Logger log = LoggerFactory.getLogger(TabletLocationUpdates.class);
+
+  public static final int MAX_UPDATES = 1000;
+
+  public static final int COMPACT_INTERVAL = 100;
+
+  // ZooKeeper appends the sequence number of the update to this name
+  public static final String UPDATE_PREFIX = "update-";
+
+  public static class Update {
+    private final KeyExtent extent;
+    private final String location;
+    private final String session;
+
+    Update(KeyExtent extent, String location, String session) {
+      this.extent = extent;
+      this.location = location;
+      this.session = session;
+    }
+
+    public KeyExtent getExtent() {
+      return extent;
+    }
+
+    /**
+     * @return the tablet's new location, or null when it was unloaded
+     */
+    public String getLocation() {
+      return location;
+    }
+
+    public String getSession() {
+      return session;
+    }
+  }
+
+  private final ZooCache zooCache;
+  private final String path;
+  // the updates in the feed and the sequence number of the newest when it was last polled
+  private volatile List<String> lastUpdates;
+  private long lastSeq;
+
+  TabletLocationUpdates(ZooCache zooCache, String path) {
+    this.zooCache = zooCache;
+    this.path = path;
+    // only updates made after the locations started being cached are of interest
+    this.lastUpdates = zooCache.getChildren(path);
+    this.lastSeq = maxSequence(lastUpdates);
+  }
+
+  public static String path(String zooKeeperRoot, TableId tableId) {
+    return zooKeeperRoot + Constants.ZTABLES + "/" + tableId.canonical()
+        + Constants.ZTABLE_LOCATION_UPDATES;
+  }
+
+  /**
+   * @return true if the feed changed since it was last polled, which is cheap to check
+   */
+  boolean hasChanged() {
+    return zooCache.getChildren(path) != lastUpdates;
+  }
+
+  /**
+   * Gets the updates added to the feed since it was last polled, oldest first. Must not be called
+   * by more than one thread at a time.
+   */
+  List<Update> poll() {
+    List<String> names = zooCache.getChildren(path);
+    if (names == lastUpdates) {
+      return Collections.emptyList();
+    }
+    lastUpdates = names;
+
+    List<String> newNames = new ArrayList<>();
+    for (String name : names == null ? Collections.<String>emptyList() : names) {
+      if (sequence(name) > lastSeq) {
+        newNames.add(name);
+      }
+    }
+    newNames.sort((n1, n2) -> Long.compare(sequence(n1), sequence(n2)));
+
+    List<Update> updates = new ArrayList<>(newNames.size());
+    for (String name : newNames) {
+      lastSeq = sequence(name);
+      byte[] data = zooCache.get(path + "/" + name);
+      if (data == null) {
+        // deleted by a publisher since the feed was listed
+        continue;
+      }
+      try {
+        updates.add(decode(data));
+      } catch (IOException e) {
+        log.warn("Ignoring unreadable tablet location update {}/{}", path, name, e);
+      }
+    }
+    return updates;
+  }
+
+  /**
+   * @return the sequence number ZooKeeper gave the update with the given node name, or -1 if the
+   *         node is not an update
+   */
+  public static long sequence(String name) {
+    int index = name.lastIndexOf(UPDATE_PREFIX);
+    if (index < 0) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(name.substring(index + UPDATE_PREFIX.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static long maxSequence(List<String> names) {
+    long max = -1;
+    if (names != null) {
+      for (String name : names) {
+        max = Math.max(max, sequence(name));
+      }
+    }
+    return max;
+  }
+
+  /**
+   * @return the names of the updates in the feed that are more than {@link #MAX_UPDATES} behind the
+   *         update with the given sequence number
+   */
+  public static List<String> expired(List<String> names, long newestSeq) {
+    List<String> expired = new ArrayList<>();
+    for (String name : names) {
+      long seq = sequence(name);
+      if (seq >= 0 && seq <= newestSeq - MAX_UPDATES) {
+        expired.add(name);
+      }
+    }
+    return expired;
+  }
+
+  /**
+   * Encodes an update for a tablet.
+   *
+   * @param location
+   *          the tablet's new location, or null if it was unloaded
+   */
+  public static byte[] encode(KeyExtent extent, String location, String session) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      extent.write(out);
+      out.writeBoolean(location != null);
+      if (location != null) {
+        out.writeUTF(location);
+        out.writeUTF(session);
+      }
+      out.close();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  static Update decode(byte[] data) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+    KeyExtent extent = new KeyExtent();
+    extent.readFields(in);
+    String location = null;
+    String session = null;
+    if (in.readBoolean()) {
+      location = in.readUTF();
+      session = in.readUTF();
+    }
+    return new Update(extent, location, session);
+  }
+}
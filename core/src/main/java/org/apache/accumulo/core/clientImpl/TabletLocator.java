@@ -31,6 +31,7 @@ import java.util.WeakHashMap;
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
 import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.TableId;
@@ -146,8 +147,13 @@ public abstract class TabletLocator {
         tl = new TabletLocatorImpl(MetadataTable.ID, getLocator(context, RootTable.ID), mlo,
             new ZookeeperLockChecker(context));
       } else {
+        TabletLocationUpdates updates = null;
+        if (context.getConfiguration().getBoolean(Property.GENERAL_TABLET_LOCATION_UPDATES)) {
+          updates = new TabletLocationUpdates(context.getZooCache(),
+              TabletLocationUpdates.path(context.getZooKeeperRoot(), tableId));
+        }
         tl = new TabletLocatorImpl(tableId, getLocator(context, MetadataTable.ID), mlo,
-            new ZookeeperLockChecker(context));
+            new ZookeeperLockChecker(context), updates);
       }
       locators.put(key, tl);
     }
@@ -30,12 +30,13 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableMap;
 import java.util.SortedMap;
-import java.util.TreeMap;
-import java.util.TreeSet;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
@@ -54,8 +55,13 @@ import org.apache.hadoop.io.WritableComparator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-
+/**
+ * Caches the locations of the tablets of a table. The cache is read without locking, so binning
+ * mutations and ranges that are already cached never waits on other threads. Updating the cache, by
+ * looking up missing locations or refreshing invalidated ones, is done by one thread at a time;
+ * threads that miss the cache at the same time wait for that lookup and then find its result in the
+ * cache instead of each looking the same locations up again.
+ */
 public class TabletLocatorImpl extends TabletLocator {
 
   private static final Logger log = LoggerFactory.getLogger(TabletLocatorImpl.class);
@@ -77,15 +83,16 @@ public class TabletLocatorImpl extends TabletLocator {
 
   protected TableId tableId;
   protected TabletLocator parent;
-  protected TreeMap<Text,TabletLocation> metaCache = new TreeMap<>(END_ROW_COMPARATOR);
+  protected NavigableMap<Text,TabletLocation> metaCache =
+      new ConcurrentSkipListMap<>(END_ROW_COMPARATOR);
   protected TabletLocationObtainer locationObtainer;
   private TabletServerLockChecker lockChecker;
+  private final TabletLocationUpdates locationUpdates;
   protected Text lastTabletRow;
 
-  private TreeSet<KeyExtent> badExtents = new TreeSet<>();
-  private ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
-  private final Lock rLock = rwLock.readLock();
-  private final Lock wLock = rwLock.writeLock();
+  private final SortedSet<KeyExtent> badExtents = new ConcurrentSkipListSet<>();
+  // held while updating the cache, reading it needs no lock
+  private final ReentrantLock updateLock = new ReentrantLock();
 
   public interface TabletLocationObtainer {
     /**
@@ -145,10 +152,20 @@ public class TabletLocatorImpl extends TabletLocator {
 
   public TabletLocatorImpl(TableId tableId, TabletLocator parent, TabletLocationObtainer tlo,
       TabletServerLockChecker tslc) {
+    this(tableId, parent, tlo, tslc, null);
+  }
+
+  /**
+   * @param updates
+   *          tablet location changes to apply to the cache as they are published, may be null
+   */
+  public TabletLocatorImpl(TableId tableId, TabletLocator parent, TabletLocationObtainer tlo,
+      TabletServerLockChecker tslc, TabletLocationUpdates updates) {
     this.tableId = tableId;
     this.parent = parent;
     this.locationObtainer = tlo;
     this.lockChecker = tslc;
+    this.locationUpdates = updates;
 
     this.lastTabletRow = new Text(tableId.canonical());
     lastTabletRow.append(new byte[] {'<'}, 0, 1);
@@ -172,33 +189,28 @@ public class TabletLocatorImpl extends TabletLocator {
 
     LockCheckerSession lcSession = new LockCheckerSession();
 
-    rLock.lock();
-    try {
-      processInvalidated(context, lcSession);
+    processInvalidated(context, lcSession);
 
-      // for this to be efficient rows need to be in sorted order, but always sorting is slow...
-      // therefore only sort the
-      // stuff not in the cache.... it is most efficient to pass _locateTablet rows in sorted order
+    // for this to be efficient rows need to be in sorted order, but always sorting is slow...
+    // therefore only sort the
+    // stuff not in the cache.... it is most efficient to pass _locateTablet rows in sorted order
 
-      // For this to be efficient, need to avoid fine grained synchronization and fine grained
-      // logging.
-      // Therefore methods called by this are not synchronized and should not log.
+    // For this to be efficient, need to avoid fine grained synchronization and fine grained
+    // logging.
+    // Therefore methods called by this are not synchronized and should not log.
 
-      for (T mutation : mutations) {
-        row.set(mutation.getRow());
-        TabletLocation tl = locateTabletInCache(row);
-        if (tl == null || !addMutation(binnedMutations, mutation, tl, lcSession))
-          notInCache.add(mutation);
-      }
-    } finally {
-      rLock.unlock();
+    for (T mutation : mutations) {
+      row.set(mutation.getRow());
+      TabletLocation tl = locateTabletInCache(row);
+      if (tl == null || !addMutation(binnedMutations, mutation, tl, lcSession))
+        notInCache.add(mutation);
     }
 
     if (!notInCache.isEmpty()) {
       notInCache.sort((o1, o2) -> WritableComparator.compareBytes(o1.getRow(), 0,
           o1.getRow().length, o2.getRow(), 0, o2.getRow().length));
 
-      wLock.lock();
+      updateLock.lock();
       try {
         boolean failed = false;
         for (T mutation : notInCache) {
@@ -219,7 +231,7 @@ public class TabletLocatorImpl extends TabletLocator {
           }
         }
       } finally {
-        wLock.unlock();
+        updateLock.unlock();
       }
     }
 
@@ -341,31 +353,25 @@ public class TabletLocatorImpl extends TabletLocator {
 
     LockCheckerSession lcSession = new LockCheckerSession();
 
-    List<Range> failures;
-    rLock.lock();
-    try {
-      processInvalidated(context, lcSession);
+    processInvalidated(context, lcSession);
 
-      // for this to be optimal, need to look ranges up in sorted order when
-      // ranges are not present in cache... however do not want to always
-      // sort ranges... therefore try binning ranges using only the cache
-      // and sort whatever fails and retry
+    // for this to be optimal, need to look ranges up in sorted order when
+    // ranges are not present in cache... however do not want to always
+    // sort ranges... therefore try binning ranges using only the cache
+    // and sort whatever fails and retry
 
-      failures = binRanges(context, ranges, binnedRanges, true, lcSession);
-    } finally {
-      rLock.unlock();
-    }
+    List<Range> failures = binRanges(context, ranges, binnedRanges, true, lcSession);
 
     if (!failures.isEmpty()) {
       // sort failures by range start key
       Collections.sort(failures);
 
       // try lookups again
-      wLock.lock();
+      updateLock.lock();
       try {
         failures = binRanges(context, failures, binnedRanges, false, lcSession);
       } finally {
-        wLock.unlock();
+        updateLock.unlock();
       }
     }
 
@@ -381,24 +387,14 @@ public class TabletLocatorImpl extends TabletLocator {
 
   @Override
   public void invalidateCache(KeyExtent failedExtent) {
-    wLock.lock();
-    try {
-      badExtents.add(failedExtent);
-    } finally {
-      wLock.unlock();
-    }
+    badExtents.add(failedExtent);
     if (log.isTraceEnabled())
       log.trace("Invalidated extent={}", failedExtent);
   }
 
   @Override
   public void invalidateCache(Collection<KeyExtent> keySet) {
-    wLock.lock();
-    try {
-      badExtents.addAll(keySet);
-    } finally {
-      wLock.unlock();
-    }
+    badExtents.addAll(keySet);
     if (log.isTraceEnabled())
       log.trace("Invalidated {} cache entries for table {}", keySet.size(), tableId);
   }
@@ -407,16 +403,11 @@ public class TabletLocatorImpl extends TabletLocator {
   public void invalidateCache(ClientContext context, String server) {
     int invalidatedCount = 0;
 
-    wLock.lock();
-    try {
-      for (TabletLocation cacheEntry : metaCache.values())
-        if (cacheEntry.tablet_location.equals(server)) {
-          badExtents.add(cacheEntry.tablet_extent);
-          invalidatedCount++;
-        }
-    } finally {
-      wLock.unlock();
-    }
+    for (TabletLocation cacheEntry : metaCache.values())
+      if (cacheEntry.tablet_location.equals(server)) {
+        badExtents.add(cacheEntry.tablet_extent);
+        invalidatedCount++;
+      }
 
     lockChecker.invalidateCache(server);
 
@@ -428,16 +419,62 @@ public class TabletLocatorImpl extends TabletLocator {
 
   @Override
   public void invalidateCache() {
-    int invalidatedCount;
-    wLock.lock();
+    int invalidatedCount = metaCache.size();
+    metaCache.clear();
+    if (log.isTraceEnabled())
+      log.trace("invalidated all {} cache entries for table={}", invalidatedCount, tableId);
+  }
+
+  /**
+   * @return the cached locations of the tablets that overlap a range, in row order
+   */
+  public List<TabletLocation> getCachedLocations(Range range) {
+    Collection<TabletLocation> candidates = range.isInfiniteStartKey() ? metaCache.values()
+        : metaCache.tailMap(range.getStartKey().getRow()).values();
+    List<TabletLocation> locations = new ArrayList<>();
+    for (TabletLocation tl : candidates) {
+      if (range.clip(tl.tablet_extent.toDataRange(), true) != null) {
+        locations.add(tl);
+      } else if (!locations.isEmpty()) {
+        break;
+      }
+    }
+    return locations;
+  }
+
+  /**
+   * Adds locations saved earlier, for example by another process, to the cache. Like any cached
+   * location they are checked against the tablet server lock when used and are looked up again when
+   * the server no longer serves the tablet. Locations for tablets that overlap a tablet which is
+   * already cached are ignored, since the cache is more recent.
+   */
+  public void preloadCache(Collection<TabletLocation> locations) {
+    updateLock.lock();
     try {
-      invalidatedCount = metaCache.size();
-      metaCache.clear();
+      int loaded = 0;
+      for (TabletLocation tl : locations) {
+        if (tl.tablet_extent.getTableId().equals(tableId) && !overlapsCache(tl.tablet_extent)) {
+          Text er = tl.tablet_extent.getEndRow();
+          metaCache.put(er == null ? MAX_TEXT : er, tl);
+          loaded++;
+        }
+      }
+      if (log.isTraceEnabled())
+        log.trace("Preloaded {} of {} cache entries for table={}", loaded, locations.size(),
+            tableId);
     } finally {
-      wLock.unlock();
+      updateLock.unlock();
     }
-    if (log.isTraceEnabled())
-      log.trace("invalidated all {} cache entries for table={}", invalidatedCount, tableId);
+  }
+
+  private boolean overlapsCache(KeyExtent ke) {
+    Text start = ke.getPrevEndRow() == null ? new Text() : rowAfterPrevRow(ke);
+    Entry<Text,TabletLocation> entry = metaCache.ceilingEntry(start);
+    if (entry == null) {
+      return false;
+    }
+    Text prevEndRow = entry.getValue().tablet_extent.getPrevEndRow();
+    return ke.getEndRow() == null || prevEndRow == null || prevEndRow.compareTo(ke.getEndRow()) < 0;
   }
 
   @Override
@@ -565,7 +602,7 @@ public class TabletLocatorImpl extends TabletLocator {
       removeOverlapping(badExtents, tabletLocation.tablet_extent);
   }
 
-  static void removeOverlapping(TreeMap<Text,TabletLocation> metaCache, KeyExtent nke) {
+  static void removeOverlapping(NavigableMap<Text,TabletLocation> metaCache, KeyExtent nke) {
     Iterator<Entry<Text,TabletLocation>> iter = null;
 
     if (nke.getPrevEndRow() == null) {
@@ -589,6 +626,12 @@ public class TabletLocatorImpl extends TabletLocator {
     }
   }
 
+  static void removeOverlapping(SortedSet<KeyExtent> extents, KeyExtent nke) {
+    for (KeyExtent overlapping : KeyExtent.findOverlapping(nke, extents)) {
+      extents.remove(overlapping);
+    }
+  }
+
   private static boolean stopRemoving(KeyExtent nke, KeyExtent ke) {
     return ke.getPrevEndRow() != null && nke.getEndRow() != null
         && ke.getPrevEndRow().compareTo(nke.getEndRow()) >= 0;
@@ -600,12 +643,6 @@ public class TabletLocatorImpl extends TabletLocator {
     return row;
   }
 
-  static void removeOverlapping(TreeSet<KeyExtent> extents, KeyExtent nke) {
-    for (KeyExtent overlapping : KeyExtent.findOverlapping(nke, extents)) {
-      extents.remove(overlapping);
-    }
-  }
-
   private TabletLocation locateTabletInCache(Text row) {
 
     Entry<Text,TabletLocation> entry = metaCache.ceilingEntry(row);
@@ -628,27 +665,19 @@ public class TabletLocatorImpl extends TabletLocator {
       row.append(new byte[] {0}, 0, 1);
     }
 
-    TabletLocation tl;
-
-    if (lock) {
-      rLock.lock();
-      try {
-        tl = processInvalidatedAndCheckLock(context, lcSession, row);
-      } finally {
-        rLock.unlock();
-      }
-    } else {
-      tl = processInvalidatedAndCheckLock(context, lcSession, row);
-    }
+    TabletLocation tl = processInvalidatedAndCheckLock(context, lcSession, row);
 
     if (tl == null) {
       // not in cache, so obtain info
       if (lock) {
-        wLock.lock();
+        updateLock.lock();
         try {
-          tl = lookupTabletLocationAndCheckLock(context, row, retry, lcSession);
+          // another thread may have looked the row up while this one waited
+          tl = lcSession.checkLock(locateTabletInCache(row));
+          if (tl == null)
+            tl = lookupTabletLocationAndCheckLock(context, row, retry, lcSession);
         } finally {
-          wLock.unlock();
+          updateLock.unlock();
         }
       } else {
         tl = lookupTabletLocationAndCheckLock(context, row, retry, lcSession);
@@ -672,26 +701,26 @@ public class TabletLocatorImpl extends TabletLocator {
     return lcSession.checkLock(locateTabletInCache(row));
   }
 
-  @SuppressFBWarnings(value = {"UL_UNRELEASED_LOCK", "UL_UNRELEASED_LOCK_EXCEPTION_PATH"},
-      justification = "locking is confusing, but probably correct")
   private void processInvalidated(ClientContext context, LockCheckerSession lcSession)
       throws AccumuloSecurityException, AccumuloException, TableNotFoundException {
 
+    if (locationUpdates != null && locationUpdates.hasChanged())
+      processLocationUpdates(lcSession);
+
     if (badExtents.isEmpty())
       return;
 
-    final boolean writeLockHeld = rwLock.isWriteLockedByCurrentThread();
+    updateLock.lock();
     try {
-      if (!writeLockHeld) {
-        rLock.unlock();
-        wLock.lock();
-        if (badExtents.isEmpty())
-          return;
-      }
+      // extents invalidated while this runs are left for the next call
+      List<KeyExtent> invalidated = new ArrayList<>(badExtents);
+      if (invalidated.isEmpty())
+        return;
+      badExtents.removeAll(invalidated);
 
-      List<Range> lookups = new ArrayList<>(badExtents.size());
+      List<Range> lookups = new ArrayList<>(invalidated.size());
 
-      for (KeyExtent be : badExtents) {
+      for (KeyExtent be : invalidated) {
         lookups.add(be.toMetadataRange());
         removeOverlapping(metaCache, be);
       }
@@ -715,10 +744,28 @@ public class TabletLocatorImpl extends TabletLocator {
         }
       }
     } finally {
-      if (!writeLockHeld) {
-        rLock.lock();
-        wLock.unlock();
+      updateLock.unlock();
+    }
+  }
+
+  private void processLocationUpdates(LockCheckerSession lcSession) {
+    updateLock.lock();
+    try {
+      List<TabletLocationUpdates.Update> updates = locationUpdates.poll();
+      for (TabletLocationUpdates.Update update : updates) {
+        if (update.getLocation() == null) {
+          // the tablet is being moved, look it up again when it is next used
+          removeOverlapping(metaCache, update.getExtent());
+        } else {
+          updateCache(
+              new TabletLocation(update.getExtent(), update.getLocation(), update.getSession()),
+              lcSession);
+        }
       }
+      if (!updates.isEmpty() && log.isTraceEnabled())
+        log.trace("Applied {} published location updates for table {}", updates.size(), tableId);
+    } finally {
+      updateLock.unlock();
     }
   }
 
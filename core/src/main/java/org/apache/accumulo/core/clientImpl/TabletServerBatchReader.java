@@ -23,6 +23,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import java.lang.ref.Cleaner.Cleanable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -112,7 +113,18 @@ public class TabletServerBatchReader extends ScannerOptions implements BatchScan
       throw new IllegalStateException("batch reader closed");
     }
 
-    return new TabletServerBatchReaderIterator(context, tableId, authorizations, ranges, numThreads,
-        queryThreadPool, this, timeOut);
+    ArrayList<Range> scanRanges = new ArrayList<>(ranges.size());
+    for (Range range : ranges) {
+      Range scanRange = applyRowPrefix(range);
+      if (scanRange != null) {
+        scanRanges.add(scanRange);
+      }
+    }
+    if (scanRanges.isEmpty()) {
+      return Collections.emptyIterator();
+    }
+
+    return new TabletServerBatchReaderIterator(context, tableId, authorizations, scanRanges,
+        numThreads, queryThreadPool, this, timeOut);
   }
 }
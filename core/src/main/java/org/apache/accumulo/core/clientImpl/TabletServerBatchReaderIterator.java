@@ -488,9 +488,9 @@ public class TabletServerBatchReaderIterator implements Iterator<Entry<Key,Value
     }
 
     // randomize tabletserver order... this will help when there are multiple
-    // batch readers and writers running against accumulo
+    // batch readers and writers running against accumulo. Unhealthy servers tend to go last.
     List<String> locations = new ArrayList<>(binnedRanges.keySet());
-    Collections.shuffle(locations);
+    context.getRpcLatencyTracker().shuffleByHealth(locations);
 
     List<QueryTask> queryTasks = new ArrayList<>();
 
@@ -767,9 +767,9 @@ public class TabletServerBatchWriter implements AutoCloseable {
         log.trace(String.format("Started sending %,d mutations to %,d tablet servers", count,
             binnedMutations.keySet().size()));
 
-      // randomize order of servers
+      // randomize order of servers, unhealthy servers tend to go last
       ArrayList<String> servers = new ArrayList<>(binnedMutations.keySet());
-      Collections.shuffle(servers);
+      context.getRpcLatencyTracker().shuffleByHealth(servers);
 
       for (String server : servers)
         if (!queued.contains(server)) {
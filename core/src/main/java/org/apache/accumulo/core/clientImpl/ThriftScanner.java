@@ -51,10 +51,10 @@ import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.TableId;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.dataImpl.ScanResultEncoding;
 import org.apache.accumulo.core.dataImpl.thrift.InitialScan;
 import org.apache.accumulo.core.dataImpl.thrift.IterInfo;
 import org.apache.accumulo.core.dataImpl.thrift.ScanResult;
-import org.apache.accumulo.core.dataImpl.thrift.TKeyValue;
 import org.apache.accumulo.core.master.state.tables.TableState;
 import org.apache.accumulo.core.rpc.ThriftUtil;
 import org.apache.accumulo.core.sample.impl.SamplerConfigurationImpl;
@@ -117,14 +117,12 @@ public class ThriftScanner {
             scanState.size, scanState.serverSideIteratorList, scanState.serverSideIteratorOptions,
             scanState.authorizations.getAuthorizationsBB(), waitForWrites, scanState.isolated,
             scanState.readaheadThreshold, null, scanState.batchTimeOut, classLoaderContext,
-            scanState.executionHints);
+            scanState.executionHints, true);
         if (waitForWrites)
           serversWaitedForWrites.get(ttype).add(server);
 
-        Key.decompress(isr.result.results);
-
-        for (TKeyValue kv : isr.result.results)
-          results.put(new Key(kv.key), new Value(kv.value));
+        for (KeyValue kv : ScanResultEncoding.fromThrift(isr.result))
+          results.put(kv.getKey(), kv.getValue());
 
         client.closeScan(tinfo, isr.scanID);
 
@@ -462,7 +460,7 @@ public class ThriftScanner {
                 scanState.serverSideIteratorOptions, scanState.authorizations.getAuthorizationsBB(),
                 waitForWrites, scanState.isolated, scanState.readaheadThreshold,
                 SamplerConfigurationImpl.toThrift(scanState.samplerConfig), scanState.batchTimeOut,
-                scanState.classLoaderContext, scanState.executionHints);
+                scanState.classLoaderContext, scanState.executionHints, true);
         if (waitForWrites)
           serversWaitedForWrites.get(ttype).add(loc.tablet_location);
 
@@ -491,12 +489,14 @@ public class ThriftScanner {
         }
       }
 
+      List<KeyValue> results = ScanResultEncoding.fromThrift(sr);
+
       if (sr.more) {
         if (timer != null) {
           timer.stop();
           log.trace("tid={} Finished scan in {} #results={} scanid={}",
               Thread.currentThread().getId(),
-              String.format("%.3f secs", timer.scale(TimeUnit.SECONDS)), sr.results.size(),
+              String.format("%.3f secs", timer.scale(TimeUnit.SECONDS)), results.size(),
               scanState.scanID);
         }
       } else {
@@ -509,7 +509,7 @@ public class ThriftScanner {
             timer.stop();
             log.trace("tid={} Completely finished scan in {} #results={}",
                 Thread.currentThread().getId(),
-                String.format("%.3f secs", timer.scale(TimeUnit.SECONDS)), sr.results.size());
+                String.format("%.3f secs", timer.scale(TimeUnit.SECONDS)), results.size());
           }
 
         } else if (scanState.range.getEndKey() == null || !scanState.range
@@ -521,7 +521,7 @@ public class ThriftScanner {
             timer.stop();
             log.trace("tid={} Finished scanning tablet in {} #results={}",
                 Thread.currentThread().getId(),
-                String.format("%.3f secs", timer.scale(TimeUnit.SECONDS)), sr.results.size());
+                String.format("%.3f secs", timer.scale(TimeUnit.SECONDS)), results.size());
           }
         } else {
           scanState.finished = true;
@@ -529,21 +529,15 @@ public class ThriftScanner {
             timer.stop();
             log.trace("tid={} Completely finished in {} #results={}",
                 Thread.currentThread().getId(),
-                String.format("%.3f secs", timer.scale(TimeUnit.SECONDS)), sr.results.size());
+                String.format("%.3f secs", timer.scale(TimeUnit.SECONDS)), results.size());
           }
         }
       }
 
-      Key.decompress(sr.results);
-
-      if (!sr.results.isEmpty() && !scanState.finished)
-        scanState.range = new Range(new Key(sr.results.get(sr.results.size() - 1).key), false,
+      if (!results.isEmpty() && !scanState.finished)
+        scanState.range = new Range(ScanResultEncoding.lastKey(results), false,
             scanState.range.getEndKey(), scanState.range.isEndKeyInclusive());
 
-      List<KeyValue> results = new ArrayList<>(sr.results.size());
-      for (TKeyValue tkv : sr.results)
-        results.add(new KeyValue(new Key(tkv.key), tkv.value));
-
       return results;
 
     } catch (ThriftSecurityException e) {
@@ -36,6 +36,9 @@ import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.rpc.CompressedTransport;
+import org.apache.accumulo.core.rpc.MultiplexedConnection;
 import org.apache.accumulo.core.rpc.ThriftUtil;
 import org.apache.accumulo.core.singletons.SingletonManager;
 import org.apache.accumulo.core.singletons.SingletonService;
@@ -359,6 +362,9 @@ public class ThriftTransportPool {
 
   private final ConnectionPool connectionPool = new ConnectionPool();
 
+  private final Map<HostAndPort,MultiplexedConnection[]> multiplexedConnections = new HashMap<>();
+  private int nextMultiplexedConnection = 0;
+
   private Map<ThriftTransportKey,Long> errorCount = new HashMap<>();
   private Map<ThriftTransportKey,Long> errorTime = new HashMap<>();
   private Set<ThriftTransportKey> serversWarnedAbout = new HashSet<>();
@@ -666,6 +672,11 @@ public class ThriftTransportPool {
     // compute hash code outside of lock, this lowers the time the lock is held
     cacheKey.precomputeHashCode();
 
+    int multiplexedConnections = context.getRpcMultiplexedConnections();
+    if (multiplexedConnections > 0 && !cacheKey.isSsl() && !cacheKey.isSasl()) {
+      return getMultiplexedTransport(cacheKey, multiplexedConnections, context);
+    }
+
     ConnectionPool pool = getConnectionPool();
     CachedConnection connection = pool.reserveAny(cacheKey);
 
@@ -677,6 +688,49 @@ public class ThriftTransportPool {
     }
   }
 
+  /**
+   * Gets a stream over one of the multiplexed connections to a server. The connections are shared
+   * by all callers and used round robin, so the number of sockets to a server stays fixed no matter
+   * how many calls are made to it concurrently.
+   */
+  private TTransport getMultiplexedTransport(ThriftTransportKey cacheKey, int connections,
+      ClientContext context) throws TTransportException {
+    HostAndPort server = cacheKey.getServer();
+    MultiplexedConnection[] serverConnections;
+    int slot;
+    MultiplexedConnection connection;
+    synchronized (multiplexedConnections) {
+      if (getConnectionPool().shutdown) {
+        throw new TransportPoolShutdownException(
+            "The Accumulo singleton for connection pooling is disabled.");
+      }
+      serverConnections = multiplexedConnections.computeIfAbsent(server,
+          k -> new MultiplexedConnection[connections]);
+      slot = Math.floorMod(nextMultiplexedConnection++, serverConnections.length);
+      connection = serverConnections[slot];
+    }
+
+    if (connection == null || !connection.isOpen()) {
+      // connect outside of the lock, and use the connection another thread made in the meantime
+      long maxFrameSize = context.getConfiguration().getAsBytes(Property.GENERAL_MAX_MESSAGE_SIZE);
+      MultiplexedConnection opened =
+          MultiplexedConnection.open(server, (int) cacheKey.getTimeout(), maxFrameSize);
+      log.trace("Creating new multiplexed connection to {}", server);
+      synchronized (multiplexedConnections) {
+        MultiplexedConnection current = serverConnections[slot];
+        if (current != null && current != connection && current.isOpen()) {
+          opened.close();
+          connection = current;
+        } else {
+          serverConnections[slot] = opened;
+          connection = opened;
+        }
+      }
+    }
+
+    return connection.newTransport(cacheKey.getTimeout());
+  }
+
   @VisibleForTesting
   public Pair<String,TTransport> getAnyTransport(List<ThriftTransportKey> servers,
       boolean preferCachedConnection) throws TTransportException {
@@ -760,6 +814,16 @@ public class ThriftTransportPool {
       return;
     }
 
+    if (transport instanceof CompressedTransport) {
+      transport = ((CompressedTransport) transport).getWrapped();
+    }
+
+    if (!(transport instanceof CachedTTransport)) {
+      // a stream over a multiplexed connection, the connection itself stays open for other callers
+      transport.close();
+      return;
+    }
+
     CachedTTransport cachedTransport = (CachedTTransport) transport;
     ArrayList<CachedConnection> closeList = new ArrayList<>();
     ConnectionPool pool = getConnectionPool();
@@ -876,6 +940,7 @@ public class ThriftTransportPool {
 
     ConnectionPool pool = getConnectionPool();
     expiredConnections = pool.removeExpiredConnections(killTime);
+    List<MultiplexedConnection> expiredMultiplexed = removeExpiredMultiplexedConnections();
 
     synchronized (errorCount) {
       Iterator<Entry<ThriftTransportKey,Long>> iter = errorTime.entrySet().iterator();
@@ -891,10 +956,48 @@ public class ThriftTransportPool {
 
     // Close connections outside of sync block
     expiredConnections.forEach((c) -> c.transport.close());
+    expiredMultiplexed.forEach(MultiplexedConnection::close);
+  }
+
+  /**
+   * Removes multiplexed connections that failed or have been idle for longer than the kill time,
+   * and forgets servers that no longer have any connections.
+   */
+  private List<MultiplexedConnection> removeExpiredMultiplexedConnections() {
+    List<MultiplexedConnection> expired = new ArrayList<>();
+    synchronized (multiplexedConnections) {
+      Iterator<MultiplexedConnection[]> iter = multiplexedConnections.values().iterator();
+      while (iter.hasNext()) {
+        MultiplexedConnection[] serverConnections = iter.next();
+        boolean empty = true;
+        for (int i = 0; i < serverConnections.length; i++) {
+          MultiplexedConnection connection = serverConnections[i];
+          if (connection != null && (!connection.isOpen() || connection.isIdle(killTime))) {
+            expired.add(connection);
+            serverConnections[i] = null;
+          }
+          empty &= serverConnections[i] == null;
+        }
+        if (empty) {
+          iter.remove();
+        }
+      }
+    }
+    return expired;
   }
 
   private void shutdown() {
     connectionPool.shutdown();
+    synchronized (multiplexedConnections) {
+      multiplexedConnections.values().forEach(serverConnections -> {
+        for (MultiplexedConnection connection : serverConnections) {
+          if (connection != null) {
+            connection.close();
+          }
+        }
+      });
+      multiplexedConnections.clear();
+    }
     try {
       checkThreadFactory.get().join();
     } catch (InterruptedException e) {
@@ -90,6 +90,18 @@ public enum ClientProperty {
           + "system. This property is only used by the bulk import API introduced in 2.0.0.",
       "2.0.0", false),
 
+  // RPC
+  RPC_COMPRESSION_TYPE("rpc.compression.type", "none", PropertyType.STRING,
+      "Codec used to compress RPC messages to servers, one of none, gz, snappy, zstd or lzo."
+          + " Codecs other than gz need the native Hadoop libraries. Servers compress their"
+          + " responses with the same codec, see general.rpc.compression.enabled. When not set,"
+          + " general.rpc.compression.type is used.",
+      "2.1.0", false),
+  RPC_COMPRESSION_THRESHOLD("rpc.compression.threshold", "1K", PropertyType.BYTES,
+      "RPC messages smaller than this are sent uncompressed. When not set,"
+          + " general.rpc.compression.threshold is used.",
+      "2.1.0", false),
+
   // SSL
   SSL_ENABLED("ssl.enabled", "false", "Enable SSL for client RPC"),
   SSL_KEYSTORE_PASSWORD("ssl.keystore.password", "", "Password used to encrypt keystore"),
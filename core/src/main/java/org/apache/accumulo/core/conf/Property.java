@@ -195,7 +195,42 @@ public enum Property {
   GENERAL_RPC_SERVER_TYPE("general.rpc.server.type", "", PropertyType.STRING,
       "Type of Thrift server to instantiate, see "
           + "org.apache.accumulo.server.rpc.ThriftServerType for more information. "
-          + "Only useful for benchmarking thrift servers"),
+          + "Only useful for benchmarking thrift servers, or set to multiplexed to accept"
+          + " multiplexed client connections, see general.rpc.multiplex.connections. The"
+          + " multiplexed type does not support SSL or SASL and can not be used with them."),
+  @Experimental
+  GENERAL_RPC_MULTIPLEX_CONNECTIONS("general.rpc.multiplex.connections", "0", PropertyType.COUNT,
+      "When greater than 0, clients send their calls to a tablet server over this many shared"
+          + " connections instead of opening a connection for each concurrent call. Many calls"
+          + " are in flight on each connection at once and their responses may come back in any"
+          + " order. Requires servers that use the multiplexed server type, see"
+          + " general.rpc.server.type. Not used with SSL or SASL."),
+  @Experimental
+  GENERAL_RPC_MULTIPLEX_SERVER_CONNECTIONS_MAX("general.rpc.multiplex.server.connections.max",
+      "1024", PropertyType.COUNT,
+      "The most client connections a server of the multiplexed type serves at once. Further"
+          + " connections wait to be accepted until a served connection closes."),
+  @Experimental
+  GENERAL_RPC_COMPRESSION_TYPE("general.rpc.compression.type", "none", PropertyType.STRING,
+      "Codec clients use to compress the RPC messages they send, one of none, gz, snappy, zstd or"
+          + " lzo. Codecs other than gz need the native Hadoop libraries. Servers always accept"
+          + " compressed requests, see general.rpc.compression.enabled for their responses."
+          + " Clients can override this with the rpc.compression.type client property."),
+  @Experimental
+  GENERAL_RPC_COMPRESSION_ENABLED("general.rpc.compression.enabled", "false", PropertyType.BOOLEAN,
+      "When enabled, servers compress their responses to clients that compress, using the codec"
+          + " the client chose, see general.rpc.compression.type."),
+  @Experimental
+  GENERAL_RPC_COMPRESSION_THRESHOLD("general.rpc.compression.threshold", "1K", PropertyType.BYTES,
+      "RPC messages smaller than this are sent uncompressed. Clients can override this with the"
+          + " rpc.compression.threshold client property."),
+  @Experimental
+  GENERAL_TABLET_LOCATION_UPDATES("general.tablet.location.updates.enabled", "false",
+      PropertyType.BOOLEAN,
+      "When enabled on tablet servers, they publish the tablets they load, split and unload"
+          + " through ZooKeeper. When enabled on clients, they watch what is published for the"
+          + " tables they use and update their cached tablet locations, instead of waiting for"
+          + " a call to fail and then reading the metadata table."),
   GENERAL_KERBEROS_KEYTAB("general.kerberos.keytab", "", PropertyType.PATH,
       "Path to the kerberos keytab to use. Leave blank if not using kerberoized hdfs"),
   GENERAL_KERBEROS_PRINCIPAL("general.kerberos.principal", "", PropertyType.STRING,
@@ -316,14 +351,28 @@ public enum Property {
   TSERV_CACHE_MANAGER_IMPL("tserver.cache.manager.class",
       "org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCacheManager", PropertyType.STRING,
       "Specifies the class name of the block cache factory implementation."
-          + " Alternative implementation is"
-          + " org.apache.accumulo.core.file.blockfile.cache.tinylfu.TinyLfuBlockCacheManager"),
+          + " Alternative implementations are"
+          + " org.apache.accumulo.core.file.blockfile.cache.tinylfu.TinyLfuBlockCacheManager and"
+          + " org.apache.accumulo.core.file.blockfile.cache.offheap.OffHeapBlockCacheManager,"
+          + " which stores blocks outside of the Java heap, and"
+          + " org.apache.accumulo.core.file.blockfile.cache.tiered.TieredBlockCacheManager,"
+          + " which adds a second level cache on local disk"),
   TSERV_DATACACHE_SIZE("tserver.cache.data.size", "10%", PropertyType.MEMORY,
       "Specifies the size of the cache for RFile data blocks."),
   TSERV_INDEXCACHE_SIZE("tserver.cache.index.size", "25%", PropertyType.MEMORY,
       "Specifies the size of the cache for RFile index blocks."),
   TSERV_SUMMARYCACHE_SIZE("tserver.cache.summary.size", "10%", PropertyType.MEMORY,
       "Specifies the size of the cache for summary data on each tablet server."),
+  @Experimental
+  TSERV_BLOOMCACHE_SIZE("tserver.cache.bloom.size", "0", PropertyType.MEMORY,
+      "Specifies the size of the cache for RFile bloom filters. Loaded bloom filters are kept"
+          + " in this cache, so they are not loaded again when a file is closed and reopened."
+          + " When 0, there is no bloom filter cache and bloom filters are cached in the index"
+          + " cache."),
+  @Experimental
+  TSERV_CACHE_WARMUP_THREADS("tserver.cache.warmup.threads", "2", PropertyType.COUNT,
+      "The number of threads on each tablet server used to read the index and data blocks of"
+          + " newly loaded tablets into the block caches. See table.cache.warmup.enable."),
   TSERV_PORTSEARCH("tserver.port.search", "false", PropertyType.BOOLEAN,
       "if the ports above are in use, search higher ports until one is available"),
   TSERV_CLIENTPORT("tserver.port.client", "9997", PropertyType.PORT,
@@ -454,6 +503,12 @@ public enum Property {
       "The minimum number of threads to use to handle incoming requests."),
   TSERV_THREADCHECK("tserver.server.threadcheck.time", "1s", PropertyType.TIMEDURATION,
       "The time between adjustments of the server thread pool."),
+  @Experimental
+  TSERV_VIRTUAL_THREADS("tserver.server.threads.virtual", "false", PropertyType.BOOLEAN,
+      "When true, incoming requests each run on their own virtual thread instead of on the"
+          + " server thread pool, so requests that block do not hold a platform thread. Requires"
+          + " a JVM that supports virtual threads (Java 21 or later), otherwise the thread pool"
+          + " is used."),
   TSERV_MAX_MESSAGE_SIZE("tserver.server.message.size.max", "1G", PropertyType.BYTES,
       "The maximum size of a message that can be sent to a tablet server."),
   TSERV_LOG_BUSY_TABLETS_COUNT("tserver.log.busy.tablets.count", "0", PropertyType.COUNT,
@@ -634,6 +689,28 @@ public enum Property {
           + " tablet will be compacted. Compactions of idle tablets are only started"
           + " when regular compactions are not running. Idle compactions only take"
           + " place for tablets that have one or more RFiles."),
+  @Experimental
+  TABLE_MAJC_BLOCK_COPY("table.compaction.major.block.copy", "false", PropertyType.BOOLEAN,
+      "When true, major compactions copy compressed RFile data blocks from an input file to"
+          + " the output file, without decompressing and recompressing them, when no other"
+          + " input file has data in the range of the block. This is only done when the majc"
+          + " scope has no iterators other than a VersioningIterator, in which case blocks that"
+          + " hold more versions of a column than it keeps are not copied, the compaction has"
+          + " no iterators, the table does not use bloom filters, summarizers or sampling, and"
+          + " the input files use the same compression and locality groups as the table and"
+          + " are not encrypted."),
+  @Experimental
+  TABLE_MAJC_SCAN_DELETES_THRESHOLD("table.compaction.major.scan.deletes.threshold", "0",
+      PropertyType.COUNT,
+      "The number of keys that scans of a tablet must skip because they were deleted, since"
+          + " the tablet last compacted all of its files, before the tablet compacts all of its"
+          + " files to drop the deletes. A value of 0 disables compactions triggered by scans."),
+  @Experimental
+  TABLE_MAJC_SCAN_DELETES_RATIO("table.compaction.major.scan.deletes.ratio", ".25",
+      PropertyType.FRACTION,
+      "The minimum ratio of keys skipped by scans because they were deleted to all keys read"
+          + " by scans of a tablet for " + "table.compaction.major.scan.deletes.threshold"
+          + " to trigger a compaction of all of the tablet's files."),
   TABLE_SPLIT_THRESHOLD("table.split.threshold", "1G", PropertyType.BYTES,
       "A tablet is split when the combined size of RFiles exceeds this amount."),
   TABLE_MAX_END_ROW_SIZE("table.split.endrow.size.max", "10K", PropertyType.BYTES,
@@ -671,11 +748,42 @@ public enum Property {
   TABLE_FILE_COMPRESSION_TYPE("table.file.compress.type", "gz", PropertyType.STRING,
       "Compression algorithm used on index and data blocks before they are"
           + " written. Possible values: zstd, gz, snappy, lzo, none"),
+  @Experimental
+  TABLE_FILE_COMPRESSION_DICTIONARY_SIZE("table.file.compress.dictionary.size", "0",
+      PropertyType.BYTES,
+      "When greater than 0 and table.file.compress.type is gz, RFiles build a compression"
+          + " dictionary of up to this size for each locality group from the keys of its first"
+          + " data block. The rest of the locality group's data blocks are compressed with"
+          + " deflate using the dictionary, which helps small data blocks of similar keys"
+          + " compress better. Dictionaries larger than 32K are not useful. RFiles written"
+          + " with dictionaries can not be read by versions that do not support them."),
+  @Experimental
+  TABLE_FILE_COLUMNAR_ENABLED("table.file.columnar.enabled", "false", PropertyType.BOOLEAN,
+      "When true, RFiles store the values of each data block in a section before its keys, so"
+          + " scans that only need keys do not decode values. The values of a block are stored"
+          + " with the smallest of their raw bytes, a dictionary when the block has at most 256"
+          + " distinct values, or delta encoded longs when every value is an 8 byte long or a"
+          + " decimal string, like the values written by the encoders of LongCombiner. Timestamps"
+          + " are delta encoded in all RFiles. RFiles written with this can not be read by"
+          + " versions that do not support it."),
   TABLE_FILE_COMPRESSED_BLOCK_SIZE("table.file.compress.blocksize", "100K", PropertyType.BYTES,
       "The maximum size of data blocks in RFiles before they are compressed and written."),
   TABLE_FILE_COMPRESSED_BLOCK_SIZE_INDEX("table.file.compress.blocksize.index", "128K",
       PropertyType.BYTES,
       "The maximum size of index blocks in RFiles before they are compressed and written."),
+  @Experimental
+  TABLE_FILE_READ_COALESCE_SIZE("table.file.read.coalesce.size", "0B", PropertyType.BYTES,
+      "When greater than 0, each RFile block that is not cached is read with a single read"
+          + " instead of many small ones, and blocks near it are read along with it when the file"
+          + " is read sequentially or when a seek loads index blocks, up to this many bytes per"
+          + " read. Fewer reads make cold seeks faster on volumes with a high per read latency,"
+          + " at the cost of a buffer of up to this size for each open file."),
+  @Experimental
+  TABLE_FILE_MMAP_ENABLED("table.file.mmap.enabled", "false", PropertyType.BOOLEAN,
+      "Memory map RFiles that are stored on a local file system volume instead of reading them"
+          + " through the file system. This avoids a system call and a copy for each block read."
+          + " Checksums kept by the local file system are not verified for mapped files. Has no"
+          + " effect for files on other file systems, such as HDFS."),
   TABLE_FILE_BLOCK_SIZE("table.file.blocksize", "0B", PropertyType.BYTES,
       "The HDFS block size used when writing RFiles. When set to 0B, the"
           + " value/defaults of HDFS property 'dfs.block.size' will be used."),
@@ -700,7 +808,8 @@ public enum Property {
   TABLE_BLOOM_LOAD_THRESHOLD("table.bloom.load.threshold", "1", PropertyType.COUNT,
       "This number of seeks that would actually use a bloom filter must occur"
           + " before a RFile's bloom filter is loaded. Set this to zero to initiate"
-          + " loading of bloom filters when a RFile is opened."),
+          + " loading of bloom filters when a RFile is opened. Not used when"
+          + " table.cache.warmup.enable is true."),
   TABLE_BLOOM_SIZE("table.bloom.size", "1048576", PropertyType.COUNT,
       "Bloom filter size, as number of keys."),
   TABLE_BLOOM_ERRORRATE("table.bloom.error.rate", "0.5%", PropertyType.FRACTION,
@@ -709,12 +818,28 @@ public enum Property {
       "org.apache.accumulo.core.file.keyfunctor.RowFunctor", PropertyType.CLASSNAME,
       "A function that can transform the key prior to insertion and check of"
           + " bloom filter. org.apache.accumulo.core.file.keyfunctor.RowFunctor,"
-          + " org.apache.accumulo.core.file.keyfunctor.ColumnFamilyFunctor, and"
-          + " org.apache.accumulo.core.file.keyfunctor.ColumnQualifierFunctor are"
+          + " org.apache.accumulo.core.file.keyfunctor.ColumnFamilyFunctor,"
+          + " org.apache.accumulo.core.file.keyfunctor.ColumnQualifierFunctor, and"
+          + " org.apache.accumulo.core.file.keyfunctor.RowPrefixFunctor are"
           + " allowable values. One can extend any of the above mentioned classes to"
           + " perform specialized parsing of the key. "),
+  @Experimental
+  TABLE_BLOOM_PREFIX_LENGTH("table.bloom.prefix.length", "0", PropertyType.COUNT,
+      "The number of leading bytes of each row put in the bloom filter by"
+          + " org.apache.accumulo.core.file.keyfunctor.RowPrefixFunctor. Scans of a range of"
+          + " rows that all share a prefix of this length can skip files without that prefix."
+          + " Rows shorter than this are put in the bloom filter whole. The length is stored in"
+          + " each file, so changing it only affects new files."),
   TABLE_BLOOM_HASHTYPE("table.bloom.hash.type", "murmur", PropertyType.STRING,
       "The bloom filter hash type"),
+  @Experimental
+  TABLE_BLOOM_TYPE("table.bloom.type", "dynamic", PropertyType.STRING,
+      "The type of bloom filter written to new files. dynamic uses hash functions that set bits"
+          + " anywhere in the filter and grows the filter as keys are added. blocked sets all the"
+          + " bits for a key in one 64 byte block, so checking a key reads a single cache line."
+          + " blocked filters are sized using table.bloom.size and table.bloom.error.rate and"
+          + " ignore table.bloom.hash.type. Files written with either type can be read"
+          + " regardless of this setting."),
   TABLE_DURABILITY("table.durability", "sync", PropertyType.DURABILITY,
       "The durability used to write to the write-ahead log. Legal values are:"
           + " none, which skips the write-ahead log; log, which sends the data to the"
@@ -751,6 +876,23 @@ public enum Property {
       "Determines whether index block cache is enabled for a table."),
   TABLE_BLOCKCACHE_ENABLED("table.cache.block.enable", "false", PropertyType.BOOLEAN,
       "Determines whether data block cache is enabled for a table."),
+  @Experimental
+  TABLE_CACHE_WARMUP_ENABLED("table.cache.warmup.enable", "false", PropertyType.BOOLEAN,
+      "When true, a tablet server reads the index blocks of a tablet's files into the index"
+          + " cache in the background after the tablet is loaded, so the first scans after a"
+          + " tablet migrates or a tablet server restarts do not have to read them. The index cache"
+          + " must be enabled for the table. When bloom filters are enabled for the table, the"
+          + " bloom filters of the files are also loaded into the bloom filter cache, and every"
+          + " file opened for the table loads its bloom filter in the background right away,"
+          + " ignoring table.bloom.load.threshold."),
+  @Experimental
+  TABLE_CACHE_WARMUP_DATA_MAX("table.cache.warmup.data.max", "0", PropertyType.BYTES,
+      "The maximum amount of uncompressed data per tablet to read into the data cache when"
+          + " table.cache.warmup.enable is true. This warms a prefix of the tablet: data blocks"
+          + " are read in key order, file by file, starting at the beginning of the tablet, until"
+          + " this much has been read. Block access frequencies are not tracked, so the blocks"
+          + " read are not necessarily the most frequently scanned ones. Only used when the data"
+          + " cache is enabled for the table."),
   TABLE_ITERATOR_PREFIX("table.iterator.", null, PropertyType.PREFIX,
       "Properties in this category specify iterators that are applied at"
           + " various stages (scopes) of interaction with a table. These properties"
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.dataImpl;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.KeyValue;
+import org.apache.accumulo.core.dataImpl.thrift.ScanResult;
+import org.apache.accumulo.core.dataImpl.thrift.TKeyValue;
+import org.apache.accumulo.core.util.UnsynchronizedBuffer;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Encodes a batch of scan results as a single block of bytes. Each key is stored relative to the
+ * key before it, in the same spirit as an RFile data block: fields equal to the previous key are
+ * omitted and the rest share a common prefix with the previous field. This avoids the per field
+ * buffers that {@link Key#compress(List)} creates and lets clients decode entries lazily straight
+ * from the buffer thrift read the response into. Decoding is not zero copy: {@link Key} and
+ * {@link org.apache.accumulo.core.data.Value} need arrays of their own, so each field that differs
+ * from the previous key and each value is copied out of the block once.
+ *
+ * <p>
+ * Older clients do not know about the encoded field, so a client asks for it with the
+ * {@code encodeResults} argument of {@code startScan}. Older servers ignore that argument and keep
+ * sending the list of key values.
+ */
+public class ScanResultEncoding {
+
+  private static final int ROW_SAME = 0x01;
+  private static final int CF_SAME = 0x02;
+  private static final int CQ_SAME = 0x04;
+  private static final int CV_SAME = 0x08;
+  private static final int TS_SAME = 0x10;
+  private static final int DELETED = 0x20;
+
+  private ScanResultEncoding() {}
+
+  /**
+   * Creates the thrift result for a batch, encoding it as a block when the client asked for it.
+   */
+  public static ScanResult toThrift(List<? extends KeyValue> results, boolean more,
+      boolean encode) {
+    if (!encode) {
+      return new ScanResult(Key.compress(results), more);
+    }
+    ScanResult scanResult = new ScanResult(Collections.emptyList(), more);
+    // assign the field directly, the generated setter would copy the buffer
+    scanResult.encodedResults = encode(results);
+    return scanResult;
+  }
+
+  /**
+   * Gets the entries of a thrift result. Encoded results are decoded lazily as the returned list is
+   * read, so the list should only be used by one thread at a time.
+   */
+  public static List<KeyValue> fromThrift(ScanResult scanResult) {
+    if (scanResult.isSetEncodedResults()) {
+      return decode(scanResult.encodedResults);
+    }
+    Key.decompress(scanResult.results);
+    List<KeyValue> results = new ArrayList<>(scanResult.results.size());
+    for (TKeyValue tkv : scanResult.results)
+      results.add(new KeyValue(new Key(tkv.key), tkv.value));
+    return results;
+  }
+
+  /**
+   * Gets the last key of a non empty list returned by {@link #fromThrift(ScanResult)} without
+   * decoding the rest of the list.
+   */
+  public static Key lastKey(List<KeyValue> results) {
+    if (results instanceof DecodedResults) {
+      return ((DecodedResults) results).lastKey;
+    }
+    return results.get(results.size() - 1).getKey();
+  }
+
+  public static ByteBuffer encode(List<? extends KeyValue> results) {
+    UnsynchronizedBuffer.Writer out = new UnsynchronizedBuffer.Writer(256);
+    out.writeVInt(results.size());
+    if (!results.isEmpty()) {
+      // written up front so clients can continue the scan without decoding the whole batch
+      writeKey(out, null, results.get(results.size() - 1).getKey());
+    }
+    Key prev = null;
+    for (KeyValue kv : results) {
+      Key key = kv.getKey();
+      writeKey(out, prev, key);
+      byte[] value = kv.getValue().get();
+      out.writeVInt(value.length);
+      out.add(value, 0, value.length);
+      prev = key;
+    }
+    return out.toByteBuffer();
+  }
+
+  public static List<KeyValue> decode(ByteBuffer block) {
+    return new DecodedResults(block.duplicate());
+  }
+
+  private static void writeKey(UnsynchronizedBuffer.Writer out, Key prev, Key key) {
+    int flags = 0;
+    if (prev != null) {
+      if (prev.getRowData().equals(key.getRowData()))
+        flags |= ROW_SAME;
+      if (prev.getColumnFamilyData().equals(key.getColumnFamilyData()))
+        flags |= CF_SAME;
+      if (prev.getColumnQualifierData().equals(key.getColumnQualifierData()))
+        flags |= CQ_SAME;
+      if (prev.getColumnVisibilityData().equals(key.getColumnVisibilityData()))
+        flags |= CV_SAME;
+      if (prev.getTimestamp() == key.getTimestamp())
+        flags |= TS_SAME;
+    }
+    if (key.isDeleted())
+      flags |= DELETED;
+
+    out.writeVInt(flags);
+    if ((flags & ROW_SAME) == 0)
+      writeField(out, prev == null ? null : prev.getRowData(), key.getRowData());
+    if ((flags & CF_SAME) == 0)
+      writeField(out, prev == null ? null : prev.getColumnFamilyData(), key.getColumnFamilyData());
+    if ((flags & CQ_SAME) == 0)
+      writeField(out, prev == null ? null : prev.getColumnQualifierData(),
+          key.getColumnQualifierData());
+    if ((flags & CV_SAME) == 0)
+      writeField(out, prev == null ? null : prev.getColumnVisibilityData(),
+          key.getColumnVisibilityData());
+    if ((flags & TS_SAME) == 0)
+      out.writeVLong(key.getTimestamp());
+  }
+
+  private static void writeField(UnsynchronizedBuffer.Writer out, ByteSequence prev,
+      ByteSequence field) {
+    int prefix = 0;
+    if (prev != null) {
+      int max = Math.min(prev.length(), field.length());
+      while (prefix < max && prev.byteAt(prefix) == field.byteAt(prefix))
+        prefix++;
+    }
+    out.writeVInt(prefix);
+    out.writeVInt(field.length() - prefix);
+    out.add(field.getBackingArray(), field.offset() + prefix, field.length() - prefix);
+  }
+
+  /**
+   * Decodes entries from the block on demand. Fields that are equal to the previous key share its
+   * array, all other fields and the values are copied out of the block.
+   */
+  private static class DecodedResults extends AbstractList<KeyValue> implements RandomAccess {
+
+    private final ByteBuffer in;
+    private final KeyValue[] entries;
+    private final Key lastKey;
+    private int decoded = 0;
+
+    private byte[] row;
+    private byte[] cf;
+    private byte[] cq;
+    private byte[] cv;
+    private long ts;
+
+    DecodedResults(ByteBuffer in) {
+      this.in = in;
+      this.entries = new KeyValue[(int) readVLong()];
+      if (entries.length > 0) {
+        lastKey = readKey();
+        row = cf = cq = cv = null;
+      } else {
+        lastKey = null;
+      }
+    }
+
+    @Override
+    public KeyValue get(int index) {
+      Objects.checkIndex(index, entries.length);
+      while (decoded <= index) {
+        Key key = readKey();
+        byte[] value = new byte[(int) readVLong()];
+        in.get(value);
+        entries[decoded++] = new KeyValue(key, value);
+      }
+      return entries[index];
+    }
+
+    @Override
+    public int size() {
+      return entries.length;
+    }
+
+    private Key readKey() {
+      int flags = (int) readVLong();
+      if ((flags & ROW_SAME) == 0)
+        row = readField(row);
+      if ((flags & CF_SAME) == 0)
+        cf = readField(cf);
+      if ((flags & CQ_SAME) == 0)
+        cq = readField(cq);
+      if ((flags & CV_SAME) == 0)
+        cv = readField(cv);
+      if ((flags & TS_SAME) == 0)
+        ts = readVLong();
+      return new Key(row, cf, cq, cv, ts, (flags & DELETED) != 0, false);
+    }
+
+    private byte[] readField(byte[] prev) {
+      int prefix = (int) readVLong();
+      int suffix = (int) readVLong();
+      byte[] field = new byte[prefix + suffix];
+      if (prefix > 0)
+        System.arraycopy(prev, 0, field, 0, prefix);
+      in.get(field, prefix, suffix);
+      return field;
+    }
+
+    private long readVLong() {
+      byte firstByte = in.get();
+      int len = WritableUtils.decodeVIntSize(firstByte);
+      if (len == 1) {
+        return firstByte;
+      }
+      long i = 0;
+      for (int idx = 0; idx < len - 1; idx++) {
+        i = (i << 8) | (in.get() & 0xFF);
+      }
+      return WritableUtils.isNegativeVInt(firstByte) ? (i ^ -1L) : i;
+    }
+  }
+}
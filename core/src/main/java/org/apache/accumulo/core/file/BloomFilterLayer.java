@@ -20,13 +20,16 @@ package org.apache.accumulo.core.file;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
@@ -35,7 +38,9 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.apache.accumulo.core.bloomfilter.BlockedBloomFilter;
 import org.apache.accumulo.core.bloomfilter.DynamicBloomFilter;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.ConfigurationCopy;
@@ -46,18 +51,22 @@ import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.CachedBlockRead;
 import org.apache.accumulo.core.file.blockfile.impl.CacheProvider;
 import org.apache.accumulo.core.file.keyfunctor.KeyFunctor;
+import org.apache.accumulo.core.file.keyfunctor.RowPrefixFunctor;
 import org.apache.accumulo.core.file.rfile.RFile;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.sample.impl.SamplerConfigurationImpl;
+import org.apache.accumulo.core.spi.cache.CacheEntry.Weighable;
 import org.apache.accumulo.core.util.NamingThreadFactory;
 import org.apache.accumulo.fate.util.LoggingRunnable;
 import org.apache.accumulo.start.classloader.vfs.AccumuloVFSClassLoader;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.util.bloom.Key;
 import org.apache.hadoop.util.hash.Hash;
 import org.slf4j.Logger;
@@ -70,10 +79,22 @@ import org.slf4j.LoggerFactory;
 public class BloomFilterLayer {
   private static final Logger LOG = LoggerFactory.getLogger(BloomFilterLayer.class);
   public static final String BLOOM_FILE_NAME = "acu_bloom";
+  public static final String BLOCKED_BLOOM_FILE_NAME = "acu_bloom_blocked";
   public static final int HASH_COUNT = 5;
 
+  // version of the header written in place of the key functor class name when the key functor has
+  // settings, the header is marked by an empty name which no class can have
+  private static final int KEY_FUNCTOR_SETTINGS_VERSION = 1;
+
   private static ExecutorService loadThreadPool = null;
 
+  /**
+   * @return true if the meta store with the name holds a bloom filter
+   */
+  public static boolean isBloomMetaStore(String name) {
+    return name.equals(BLOOM_FILE_NAME) || name.equals(BLOCKED_BLOOM_FILE_NAME);
+  }
+
   private static synchronized ExecutorService getLoadThreadPool(int maxLoadThreads) {
     if (loadThreadPool != null) {
       return loadThreadPool;
@@ -93,6 +114,13 @@ public class BloomFilterLayer {
     private int numKeys;
     private int vectorSize;
 
+    // used instead of bloomFilter when table.bloom.type is blocked, a new filter is started each
+    // time numKeys distinct keys have been added to the current one
+    private List<BlockedBloomFilter> blockedFilters;
+    private double errorRate;
+    private int currentBlockedKeys;
+    private long prevHash;
+
     private FileSKVWriter writer;
     private KeyFunctor transformer = null;
     private boolean closed = false;
@@ -112,11 +140,18 @@ public class BloomFilterLayer {
       // <code>n</code> is the number of keys and <code>c</code> is the desired
       // max. error rate.
       // Our desired error rate is by default 0.005, i.e. 0.5%
-      double errorRate = acuconf.getFraction(Property.TABLE_BLOOM_ERRORRATE);
-      vectorSize = (int) Math
-          .ceil(-HASH_COUNT * numKeys / Math.log(1.0 - Math.pow(errorRate, 1.0 / HASH_COUNT)));
-      bloomFilter = new DynamicBloomFilter(vectorSize, HASH_COUNT,
-          Hash.parseHashType(acuconf.get(Property.TABLE_BLOOM_HASHTYPE)), numKeys);
+      errorRate = acuconf.getFraction(Property.TABLE_BLOOM_ERRORRATE);
+      String bloomType = acuconf.get(Property.TABLE_BLOOM_TYPE);
+      if (bloomType.equals("blocked")) {
+        blockedFilters = new ArrayList<>();
+      } else if (bloomType.equals("dynamic")) {
+        vectorSize = (int) Math
+            .ceil(-HASH_COUNT * numKeys / Math.log(1.0 - Math.pow(errorRate, 1.0 / HASH_COUNT)));
+        bloomFilter = new DynamicBloomFilter(vectorSize, HASH_COUNT,
+            Hash.parseHashType(acuconf.get(Property.TABLE_BLOOM_HASHTYPE)), numKeys);
+      } else {
+        throw new IllegalArgumentException("Unknown bloom filter type : " + bloomType);
+      }
 
       /**
        * load KeyFunctor
@@ -134,6 +169,10 @@ public class BloomFilterLayer {
           clazz = AccumuloVFSClassLoader.loadClass(classname, KeyFunctor.class);
 
         transformer = clazz.getDeclaredConstructor().newInstance();
+        if (transformer instanceof RowPrefixFunctor) {
+          ((RowPrefixFunctor) transformer)
+              .setPrefixLength(acuconf.getCount(Property.TABLE_BLOOM_PREFIX_LENGTH));
+        }
 
       } catch (Exception e) {
         LOG.error("Failed to find KeyFunctor: " + acuconf.get(Property.TABLE_BLOOM_KEY_FUNCTOR), e);
@@ -148,9 +187,30 @@ public class BloomFilterLayer {
     public synchronized void append(org.apache.accumulo.core.data.Key key, Value val)
         throws IOException {
       writer.append(key, val);
-      Key bloomKey = transformer.transform(key);
-      if (bloomKey.getBytes().length > 0)
-        bloomFilter.add(bloomKey);
+      if (blockedFilters != null) {
+        if (!transformer.isBloomKeyEmpty(key))
+          addBlocked(transformer.hash(key));
+      } else {
+        Key bloomKey = transformer.transform(key);
+        if (bloomKey.getBytes().length > 0)
+          bloomFilter.add(bloomKey);
+      }
+    }
+
+    private void addBlocked(long hash) {
+      // keys are appended in sorted order, so keys with the same bloom key are usually adjacent
+      if (!blockedFilters.isEmpty() && hash == prevHash) {
+        return;
+      }
+
+      if (blockedFilters.isEmpty() || currentBlockedKeys >= numKeys) {
+        blockedFilters.add(new BlockedBloomFilter(numKeys, errorRate));
+        currentBlockedKeys = 0;
+      }
+
+      blockedFilters.get(blockedFilters.size() - 1).add(hash);
+      currentBlockedKeys++;
+      prevHash = hash;
     }
 
     @Override
@@ -159,9 +219,19 @@ public class BloomFilterLayer {
       if (closed)
         return;
 
-      DataOutputStream out = writer.createMetaStore(BLOOM_FILE_NAME);
-      out.writeUTF(transformer.getClass().getName());
-      bloomFilter.write(out);
+      DataOutputStream out;
+      if (blockedFilters != null) {
+        out = writer.createMetaStore(BLOCKED_BLOOM_FILE_NAME);
+        writeKeyFunctor(out);
+        out.writeInt(blockedFilters.size());
+        for (BlockedBloomFilter filter : blockedFilters) {
+          filter.write(out);
+        }
+      } else {
+        out = writer.createMetaStore(BLOOM_FILE_NAME);
+        writeKeyFunctor(out);
+        bloomFilter.write(out);
+      }
       out.flush();
       out.close();
       writer.close();
@@ -169,6 +239,19 @@ public class BloomFilterLayer {
       closed = true;
     }
 
+    private void writeKeyFunctor(DataOutputStream out) throws IOException {
+      // key functors with settings, like the prefix length, store them so the file can be read
+      // the same way after the table configuration changes, others are written as they always were
+      if (transformer instanceof Writable) {
+        out.writeUTF("");
+        out.writeByte(KEY_FUNCTOR_SETTINGS_VERSION);
+        out.writeUTF(transformer.getClass().getName());
+        ((Writable) transformer).write(out);
+      } else {
+        out.writeUTF(transformer.getClass().getName());
+      }
+    }
+
     @Override
     public DataOutputStream createMetaStore(String name) throws IOException {
       return writer.createMetaStore(name);
@@ -200,9 +283,250 @@ public class BloomFilterLayer {
     }
   }
 
+  /**
+   * Creates the key functor named at the start of a bloom filter meta block and reads its settings,
+   * if the file recorded any.
+   */
+  private static KeyFunctor readKeyFunctor(DataInputStream in, String context)
+      throws IOException, ReflectiveOperationException {
+    String className = in.readUTF();
+    boolean hasSettings = className.isEmpty();
+    if (hasSettings) {
+      int version = in.readUnsignedByte();
+      if (version != KEY_FUNCTOR_SETTINGS_VERSION) {
+        throw new IOException("Unknown bloom filter key functor version " + version);
+      }
+      className = in.readUTF();
+    }
+
+    Class<? extends KeyFunctor> clazz;
+    if (context != null && !context.equals(""))
+      clazz = AccumuloVFSClassLoader.getContextManager().loadClass(context, className,
+          KeyFunctor.class);
+    else
+      clazz = AccumuloVFSClassLoader.loadClass(className, KeyFunctor.class);
+    KeyFunctor transformer = clazz.getDeclaredConstructor().newInstance();
+    if (hasSettings) {
+      if (!(transformer instanceof Writable)) {
+        throw new IOException("Bloom filter key functor " + className
+            + " was written with settings, but no longer reads them");
+      }
+      ((Writable) transformer).readFields(in);
+    }
+    return transformer;
+  }
+
+  /**
+   * Loads the bloom filter of a file through the file's cache, so that readers opened later find it
+   * already loaded. Does nothing if the file does not have a bloom filter.
+   */
+  public static void loadBloomFilter(FileSKVIterator reader, AccumuloConfiguration acuconf)
+      throws IOException {
+    boolean blocked = true;
+    DataInputStream in;
+    try {
+      in = reader.getMetaStore(BLOCKED_BLOOM_FILE_NAME);
+    } catch (NoSuchMetaStoreException nsme) {
+      blocked = false;
+      try {
+        in = reader.getMetaStore(BLOOM_FILE_NAME);
+      } catch (NoSuchMetaStoreException nsme2) {
+        return;
+      }
+    }
+
+    try (DataInputStream din = in) {
+      long start = System.nanoTime();
+      readKeyFunctor(din, acuconf.get(Property.TABLE_CLASSPATH));
+      LoadedBloomFilter.load(din, blocked);
+      STATS.loaded(System.nanoTime() - start);
+    } catch (ReflectiveOperationException e) {
+      throw new IOException("Failed to create bloom filter key functor", e);
+    }
+  }
+
+  /**
+   * Counts bloom filter loads and checks made by all readers, for metrics.
+   */
+  public static class Stats {
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadTime = new LongAdder();
+    private final LongAdder negatives = new LongAdder();
+    private final LongAdder positives = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    private Stats() {}
+
+    void loaded(long nanos) {
+      loads.increment();
+      loadTime.add(nanos);
+    }
+
+    /**
+     * @return the number of bloom filters loaded, including those found already loaded in the cache
+     */
+    public long getLoads() {
+      return loads.sum();
+    }
+
+    /**
+     * @return the total time spent loading bloom filters in nanoseconds
+     */
+    public long getLoadTime() {
+      return loadTime.sum();
+    }
+
+    /**
+     * @return the number of seeks a bloom filter showed could not find data
+     */
+    public long getNegatives() {
+      return negatives.sum();
+    }
+
+    /**
+     * @return the number of seeks a bloom filter allowed that found data
+     */
+    public long getPositives() {
+      return positives.sum();
+    }
+
+    /**
+     * @return the number of seeks a bloom filter allowed that did not find data
+     */
+    public long getFalsePositives() {
+      return falsePositives.sum();
+    }
+  }
+
+  private static final Stats STATS = new Stats();
+
+  public static Stats getStats() {
+    return STATS;
+  }
+
+  enum Check {
+    NOT_CHECKED, POSITIVE, NEGATIVE
+  }
+
+  /**
+   * A bloom filter read from a file. When the file's bloom filter meta block is cached, this is
+   * kept with the cache entry so the bloom filter does not need to be read again when the file is
+   * reopened.
+   */
+  private static class LoadedBloomFilter implements Weighable {
+    private final DynamicBloomFilter dynamicFilter;
+    private final BlockedBloomFilter[] blockedFilters;
+    private final int weight;
+
+    private LoadedBloomFilter(DynamicBloomFilter dynamicFilter, int weight) {
+      this.dynamicFilter = dynamicFilter;
+      this.blockedFilters = null;
+      this.weight = weight;
+    }
+
+    private LoadedBloomFilter(BlockedBloomFilter[] blockedFilters, int weight) {
+      this.dynamicFilter = null;
+      this.blockedFilters = blockedFilters;
+      this.weight = weight;
+    }
+
+    /**
+     * Reads a bloom filter, or reuses the one kept with the cached meta block it is read from.
+     */
+    static LoadedBloomFilter load(DataInputStream in, boolean blocked) throws IOException {
+      LoadedBloomFilter filter = null;
+      if (in instanceof CachedBlockRead && ((CachedBlockRead) in).isIndexable()) {
+        CachedBlockRead cbr = (CachedBlockRead) in;
+        int pos = cbr.getPosition();
+        try {
+          filter = cbr.getIndex(() -> {
+            try {
+              return read(cbr, blocked);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+        } catch (UncheckedIOException e) {
+          throw e.getCause();
+        }
+        if (filter == null && cbr.getPosition() != pos) {
+          // the cache did not keep the bloom filter, read it again
+          cbr.seek(pos);
+        }
+      }
+      if (filter == null) {
+        filter = read(in, blocked);
+      }
+      return filter;
+    }
+
+    private static LoadedBloomFilter read(DataInputStream in, boolean blocked) throws IOException {
+      CachedBlockRead cbr = null;
+      if (in instanceof CachedBlockRead && ((CachedBlockRead) in).isIndexable()) {
+        cbr = (CachedBlockRead) in;
+      }
+
+      if (!blocked) {
+        DynamicBloomFilter filter = new DynamicBloomFilter();
+        int start = cbr == null ? 0 : cbr.getPosition();
+        filter.readFields(in);
+        // the bits of the filter take about as much memory as their serialized form
+        return new LoadedBloomFilter(filter, cbr == null ? 0 : cbr.getPosition() - start);
+      }
+
+      int numFilters = in.readInt();
+      if (numFilters < 0) {
+        throw new IOException("Invalid bloom filter count : " + numFilters);
+      }
+      BlockedBloomFilter[] filters = new BlockedBloomFilter[numFilters];
+      int weight = 0;
+      for (int i = 0; i < numFilters; i++) {
+        if (cbr != null) {
+          // use the blocks in place in the cached meta block, which is already weighed by the cache
+          filters[i] = BlockedBloomFilter.wrap(cbr.getBuffer(), cbr.getPosition());
+          int size = filters[i].getSerializedSize();
+          if (cbr.skipBytes(size) != size) {
+            throw new EOFException("Bloom filter truncated");
+          }
+          weight += 64;
+        } else {
+          filters[i] = BlockedBloomFilter.read(in);
+          weight += filters[i].getSize();
+        }
+      }
+      return new LoadedBloomFilter(filters, weight);
+    }
+
+    Check check(KeyFunctor transformer, Range range) {
+      if (blockedFilters != null) {
+        if (!transformer.canTransform(range) || transformer.isBloomKeyEmpty(range))
+          return Check.NOT_CHECKED;
+
+        long hash = transformer.hash(range);
+        for (BlockedBloomFilter filter : blockedFilters) {
+          if (filter.membershipTest(hash))
+            return Check.POSITIVE;
+        }
+        return Check.NEGATIVE;
+      }
+
+      Key bloomKey = transformer.transform(range);
+
+      if (bloomKey == null || bloomKey.getBytes().length == 0)
+        return Check.NOT_CHECKED;
+
+      return dynamicFilter.membershipTest(bloomKey) ? Check.POSITIVE : Check.NEGATIVE;
+    }
+
+    @Override
+    public int weight() {
+      return weight;
+    }
+  }
+
   static class BloomFilterLoader {
 
-    private volatile DynamicBloomFilter bloomFilter;
+    private volatile LoadedBloomFilter bloomFilter;
     private int loadRequest = 0;
     private int loadThreshold = 1;
     private int maxLoadThreads;
@@ -214,7 +538,13 @@ public class BloomFilterLayer {
 
       maxLoadThreads = acuconf.getCount(Property.TSERV_BLOOM_LOAD_MAXCONCURRENT);
 
-      loadThreshold = acuconf.getCount(Property.TABLE_BLOOM_LOAD_THRESHOLD);
+      // tables that warm their caches are expected to be hot, so load their bloom filters as soon
+      // as a file is opened instead of waiting for seeks to use them
+      if (acuconf.getBoolean(Property.TABLE_CACHE_WARMUP_ENABLED)) {
+        loadThreshold = 0;
+      } else {
+        loadThreshold = acuconf.getCount(Property.TABLE_BLOOM_LOAD_THRESHOLD);
+      }
 
       final String context = acuconf.get(Property.TABLE_CLASSPATH);
 
@@ -222,35 +552,35 @@ public class BloomFilterLayer {
         // no need to load the bloom filter if the map file is closed
         if (closed)
           return;
-        String ClassName = null;
         DataInputStream in = null;
 
         try {
-          in = reader.getMetaStore(BLOOM_FILE_NAME);
-          DynamicBloomFilter tmpBloomFilter = new DynamicBloomFilter();
+          boolean blocked = true;
+          try {
+            in = reader.getMetaStore(BLOCKED_BLOOM_FILE_NAME);
+          } catch (NoSuchMetaStoreException nsme) {
+            blocked = false;
+            in = reader.getMetaStore(BLOOM_FILE_NAME);
+          }
 
           // check for closed again after open but before reading the bloom filter in
           if (closed)
             return;
 
+          long start = System.nanoTime();
+
           /**
-           * Load classname for keyFunctor
+           * Load keyFunctor
            */
-          ClassName = in.readUTF();
-
-          Class<? extends KeyFunctor> clazz;
-          if (context != null && !context.equals(""))
-            clazz = AccumuloVFSClassLoader.getContextManager().loadClass(context, ClassName,
-                KeyFunctor.class);
-          else
-            clazz = AccumuloVFSClassLoader.loadClass(ClassName, KeyFunctor.class);
-          transformer = clazz.getDeclaredConstructor().newInstance();
+          transformer = readKeyFunctor(in, context);
 
           /**
            * read in bloom filter
            */
 
-          tmpBloomFilter.readFields(in);
+          LoadedBloomFilter tmpBloomFilter = LoadedBloomFilter.load(in, blocked);
+
+          STATS.loaded(System.nanoTime() - start);
           // only set the bloom filter after it is fully constructed
           bloomFilter = tmpBloomFilter;
         } catch (NoSuchMetaStoreException nsme) {
@@ -263,10 +593,13 @@ public class BloomFilterLayer {
 
           bloomFilter = null;
         } catch (ClassNotFoundException e) {
-          LOG.error("Failed to find KeyFunctor in config: " + sanitize(ClassName), e);
+          LOG.error(
+              "Failed to find KeyFunctor in config: " + sanitize(String.valueOf(e.getMessage())),
+              e);
           bloomFilter = null;
         } catch (ReflectiveOperationException e) {
-          LOG.error("Could not instantiate KeyFunctor: " + sanitize(ClassName), e);
+          LOG.error("Could not instantiate KeyFunctor: " + sanitize(String.valueOf(e.getMessage())),
+              e);
           bloomFilter = null;
         } catch (RuntimeException rte) {
           if (closed)
@@ -324,21 +657,19 @@ public class BloomFilterLayer {
      *
      * @param range
      *          range of keys to check
-     * @return false iff key doesn't exist, true if key probably exists.
+     * @return NEGATIVE iff key doesn't exist, POSITIVE if key probably exists, NOT_CHECKED if the
+     *         bloom filter is not loaded or can not check the range.
      */
-    boolean probablyHasKey(Range range) {
-      if (bloomFilter == null) {
+    Check check(Range range) {
+      LoadedBloomFilter filter = bloomFilter;
+      if (filter == null) {
         initiateLoad(maxLoadThreads);
-        if (bloomFilter == null)
-          return true;
+        filter = bloomFilter;
+        if (filter == null)
+          return Check.NOT_CHECKED;
       }
 
-      Key bloomKey = transformer.transform(range);
-
-      if (bloomKey == null || bloomKey.getBytes().length == 0)
-        return true;
-
-      return bloomFilter.membershipTest(bloomKey);
+      return filter.check(transformer, range);
     }
 
     public void close() {
@@ -372,10 +703,21 @@ public class BloomFilterLayer {
     public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive)
         throws IOException {
 
-      if (bfl.probablyHasKey(range)) {
+      Check check = bfl.check(range);
+      if (check != Check.NEGATIVE) {
         reader.seek(range, columnFamilies, inclusive);
         checkSuper = true;
+        // when column families are filtered, a seek can find nothing even though the bloom filter
+        // was right
+        if (check == Check.POSITIVE && columnFamilies.isEmpty() && !inclusive) {
+          if (reader.hasTop()) {
+            STATS.positives.increment();
+          } else {
+            STATS.falsePositives.increment();
+          }
+        }
       } else {
+        STATS.negatives.increment();
         checkSuper = false;
       }
     }
@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.ConfigurationTypeHelper;
 import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.spi.cache.BlockCacheManager;
 import org.apache.accumulo.core.spi.cache.BlockCacheManager.Configuration;
@@ -41,12 +42,17 @@ public class BlockCacheConfiguration implements Configuration {
 
   private final long summaryMaxSize;
 
+  private final long bloomMaxSize;
+
   public BlockCacheConfiguration(AccumuloConfiguration conf) {
     genProps = conf.getAllPropertiesWithPrefix(Property.TSERV_PREFIX);
 
     this.indexMaxSize = conf.getAsBytes(Property.TSERV_INDEXCACHE_SIZE);
     this.dataMaxSize = conf.getAsBytes(Property.TSERV_DATACACHE_SIZE);
     this.summaryMaxSize = conf.getAsBytes(Property.TSERV_SUMMARYCACHE_SIZE);
+    // the bloom filter cache is optional, so a configuration without it has no bloom cache
+    String bloomSize = conf.get(Property.TSERV_BLOOMCACHE_SIZE);
+    this.bloomMaxSize = bloomSize == null ? 0 : ConfigurationTypeHelper.getMemoryAsBytes(bloomSize);
     this.blockSize = conf.getAsBytes(Property.TSERV_DEFAULT_BLOCKSIZE);
   }
 
@@ -59,6 +65,8 @@ public class BlockCacheConfiguration implements Configuration {
         return dataMaxSize;
       case SUMMARY:
         return summaryMaxSize;
+      case BLOOM:
+        return bloomMaxSize;
       default:
         throw new IllegalArgumentException("Unknown block cache type");
     }
@@ -72,7 +80,7 @@ public class BlockCacheConfiguration implements Configuration {
   @Override
   public String toString() {
     return "indexMaxSize: " + indexMaxSize + "dataMaxSize: " + dataMaxSize + "summaryMaxSize: "
-        + summaryMaxSize + ", blockSize: " + getBlockSize();
+        + summaryMaxSize + ", bloomMaxSize: " + bloomMaxSize + ", blockSize: " + getBlockSize();
   }
 
   @Override
@@ -0,0 +1,367 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.offheap;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.accumulo.core.conf.ConfigurationTypeHelper;
+import org.apache.accumulo.core.file.blockfile.cache.impl.ClassSize;
+import org.apache.accumulo.core.file.blockfile.cache.impl.SizeConstants;
+import org.apache.accumulo.core.file.blockfile.cache.lru.SynchronousLoadingBlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager.Configuration;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
+import org.apache.accumulo.core.spi.cache.CacheEntry.Weighable;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A block cache that stores block data outside of the Java heap, so that a large cache does not
+ * require a large heap and does not add to garbage collection work. Only the cache's map, which
+ * holds a small record for each block, and the indexes built for cached blocks are kept on the
+ * heap.
+ *
+ * <p>
+ * Eviction is done by a Caffeine cache using the W-TinyLFU algorithm, like
+ * {@link org.apache.accumulo.core.file.blockfile.cache.tinylfu.TinyLfuBlockCache}. When a block is
+ * read from this cache its data is copied to an array on the heap. The cache keeps a weak reference
+ * to that array, so until it is garbage collected, which does not happen while any reader still
+ * holds it, other reads of the block use the same array instead of copying the block again. Once no
+ * reader holds it, the array is short lived garbage that is cheap to collect, unlike the long lived
+ * arrays of an on heap cache.
+ *
+ * <p>
+ * The memory used on the heap for the records of cached blocks, their names and the indexes built
+ * on them is limited to {@code tserver.cache.config.offheap.default.heap.size} bytes. By default
+ * this allows for the records of a full cache of single chunk blocks with names of up to 256
+ * characters, plus 1% of the cache size for indexes. Blocks are evicted when the limit is reached,
+ * like when the off heap memory is full. Arrays that readers hold are not counted, as they are not
+ * held by the cache.
+ *
+ * <p>
+ * The memory is divided into chunks of {@code tserver.cache.config.offheap.default.chunk.size}
+ * bytes, 16K by default. A block uses the chunks needed to hold it, so on average half a chunk per
+ * block is not used.
+ */
+public final class OffHeapBlockCache extends SynchronousLoadingBlockCache {
+  private static final Logger log = LoggerFactory.getLogger(OffHeapBlockCache.class);
+  private static final int STATS_PERIOD_SEC = 60;
+
+  public static final String PROPERTY_PREFIX = "offheap";
+  public static final String CHUNK_SIZE_PROPERTY = "chunk.size";
+  public static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+  public static final String HEAP_SIZE_PROPERTY = "heap.size";
+
+  // the length of block names allowed for by the default heap size
+  private static final int DEFAULT_NAME_SIZE = 256;
+
+  // The heap used for each cached block besides its name and index: the block record, its array of
+  // chunk ids when it has one chunk, the weak reference to its heap copy, and its entries in the
+  // maps of the Caffeine cache.
+  public static final long PER_BLOCK_OVERHEAD =
+      ClassSize.align(ClassSize.OBJECT + 4 * ClassSize.REFERENCE + 3 * SizeConstants.SIZEOF_INT)
+          + ClassSize.align(ClassSize.ARRAY + SizeConstants.SIZEOF_INT)
+          + ClassSize.align(ClassSize.OBJECT + 4 * ClassSize.REFERENCE)
+          + ClassSize.CONCURRENT_HASHMAP_ENTRY
+          + ClassSize.align(ClassSize.OBJECT + 5 * ClassSize.REFERENCE + SizeConstants.SIZEOF_INT);
+
+  // the number of least recently used blocks to evict at once when there is no free memory
+  private static final int EVICTION_BATCH = 16;
+
+  private final SlabAllocator allocator;
+  private final long maxHeapSize;
+  private final AtomicLong heapSize = new AtomicLong();
+  private final Cache<String,Block> cache;
+  private final Policy.Eviction<String,Block> policy;
+  private final ScheduledExecutorService statsExecutor;
+
+  public OffHeapBlockCache(Configuration conf, CacheType type) {
+    Map<String,String> props = conf.getProperties(PROPERTY_PREFIX, type);
+    int chunkSize = Optional.ofNullable(props.get(CHUNK_SIZE_PROPERTY))
+        .map(ConfigurationTypeHelper::getFixedMemoryAsBytes).map(Math::toIntExact)
+        .orElse(DEFAULT_CHUNK_SIZE);
+    allocator = new SlabAllocator(conf.getMaxSize(type), chunkSize);
+    maxHeapSize = Optional.ofNullable(props.get(HEAP_SIZE_PROPERTY))
+        .map(ConfigurationTypeHelper::getFixedMemoryAsBytes).orElse(getDefaultHeapSize(allocator));
+
+    // Running maintenance on the calling thread frees the memory of evicted blocks right away.
+    cache = Caffeine.newBuilder().executor(Runnable::run)
+        .initialCapacity((int) Math.ceil(1.2 * allocator.getCapacity() / conf.getBlockSize()))
+        .weigher((String blockName, Block block) -> block.weight())
+        .maximumWeight(allocator.getCapacity())
+        .removalListener((String blockName, Block block, RemovalCause cause) -> block.free())
+        .recordStats().build();
+    policy = cache.policy().eviction().get();
+    statsExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("OffHeapBlockCacheStatsExecutor").setDaemon(true).build());
+    statsExecutor.scheduleAtFixedRate(this::logStats, STATS_PERIOD_SEC, STATS_PERIOD_SEC,
+        TimeUnit.SECONDS);
+  }
+
+  private static long getDefaultHeapSize(SlabAllocator allocator) {
+    long maxBlocks = allocator.getCapacity() / allocator.getChunkSize();
+    long maxRecordSize = PER_BLOCK_OVERHEAD + ClassSize.align(DEFAULT_NAME_SIZE) + ClassSize.STRING;
+    return maxBlocks * maxRecordSize + allocator.getCapacity() / 100;
+  }
+
+  /**
+   * Block data is off heap, so this is the limit on the heap used for the records of cached blocks,
+   * their names and the indexes built on them. Blocks are evicted to stay within it.
+   */
+  @Override
+  public long getMaxHeapSize() {
+    return maxHeapSize;
+  }
+
+  /**
+   * @return the heap currently used for the records of cached blocks, their names and the indexes
+   *         built on them
+   */
+  public long getHeapSize() {
+    return heapSize.get();
+  }
+
+  @Override
+  public long getMaxSize() {
+    return allocator.getCapacity();
+  }
+
+  @Override
+  protected int getMaxEntrySize() {
+    return (int) Math.min(Integer.MAX_VALUE, getMaxSize());
+  }
+
+  @Override
+  public CacheEntry getBlock(String blockName) {
+    return read(cache.getIfPresent(blockName));
+  }
+
+  @Override
+  protected CacheEntry getBlockNoStats(String blockName) {
+    return read(cache.asMap().get(blockName));
+  }
+
+  private CacheEntry read(Block block) {
+    if (block == null) {
+      return null;
+    }
+
+    byte[] data = block.read();
+    if (data == null) {
+      // the block was evicted while it was being read
+      return null;
+    }
+
+    return new OffHeapCacheEntry(data, block);
+  }
+
+  @Override
+  public CacheEntry cacheBlock(String blockName, byte[] buffer) {
+    int[] chunks = allocate(buffer.length);
+    if (chunks == null) {
+      // the block is larger than the cache, so return it without caching it
+      return new OffHeapCacheEntry(buffer, null);
+    }
+
+    allocator.write(chunks, buffer);
+    Block block = new Block(chunks, buffer, ClassSize.align(blockName.length()) + ClassSize.STRING);
+    cache.put(blockName, block);
+    evictForHeap();
+    return new OffHeapCacheEntry(buffer, block);
+  }
+
+  /**
+   * Evicts the least recently used blocks until the heap used by the cache is within its limit.
+   */
+  private void evictForHeap() {
+    while (heapSize.get() > maxHeapSize) {
+      Map<String,Block> coldest = policy.coldest(EVICTION_BATCH);
+      if (coldest.isEmpty()) {
+        return;
+      }
+      coldest.forEach(cache.asMap()::remove);
+    }
+  }
+
+  private int[] allocate(int length) {
+    int[] chunks = allocator.allocate(length);
+    while (chunks == null && length <= allocator.getCapacity()) {
+      // The cache only evicts when a block is added, but memory for a block must be allocated
+      // before the block is added. So evict the least recently used blocks until there is room.
+      Map<String,Block> coldest = policy.coldest(EVICTION_BATCH);
+      if (coldest.isEmpty()) {
+        // other threads hold the memory for blocks they have not added to the cache yet
+        return null;
+      }
+      coldest.forEach(cache.asMap()::remove);
+      chunks = allocator.allocate(length);
+    }
+    return chunks;
+  }
+
+  @Override
+  public Stats getStats() {
+    CacheStats stats = cache.stats();
+    return new Stats() {
+      @Override
+      public long hitCount() {
+        return stats.hitCount();
+      }
+
+      @Override
+      public long requestCount() {
+        return stats.requestCount();
+      }
+    };
+  }
+
+  private void logStats() {
+    double maxMB = ((double) allocator.getCapacity()) / ((double) (1024 * 1024));
+    double freeMB = ((double) allocator.getFree()) / ((double) (1024 * 1024));
+    double heapMB = ((double) heapSize.get()) / ((double) (1024 * 1024));
+    log.debug("Off heap cache Size={}MB, Free={}MB, Max={}MB, Blocks={}, Heap={}MB", maxMB - freeMB,
+        freeMB, maxMB, cache.estimatedSize(), heapMB);
+    log.debug(cache.stats().toString());
+  }
+
+  private final class Block {
+
+    private final int length;
+    private final int weight;
+    private final long recordSize;
+    private int[] chunks;
+    private WeakReference<byte[]> copy;
+    private Weighable index;
+    private int indexWeight = 0;
+
+    Block(int[] chunks, byte[] data, int nameSize) {
+      this.chunks = chunks;
+      this.length = data.length;
+      this.weight = chunks.length * allocator.getChunkSize();
+      this.copy = new WeakReference<>(data);
+      this.recordSize =
+          PER_BLOCK_OVERHEAD + (chunks.length - 1) * SizeConstants.SIZEOF_INT + nameSize;
+      heapSize.addAndGet(recordSize);
+    }
+
+    int weight() {
+      return weight;
+    }
+
+    /**
+     * @return the block's data or null if the block was evicted. The data is only copied from off
+     *         heap memory when no reader still holds the array of a previous read.
+     */
+    synchronized byte[] read() {
+      if (chunks == null) {
+        return null;
+      }
+      byte[] data = copy.get();
+      if (data == null) {
+        data = allocator.read(chunks, length);
+        copy = new WeakReference<>(data);
+      }
+      return data;
+    }
+
+    synchronized void free() {
+      if (chunks != null) {
+        allocator.free(chunks);
+        chunks = null;
+        copy.clear();
+        index = null;
+        heapSize.addAndGet(-(recordSize + indexWeight));
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized <T extends Weighable> T getIndex(Supplier<T> supplier) {
+      if (chunks == null) {
+        // the block was evicted, so an index built for it would never be used again
+        return null;
+      }
+
+      if (index == null) {
+        index = supplier.get();
+      }
+
+      return (T) index;
+    }
+
+    /**
+     * @return true if the heap used by the index grew
+     */
+    synchronized boolean indexWeightChanged() {
+      if (chunks == null || index == null) {
+        return false;
+      }
+      int newWeight = index.weight();
+      heapSize.addAndGet(newWeight - indexWeight);
+      boolean grew = newWeight > indexWeight;
+      indexWeight = newWeight;
+      return grew;
+    }
+  }
+
+  private final class OffHeapCacheEntry implements CacheEntry {
+
+    private final byte[] buffer;
+    private final Block block;
+
+    OffHeapCacheEntry(byte[] buffer, Block block) {
+      this.buffer = buffer;
+      this.block = block;
+    }
+
+    @Override
+    public byte[] getBuffer() {
+      return buffer;
+    }
+
+    @Override
+    public <T extends Weighable> T getIndex(Supplier<T> supplier) {
+      if (block == null) {
+        return null;
+      }
+      return block.getIndex(supplier);
+    }
+
+    @Override
+    public void indexWeightChanged() {
+      // indexes are on the heap, so they count against the heap limit and not the cache size
+      if (block != null && block.indexWeightChanged()) {
+        evictForHeap();
+      }
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.offheap;
+
+import java.nio.ByteBuffer;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Manages a fixed amount of memory outside of the Java heap. The memory is divided into slabs of up
+ * to 1GB, which are allocated from the operating system when first used, and each slab is divided
+ * into fixed size chunks. Data is stored in a list of chunks that do not need to be contiguous, so
+ * memory never becomes fragmented.
+ */
+final class SlabAllocator {
+
+  private static final int MAX_SLAB_SIZE = 1 << 30;
+
+  private final ByteBuffer[] slabs;
+  private final int chunkSize;
+  private final int chunksPerSlab;
+  private final int totalChunks;
+
+  // stack of free chunk ids, chunks at the top are used first
+  private final int[] freeChunks;
+  private int freeCount;
+
+  SlabAllocator(long maxSize, int chunkSize) {
+    Preconditions.checkArgument(chunkSize > 0 && chunkSize <= MAX_SLAB_SIZE,
+        "Invalid chunk size %s", chunkSize);
+    long chunks = maxSize / chunkSize;
+    Preconditions.checkArgument(chunks > 0 && chunks <= Integer.MAX_VALUE,
+        "Cache size %s is not valid for a chunk size of %s", maxSize, chunkSize);
+
+    this.chunkSize = chunkSize;
+    this.chunksPerSlab = MAX_SLAB_SIZE / chunkSize;
+    this.totalChunks = (int) chunks;
+    this.slabs = new ByteBuffer[(totalChunks + chunksPerSlab - 1) / chunksPerSlab];
+
+    // push chunks in reverse order so that lower slabs are used first and later slabs may never
+    // need to be allocated
+    this.freeChunks = new int[totalChunks];
+    for (int i = 0; i < totalChunks; i++) {
+      freeChunks[i] = totalChunks - 1 - i;
+    }
+    this.freeCount = totalChunks;
+  }
+
+  int getChunkSize() {
+    return chunkSize;
+  }
+
+  long getCapacity() {
+    return (long) totalChunks * chunkSize;
+  }
+
+  synchronized long getFree() {
+    return (long) freeCount * chunkSize;
+  }
+
+  /**
+   * @return the chunks needed to store data of the given length or null if there are not enough
+   *         free chunks
+   */
+  synchronized int[] allocate(int length) {
+    int needed = Math.max(1, (length + chunkSize - 1) / chunkSize);
+    if (needed > freeCount) {
+      return null;
+    }
+
+    int[] chunks = new int[needed];
+    for (int i = 0; i < needed; i++) {
+      int chunk = freeChunks[--freeCount];
+      int slab = chunk / chunksPerSlab;
+      if (slabs[slab] == null) {
+        int slabChunks = Math.min(chunksPerSlab, totalChunks - slab * chunksPerSlab);
+        slabs[slab] = ByteBuffer.allocateDirect(slabChunks * chunkSize);
+      }
+      chunks[i] = chunk;
+    }
+    return chunks;
+  }
+
+  synchronized void free(int[] chunks) {
+    for (int chunk : chunks) {
+      freeChunks[freeCount++] = chunk;
+    }
+  }
+
+  /**
+   * Copies data into chunks returned by {@link #allocate(int)}.
+   */
+  void write(int[] chunks, byte[] data) {
+    int offset = 0;
+    for (int chunk : chunks) {
+      int len = Math.min(chunkSize, data.length - offset);
+      chunkBuffer(chunk).put(data, offset, len);
+      offset += len;
+    }
+  }
+
+  /**
+   * Copies data of the given length out of chunks written by {@link #write(int[], byte[])}.
+   */
+  byte[] read(int[] chunks, int length) {
+    byte[] data = new byte[length];
+    int offset = 0;
+    for (int chunk : chunks) {
+      int len = Math.min(chunkSize, length - offset);
+      chunkBuffer(chunk).get(data, offset, len);
+      offset += len;
+    }
+    return data;
+  }
+
+  private ByteBuffer chunkBuffer(int chunk) {
+    // A duplicate has its own position, so many threads can access a slab concurrently. The slab
+    // is visible to this thread because the chunks were published through the cache.
+    ByteBuffer buffer = slabs[chunk / chunksPerSlab].duplicate();
+    buffer.position((chunk % chunksPerSlab) * chunkSize);
+    return buffer;
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.tiered;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A block cache that stores each block in its own file in a local directory. The blocks in the
+ * directory are found again when the cache is created, so the cache survives a restart of the
+ * process. Cached blocks are named by the immutable file they come from, so blocks found after a
+ * restart can not be out of date.
+ *
+ * <p>
+ * Blocks are written by a background thread. If blocks are added faster than they can be written,
+ * some are not cached.
+ */
+final class LocalFileBlockCache {
+  private static final Logger log = LoggerFactory.getLogger(LocalFileBlockCache.class);
+
+  private static final String TMP_SUFFIX = ".tmp";
+  private static final int WRITE_QUEUE_SIZE = 64;
+
+  private final Path dir;
+  private final long maxSize;
+  // the blocks in the directory and the size of their data
+  private final Cache<String,Integer> index;
+  private final ThreadPoolExecutor writer;
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+
+  LocalFileBlockCache(Path dir, long maxSize) {
+    this.dir = dir;
+    this.maxSize = maxSize;
+    this.index = Caffeine.newBuilder().maximumWeight(maxSize)
+        .weigher((String blockName, Integer size) -> size)
+        .removalListener((String blockName, Integer size, RemovalCause cause) -> {
+          if (cause != RemovalCause.REPLACED) {
+            delete(getPath(blockName));
+          }
+        }).build();
+    this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(WRITE_QUEUE_SIZE), new ThreadFactoryBuilder()
+            .setNameFormat("LocalFileBlockCacheWriter").setDaemon(true).build(),
+        new ThreadPoolExecutor.DiscardPolicy());
+
+    try {
+      Files.createDirectories(dir);
+      load();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open block cache directory " + dir, e);
+    }
+  }
+
+  long getMaxSize() {
+    return maxSize;
+  }
+
+  private Path getPath(String blockName) {
+    String hash = Hashing.sha256().hashString(blockName, UTF_8).toString();
+    return dir.resolve(hash.substring(0, 2)).resolve(hash);
+  }
+
+  private static void delete(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      log.warn("Failed to delete cached block {}", path, e);
+    }
+  }
+
+  /**
+   * Finds the blocks written before the cache was last closed. The least recently written blocks
+   * are added first.
+   */
+  private void load() throws IOException {
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(dir, 2)) {
+      files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+    }
+
+    List<Path> blocks = new ArrayList<>(files.size());
+    for (Path file : files) {
+      if (file.getFileName().toString().endsWith(TMP_SUFFIX)) {
+        // left by a write that did not finish
+        delete(file);
+      } else {
+        blocks.add(file);
+      }
+    }
+
+    blocks.sort(Comparator.comparing(file -> file.toFile().lastModified()));
+
+    for (Path file : blocks) {
+      try (FileChannel channel = FileChannel.open(file)) {
+        // the stream is not buffered, so the channel is positioned at the end of the header
+        DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+        String blockName = in.readUTF();
+        int size = in.readInt();
+        if (getPath(blockName).equals(file) && channel.position() + size == channel.size()) {
+          index.put(blockName, size);
+          continue;
+        }
+      } catch (IOException e) {
+        log.debug("Failed to read cached block {}", file, e);
+      }
+      delete(file);
+    }
+
+    log.info("Found {} cached blocks in {}", index.estimatedSize(), dir);
+  }
+
+  /**
+   * @return the block's data or null if the block is not in the cache
+   */
+  byte[] get(String blockName) {
+    requests.increment();
+    if (index.getIfPresent(blockName) == null) {
+      return null;
+    }
+
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(getPath(blockName))))) {
+      if (!in.readUTF().equals(blockName)) {
+        return null;
+      }
+      byte[] data = new byte[in.readInt()];
+      in.readFully(data);
+      hits.increment();
+      return data;
+    } catch (IOException e) {
+      log.debug("Failed to read cached block {}", blockName, e);
+      index.invalidate(blockName);
+      return null;
+    }
+  }
+
+  /**
+   * Writes a block in the background, if it is not already in the cache.
+   */
+  void put(String blockName, byte[] data) {
+    if (data.length <= maxSize && !index.asMap().containsKey(blockName)) {
+      writer.execute(() -> write(blockName, data));
+    }
+  }
+
+  private void write(String blockName, byte[] data) {
+    if (index.asMap().containsKey(blockName)) {
+      return;
+    }
+
+    Path path = getPath(blockName);
+    Path tmp = path.resolveSibling(path.getFileName() + TMP_SUFFIX);
+    try {
+      Files.createDirectories(path.getParent());
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        out.writeUTF(blockName);
+        out.writeInt(data.length);
+        out.write(data);
+      }
+      Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      index.put(blockName, data.length);
+    } catch (IOException e) {
+      log.warn("Failed to write cached block {} to {}", blockName, path, e);
+      delete(tmp);
+    }
+  }
+
+  BlockCache.Stats getStats() {
+    long hitCount = hits.sum();
+    long requestCount = requests.sum();
+    return new BlockCache.Stats() {
+      @Override
+      public long hitCount() {
+        return hitCount;
+      }
+
+      @Override
+      public long requestCount() {
+        return requestCount;
+      }
+    };
+  }
+
+  long getSize() {
+    return index.policy().eviction().get().weightedSize().getAsLong();
+  }
+
+  long getBlockCount() {
+    return index.estimatedSize();
+  }
+
+  /**
+   * Waits for queued blocks to be written.
+   */
+  void close() {
+    writer.shutdown();
+    try {
+      if (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+        log.warn("Timed out writing blocks to {}", dir);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.tiered;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A block cache with two levels. The first level is a {@link LruBlockCache} on the heap and the
+ * second level is a larger {@link LocalFileBlockCache} on local disk. Blocks are written to both
+ * levels when they are loaded, so a block evicted from the first level can still be read from local
+ * disk instead of from the file system. Blocks read from the second level are added back to the
+ * first level.
+ */
+public final class TieredBlockCache implements BlockCache {
+  private static final Logger log = LoggerFactory.getLogger(TieredBlockCache.class);
+  private static final int STATS_PERIOD_SEC = 60;
+
+  private final CacheType type;
+  private final LruBlockCache l1;
+  private final LocalFileBlockCache l2;
+  private final ScheduledExecutorService statsExecutor;
+
+  TieredBlockCache(CacheType type, LruBlockCache l1, LocalFileBlockCache l2) {
+    this.type = type;
+    this.l1 = l1;
+    this.l2 = l2;
+    statsExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("TieredBlockCacheStatsExecutor").setDaemon(true).build());
+    statsExecutor.scheduleAtFixedRate(this::logStats, STATS_PERIOD_SEC, STATS_PERIOD_SEC,
+        TimeUnit.SECONDS);
+  }
+
+  @Override
+  public CacheEntry cacheBlock(String blockName, byte[] buf) {
+    l2.put(blockName, buf);
+    return l1.cacheBlock(blockName, buf);
+  }
+
+  @Override
+  public CacheEntry getBlock(String blockName) {
+    CacheEntry ce = l1.getBlock(blockName);
+    if (ce != null) {
+      return ce;
+    }
+
+    byte[] data = l2.get(blockName);
+    if (data == null) {
+      return null;
+    }
+
+    return l1.cacheBlock(blockName, data);
+  }
+
+  @Override
+  public CacheEntry getBlock(String blockName, Loader loader) {
+    // The first level prevents concurrent loads of the same block, so only check the second level
+    // when the first level loads.
+    return l1.getBlock(blockName, new Loader() {
+      @Override
+      public Map<String,Loader> getDependencies() {
+        return loader.getDependencies();
+      }
+
+      @Override
+      public byte[] load(int maxSize, Map<String,byte[]> dependencies) {
+        byte[] data = l2.get(blockName);
+        if (data != null && data.length <= maxSize) {
+          return data;
+        }
+
+        data = loader.load(maxSize, dependencies);
+        if (data != null) {
+          l2.put(blockName, data);
+        }
+        return data;
+      }
+    });
+  }
+
+  @Override
+  public long getMaxHeapSize() {
+    return l1.getMaxHeapSize();
+  }
+
+  @Override
+  public long getMaxSize() {
+    return l1.getMaxSize() + l2.getMaxSize();
+  }
+
+  /**
+   * The hits of both levels. Every request is made to the first level, and only the first level's
+   * misses are requested from the second level.
+   */
+  @Override
+  public Stats getStats() {
+    Stats l1Stats = getL1Stats();
+    Stats l2Stats = getL2Stats();
+    return new Stats() {
+      @Override
+      public long hitCount() {
+        return l1Stats.hitCount() + l2Stats.hitCount();
+      }
+
+      @Override
+      public long requestCount() {
+        return l1Stats.requestCount();
+      }
+    };
+  }
+
+  public Stats getL1Stats() {
+    return l1.getStats();
+  }
+
+  public Stats getL2Stats() {
+    return l2.getStats();
+  }
+
+  private static double hitRatio(Stats stats) {
+    return stats.requestCount() == 0 ? 0 : (double) stats.hitCount() / stats.requestCount();
+  }
+
+  private void logStats() {
+    Stats l1Stats = getL1Stats();
+    Stats l2Stats = getL2Stats();
+    double l2SizeMB = ((double) l2.getSize()) / ((double) (1024 * 1024));
+    log.debug(
+        "{} cache L1 hits={} requests={} ratio={}%, L2 hits={} requests={} ratio={}%"
+            + " size={}MB blocks={}",
+        type, l1Stats.hitCount(), l1Stats.requestCount(), hitRatio(l1Stats) * 100,
+        l2Stats.hitCount(), l2Stats.requestCount(), hitRatio(l2Stats) * 100, l2SizeMB,
+        l2.getBlockCount());
+  }
+
+  void shutdown() {
+    statsExecutor.shutdownNow();
+    l1.shutdown();
+    l2.close();
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.tiered;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import org.apache.accumulo.core.conf.ConfigurationTypeHelper;
+import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCache;
+import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCacheConfiguration;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates a {@link TieredBlockCache} for each cache type that has a local directory configured, and
+ * a {@link LruBlockCache} for the others. The first level is configured like
+ * {@link org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCacheManager}. The second level
+ * is configured with the following properties, which can be set for all types using
+ * {@code tserver.cache.config.tiered.default.} or for one type, for example using
+ * {@code tserver.cache.config.tiered.data.}.
+ *
+ * <ul>
+ * <li>{@code l2.dir} a local directory, a sub directory is used for each cache type
+ * <li>{@code l2.size} the maximum size of the blocks stored in the directory
+ * </ul>
+ */
+public class TieredBlockCacheManager extends BlockCacheManager {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TieredBlockCacheManager.class);
+
+  public static final String PROPERTY_PREFIX = "tiered";
+  public static final String L2_DIR_PROPERTY = "l2.dir";
+  public static final String L2_SIZE_PROPERTY = "l2.size";
+
+  @Override
+  protected BlockCache createCache(Configuration conf, CacheType type) {
+    LruBlockCacheConfiguration cc = new LruBlockCacheConfiguration(conf, type);
+    Map<String,String> props = conf.getProperties(PROPERTY_PREFIX, type);
+    String dir = props.get(L2_DIR_PROPERTY);
+    if (dir == null) {
+      LOG.info("Creating {} cache with configuration {}", type, cc);
+      return new LruBlockCache(cc);
+    }
+
+    String size = props.get(L2_SIZE_PROPERTY);
+    if (size == null) {
+      throw new IllegalArgumentException(
+          "The " + L2_SIZE_PROPERTY + " property must be set for the " + type + " cache");
+    }
+
+    Path l2Dir = Paths.get(dir, type.name().toLowerCase());
+    long l2Size = ConfigurationTypeHelper.getFixedMemoryAsBytes(size);
+    LOG.info("Creating {} cache with configuration {} and level 2 cache of {} bytes in {}", type,
+        cc, l2Size, l2Dir);
+    return new TieredBlockCache(type, new LruBlockCache(cc),
+        new LocalFileBlockCache(l2Dir, l2Size));
+  }
+
+  @Override
+  public void stop() {
+    for (CacheType type : CacheType.values()) {
+      BlockCache cache = this.getBlockCache(type);
+      if (cache instanceof TieredBlockCache) {
+        ((TieredBlockCache) cache).shutdown();
+      } else if (cache instanceof LruBlockCache) {
+        ((LruBlockCache) cache).shutdown();
+      }
+    }
+    super.stop();
+  }
+
+}
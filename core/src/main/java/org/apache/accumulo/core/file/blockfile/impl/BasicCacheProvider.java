@@ -24,10 +24,16 @@ public class BasicCacheProvider implements CacheProvider {
 
   private final BlockCache indexCache;
   private final BlockCache dataCache;
+  private final BlockCache bloomCache;
 
   public BasicCacheProvider(BlockCache indexCache, BlockCache dataCache) {
+    this(indexCache, dataCache, null);
+  }
+
+  public BasicCacheProvider(BlockCache indexCache, BlockCache dataCache, BlockCache bloomCache) {
     this.indexCache = indexCache;
     this.dataCache = dataCache;
+    this.bloomCache = bloomCache;
   }
 
   @Override
@@ -40,4 +46,9 @@ public class BasicCacheProvider implements CacheProvider {
     return indexCache;
   }
 
+  @Override
+  public BlockCache getBloomCache() {
+    return bloomCache;
+  }
+
 }
@@ -20,6 +20,7 @@ package org.apache.accumulo.core.file.blockfile.impl;
 
 import java.io.Closeable;
 import java.io.DataInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
@@ -33,6 +34,8 @@ import java.util.function.Supplier;
 import org.apache.accumulo.core.file.rfile.bcfile.BCFile;
 import org.apache.accumulo.core.file.rfile.bcfile.BCFile.Reader.BlockReader;
 import org.apache.accumulo.core.file.rfile.bcfile.MetaBlockDoesNotExist;
+import org.apache.accumulo.core.file.streams.CoalescingInputStream;
+import org.apache.accumulo.core.file.streams.MappedFileInputStream;
 import org.apache.accumulo.core.file.streams.RateLimitedInputStream;
 import org.apache.accumulo.core.spi.cache.BlockCache;
 import org.apache.accumulo.core.spi.cache.BlockCache.Loader;
@@ -42,7 +45,9 @@ import org.apache.accumulo.core.spi.crypto.CryptoService;
 import org.apache.accumulo.core.util.ratelimit.RateLimiter;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
 import org.apache.hadoop.fs.Seekable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -76,6 +81,7 @@ public class CachableBlockFile {
     RateLimiter readLimiter = null;
     Configuration hadoopConf = null;
     CryptoService cryptoService = null;
+    int coalescedReadSize = 0;
 
     public CachableBuilder cacheId(String id) {
       this.cacheId = id;
@@ -88,12 +94,37 @@ public class CachableBlockFile {
     }
 
     public CachableBuilder fsPath(FileSystem fs, Path dataFile) {
+      return fsPath(fs, dataFile, false);
+    }
+
+    /**
+     * @param mapLocalFiles
+     *          when true and the file is on the local file system, the file is memory mapped
+     *          instead of being read through the file system. Checksums kept by the local file
+     *          system are not verified for mapped files.
+     */
+    public CachableBuilder fsPath(FileSystem fs, Path dataFile, boolean mapLocalFiles) {
       this.cacheId = pathToCacheId(dataFile);
-      this.inputSupplier = () -> fs.open(dataFile);
-      this.lengthSupplier = () -> fs.getFileStatus(dataFile).getLen();
+      File localFile = mapLocalFiles ? toLocalFile(fs, dataFile) : null;
+      if (localFile != null) {
+        this.inputSupplier = () -> new MappedFileInputStream(localFile);
+        this.lengthSupplier = localFile::length;
+      } else {
+        this.inputSupplier = () -> fs.open(dataFile);
+        this.lengthSupplier = () -> fs.getFileStatus(dataFile).getLen();
+      }
       return this;
     }
 
+    private static File toLocalFile(FileSystem fs, Path dataFile) {
+      if (fs instanceof LocalFileSystem) {
+        return ((LocalFileSystem) fs).pathToFile(dataFile);
+      } else if (fs instanceof RawLocalFileSystem) {
+        return ((RawLocalFileSystem) fs).pathToFile(dataFile);
+      }
+      return null;
+    }
+
     public CachableBuilder input(InputStream is) {
       this.inputSupplier = () -> is;
       return this;
@@ -123,6 +154,17 @@ public class CachableBlockFile {
       this.cryptoService = cryptoService;
       return this;
     }
+
+    /**
+     * @param maxSize
+     *          when greater than 0, blocks are read with a single read of up to this many bytes,
+     *          and nearby blocks are read along with them
+     * @see CoalescingInputStream
+     */
+    public CachableBuilder coalesceReads(int maxSize) {
+      this.coalescedReadSize = maxSize;
+      return this;
+    }
   }
 
   /**
@@ -138,6 +180,7 @@ public class CachableBlockFile {
     private boolean closed = false;
     private final Configuration conf;
     private final CryptoService cryptoService;
+    private final int coalescedReadSize;
 
     private final IoeSupplier<InputStream> inputSupplier;
     private final IoeSupplier<Long> lengthSupplier;
@@ -163,8 +206,10 @@ public class CachableBlockFile {
 
       BCFile.Reader reader = bcfr.get();
       if (reader == null) {
-        RateLimitedInputStream fsIn =
+        RateLimitedInputStream limitedIn =
             new RateLimitedInputStream((InputStream & Seekable) inputSupplier.get(), readLimiter);
+        var fsIn = coalescedReadSize > 0 ? new CoalescingInputStream(limitedIn, coalescedReadSize)
+            : limitedIn;
         BCFile.Reader tmpReader = null;
         if (serializedMetadata == null) {
           if (fileLenCache == null) {
@@ -233,12 +278,25 @@ public class CachableBlockFile {
       private long offset;
       private long compressedSize;
       private long rawSize;
+      private byte[] dictionary;
+      private long prefetchOffset;
+      private long prefetchLength;
+      private volatile boolean prefetched = false;
+
+      private RawBlockLoader(long offset, long compressedSize, long rawSize, byte[] dictionary,
+          boolean loadingMeta) {
+        this(offset, compressedSize, rawSize, dictionary, loadingMeta, offset, 0);
+      }
 
-      private RawBlockLoader(long offset, long compressedSize, long rawSize, boolean loadingMeta) {
+      private RawBlockLoader(long offset, long compressedSize, long rawSize, byte[] dictionary,
+          boolean loadingMeta, long prefetchOffset, long prefetchLength) {
         super(loadingMeta);
         this.offset = offset;
         this.compressedSize = compressedSize;
         this.rawSize = rawSize;
+        this.dictionary = dictionary;
+        this.prefetchOffset = prefetchOffset;
+        this.prefetchLength = prefetchLength;
       }
 
       @Override
@@ -246,7 +304,11 @@ public class CachableBlockFile {
         if (rawSize > Math.min(maxSize, MAX_ARRAY_SIZE)) {
           return null;
         }
-        return bcfr.getDataBlock(offset, compressedSize, rawSize);
+        if (prefetchLength > 0) {
+          bcfr.prefetch(prefetchOffset, prefetchLength);
+          prefetched = true;
+        }
+        return bcfr.getDataBlock(offset, compressedSize, rawSize, dictionary);
       }
 
       @Override
@@ -367,6 +429,7 @@ public class CachableBlockFile {
       this.readLimiter = b.readLimiter;
       this.conf = b.hadoopConf;
       this.cryptoService = Objects.requireNonNull(b.cryptoService);
+      this.coalescedReadSize = b.coalescedReadSize;
     }
 
     /**
@@ -374,7 +437,19 @@ public class CachableBlockFile {
      * read the entire block and then call close on the BlockRead class.
      */
     public CachedBlockRead getMetaBlock(String blockName) throws IOException {
-      BlockCache _iCache = cacheProvider.getIndexCache();
+      return getMetaBlock(blockName, cacheProvider.getIndexCache());
+    }
+
+    /**
+     * Reads a meta block holding a bloom filter through the bloom filter cache, or through the
+     * index cache if there is no bloom filter cache.
+     */
+    public CachedBlockRead getBloomMetaBlock(String blockName) throws IOException {
+      BlockCache _bCache = cacheProvider.getBloomCache();
+      return getMetaBlock(blockName, _bCache != null ? _bCache : cacheProvider.getIndexCache());
+    }
+
+    private CachedBlockRead getMetaBlock(String blockName, BlockCache _iCache) throws IOException {
       if (_iCache != null) {
         String _lookup = this.cacheId + "M" + blockName;
         try {
@@ -402,8 +477,8 @@ public class CachableBlockFile {
       BlockCache _iCache = cacheProvider.getIndexCache();
       if (_iCache != null) {
         String _lookup = this.cacheId + "R" + offset;
-        CacheEntry ce =
-            _iCache.getBlock(_lookup, new RawBlockLoader(offset, compressedSize, rawSize, true));
+        CacheEntry ce = _iCache.getBlock(_lookup,
+            new RawBlockLoader(offset, compressedSize, rawSize, null, true));
         if (ce != null) {
           return new CachedBlockRead(ce, ce.getBuffer());
         }
@@ -413,6 +488,40 @@ public class CachableBlockFile {
       return new CachedBlockRead(_currBlock);
     }
 
+    /**
+     * @return the largest range of the file that
+     *         {@link #getMetaBlock(long, long, long, long, long)} reads at once, or 0 when reads
+     *         are not coalesced or there is no index cache to load prefetched blocks into
+     */
+    public int getMaxPrefetchSize() {
+      return cacheProvider.getIndexCache() == null ? 0 : coalescedReadSize;
+    }
+
+    /**
+     * Reads a meta block like {@link #getMetaBlock(long, long, long)}. When the block is not in the
+     * index cache, the given range of the file, which holds the block, is read with a single read
+     * before the block is loaded, so that the other blocks in the range can be loaded from memory.
+     * {@link CachedBlockRead#isPrefetched()} tells the caller whether that happened.
+     */
+    public CachedBlockRead getMetaBlock(long offset, long compressedSize, long rawSize,
+        long prefetchOffset, long prefetchLength) throws IOException {
+      BlockCache _iCache = cacheProvider.getIndexCache();
+      if (_iCache != null) {
+        String _lookup = this.cacheId + "R" + offset;
+        RawBlockLoader loader = new RawBlockLoader(offset, compressedSize, rawSize, null, true,
+            prefetchOffset, prefetchLength);
+        CacheEntry ce = _iCache.getBlock(_lookup, loader);
+        if (ce != null) {
+          CachedBlockRead cbr = new CachedBlockRead(ce, ce.getBuffer());
+          cbr.prefetched = loader.prefetched;
+          return cbr;
+        }
+      }
+
+      BlockReader _currBlock = getBCFile(null).getDataBlock(offset, compressedSize, rawSize);
+      return new CachedBlockRead(_currBlock);
+    }
+
     /**
      * It is intended that once the BlockRead object is returned to the caller, that the caller will
      * read the entire block and then call close on the BlockRead class.
@@ -437,20 +546,48 @@ public class CachableBlockFile {
 
     public CachedBlockRead getDataBlock(long offset, long compressedSize, long rawSize)
         throws IOException {
+      return getDataBlock(offset, compressedSize, rawSize, null);
+    }
+
+    /**
+     * @param dictionary
+     *          the preset dictionary the block was compressed with, or null
+     * @see BCFile.Reader#getDataBlock(long, long, long, byte[])
+     */
+    public CachedBlockRead getDataBlock(long offset, long compressedSize, long rawSize,
+        byte[] dictionary) throws IOException {
       BlockCache _dCache = cacheProvider.getDataCache();
       if (_dCache != null) {
         String _lookup = this.cacheId + "R" + offset;
-        CacheEntry ce =
-            _dCache.getBlock(_lookup, new RawBlockLoader(offset, compressedSize, rawSize, false));
+        CacheEntry ce = _dCache.getBlock(_lookup,
+            new RawBlockLoader(offset, compressedSize, rawSize, dictionary, false));
         if (ce != null) {
           return new CachedBlockRead(ce, ce.getBuffer());
         }
       }
 
-      BlockReader _currBlock = getBCFile().getDataBlock(offset, compressedSize, rawSize);
+      BlockReader _currBlock =
+          getBCFile().getDataBlock(offset, compressedSize, rawSize, dictionary);
       return new CachedBlockRead(_currBlock);
     }
 
+    /**
+     * Reads the compressed bytes of a data block directly from the file, bypassing the cache. This
+     * supports copying blocks between files without decompressing them.
+     *
+     * @see BCFile.Writer#appendRawDataBlock(InputStream, long)
+     */
+    public InputStream getRawDataBlock(long offset, long compressedSize) throws IOException {
+      return getBCFile().getRawDataBlock(offset, compressedSize);
+    }
+
+    /**
+     * @see BCFile.Reader#isRawCopyCompatible(BCFile.Writer)
+     */
+    public boolean isRawCopyCompatible(BCFile.Writer writer) throws IOException {
+      return getBCFile().isRawCopyCompatible(writer);
+    }
+
     @Override
     public synchronized void close() throws IOException {
       if (closed)
@@ -481,6 +618,7 @@ public class CachableBlockFile {
     private SeekableByteArrayInputStream seekableInput;
     private final CacheEntry cb;
     boolean indexable;
+    private boolean prefetched = false;
 
     public CachedBlockRead(InputStream in) {
       super(in);
@@ -512,6 +650,14 @@ public class CachableBlockFile {
       return indexable;
     }
 
+    /**
+     * @return true if the block was not cached and the range of the file around it was read along
+     *         with it
+     */
+    public boolean isPrefetched() {
+      return prefetched;
+    }
+
     public byte[] getBuffer() {
       return seekableInput.getBuffer();
     }
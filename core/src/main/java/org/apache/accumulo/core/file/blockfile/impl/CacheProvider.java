@@ -26,4 +26,11 @@ public interface CacheProvider {
   BlockCache getDataCache();
 
   BlockCache getIndexCache();
+
+  /**
+   * @return the cache for bloom filters, or null to cache bloom filters in the index cache
+   */
+  default BlockCache getBloomCache() {
+    return null;
+  }
 }
@@ -22,50 +22,65 @@ import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.spi.cache.BlockCache;
 import org.apache.accumulo.core.spi.scan.ScanDirectives;
+import org.apache.accumulo.core.spi.scan.ScanDirectives.CacheUsage;
 
 public class ScanCacheProvider implements CacheProvider {
 
   private final BlockCache indexCache;
   private final BlockCache dataCache;
+  private final BlockCache bloomCache;
+  private final CacheUsage indexCacheUsage;
+  private final CacheUsage dataCacheUsage;
 
   public ScanCacheProvider(AccumuloConfiguration tableConfig, ScanDirectives directives,
-      BlockCache indexCache, BlockCache dataCache) {
-    switch (directives.getIndexCacheUsage()) {
-      case ENABLED:
-        this.indexCache = indexCache;
-        break;
-      case DISABLED:
-        this.indexCache = null;
-        break;
-      case OPPORTUNISTIC:
-        this.indexCache = new OpportunisticBlockCache(indexCache);
-        break;
-      case TABLE:
-        this.indexCache =
-            tableConfig.getBoolean(Property.TABLE_INDEXCACHE_ENABLED) ? indexCache : null;
-        break;
-      default:
-        throw new IllegalStateException();
+      BlockCache indexCache, BlockCache dataCache, BlockCache bloomCache) {
+    this.indexCacheUsage =
+        resolve(directives.getIndexCacheUsage(), tableConfig, Property.TABLE_INDEXCACHE_ENABLED);
+    this.indexCache = wrap(indexCacheUsage, indexCache);
+
+    this.dataCacheUsage =
+        resolve(directives.getDataCacheUsage(), tableConfig, Property.TABLE_BLOCKCACHE_ENABLED);
+    this.dataCache = wrap(dataCacheUsage, dataCache);
+
+    // bloom filters are small and checked by every seek, so scans always cache them
+    this.bloomCache = bloomCache;
+  }
+
+  private static CacheUsage resolve(CacheUsage usage, AccumuloConfiguration tableConfig,
+      Property enabledProperty) {
+    if (usage == CacheUsage.TABLE) {
+      return tableConfig.getBoolean(enabledProperty) ? CacheUsage.ENABLED : CacheUsage.DISABLED;
     }
+    return usage;
+  }
 
-    switch (directives.getDataCacheUsage()) {
+  private static BlockCache wrap(CacheUsage usage, BlockCache cache) {
+    switch (usage) {
       case ENABLED:
-        this.dataCache = dataCache;
-        break;
+        return cache;
       case DISABLED:
-        this.dataCache = null;
-        break;
+        return null;
       case OPPORTUNISTIC:
-        this.dataCache = new OpportunisticBlockCache(dataCache);
-        break;
-      case TABLE:
-        this.dataCache =
-            tableConfig.getBoolean(Property.TABLE_BLOCKCACHE_ENABLED) ? dataCache : null;
-        break;
+        return new OpportunisticBlockCache(cache);
       default:
         throw new IllegalStateException();
     }
+  }
+
+  /**
+   * @return how the scan uses the data cache after applying the table settings, never
+   *         {@link CacheUsage#TABLE}
+   */
+  public CacheUsage getDataCacheUsage() {
+    return dataCacheUsage;
+  }
 
+  /**
+   * @return how the scan uses the index cache after applying the table settings, never
+   *         {@link CacheUsage#TABLE}
+   */
+  public CacheUsage getIndexCacheUsage() {
+    return indexCacheUsage;
   }
 
   @Override
@@ -77,4 +92,9 @@ public class ScanCacheProvider implements CacheProvider {
   public BlockCache getIndexCache() {
     return indexCache;
   }
+
+  @Override
+  public BlockCache getBloomCache() {
+    return bloomCache;
+  }
 }
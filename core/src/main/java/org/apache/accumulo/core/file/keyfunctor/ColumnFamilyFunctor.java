@@ -18,6 +18,7 @@
  */
 package org.apache.accumulo.core.file.keyfunctor;
 
+import org.apache.accumulo.core.bloomfilter.BlockedBloomFilter;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Range;
@@ -25,6 +26,10 @@ import org.apache.hadoop.util.bloom.Key;
 
 public class ColumnFamilyFunctor implements KeyFunctor {
 
+  // subclasses may change the bloom key by overriding transform, so only hash in place when the
+  // bloom key is known to be the one produced here
+  private final boolean hashInPlace = getClass() == ColumnFamilyFunctor.class;
+
   public static final PartialKey kDepth = PartialKey.ROW_COLFAM;
 
   @Override
@@ -49,4 +54,46 @@ public class ColumnFamilyFunctor implements KeyFunctor {
     return null;
   }
 
+  @Override
+  public long hash(org.apache.accumulo.core.data.Key acuKey) {
+    if (!hashInPlace) {
+      return KeyFunctor.super.hash(acuKey);
+    }
+    long hash = BlockedBloomFilter.HASH_SEED;
+    hash = BlockedBloomFilter.hash(hash, acuKey.getRowData());
+    hash = BlockedBloomFilter.hash(hash, acuKey.getColumnFamilyData());
+    return hash;
+  }
+
+  @Override
+  public boolean canTransform(Range range) {
+    if (!hashInPlace) {
+      return KeyFunctor.super.canTransform(range);
+    }
+    return RowFunctor.isRangeInBloomFilter(range, kDepth);
+  }
+
+  @Override
+  public long hash(Range range) {
+    if (!hashInPlace) {
+      return KeyFunctor.super.hash(range);
+    }
+    return hash(range.getStartKey());
+  }
+
+  @Override
+  public boolean isBloomKeyEmpty(org.apache.accumulo.core.data.Key acuKey) {
+    if (!hashInPlace) {
+      return KeyFunctor.super.isBloomKeyEmpty(acuKey);
+    }
+    return acuKey.getRowData().length() == 0 && acuKey.getColumnFamilyData().length() == 0;
+  }
+
+  @Override
+  public boolean isBloomKeyEmpty(Range range) {
+    if (!hashInPlace) {
+      return KeyFunctor.super.isBloomKeyEmpty(range);
+    }
+    return isBloomKeyEmpty(range.getStartKey());
+  }
 }
@@ -18,6 +18,7 @@
  */
 package org.apache.accumulo.core.file.keyfunctor;
 
+import org.apache.accumulo.core.bloomfilter.BlockedBloomFilter;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Range;
@@ -25,6 +26,10 @@ import org.apache.hadoop.util.bloom.Key;
 
 public class ColumnQualifierFunctor implements KeyFunctor {
 
+  // subclasses may change the bloom key by overriding transform, so only hash in place when the
+  // bloom key is known to be the one produced here
+  private final boolean hashInPlace = getClass() == ColumnQualifierFunctor.class;
+
   @Override
   public org.apache.hadoop.util.bloom.Key transform(org.apache.accumulo.core.data.Key acuKey) {
     byte[] keyData;
@@ -49,4 +54,48 @@ public class ColumnQualifierFunctor implements KeyFunctor {
     return null;
   }
 
+  @Override
+  public long hash(org.apache.accumulo.core.data.Key acuKey) {
+    if (!hashInPlace) {
+      return KeyFunctor.super.hash(acuKey);
+    }
+    long hash = BlockedBloomFilter.HASH_SEED;
+    hash = BlockedBloomFilter.hash(hash, acuKey.getRowData());
+    hash = BlockedBloomFilter.hash(hash, acuKey.getColumnFamilyData());
+    hash = BlockedBloomFilter.hash(hash, acuKey.getColumnQualifierData());
+    return hash;
+  }
+
+  @Override
+  public boolean canTransform(Range range) {
+    if (!hashInPlace) {
+      return KeyFunctor.super.canTransform(range);
+    }
+    return RowFunctor.isRangeInBloomFilter(range, PartialKey.ROW_COLFAM_COLQUAL);
+  }
+
+  @Override
+  public long hash(Range range) {
+    if (!hashInPlace) {
+      return KeyFunctor.super.hash(range);
+    }
+    return hash(range.getStartKey());
+  }
+
+  @Override
+  public boolean isBloomKeyEmpty(org.apache.accumulo.core.data.Key acuKey) {
+    if (!hashInPlace) {
+      return KeyFunctor.super.isBloomKeyEmpty(acuKey);
+    }
+    return acuKey.getRowData().length() == 0 && acuKey.getColumnFamilyData().length() == 0
+        && acuKey.getColumnQualifierData().length() == 0;
+  }
+
+  @Override
+  public boolean isBloomKeyEmpty(Range range) {
+    if (!hashInPlace) {
+      return KeyFunctor.super.isBloomKeyEmpty(range);
+    }
+    return isBloomKeyEmpty(range.getStartKey());
+  }
 }
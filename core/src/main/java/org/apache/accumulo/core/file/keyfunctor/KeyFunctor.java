@@ -18,6 +18,8 @@
  */
 package org.apache.accumulo.core.file.keyfunctor;
 
+import org.apache.accumulo.core.bloomfilter.BlockedBloomFilter;
+import org.apache.accumulo.core.data.ArrayByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Range;
 
@@ -28,4 +30,50 @@ public interface KeyFunctor {
   org.apache.hadoop.util.bloom.Key transform(Range range);
 
   org.apache.hadoop.util.bloom.Key transform(Key key);
+
+  /**
+   * Returns true if {@link #transform(Range)} would return a bloom key for the range.
+   * Implementations should override this when they can answer without transforming the range.
+   */
+  default boolean canTransform(Range range) {
+    return transform(range) != null;
+  }
+
+  /**
+   * Hashes the bloom key of a key for a {@link BlockedBloomFilter}. The hash must be the same as
+   * hashing the bytes returned by {@link #transform(Key)}, starting from
+   * {@link BlockedBloomFilter#HASH_SEED}. Implementations should override this to hash the fields
+   * of the key in place.
+   */
+  default long hash(Key key) {
+    return BlockedBloomFilter.hash(BlockedBloomFilter.HASH_SEED,
+        new ArrayByteSequence(transform(key).getBytes()));
+  }
+
+  /**
+   * Hashes the bloom key of a range for a {@link BlockedBloomFilter}. Only called when
+   * {@link #canTransform(Range)} returns true.
+   */
+  default long hash(Range range) {
+    return BlockedBloomFilter.hash(BlockedBloomFilter.HASH_SEED,
+        new ArrayByteSequence(transform(range).getBytes()));
+  }
+
+  /**
+   * Returns true if the bloom key of a key is empty. Keys with an empty bloom key are not put in
+   * bloom filters. Implementations that override {@link #hash(Key)} should override this to check
+   * the fields of the key in place.
+   */
+  default boolean isBloomKeyEmpty(Key key) {
+    return transform(key).getBytes().length == 0;
+  }
+
+  /**
+   * Returns true if the bloom key of a range is empty, in which case the range is not checked
+   * against a {@link BlockedBloomFilter}. Only called when {@link #canTransform(Range)} returns
+   * true.
+   */
+  default boolean isBloomKeyEmpty(Range range) {
+    return transform(range).getBytes().length == 0;
+  }
 }
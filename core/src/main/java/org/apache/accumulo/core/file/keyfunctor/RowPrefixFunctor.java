@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.keyfunctor;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.accumulo.core.bloomfilter.BlockedBloomFilter;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.util.bloom.Key;
+
+/**
+ * Puts a prefix of each row in the bloom filter, so that ranges covering part of a prefix, such as
+ * those created by {@link Range#prefix(org.apache.hadoop.io.Text)}, can skip files that have no
+ * rows with the prefix. Rows without a prefix are put in the bloom filter whole, as
+ * {@link RowFunctor} does, and exact row lookups of those rows are checked against the bloom
+ * filter.
+ *
+ * <p>
+ * By default the prefix is the first {@code table.bloom.prefix.length} bytes of the row. Subclasses
+ * can extract a different prefix by overriding {@link #getPrefixLength(ByteSequence)}. The prefix
+ * length is stored in each file with the bloom filter, so changing it does not affect existing
+ * files.
+ */
+public class RowPrefixFunctor implements KeyFunctor, Writable {
+
+  private int prefixLength = 0;
+
+  public void setPrefixLength(int prefixLength) {
+    this.prefixLength = prefixLength;
+  }
+
+  /**
+   * Returns the length of the prefix of a row, or -1 if the row does not have a prefix. If a row
+   * has a prefix, every row that starts with that prefix must have the same prefix.
+   */
+  protected int getPrefixLength(ByteSequence row) {
+    if (prefixLength > 0 && row.length() >= prefixLength) {
+      return prefixLength;
+    }
+    return -1;
+  }
+
+  private int getBloomKeyLength(ByteSequence row) {
+    int len = getPrefixLength(row);
+    return len < 0 ? row.length() : len;
+  }
+
+  @Override
+  public Key transform(org.apache.accumulo.core.data.Key acuKey) {
+    ByteSequence row = acuKey.getRowData();
+    return new Key(row.subSequence(0, getBloomKeyLength(row)).toArray(), 1.0);
+  }
+
+  @Override
+  public Key transform(Range range) {
+    if (canTransform(range)) {
+      return transform(range.getStartKey());
+    }
+    return null;
+  }
+
+  @Override
+  public long hash(org.apache.accumulo.core.data.Key acuKey) {
+    ByteSequence row = acuKey.getRowData();
+    int len = getBloomKeyLength(row);
+    if (row.isBackedByArray()) {
+      return BlockedBloomFilter.hash(BlockedBloomFilter.HASH_SEED, row.getBackingArray(),
+          row.offset(), len);
+    }
+    return BlockedBloomFilter.hash(BlockedBloomFilter.HASH_SEED, row.subSequence(0, len));
+  }
+
+  @Override
+  public boolean canTransform(Range range) {
+    org.apache.accumulo.core.data.Key start = range.getStartKey();
+    org.apache.accumulo.core.data.Key end = range.getEndKey();
+    if (start == null || end == null) {
+      return false;
+    }
+
+    ByteSequence startRow = start.getRowData();
+    int len = getPrefixLength(startRow);
+    if (len < 0) {
+      // rows without a prefix are in the bloom filter whole
+      return RowFunctor.isRangeInBloomFilter(range, PartialKey.ROW);
+    }
+
+    // every row in the range must start with the prefix of the start row
+    ByteSequence endRow = end.getRowData();
+    if (startsWith(endRow, startRow, len)) {
+      return true;
+    }
+
+    return !range.isEndKeyInclusive() && isFollowingPrefix(endRow, startRow, len)
+        && end.getColumnFamilyData().length() == 0 && end.getColumnQualifierData().length() == 0
+        && end.getColumnVisibilityData().length() == 0 && end.getTimestamp() == Long.MAX_VALUE;
+  }
+
+  @Override
+  public long hash(Range range) {
+    return hash(range.getStartKey());
+  }
+
+  @Override
+  public boolean isBloomKeyEmpty(org.apache.accumulo.core.data.Key acuKey) {
+    return getBloomKeyLength(acuKey.getRowData()) == 0;
+  }
+
+  @Override
+  public boolean isBloomKeyEmpty(Range range) {
+    return isBloomKeyEmpty(range.getStartKey());
+  }
+
+  private static boolean startsWith(ByteSequence row, ByteSequence prefix, int len) {
+    if (row.length() < len) {
+      return false;
+    }
+    for (int i = 0; i < len; i++) {
+      if (row.byteAt(i) != prefix.byteAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks if a row is the first row after all rows starting with a prefix, see
+   * {@link Range#followingPrefix(org.apache.hadoop.io.Text)}.
+   */
+  private static boolean isFollowingPrefix(ByteSequence row, ByteSequence prefix, int len) {
+    int last = len - 1;
+    while (last >= 0 && prefix.byteAt(last) == (byte) 0xff) {
+      last--;
+    }
+    if (last < 0 || row.length() != last + 1) {
+      return false;
+    }
+    return startsWith(row, prefix, last) && row.byteAt(last) == (byte) (prefix.byteAt(last) + 1);
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    out.writeInt(prefixLength);
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    prefixLength = in.readInt();
+  }
+}
@@ -35,6 +35,17 @@ public class BlockIndex implements Weighable {
 
   public static BlockIndex getIndex(CachedBlockRead cacheBlock, IndexEntry indexEntry)
       throws IOException {
+    return getIndex(cacheBlock, indexEntry, 0, true);
+  }
+
+  /**
+   * @param keyStart
+   *          the position of the first key in the block
+   * @param inlineValues
+   *          true if each key in the block is followed by its value, false for columnar data blocks
+   */
+  public static BlockIndex getIndex(CachedBlockRead cacheBlock, IndexEntry indexEntry, int keyStart,
+      boolean inlineValues) throws IOException {
 
     BlockIndex blockIndex = cacheBlock.getIndex(BlockIndex::new);
     if (blockIndex == null)
@@ -44,7 +55,7 @@ public class BlockIndex implements Weighable {
 
     // 1 is a power of two, but do not care about it
     if (accessCount >= 2 && isPowerOfTwo(accessCount)) {
-      blockIndex.buildIndex(accessCount, cacheBlock, indexEntry);
+      blockIndex.buildIndex(accessCount, cacheBlock, indexEntry, keyStart, inlineValues);
       cacheBlock.indexWeightChanged();
     }
 
@@ -159,8 +170,8 @@ public class BlockIndex implements Weighable {
   }
 
   private synchronized void buildIndex(int indexEntries, CachedBlockRead cacheBlock,
-      IndexEntry indexEntry) throws IOException {
-    cacheBlock.seek(0);
+      IndexEntry indexEntry, int keyStart, boolean inlineValues) throws IOException {
+    cacheBlock.seek(keyStart);
 
     RelativeKey rk = new RelativeKey();
     Value val = new Value();
@@ -184,7 +195,9 @@ public class BlockIndex implements Weighable {
       Key myPrevKey = rk.getKey();
       int pos = cacheBlock.getPosition();
       rk.readFields(cacheBlock);
-      val.readFields(cacheBlock);
+      if (inlineValues) {
+        val.readFields(cacheBlock);
+      }
 
       if (count > 0 && count % interval == 0) {
         index.add(new BlockIndexEntry(pos, indexEntry.getNumEntries() - count, myPrevKey));
@@ -195,7 +208,7 @@ public class BlockIndex implements Weighable {
 
     this.blockIndex = index.toArray(new BlockIndexEntry[index.size()]);
 
-    cacheBlock.seek(0);
+    cacheBlock.seek(keyStart);
   }
 
   BlockIndexEntry[] getIndexEntries() {
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.rfile;
+
+import java.util.Arrays;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+
+/**
+ * Builds a compression dictionary for a locality group from a sample of its keys. Each key field is
+ * added when it differs from the same field of the previous sampled key, which mirrors what the
+ * relative key encoding actually writes to a data block.
+ */
+class DictionaryBuilder {
+
+  private final byte[] buffer;
+  private int size = 0;
+  private Key prevKey = null;
+
+  DictionaryBuilder(int maxSize) {
+    buffer = new byte[maxSize];
+  }
+
+  boolean isFull() {
+    return size == buffer.length;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  void add(Key key) {
+    if (isFull()) {
+      return;
+    }
+
+    if (prevKey == null || !prevKey.getRowData().equals(key.getRowData())) {
+      add(key.getRowData());
+    }
+    if (prevKey == null || !prevKey.getColumnFamilyData().equals(key.getColumnFamilyData())) {
+      add(key.getColumnFamilyData());
+    }
+    if (prevKey == null || !prevKey.getColumnQualifierData().equals(key.getColumnQualifierData())) {
+      add(key.getColumnQualifierData());
+    }
+    if (prevKey == null
+        || !prevKey.getColumnVisibilityData().equals(key.getColumnVisibilityData())) {
+      add(key.getColumnVisibilityData());
+    }
+
+    prevKey = key;
+  }
+
+  private void add(ByteSequence data) {
+    int len = Math.min(data.length(), buffer.length - size);
+    System.arraycopy(data.getBackingArray(), data.offset(), buffer, size, len);
+    size += len;
+  }
+
+  byte[] build() {
+    return Arrays.copyOf(buffer, size);
+  }
+}
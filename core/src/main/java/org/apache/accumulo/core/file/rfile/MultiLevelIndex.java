@@ -28,21 +28,23 @@ import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.RandomAccess;
 
+import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile;
 import org.apache.accumulo.core.file.blockfile.impl.SeekableByteArrayInputStream;
 import org.apache.accumulo.core.file.rfile.bcfile.BCFile;
 import org.apache.accumulo.core.file.rfile.bcfile.Utils;
 import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
 
 public class MultiLevelIndex {
 
@@ -237,24 +239,6 @@ public class MultiLevelIndex {
 
   }
 
-  private static class KeyIndex extends SerializedIndexBase<Key> {
-
-    KeyIndex(int[] offsets, byte[] data) {
-      super(offsets, data);
-    }
-
-    KeyIndex(byte[] data, int offsetsOffset, int numOffsets, int indexOffset, int indexSize) {
-      super(data, offsetsOffset, numOffsets, indexOffset, indexSize);
-    }
-
-    @Override
-    protected Key newValue() throws IOException {
-      Key key = new Key();
-      key.readFields(dis);
-      return key;
-    }
-  }
-
   static class IndexBlock {
 
     private ByteArrayOutputStream indexBytes;
@@ -316,7 +300,8 @@ public class MultiLevelIndex {
     public void readFields(DataInput in, int version) throws IOException {
 
       if (version == RFile.RINDEX_VER_6 || version == RFile.RINDEX_VER_7
-          || version == RFile.RINDEX_VER_8) {
+          || version == RFile.RINDEX_VER_8 || version == RFile.RINDEX_VER_9
+          || version == RFile.RINDEX_VER_10) {
         level = in.readInt();
         offset = in.readInt();
         hasNext = in.readBoolean();
@@ -413,15 +398,97 @@ public class MultiLevelIndex {
       }
     }
 
-    public List<Key> getKeyIndex() {
-      // create KeyIndex on demand as each has an internal input stream over byte array... keeping a
-      // KeyIndex ref for the object could lead to problems with
-      // deep copies.
-      if (offsetsArray == null) {
-        return new KeyIndex(data, offsetsOffset, numOffsets, indexOffset, indexSize);
-      } else {
-        return new KeyIndex(offsetsArray, data);
+    /**
+     * Searches the index for a key without deserializing the keys in the index. The search key is
+     * compared to each serialized key in place, so a lookup does not create any objects.
+     *
+     * @return the position of the key, or {@code (-(insertion point) - 1)} when the index does not
+     *         contain the key, like {@link java.util.Collections#binarySearch(List, Object)}
+     */
+    int binarySearch(Key key) {
+      ByteSequence row = key.getRowData();
+      ByteSequence cf = key.getColumnFamilyData();
+      ByteSequence cq = key.getColumnQualifierData();
+      ByteSequence cv = key.getColumnVisibilityData();
+
+      int low = 0;
+      int high = (offsetsArray == null ? numOffsets : offsetsArray.length) - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int entryOffset =
+            offsetsArray == null ? readInt(data, offsetsOffset + mid * 4) : offsetsArray[mid];
+        int cmp = compareKey(data, indexOffset + entryOffset, row, cf, cq, cv, key.getTimestamp(),
+            key.isDeleted());
+        if (cmp < 0) {
+          low = mid + 1;
+        } else if (cmp > 0) {
+          high = mid - 1;
+        } else {
+          return mid;
+        }
       }
+      return -(low + 1);
+    }
+
+    private static int readInt(byte[] b, int pos) {
+      return ((b[pos] & 0xff) << 24) | ((b[pos + 1] & 0xff) << 16) | ((b[pos + 2] & 0xff) << 8)
+          | (b[pos + 3] & 0xff);
+    }
+
+    /**
+     * Compares a key serialized by {@link Key#write(DataOutput)} to the given key fields, in the
+     * order defined by {@link Key#compareTo(Key)}.
+     */
+    private static int compareKey(byte[] b, int pos, ByteSequence row, ByteSequence cf,
+        ByteSequence cq, ByteSequence cv, long timestamp, boolean deleted) {
+      try {
+        int cfOffset = WritableComparator.readVInt(b, pos);
+        pos += WritableUtils.decodeVIntSize(b[pos]);
+        int cqOffset = WritableComparator.readVInt(b, pos);
+        pos += WritableUtils.decodeVIntSize(b[pos]);
+        int cvOffset = WritableComparator.readVInt(b, pos);
+        pos += WritableUtils.decodeVIntSize(b[pos]);
+        int totalLen = WritableComparator.readVInt(b, pos);
+        pos += WritableUtils.decodeVIntSize(b[pos]);
+
+        int result = compareBytes(b, pos, cfOffset, row);
+        if (result != 0) {
+          return result;
+        }
+        result = compareBytes(b, pos + cfOffset, cqOffset - cfOffset, cf);
+        if (result != 0) {
+          return result;
+        }
+        result = compareBytes(b, pos + cqOffset, cvOffset - cqOffset, cq);
+        if (result != 0) {
+          return result;
+        }
+        result = compareBytes(b, pos + cvOffset, totalLen - cvOffset, cv);
+        if (result != 0) {
+          return result;
+        }
+
+        pos += totalLen;
+        long entryTimestamp = WritableComparator.readVLong(b, pos);
+        result = Long.compare(timestamp, entryTimestamp);
+        if (result != 0) {
+          return result;
+        }
+
+        boolean entryDeleted = b[pos + WritableUtils.decodeVIntSize(b[pos])] != 0;
+        if (entryDeleted) {
+          return deleted ? 0 : -1;
+        } else {
+          return deleted ? 1 : 0;
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private static int compareBytes(byte[] b, int pos, int len, ByteSequence other) {
+      return WritableComparator.compareBytes(b, pos, len, other.getBackingArray(), other.offset(),
+          other.length());
     }
 
     int getLevel() {
@@ -607,8 +674,7 @@ public class MultiLevelIndex {
       }
 
       private Node lookup(Key key) throws IOException {
-        int pos =
-            Collections.binarySearch(indexBlock.getKeyIndex(), key, Comparator.naturalOrder());
+        int pos = indexBlock.binarySearch(key);
 
         if (pos < 0)
           pos = (pos * -1) - 1;
@@ -626,8 +692,7 @@ public class MultiLevelIndex {
           return this;
         }
 
-        IndexEntry ie = indexBlock.getIndex().get(pos);
-        Node child = new Node(this, getIndexBlock(ie));
+        Node child = new Node(this, getIndexBlock(indexBlock.getIndex(), pos));
         return child.lookup(key);
       }
 
@@ -814,6 +879,64 @@ public class MultiLevelIndex {
       return iblock;
     }
 
+    /**
+     * Reads the index block a lookup descends into. When it is not cached, the index blocks next to
+     * it in the file are read along with it using a single read and loaded into the index cache.
+     * Index blocks are written in contiguous chunks, so the siblings of a block are usually next to
+     * it and later lookups find them cached instead of each costing a read.
+     */
+    private IndexBlock getIndexBlock(List<IndexEntry> index, int pos) throws IOException {
+      int maxSize = blockStore.getMaxPrefetchSize();
+      IndexEntry target = index.get(pos);
+      if (maxSize <= 0 || target.getCompressedSize() > maxSize) {
+        return getIndexBlock(target);
+      }
+
+      long start = target.getOffset();
+      long end = start + target.getCompressedSize();
+      int first = pos;
+      int last = pos;
+      while (last + 1 < index.size()) {
+        IndexEntry next = index.get(last + 1);
+        long nextEnd = next.getOffset() + next.getCompressedSize();
+        if (next.getOffset() < end || nextEnd - start > maxSize) {
+          break;
+        }
+        end = nextEnd;
+        last++;
+      }
+      while (first > 0) {
+        IndexEntry prev = index.get(first - 1);
+        long prevEnd = prev.getOffset() + prev.getCompressedSize();
+        if (prevEnd > start || end - prev.getOffset() > maxSize) {
+          break;
+        }
+        start = prev.getOffset();
+        first--;
+      }
+
+      if (first == last) {
+        return getIndexBlock(target);
+      }
+
+      IndexBlock iblock = new IndexBlock();
+      CachableBlockFile.CachedBlockRead in = blockStore.getMetaBlock(target.getOffset(),
+          target.getCompressedSize(), target.getRawSize(), start, end - start);
+      iblock.readFields(in, version);
+      in.close();
+
+      if (in.isPrefetched()) {
+        for (int i = first; i <= last; i++) {
+          if (i != pos) {
+            IndexEntry sibling = index.get(i);
+            blockStore.getMetaBlock(sibling.getOffset(), sibling.getCompressedSize(),
+                sibling.getRawSize()).close();
+          }
+        }
+      }
+      return iblock;
+    }
+
     public IndexIterator lookup(Key key) throws IOException {
       Node node = new Node(rootBlock);
       return new IndexIterator(node.lookup(key));
@@ -824,7 +947,8 @@ public class MultiLevelIndex {
       size = 0;
 
       if (version == RFile.RINDEX_VER_6 || version == RFile.RINDEX_VER_7
-          || version == RFile.RINDEX_VER_8) {
+          || version == RFile.RINDEX_VER_8 || version == RFile.RINDEX_VER_9
+          || version == RFile.RINDEX_VER_10) {
         size = in.readInt();
       }
 
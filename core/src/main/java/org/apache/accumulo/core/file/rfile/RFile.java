@@ -20,13 +20,17 @@ package org.apache.accumulo.core.file.rfile;
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.DataOutput;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -48,8 +52,10 @@ import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.ArrayByteSequence;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.BloomFilterLayer;
 import org.apache.accumulo.core.file.FileSKVIterator;
 import org.apache.accumulo.core.file.FileSKVWriter;
 import org.apache.accumulo.core.file.NoSuchMetaStoreException;
@@ -92,6 +98,17 @@ public class RFile {
 
   private static final int RINDEX_MAGIC = 0x20637474;
 
+  static final int RINDEX_VER_10 = 10; // Added columnar data blocks. The values of a data block
+                                       // are stored in a section before its keys, using a typed
+                                       // encoding chosen for each block, so keys can be read
+                                       // without reading values. Also has the dictionaries of
+                                       // RINDEX_VER_9. Only written when columnar data blocks are
+                                       // configured.
+  static final int RINDEX_VER_9 = 9; // Added per locality group compression dictionaries. The
+                                     // first data block of a locality group is used to build a
+                                     // dictionary that later data blocks are compressed with. Only
+                                     // written when dictionaries are configured, otherwise files
+                                     // are still written as RINDEX_VER_8.
   static final int RINDEX_VER_8 = 8; // Added sample storage. There is a sample locality group for
                                      // each locality group. Sample are built using a Sampler and
                                      // sampler configuration. The Sampler and its configuration are
@@ -161,13 +178,19 @@ public class RFile {
     private MultiLevelIndex.Reader indexReader;
     private int version;
 
+    // data blocks starting at or after the offset are compressed using the dictionary
+    private byte[] dictionary = null;
+    private long dictionaryOffset = -1;
+
     public LocalityGroupMetadata(int version, CachableBlockFile.Reader br) {
       columnFamilies = new HashMap<>();
       indexReader = new MultiLevelIndex.Reader(br, version);
       this.version = version;
     }
 
-    public LocalityGroupMetadata(Set<ByteSequence> pcf, int indexBlockSize, BCFile.Writer bfw) {
+    public LocalityGroupMetadata(int version, Set<ByteSequence> pcf, int indexBlockSize,
+        BCFile.Writer bfw) {
+      this.version = version;
       isDefaultLG = true;
       columnFamilies = new HashMap<>();
       previousColumnFamilies = pcf;
@@ -176,8 +199,9 @@ public class RFile {
           new MultiLevelIndex.BufferedWriter(new MultiLevelIndex.Writer(bfw, indexBlockSize));
     }
 
-    public LocalityGroupMetadata(String name, Set<ByteSequence> cfset, int indexBlockSize,
-        BCFile.Writer bfw) {
+    public LocalityGroupMetadata(int version, String name, Set<ByteSequence> cfset,
+        int indexBlockSize, BCFile.Writer bfw) {
+      this.version = version;
       this.name = name;
       isDefaultLG = false;
       columnFamilies = new HashMap<>();
@@ -199,12 +223,58 @@ public class RFile {
       this.firstKey = new Key(key);
     }
 
+    /**
+     * @return the dictionary that the data block at the offset was compressed with, or null
+     */
+    private byte[] getDictionary(long offset) {
+      return dictionary != null && offset >= dictionaryOffset ? dictionary : null;
+    }
+
+    private void setDictionary(byte[] dictionary, long offset) {
+      Preconditions.checkState(version >= RINDEX_VER_9 && this.dictionary == null);
+      this.dictionary = dictionary;
+      this.dictionaryOffset = offset;
+    }
+
+    /**
+     * @return true if the values of each data block are stored apart from its keys
+     */
+    private boolean isColumnar() {
+      return version == RINDEX_VER_10;
+    }
+
     public void updateColumnCount(Key key) {
+      updateColumnCount(key.getColumnFamilyData(), 1);
+    }
+
+    /**
+     * Accounts for the column families of a data block copied from a locality group of another
+     * file. The families of that locality group are a superset of the families in the block, and
+     * the counts recorded for them are only lower bounds.
+     */
+    public void updateColumnCounts(Map<ByteSequence,MutableLong> families) {
+      if (families == null) {
+        if (!isDefaultLG) {
+          throw new IllegalArgumentException(
+              "Non default LG " + name + " can not copy data with unknown column families");
+        }
+        // the families in the copied data are unknown, so stop keeping track
+        columnFamilies = null;
+        return;
+      }
+
+      for (Entry<ByteSequence,MutableLong> entry : families.entrySet()) {
+        if (entry.getValue().longValue() > 0) {
+          updateColumnCount(entry.getKey(), 1);
+        }
+      }
+    }
+
+    private void updateColumnCount(ByteSequence cf, long increment) {
 
       if (isDefaultLG && columnFamilies == null) {
         if (!previousColumnFamilies.isEmpty()) {
           // only do this check when there are previous column families
-          ByteSequence cf = key.getColumnFamilyData();
           if (previousColumnFamilies.contains(cf)) {
             throw new IllegalArgumentException("Added column family \"" + cf
                 + "\" to default locality group that was in previous locality group");
@@ -215,7 +285,6 @@ public class RFile {
         return;
       }
 
-      ByteSequence cf = key.getColumnFamilyData();
       MutableLong count = columnFamilies.get(cf);
 
       if (count == null) {
@@ -239,7 +308,7 @@ public class RFile {
 
       }
 
-      count.increment();
+      count.add(increment);
 
     }
 
@@ -287,6 +356,15 @@ public class RFile {
         firstKey = null;
       }
 
+      if (version >= RINDEX_VER_9) {
+        int len = in.readInt();
+        if (len >= 0) {
+          dictionary = new byte[len];
+          in.readFully(dictionary);
+          dictionaryOffset = in.readLong();
+        }
+      }
+
       indexReader.readFields(in);
     }
 
@@ -316,6 +394,16 @@ public class RFile {
       if (firstKey != null)
         firstKey.write(out);
 
+      if (version >= RINDEX_VER_9) {
+        if (dictionary == null) {
+          out.writeInt(-1);
+        } else {
+          out.writeInt(dictionary.length);
+          out.write(dictionary);
+          out.writeLong(dictionaryOffset);
+        }
+      }
+
       indexWriter.close(out);
     }
 
@@ -336,6 +424,12 @@ public class RFile {
             entry.getValue(), countsByLevel.get(entry.getKey()));
       }
       out.printf("\t%-22s : %s\n", "First key", firstKey);
+      if (dictionary != null) {
+        out.printf("\t%-22s : %,d bytes\n", "Dictionary", dictionary.length);
+      }
+      if (isColumnar()) {
+        out.printf("\t%-22s : %s\n", "Block format", "columnar");
+      }
 
       Key lastKey = null;
       if (indexReader.size() > 0) {
@@ -364,6 +458,156 @@ public class RFile {
 
   }
 
+  /**
+   * A data block of a locality group in an existing rfile. A data block can be copied into a new
+   * rfile, using {@link Writer#append(DataBlock)}, without decompressing and recompressing it. All
+   * keys in the block are greater than {@link #getPrevIndexKey()} and less than or equal to
+   * {@link #getIndexKey()}.
+   */
+  public static class DataBlock {
+    private final CachableBlockFile.Reader reader;
+    private final Map<ByteSequence,MutableLong> columnFamilies;
+    private final Key prevIndexKey;
+    private final Key indexKey;
+    private final int numEntries;
+    private final long offset;
+    private final long compressedSize;
+    private final long rawSize;
+    private final byte[] dictionary;
+    private final boolean columnar;
+    private final boolean lastBlock;
+    private Key firstKey;
+
+    private DataBlock(CachableBlockFile.Reader reader, LocalityGroupMetadata lgm, Key prevIndexKey,
+        IndexEntry indexEntry, boolean lastBlock) {
+      this.reader = reader;
+      this.columnFamilies = lgm.columnFamilies;
+      this.prevIndexKey = prevIndexKey;
+      this.indexKey = new Key(indexEntry.getKey());
+      this.numEntries = indexEntry.getNumEntries();
+      this.offset = indexEntry.getOffset();
+      this.compressedSize = indexEntry.getCompressedSize();
+      this.rawSize = indexEntry.getRawSize();
+      this.dictionary = lgm.getDictionary(offset);
+      this.columnar = lgm.isColumnar();
+      this.lastBlock = lastBlock;
+      // the first key of the locality group is the first key of its first block
+      this.firstKey = prevIndexKey == null ? lgm.getFirstKey() : null;
+    }
+
+    /**
+     * @return the index key of the previous block in the locality group, or null if this is the
+     *         first block
+     */
+    public Key getPrevIndexKey() {
+      return prevIndexKey;
+    }
+
+    /**
+     * @return the index key of this block, which may be a shortened key that does not exist in the
+     *         block
+     */
+    public Key getIndexKey() {
+      return indexKey;
+    }
+
+    public int getNumEntries() {
+      return numEntries;
+    }
+
+    /**
+     * @return the size of the block when it is decompressed
+     */
+    public long getRawSize() {
+      return rawSize;
+    }
+
+    /**
+     * Reads the block through the file's data cache, if it has one, so that later reads of the
+     * block do not have to go to the file system.
+     */
+    public void cache() throws IOException {
+      readBlock().close();
+    }
+
+    /**
+     * Reads the first key of the block. This only decodes the start of the block.
+     */
+    public Key getFirstKey() throws IOException {
+      if (firstKey == null) {
+        try (CachableBlockFile.CachedBlockRead in = readBlock()) {
+          if (columnar) {
+            ValueColumn.skip(in);
+          }
+          RelativeKey rk = new RelativeKey();
+          rk.readFields(in);
+          firstKey = rk.getKey();
+        }
+      }
+      return firstKey;
+    }
+
+    /**
+     * Decodes the entire block looking for delete entries.
+     */
+    public boolean containsDeletes() throws IOException {
+      try (CachableBlockFile.CachedBlockRead in = readBlock()) {
+        if (columnar) {
+          ValueColumn.skip(in);
+        }
+        RelativeKey rk = new RelativeKey();
+        Value val = new Value();
+        for (int i = 0; i < numEntries; i++) {
+          rk.readFields(in);
+          if (!columnar) {
+            val.readFields(in);
+          }
+          if (rk.getKey().isDeleted()) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Decodes the entire block to check that compacting the block on its own would not drop any of
+     * its entries, because no column has more than the given number of versions and no delete is
+     * followed by other entries of its column.
+     */
+    public boolean isCompacted(int maxVersions) throws IOException {
+      try (CachableBlockFile.CachedBlockRead in = readBlock()) {
+        if (columnar) {
+          ValueColumn.skip(in);
+        }
+        RelativeKey rk = new RelativeKey();
+        Value val = new Value();
+        Key prevKey = null;
+        int versions = 0;
+        for (int i = 0; i < numEntries; i++) {
+          rk.readFields(in);
+          if (!columnar) {
+            val.readFields(in);
+          }
+          Key key = rk.getKey();
+          if (prevKey != null && key.equals(prevKey, PartialKey.ROW_COLFAM_COLQUAL_COLVIS)) {
+            if (prevKey.isDeleted() || ++versions > maxVersions) {
+              return false;
+            }
+          } else {
+            versions = 1;
+          }
+          prevKey = key;
+        }
+      }
+      return true;
+    }
+
+    private CachableBlockFile.CachedBlockRead readBlock() throws IOException {
+      return reader.getDataBlock(offset, compressedSize, rawSize, dictionary);
+    }
+  }
+
   private static class SampleEntry {
     Key key;
     Value val;
@@ -440,17 +684,65 @@ public class RFile {
 
     private SampleLocalityGroupWriter sample;
 
+    // samples keys of the first data block to build a dictionary for the rest of the blocks
+    private DictionaryBuilder dictionaryBuilder = null;
+
+    // The keys and values of columnar data blocks are buffered until the block is closed, because
+    // the values are written before the keys.
+    private ByteArrayOutputStream keyBuffer = null;
+    private DataOutputStream keyOut = null;
+    private ValueColumn.Builder valueColumn = null;
+
+    // A copied data block is only written once it is known if its the last block of the locality
+    // group, because the index key of the last block must be the last key in the group.
+    private DataBlock pendingBlock = null;
+    private Key keyBeforePendingBlock = null;
+
     // Use windowed stats to fix ACCUMULO-4669
     private RollingStats keyLenStats = new RollingStats(2017);
     private double averageKeySize = 0;
 
     LocalityGroupWriter(BCFile.Writer fileWriter, long blockSize, long maxBlockSize,
         LocalityGroupMetadata currentLocalityGroup, SampleLocalityGroupWriter sample) {
+      this(fileWriter, blockSize, maxBlockSize, currentLocalityGroup, sample, 0);
+    }
+
+    LocalityGroupWriter(BCFile.Writer fileWriter, long blockSize, long maxBlockSize,
+        LocalityGroupMetadata currentLocalityGroup, SampleLocalityGroupWriter sample,
+        int dictionarySize) {
+      if (currentLocalityGroup.isColumnar()) {
+        this.keyBuffer = new ByteArrayOutputStream();
+        this.keyOut = new DataOutputStream(keyBuffer);
+        this.valueColumn = new ValueColumn.Builder();
+      }
       this.fileWriter = fileWriter;
       this.blockSize = blockSize;
       this.maxBlockSize = maxBlockSize;
       this.currentLocalityGroup = currentLocalityGroup;
       this.sample = sample;
+      if (dictionarySize > 0) {
+        this.dictionaryBuilder = new DictionaryBuilder(dictionarySize);
+      }
+    }
+
+    private void prepareDataBlock() throws IOException {
+      if (dictionaryBuilder != null && !dictionaryBuilder.isEmpty()) {
+        // the first block of the locality group was written, so the dictionary is complete
+        byte[] dictionary = dictionaryBuilder.build();
+        dictionaryBuilder = null;
+        blockWriter = fileWriter.prepareDataBlock(dictionary);
+        currentLocalityGroup.setDictionary(dictionary, blockWriter.getStartPos());
+      } else {
+        blockWriter =
+            fileWriter.prepareDataBlock(currentLocalityGroup.getDictionary(Long.MAX_VALUE));
+      }
+    }
+
+    private long getBlockRawSize() {
+      if (valueColumn == null) {
+        return blockWriter.getRawSize();
+      }
+      return keyBuffer.size() + valueColumn.getRawSize();
     }
 
     private boolean isGiantKey(Key k) {
@@ -466,6 +758,10 @@ public class RFile {
             "Keys appended out-of-order.  New key " + key + ", previous key " + prevKey);
       }
 
+      if (pendingBlock != null) {
+        writePendingBlock(false);
+      }
+
       currentLocalityGroup.updateColumnCount(key);
 
       if (currentLocalityGroup.getFirstKey() == null) {
@@ -477,8 +773,8 @@ public class RFile {
       }
 
       if (blockWriter == null) {
-        blockWriter = fileWriter.prepareDataBlock();
-      } else if (blockWriter.getRawSize() > blockSize) {
+        prepareDataBlock();
+      } else if (getBlockRawSize() > blockSize) {
 
         // Look for a key that's short to put in the index, defining short as average or below.
         if (averageKeySize == 0) {
@@ -490,19 +786,19 @@ public class RFile {
         // shortened, it may not be below average.
         Key closeKey = KeyShortener.shorten(prevKey, key);
 
-        if ((closeKey.getSize() <= averageKeySize || blockWriter.getRawSize() > maxBlockSize)
+        if ((closeKey.getSize() <= averageKeySize || getBlockRawSize() > maxBlockSize)
             && !isGiantKey(closeKey)) {
           closeBlock(closeKey, false);
-          blockWriter = fileWriter.prepareDataBlock();
+          prepareDataBlock();
           // set average to zero so its recomputed for the next block
           averageKeySize = 0;
           // To constrain the growth of data blocks, we limit our worst case scenarios to closing
           // blocks if they reach the maximum configurable block size of Integer.MAX_VALUE.
           // 128 bytes added for metadata overhead
-        } else if (((long) key.getSize() + (long) value.getSize() + blockWriter.getRawSize() + 128L)
+        } else if (((long) key.getSize() + (long) value.getSize() + getBlockRawSize() + 128L)
             >= Integer.MAX_VALUE) {
           closeBlock(closeKey, false);
-          blockWriter = fileWriter.prepareDataBlock();
+          prepareDataBlock();
           averageKeySize = 0;
 
         }
@@ -510,8 +806,13 @@ public class RFile {
 
       RelativeKey rk = new RelativeKey(lastKeyInBlock, key);
 
-      rk.write(blockWriter);
-      value.write(blockWriter);
+      if (valueColumn == null) {
+        rk.write(blockWriter);
+        value.write(blockWriter);
+      } else {
+        rk.write(keyOut);
+        valueColumn.add(value);
+      }
       entries++;
 
       keyLenStats.addValue(key.getSize());
@@ -519,9 +820,86 @@ public class RFile {
       prevKey = new Key(key);
       lastKeyInBlock = prevKey;
 
+      if (dictionaryBuilder != null) {
+        dictionaryBuilder.add(prevKey);
+      }
+
+    }
+
+    public void append(DataBlock block) throws IOException {
+      Key firstKey = block.getFirstKey();
+
+      if (firstKey.compareTo(prevKey) < 0) {
+        throw new IllegalArgumentException("Data block appended out-of-order.  First key "
+            + firstKey + ", previous key " + prevKey);
+      }
+
+      if (pendingBlock != null) {
+        writePendingBlock(false);
+      } else if (blockWriter != null) {
+        closeBlock(lastKeyInBlock, false);
+        averageKeySize = 0;
+      }
+
+      pendingBlock = block;
+      keyBeforePendingBlock = prevKey;
+      prevKey = block.getIndexKey();
+    }
+
+    private void writePendingBlock(boolean lastBlock) throws IOException {
+      DataBlock block = pendingBlock;
+      pendingBlock = null;
+      keyBeforePendingBlock = null;
+
+      if (currentLocalityGroup.getFirstKey() == null) {
+        currentLocalityGroup.setFirstKey(block.getFirstKey());
+      }
+      currentLocalityGroup.updateColumnCounts(block.columnFamilies);
+
+      long offset;
+      try (InputStream in = block.reader.getRawDataBlock(block.offset, block.compressedSize)) {
+        offset = fileWriter.appendRawDataBlock(in, block.compressedSize);
+      }
+
+      if (lastBlock)
+        currentLocalityGroup.indexWriter.addLast(block.getIndexKey(), block.getNumEntries(), offset,
+            block.compressedSize, block.rawSize);
+      else
+        currentLocalityGroup.indexWriter.add(block.getIndexKey(), block.getNumEntries(), offset,
+            block.compressedSize, block.rawSize);
+    }
+
+    private void rewritePendingBlock() throws IOException {
+      DataBlock block = pendingBlock;
+      pendingBlock = null;
+      prevKey = keyBeforePendingBlock;
+      keyBeforePendingBlock = null;
+
+      try (CachableBlockFile.CachedBlockRead in = block.readBlock()) {
+        ValueColumn values = block.columnar ? ValueColumn.read(in, block.getNumEntries()) : null;
+        RelativeKey rk = new RelativeKey();
+        Value val = new Value();
+        for (int i = 0; i < block.getNumEntries(); i++) {
+          rk.readFields(in);
+          if (values == null) {
+            val.readFields(in);
+          } else {
+            val.set(values.get(i));
+          }
+          append(rk.getKey(), val);
+        }
+      }
     }
 
     private void closeBlock(Key key, boolean lastBlock) throws IOException {
+      if (valueColumn != null) {
+        byte[] values = valueColumn.build();
+        blockWriter.writeInt(values.length);
+        blockWriter.write(values);
+        keyBuffer.writeTo(blockWriter);
+        keyBuffer.reset();
+      }
+
       blockWriter.close();
 
       if (lastBlock)
@@ -540,6 +918,17 @@ public class RFile {
     }
 
     public void close() throws IOException {
+      if (pendingBlock != null) {
+        if (pendingBlock.lastBlock) {
+          // the index key of the last block in a locality group is the last key in the block
+          writePendingBlock(true);
+        } else {
+          // the index key may be a shortened key that does not exist in the block, so it can not
+          // serve as the last key of the locality group
+          rewritePendingBlock();
+        }
+      }
+
       if (blockWriter != null) {
         closeBlock(lastKeyInBlock, true);
       }
@@ -578,6 +967,9 @@ public class RFile {
     private SamplerConfigurationImpl samplerConfig;
     private Sampler sampler;
 
+    private final int dictionarySize;
+    private final int version;
+
     public Writer(BCFile.Writer bfw, int blockSize) throws IOException {
       this(bfw, blockSize, (int) DefaultConfiguration.getInstance()
           .getAsBytes(Property.TABLE_FILE_COMPRESSED_BLOCK_SIZE_INDEX), null, null);
@@ -585,6 +977,37 @@ public class RFile {
 
     public Writer(BCFile.Writer bfw, int blockSize, int indexBlockSize,
         SamplerConfigurationImpl samplerConfig, Sampler sampler) {
+      this(bfw, blockSize, indexBlockSize, samplerConfig, sampler, 0);
+    }
+
+    /**
+     * @param dictionarySize
+     *          if greater than zero, the keys of the first data block of each locality group are
+     *          sampled to build a dictionary of up to this size, and the rest of the locality
+     *          group's data blocks are compressed with deflate using the dictionary
+     */
+    public Writer(BCFile.Writer bfw, int blockSize, int indexBlockSize,
+        SamplerConfigurationImpl samplerConfig, Sampler sampler, int dictionarySize) {
+      this(bfw, blockSize, indexBlockSize, samplerConfig, sampler, dictionarySize, false);
+    }
+
+    /**
+     * @param columnar
+     *          if true, the values of each data block are written in a section before its keys
+     *          using an encoding chosen for the values of the block
+     */
+    public Writer(BCFile.Writer bfw, int blockSize, int indexBlockSize,
+        SamplerConfigurationImpl samplerConfig, Sampler sampler, int dictionarySize,
+        boolean columnar) {
+      Preconditions.checkArgument(
+          dictionarySize >= 0 && dictionarySize <= BCFile.MAX_DICTIONARY_SIZE,
+          "Dictionary size must be between 0 and %s", BCFile.MAX_DICTIONARY_SIZE);
+      this.dictionarySize = dictionarySize;
+      if (columnar) {
+        this.version = RINDEX_VER_10;
+      } else {
+        this.version = dictionarySize > 0 ? RINDEX_VER_9 : RINDEX_VER_8;
+      }
       this.blockSize = blockSize;
       this.maxBlockSize = (long) (blockSize * MAX_BLOCK_MULTIPLIER);
       this.indexBlockSize = indexBlockSize;
@@ -606,7 +1029,7 @@ public class RFile {
       BlockAppender mba = fileWriter.prepareMetaBlock("RFile.index");
 
       mba.writeInt(RINDEX_MAGIC);
-      mba.writeInt(RINDEX_VER_8);
+      mba.writeInt(version);
 
       if (currentLocalityGroup != null) {
         localityGroups.add(currentLocalityGroup);
@@ -661,6 +1084,33 @@ public class RFile {
       lgWriter.append(key, value);
     }
 
+    /**
+     * @return true if the data block can be copied into this file using {@link #append(DataBlock)}
+     */
+    public boolean canAppend(DataBlock block) throws IOException {
+      return sampler == null && dictionarySize == 0 && block.dictionary == null
+          && block.columnar == (version == RINDEX_VER_10)
+          && block.reader.isRawCopyCompatible(fileWriter);
+    }
+
+    /**
+     * Copies a data block of another rfile into the current locality group without decompressing
+     * and recompressing it. The caller is responsible for ensuring the block only contains column
+     * families that belong in the current locality group and that the keys in the block sort after
+     * all previously appended keys and before all subsequently appended keys, considering the block
+     * to extend up to its index key.
+     */
+    public void append(DataBlock block) throws IOException {
+
+      if (dataClosed) {
+        throw new IllegalStateException("Cannont append, data closed");
+      }
+
+      Preconditions.checkState(canAppend(block), "Data block can not be copied into this file");
+
+      lgWriter.append(block);
+    }
+
     @Override
     public DataOutputStream createMetaStore(String name) throws IOException {
       closeData();
@@ -691,9 +1141,9 @@ public class RFile {
       if (columnFamilies == null) {
         startedDefaultLocalityGroup = true;
         currentLocalityGroup =
-            new LocalityGroupMetadata(previousColumnFamilies, indexBlockSize, fileWriter);
+            new LocalityGroupMetadata(version, previousColumnFamilies, indexBlockSize, fileWriter);
         sampleLocalityGroup =
-            new LocalityGroupMetadata(previousColumnFamilies, indexBlockSize, fileWriter);
+            new LocalityGroupMetadata(version, previousColumnFamilies, indexBlockSize, fileWriter);
       } else {
         if (!Collections.disjoint(columnFamilies, previousColumnFamilies)) {
           HashSet<ByteSequence> overlap = new HashSet<>(columnFamilies);
@@ -702,9 +1152,9 @@ public class RFile {
               "Column families over lap with previous locality group : " + overlap);
         }
         currentLocalityGroup =
-            new LocalityGroupMetadata(name, columnFamilies, indexBlockSize, fileWriter);
+            new LocalityGroupMetadata(version, name, columnFamilies, indexBlockSize, fileWriter);
         sampleLocalityGroup =
-            new LocalityGroupMetadata(name, columnFamilies, indexBlockSize, fileWriter);
+            new LocalityGroupMetadata(version, name, columnFamilies, indexBlockSize, fileWriter);
         previousColumnFamilies.addAll(columnFamilies);
       }
 
@@ -715,7 +1165,7 @@ public class RFile {
             sampler);
       }
       lgWriter = new LocalityGroupWriter(fileWriter, blockSize, maxBlockSize, currentLocalityGroup,
-          sampleWriter);
+          sampleWriter, dictionarySize);
     }
 
     @Override
@@ -749,22 +1199,26 @@ public class RFile {
   private static class LocalityGroupReader extends LocalityGroup implements FileSKVIterator {
 
     private CachableBlockFile.Reader reader;
+    private LocalityGroupMetadata lgm;
     private MultiLevelIndex.Reader index;
     private int blockCount;
     private Key firstKey;
     private int startBlock;
     private boolean closed = false;
     private int version;
+    private boolean columnar;
     private boolean checkRange = true;
 
     private LocalityGroupReader(CachableBlockFile.Reader reader, LocalityGroupMetadata lgm,
         int version) {
       super(lgm.columnFamilies, lgm.isDefaultLG);
+      this.lgm = lgm;
       this.firstKey = lgm.firstKey;
       this.index = lgm.indexReader;
       this.startBlock = lgm.startBlock;
       blockCount = index.size();
       this.version = version;
+      this.columnar = lgm.isColumnar();
 
       this.reader = reader;
 
@@ -772,12 +1226,14 @@ public class RFile {
 
     public LocalityGroupReader(LocalityGroupReader lgr) {
       super(lgr.columnFamilies, lgr.isDefaultLocalityGroup);
+      this.lgm = lgr.lgm;
       this.firstKey = lgr.firstKey;
       this.index = lgr.index;
       this.startBlock = lgr.startBlock;
       this.blockCount = lgr.blockCount;
       this.reader = lgr.reader;
       this.version = lgr.version;
+      this.columnar = lgr.columnar;
     }
 
     Iterator<IndexEntry> getIndex() throws IOException {
@@ -798,6 +1254,16 @@ public class RFile {
     private CachableBlockFile.CachedBlockRead currBlock;
     private RelativeKey rk;
     private Value val;
+    // When the current block is backed by an array, the value of the top entry is only copied out
+    // of the block when it is requested. So scans that only look at keys do not copy values.
+    private byte[] valueBuffer = null;
+    private int valueOffset;
+    private int valueLength;
+    // The values of columnar blocks are only decoded when the value of an entry is requested. When
+    // not negative, the value of the top entry is the value at this position in the value column.
+    private ValueColumn valueColumn = null;
+    private int blockEntries;
+    private int topValueIndex = -1;
     private Key prevKey = null;
     private Range range = null;
     private boolean hasTop = false;
@@ -810,6 +1276,13 @@ public class RFile {
 
     @Override
     public Value getTopValue() {
+      if (topValueIndex >= 0) {
+        val.set(valueColumn.get(topValueIndex));
+        topValueIndex = -1;
+      } else if (valueBuffer != null) {
+        val.set(Arrays.copyOfRange(valueBuffer, valueOffset, valueOffset + valueLength));
+        valueBuffer = null;
+      }
       return val;
     }
 
@@ -818,6 +1291,22 @@ public class RFile {
       return hasTop;
     }
 
+    private void readValue() throws IOException {
+      if (valueColumn != null) {
+        topValueIndex = blockEntries - entriesLeft;
+      } else if (currBlock.isIndexable()) {
+        valueLength = currBlock.readInt();
+        valueOffset = currBlock.getPosition();
+        valueBuffer = currBlock.getBuffer();
+        if (currBlock.skipBytes(valueLength) != valueLength) {
+          throw new EOFException();
+        }
+      } else {
+        valueBuffer = null;
+        val.readFields(currBlock);
+      }
+    }
+
     @Override
     public void next() throws IOException {
       try {
@@ -842,6 +1331,7 @@ public class RFile {
           IndexEntry indexEntry = iiter.next();
           entriesLeft = indexEntry.getNumEntries();
           currBlock = getDataBlock(indexEntry);
+          readValueColumn();
 
           checkRange = range.afterEndKey(indexEntry.getKey());
           if (!checkRange)
@@ -850,6 +1340,8 @@ public class RFile {
         } else {
           rk = null;
           val = null;
+          valueBuffer = null;
+          topValueIndex = -1;
           hasTop = false;
           return;
         }
@@ -857,10 +1349,10 @@ public class RFile {
 
       prevKey = rk.getKey();
       rk.readFields(currBlock);
-      val.readFields(currBlock);
+      readValue();
 
       if (metricsGatherer != null)
-        metricsGatherer.addMetric(rk.getKey(), val);
+        metricsGatherer.addMetric(rk.getKey(), getTopValue());
 
       entriesLeft--;
       if (checkRange)
@@ -876,10 +1368,33 @@ public class RFile {
         return reader.getDataBlock(startBlock + iiter.previousIndex());
       else
         return reader.getDataBlock(indexEntry.getOffset(), indexEntry.getCompressedSize(),
-            indexEntry.getRawSize());
+            indexEntry.getRawSize(), lgm.getDictionary(indexEntry.getOffset()));
 
     }
 
+    /**
+     * Reads the value section of the current block when it is columnar, leaving the block
+     * positioned at its first key.
+     */
+    private void readValueColumn() throws IOException {
+      blockEntries = entriesLeft;
+      valueColumn = columnar ? ValueColumn.read(currBlock, blockEntries) : null;
+    }
+
+    /**
+     * Sets the value of the top entry after entries were skipped.
+     */
+    private void setSkippedValue(MutableByteSequence valbs) {
+      valueBuffer = null;
+      if (valueColumn == null) {
+        val = new Value(valbs.toArray());
+        topValueIndex = -1;
+      } else {
+        val = new Value();
+        topValueIndex = blockEntries - entriesLeft - 1;
+      }
+    }
+
     @Override
     public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive)
         throws IOException {
@@ -904,6 +1419,9 @@ public class RFile {
 
     private void reset() {
       rk = null;
+      valueBuffer = null;
+      valueColumn = null;
+      topValueIndex = -1;
       hasTop = false;
       if (currBlock != null) {
         try {
@@ -964,12 +1482,14 @@ public class RFile {
           // causing the build of an index... doing this could slow down some use cases and
           // and speed up others.
 
-          MutableByteSequence valbs = new MutableByteSequence(new byte[64], 0, 0);
+          // columnar blocks do not store values with keys, so there is no value to skip
+          MutableByteSequence valbs =
+              valueColumn == null ? new MutableByteSequence(new byte[64], 0, 0) : null;
           SkippR skippr =
               RelativeKey.fastSkip(currBlock, startKey, valbs, prevKey, getTopKey(), entriesLeft);
           if (skippr.skipped > 0) {
             entriesLeft -= skippr.skipped;
-            val = new Value(valbs.toArray());
+            setSkippedValue(valbs);
             prevKey = skippr.prevKey;
             rk = skippr.rk;
           }
@@ -1019,17 +1539,20 @@ public class RFile {
           IndexEntry indexEntry = iiter.next();
           entriesLeft = indexEntry.getNumEntries();
           currBlock = getDataBlock(indexEntry);
+          readValueColumn();
 
           checkRange = range.afterEndKey(indexEntry.getKey());
           if (!checkRange)
             hasTop = true;
 
-          MutableByteSequence valbs = new MutableByteSequence(new byte[64], 0, 0);
+          MutableByteSequence valbs =
+              valueColumn == null ? new MutableByteSequence(new byte[64], 0, 0) : null;
 
           Key currKey = null;
 
           if (currBlock.isIndexable()) {
-            BlockIndex blockIndex = BlockIndex.getIndex(currBlock, indexEntry);
+            BlockIndex blockIndex = BlockIndex.getIndex(currBlock, indexEntry,
+                currBlock.getPosition(), valueColumn == null);
             if (blockIndex != null) {
               BlockIndexEntry bie = blockIndex.seekBlock(startKey, currBlock);
               if (bie != null) {
@@ -1038,10 +1561,11 @@ public class RFile {
                 RelativeKey tmpRk = new RelativeKey();
                 tmpRk.setPrevKey(bie.getPrevKey());
                 tmpRk.readFields(currBlock);
-                val = new Value();
-
-                val.readFields(currBlock);
-                valbs = new MutableByteSequence(val.get(), 0, val.getSize());
+                if (valbs != null) {
+                  val = new Value();
+                  val.readFields(currBlock);
+                  valbs = new MutableByteSequence(val.get(), 0, val.getSize());
+                }
 
                 // just consumed one key from the input stream, so subtract one from entries left
                 entriesLeft = bie.getEntriesLeft() - 1;
@@ -1055,7 +1579,7 @@ public class RFile {
               RelativeKey.fastSkip(currBlock, startKey, valbs, prevKey, currKey, entriesLeft);
           prevKey = skippr.prevKey;
           entriesLeft -= skippr.skipped;
-          val = new Value(valbs.toArray());
+          setSkippedValue(valbs);
           // set rk when everything above is successful, if exception
           // occurs rk will not be set
           rk = skippr.rk;
@@ -1072,7 +1596,7 @@ public class RFile {
 
       if (metricsGatherer != null) {
         metricsGatherer.startLocalityGroup(rk.getKey().getColumnFamily());
-        metricsGatherer.addMetric(rk.getKey(), val);
+        metricsGatherer.addMetric(rk.getKey(), getTopValue());
       }
     }
 
@@ -1168,7 +1692,8 @@ public class RFile {
 
         if (magic != RINDEX_MAGIC)
           throw new IOException("Did not see expected magic number, saw " + magic);
-        if (ver != RINDEX_VER_8 && ver != RINDEX_VER_7 && ver != RINDEX_VER_6 && ver != RINDEX_VER_4
+        if (ver != RINDEX_VER_10 && ver != RINDEX_VER_9 && ver != RINDEX_VER_8
+            && ver != RINDEX_VER_7 && ver != RINDEX_VER_6 && ver != RINDEX_VER_4
             && ver != RINDEX_VER_3)
           throw new IOException("Did not see expected version, saw " + ver);
 
@@ -1187,7 +1712,7 @@ public class RFile {
 
         readers = currentReaders;
 
-        if (ver == RINDEX_VER_8 && mb.readBoolean()) {
+        if (ver >= RINDEX_VER_8 && mb.readBoolean()) {
           sampleReaders = new LocalityGroupReader[size];
 
           for (int i = 0; i < size; i++) {
@@ -1349,6 +1874,9 @@ public class RFile {
     @Override
     public DataInputStream getMetaStore(String name) throws IOException, NoSuchMetaStoreException {
       try {
+        if (BloomFilterLayer.isBloomMetaStore(name)) {
+          return this.reader.getBloomMetaBlock(name);
+        }
         return this.reader.getMetaBlock(name);
       } catch (MetaBlockDoesNotExist e) {
         throw new NoSuchMetaStoreException("name = " + name, e);
@@ -1414,6 +1942,35 @@ public class RFile {
       return cf;
     }
 
+    /**
+     * @return the data blocks of the locality group with the given name, in key order. The default
+     *         locality group has a {@code null} name. An empty list is returned if this file's
+     *         version does not support copying data blocks.
+     * @see Writer#append(DataBlock)
+     */
+    public List<DataBlock> getDataBlocks(String localityGroup) throws IOException {
+      List<DataBlock> blocks = new ArrayList<>();
+
+      if (rfileVersion < RINDEX_VER_7) {
+        return blocks;
+      }
+
+      for (LocalityGroupMetadata lgm : localityGroups) {
+        if (localityGroup == null ? lgm.isDefaultLG : localityGroup.equals(lgm.name)) {
+          Key prevIndexKey = null;
+          IndexIterator iter = lgm.indexReader.lookup(new Key());
+          while (iter.hasNext()) {
+            IndexEntry indexEntry = iter.next();
+            DataBlock block = new DataBlock(reader, lgm, prevIndexKey, indexEntry, !iter.hasNext());
+            blocks.add(block);
+            prevIndexKey = block.getIndexKey();
+          }
+        }
+      }
+
+      return blocks;
+    }
+
     /**
      * Method that registers the given MetricsGatherer. You can only register one as it will clobber
      * any previously set. The MetricsGatherer should be registered before iterating through the
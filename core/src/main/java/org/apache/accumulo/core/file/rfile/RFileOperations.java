@@ -33,6 +33,7 @@ import org.apache.accumulo.core.file.FileSKVIterator;
 import org.apache.accumulo.core.file.FileSKVWriter;
 import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.CachableBuilder;
 import org.apache.accumulo.core.file.rfile.bcfile.BCFile;
+import org.apache.accumulo.core.file.rfile.bcfile.Compression;
 import org.apache.accumulo.core.sample.impl.SamplerConfigurationImpl;
 import org.apache.accumulo.core.sample.impl.SamplerFactory;
 import org.apache.hadoop.conf.Configuration;
@@ -47,11 +48,19 @@ public class RFileOperations extends FileOperations {
   private static final Collection<ByteSequence> EMPTY_CF_SET = Collections.emptySet();
 
   private static RFile.Reader getReader(FileOptions options) throws IOException {
-    CachableBuilder cb =
-        new CachableBuilder().fsPath(options.getFileSystem(), new Path(options.getFilename()))
-            .conf(options.getConfiguration()).fileLen(options.getFileLenCache())
-            .cacheProvider(options.cacheProvider).readLimiter(options.getRateLimiter())
-            .cryptoService(options.getCryptoService());
+    AccumuloConfiguration tableConf = options.getTableConfiguration();
+    boolean mapLocalFiles = false;
+    int coalescedReadSize = 0;
+    if (tableConf != null) {
+      mapLocalFiles = tableConf.getBoolean(Property.TABLE_FILE_MMAP_ENABLED);
+      coalescedReadSize = (int) Math.min(Integer.MAX_VALUE,
+          tableConf.getAsBytes(Property.TABLE_FILE_READ_COALESCE_SIZE));
+    }
+    CachableBuilder cb = new CachableBuilder()
+        .fsPath(options.getFileSystem(), new Path(options.getFilename()), mapLocalFiles)
+        .conf(options.getConfiguration()).fileLen(options.getFileLenCache())
+        .cacheProvider(options.cacheProvider).readLimiter(options.getRateLimiter())
+        .cryptoService(options.getCryptoService()).coalesceReads(coalescedReadSize);
     return new RFile.Reader(cb);
   }
 
@@ -107,6 +116,14 @@ public class RFileOperations extends FileOperations {
     compression = compression == null
         ? options.getTableConfiguration().get(Property.TABLE_FILE_COMPRESSION_TYPE) : compression;
 
+    // preset dictionaries are only used with deflate, so only use them for tables that use gz
+    int dictionarySize = 0;
+    if (Compression.COMPRESSION_GZ.equals(compression)) {
+      dictionarySize =
+          (int) Math.min(acuconf.getAsBytes(Property.TABLE_FILE_COMPRESSION_DICTIONARY_SIZE),
+              BCFile.MAX_DICTIONARY_SIZE);
+    }
+
     FSDataOutputStream outputStream = options.getOutputStream();
 
     Configuration conf = options.getConfiguration();
@@ -134,6 +151,7 @@ public class RFileOperations extends FileOperations {
     BCFile.Writer _cbw = new BCFile.Writer(outputStream, options.getRateLimiter(), compression,
         conf, options.cryptoService);
 
-    return new RFile.Writer(_cbw, (int) blockSize, (int) indexBlockSize, samplerConfig, sampler);
+    return new RFile.Writer(_cbw, (int) blockSize, (int) indexBlockSize, samplerConfig, sampler,
+        dictionarySize, acuconf.getBoolean(Property.TABLE_FILE_COLUMNAR_ENABLED));
   }
 }
@@ -386,7 +386,9 @@ public class RelativeKey implements Writable {
           ts = WritableUtils.readVLong(in);
       }
 
-      readValue(in, value);
+      // columnar data blocks do not store values with keys
+      if (value != null)
+        readValue(in, value);
 
       count++;
 
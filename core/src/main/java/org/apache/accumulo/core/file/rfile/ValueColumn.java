@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.rfile;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.CachedBlockRead;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * The values of a columnar data block. Columnar data blocks store the values of all of their
+ * entries in a section before the relatively encoded keys, so keys can be read without decoding
+ * values. The values of a block are stored using whichever of these encodings is smallest for the
+ * block.
+ *
+ * <ul>
+ * <li>{@link #RAW} stores the length and bytes of each value.</li>
+ * <li>{@link #DICTIONARY} stores the distinct values of a block once, followed by a one byte index
+ * for each entry. Only used when a block has at most 256 distinct values.</li>
+ * <li>{@link #FIXED_LONG} stores the difference of each value from the previous one as a variable
+ * length long. Only used when every value is an 8 byte big endian long, like the values written by
+ * {@code LongCombiner.FIXED_LEN_ENCODER}.</li>
+ * <li>{@link #STRING_LONG} is like {@link #FIXED_LONG}, but is used when every value is a decimal
+ * string of at most 18 digits without leading zeros, like the values written by
+ * {@code LongCombiner.STRING_ENCODER}.</li>
+ * </ul>
+ *
+ * Values are only decoded when the first value of a block is requested.
+ */
+class ValueColumn {
+
+  static final byte RAW = 0;
+  static final byte DICTIONARY = 1;
+  static final byte FIXED_LONG = 2;
+  static final byte STRING_LONG = 3;
+
+  private static final int MAX_DICTIONARY_ENTRIES = 256;
+  private static final int MAX_STRING_LONG_DIGITS = 18;
+
+  /**
+   * Buffers the values of a data block while it is written.
+   */
+  static class Builder {
+
+    private final ByteArrayOutputStream raw = new ByteArrayOutputStream();
+    private final DataOutputStream rawOut = new DataOutputStream(raw);
+    private Map<ArrayByteSequence,Integer> dictionary = new LinkedHashMap<>();
+    private boolean fixedLongs = true;
+    private boolean stringLongs = true;
+    private int count = 0;
+
+    void add(Value value) throws IOException {
+      byte[] data = value.get();
+      WritableUtils.writeVInt(rawOut, data.length);
+      rawOut.write(data);
+      count++;
+
+      fixedLongs &= data.length == Long.BYTES;
+      stringLongs &= isStringLong(data, 0, data.length);
+
+      if (dictionary != null) {
+        ArrayByteSequence seq = new ArrayByteSequence(data);
+        if (!dictionary.containsKey(seq)) {
+          if (dictionary.size() == MAX_DICTIONARY_ENTRIES) {
+            dictionary = null;
+          } else {
+            dictionary.put(new ArrayByteSequence(data.clone()), dictionary.size());
+          }
+        }
+      }
+    }
+
+    /**
+     * @return the size of the buffered values before they are encoded
+     */
+    int getRawSize() {
+      return raw.size();
+    }
+
+    /**
+     * Encodes the buffered values and clears this builder for the next block.
+     */
+    byte[] build() throws IOException {
+      byte[] rawValues = raw.toByteArray();
+
+      ByteArrayOutputStream best = new ByteArrayOutputStream(rawValues.length + 1);
+      best.write(RAW);
+      best.write(rawValues);
+
+      if (count > 0) {
+        if (dictionary != null) {
+          best = smallest(best, encodeDictionary(rawValues));
+        }
+        if (fixedLongs) {
+          best = smallest(best, encodeLongs(rawValues, FIXED_LONG));
+        }
+        if (stringLongs) {
+          best = smallest(best, encodeLongs(rawValues, STRING_LONG));
+        }
+      }
+
+      raw.reset();
+      dictionary = new LinkedHashMap<>();
+      fixedLongs = true;
+      stringLongs = true;
+      count = 0;
+
+      return best.toByteArray();
+    }
+
+    private static ByteArrayOutputStream smallest(ByteArrayOutputStream a,
+        ByteArrayOutputStream b) {
+      return b.size() < a.size() ? b : a;
+    }
+
+    private ByteArrayOutputStream encodeDictionary(byte[] rawValues) throws IOException {
+      ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(encoded);
+      out.writeByte(DICTIONARY);
+      WritableUtils.writeVInt(out, dictionary.size());
+      for (ArrayByteSequence entry : dictionary.keySet()) {
+        WritableUtils.writeVInt(out, entry.length());
+        out.write(entry.getBackingArray(), entry.offset(), entry.length());
+      }
+
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(rawValues));
+      for (int i = 0; i < count; i++) {
+        byte[] data = new byte[WritableUtils.readVInt(in)];
+        in.readFully(data);
+        out.writeByte(dictionary.get(new ArrayByteSequence(data)));
+      }
+      out.flush();
+      return encoded;
+    }
+
+    private ByteArrayOutputStream encodeLongs(byte[] rawValues, byte encoding) throws IOException {
+      ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(encoded);
+      out.writeByte(encoding);
+
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(rawValues));
+      long prev = 0;
+      for (int i = 0; i < count; i++) {
+        int len = WritableUtils.readVInt(in);
+        long val;
+        if (encoding == FIXED_LONG) {
+          val = in.readLong();
+        } else {
+          byte[] data = new byte[len];
+          in.readFully(data);
+          val = parseStringLong(data, 0, len);
+        }
+        // overflow of the difference is fine, it overflows back when the sum is computed on read
+        WritableUtils.writeVLong(out, val - prev);
+        prev = val;
+      }
+      out.flush();
+      return encoded;
+    }
+  }
+
+  private final byte[] data;
+  private final int offset;
+  private final int length;
+  private final int count;
+
+  // set when the values are first decoded
+  private boolean decoded = false;
+  private int[] starts;
+  private int[] lengths;
+  private long[] longs;
+  private byte[][] dictionaryValues;
+  private byte[] dictionaryIndexes;
+
+  private ValueColumn(byte[] data, int offset, int length, int count) {
+    this.data = data;
+    this.offset = offset;
+    this.length = length;
+    this.count = count;
+  }
+
+  /**
+   * Reads the value section at the start of a columnar data block, leaving the block positioned at
+   * its first key. The values of blocks that are backed by an array are not copied.
+   */
+  static ValueColumn read(CachedBlockRead in, int count) throws IOException {
+    int length = in.readInt();
+    if (in.isIndexable()) {
+      ValueColumn column = new ValueColumn(in.getBuffer(), in.getPosition(), length, count);
+      if (in.skipBytes(length) != length) {
+        throw new EOFException();
+      }
+      return column;
+    }
+
+    byte[] data = new byte[length];
+    in.readFully(data);
+    return new ValueColumn(data, 0, length, count);
+  }
+
+  /**
+   * Skips the value section at the start of a columnar data block, leaving the block positioned at
+   * its first key.
+   */
+  static void skip(CachedBlockRead in) throws IOException {
+    int length = in.readInt();
+    if (in.skipBytes(length) != length) {
+      throw new EOFException();
+    }
+  }
+
+  /**
+   * @return a copy of the value of the entry at the given position in the block
+   */
+  byte[] get(int entry) {
+    if (entry < 0 || entry >= count) {
+      throw new IndexOutOfBoundsException("entry " + entry + " of " + count);
+    }
+
+    if (!decoded) {
+      try {
+        decode();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    switch (data[offset]) {
+      case RAW:
+        return Arrays.copyOfRange(data, starts[entry], starts[entry] + lengths[entry]);
+      case DICTIONARY:
+        return dictionaryValues[dictionaryIndexes[entry] & 0xff].clone();
+      case FIXED_LONG:
+        long val = longs[entry];
+        byte[] bytes = new byte[Long.BYTES];
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+          bytes[i] = (byte) val;
+          val >>>= 8;
+        }
+        return bytes;
+      default:
+        return Long.toString(longs[entry]).getBytes(UTF_8);
+    }
+  }
+
+  private void decode() throws IOException {
+    ByteArrayInputStream bytes = new ByteArrayInputStream(data, offset + 1, length - 1);
+    DataInputStream in = new DataInputStream(bytes);
+    int end = offset + length;
+
+    byte encoding = data[offset];
+    switch (encoding) {
+      case RAW:
+        int[] valueStarts = new int[count];
+        int[] valueLengths = new int[count];
+        for (int i = 0; i < count; i++) {
+          valueLengths[i] = WritableUtils.readVInt(in);
+          valueStarts[i] = end - bytes.available();
+          if (in.skipBytes(valueLengths[i]) != valueLengths[i]) {
+            throw new EOFException();
+          }
+        }
+        lengths = valueLengths;
+        starts = valueStarts;
+        break;
+      case DICTIONARY:
+        byte[][] values = new byte[WritableUtils.readVInt(in)][];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = new byte[WritableUtils.readVInt(in)];
+          in.readFully(values[i]);
+        }
+        byte[] indexes = new byte[count];
+        in.readFully(indexes);
+        dictionaryValues = values;
+        dictionaryIndexes = indexes;
+        break;
+      case FIXED_LONG:
+      case STRING_LONG:
+        long[] decoded = new long[count];
+        long prev = 0;
+        for (int i = 0; i < count; i++) {
+          prev += WritableUtils.readVLong(in);
+          decoded[i] = prev;
+        }
+        longs = decoded;
+        break;
+      default:
+        throw new IOException("Unknown value encoding " + encoding);
+    }
+    decoded = true;
+  }
+
+  private static boolean isStringLong(byte[] data, int offset, int length) {
+    int start = length > 0 && data[offset] == '-' ? 1 : 0;
+    int digits = length - start;
+    if (digits < 1 || digits > MAX_STRING_LONG_DIGITS) {
+      return false;
+    }
+    // leading zeros and negative zero would not be written back the same way
+    if (data[offset + start] == '0' && (digits > 1 || start == 1)) {
+      return false;
+    }
+    for (int i = offset + start; i < offset + length; i++) {
+      if (data[i] < '0' || data[i] > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long parseStringLong(byte[] data, int offset, int length) {
+    boolean negative = data[offset] == '-';
+    long val = 0;
+    for (int i = offset + (negative ? 1 : 0); i < offset + length; i++) {
+      val = val * 10 + (data[i] - '0');
+    }
+    return negative ? -val : val;
+  }
+}
@@ -25,6 +25,7 @@ import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.DataOutput;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -41,6 +42,7 @@ import org.apache.accumulo.core.cryptoImpl.NoFileEncrypter;
 import org.apache.accumulo.core.file.rfile.bcfile.Compression.Algorithm;
 import org.apache.accumulo.core.file.rfile.bcfile.Utils.Version;
 import org.apache.accumulo.core.file.streams.BoundedRangeFileInputStream;
+import org.apache.accumulo.core.file.streams.CoalescingInputStream;
 import org.apache.accumulo.core.file.streams.RateLimitedOutputStream;
 import org.apache.accumulo.core.file.streams.SeekableDataInputStream;
 import org.apache.accumulo.core.spi.crypto.CryptoEnvironment;
@@ -83,6 +85,12 @@ public final class BCFile {
   static final Version API_VERSION_1 = new Version((short) 1, (short) 0);
   static final Log LOG = LogFactory.getLog(BCFile.class);
 
+  /**
+   * The largest useful dictionary for data blocks compressed with a preset dictionary. Deflate can
+   * only refer back 32K, so anything larger is wasted.
+   */
+  public static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
   private static final String FS_OUTPUT_BUF_SIZE_ATTR = "tfile.fs.output.buffer.size";
   private static final String FS_INPUT_BUF_SIZE_ATTR = "tfile.fs.input.buffer.size";
 
@@ -141,6 +149,17 @@ public final class BCFile {
       public WBlockState(Algorithm compressionAlgo, RateLimitedOutputStream fsOut,
           BytesWritable fsOutputBuffer, Configuration conf, FileEncrypter encrypter)
           throws IOException {
+        this(compressionAlgo, fsOut, fsOutputBuffer, conf, encrypter, null);
+      }
+
+      /**
+       * @param dictionary
+       *          if not null, the block is compressed with deflate using this preset dictionary
+       *          instead of with the compression algorithm
+       */
+      public WBlockState(Algorithm compressionAlgo, RateLimitedOutputStream fsOut,
+          BytesWritable fsOutputBuffer, Configuration conf, FileEncrypter encrypter,
+          byte[] dictionary) throws IOException {
         this.compressAlgo = compressionAlgo;
         this.fsOut = fsOut;
         this.posStart = fsOut.position();
@@ -149,6 +168,13 @@ public final class BCFile {
 
         this.fsBufferedOutput =
             new SimpleBufferedOutputStream(this.fsOut, fsOutputBuffer.getBytes());
+
+        if (dictionary != null) {
+          this.cipherOut = encrypter.encryptStream(fsBufferedOutput);
+          this.out = DictionaryCompression.createCompressionStream(cipherOut, dictionary);
+          return;
+        }
+
         this.compressor = compressAlgo.getCompressor();
 
         try {
@@ -212,8 +238,10 @@ public final class BCFile {
             out = null;
           }
         } finally {
-          compressAlgo.returnCompressor(compressor);
-          compressor = null;
+          if (compressor != null) {
+            compressAlgo.returnCompressor(compressor);
+            compressor = null;
+          }
         }
       }
     }
@@ -419,6 +447,20 @@ public final class BCFile {
      * @return The BlockAppender stream
      */
     public BlockAppender prepareDataBlock() throws IOException {
+      return prepareDataBlock(null);
+    }
+
+    /**
+     * Create a Data Block that is compressed using deflate with a preset dictionary, instead of
+     * with the default compression algorithm. The same dictionary must be passed to
+     * {@link Reader#getDataBlock(long, long, long, byte[])} to read the block.
+     *
+     * @param dictionary
+     *          the preset dictionary, if null the block is compressed with the default compression
+     *          algorithm
+     * @return The BlockAppender stream
+     */
+    public BlockAppender prepareDataBlock(byte[] dictionary) throws IOException {
       if (blkInProgress) {
         throw new IllegalStateException("Cannot create Data Block until previous block is closed.");
       }
@@ -427,13 +469,48 @@ public final class BCFile {
         throw new IllegalStateException("Cannot create Data Block after Meta Blocks.");
       }
 
-      WBlockState wbs =
-          new WBlockState(getDefaultCompressionAlgorithm(), out, fsOutputBuffer, conf, encrypter);
+      WBlockState wbs = new WBlockState(getDefaultCompressionAlgorithm(), out, fsOutputBuffer, conf,
+          encrypter, dictionary);
       BlockAppender ba = new BlockAppender(wbs);
       blkInProgress = true;
       return ba;
     }
 
+    /**
+     * Copies a data block written by another BCFile into this file without decompressing or
+     * recompressing it. The block must have been compressed using this file's default compression
+     * algorithm and neither file may be encrypted, see {@link Reader#isRawCopyCompatible(Writer)}.
+     * Data Blocks may not be copied after the first Meta Blocks.
+     *
+     * @param in
+     *          stream supplying the compressed bytes of the block
+     * @param compressedSize
+     *          the number of compressed bytes to copy from the stream
+     * @return The byte offset in this file where the copied block starts
+     */
+    public long appendRawDataBlock(InputStream in, long compressedSize) throws IOException {
+      if (blkInProgress) {
+        throw new IllegalStateException("Cannot copy Data Block until previous block is closed.");
+      }
+
+      if (metaBlkSeen) {
+        throw new IllegalStateException("Cannot copy Data Block after Meta Blocks.");
+      }
+
+      long start = out.position();
+      byte[] buffer = new byte[(int) Math.min(compressedSize, 64 * 1024)];
+      long remaining = compressedSize;
+      while (remaining > 0) {
+        int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+        if (read < 0) {
+          throw new EOFException("Expected " + remaining + " more bytes of compressed data");
+        }
+        out.write(buffer, 0, read);
+        remaining -= read;
+      }
+      return start;
+    }
+
     /**
      * Callback to make sure a meta block is added to the internal list when its stream is closed.
      */
@@ -458,6 +535,7 @@ public final class BCFile {
    */
   public static class Reader implements Closeable {
     private final SeekableDataInputStream in;
+    private final CoalescingInputStream coalescingIn;
     private final Configuration conf;
     final DataIndex dataIndex;
     // Index for meta blocks
@@ -477,15 +555,23 @@ public final class BCFile {
       private volatile boolean closed;
 
       public <InputStreamType extends InputStream & Seekable> RBlockState(Algorithm compressionAlgo,
-          InputStreamType fsin, BlockRegion region, Configuration conf, FileDecrypter decrypter)
-          throws IOException {
+          InputStreamType fsin, BlockRegion region, Configuration conf, FileDecrypter decrypter,
+          byte[] dictionary) throws IOException {
         this.compressAlgo = compressionAlgo;
         this.region = region;
-        this.decompressor = compressionAlgo.getDecompressor();
 
         BoundedRangeFileInputStream boundedRangeFileInputStream = new BoundedRangeFileInputStream(
             fsin, this.region.getOffset(), this.region.getCompressedSize());
 
+        if (dictionary != null) {
+          this.in = DictionaryCompression.createDecompressionStream(
+              decrypter.decryptStream(boundedRangeFileInputStream), dictionary);
+          closed = false;
+          return;
+        }
+
+        this.decompressor = compressionAlgo.getDecompressor();
+
         try {
           InputStream inputStreamToBeCompressed =
               decrypter.decryptStream(boundedRangeFileInputStream);
@@ -601,6 +687,7 @@ public final class BCFile {
         long fileLength, Configuration conf, CryptoService cryptoService) throws IOException {
       this.in = new SeekableDataInputStream(fin);
       this.conf = conf;
+      this.coalescingIn = fin instanceof CoalescingInputStream ? (CoalescingInputStream) fin : null;
 
       // Move the cursor to grab the version and the magic first
       this.in.seek(fileLength - Magic.size() - Version.size());
@@ -656,6 +743,7 @@ public final class BCFile {
         InputStreamType fin, Configuration conf, CryptoService cryptoService) throws IOException {
       this.in = new SeekableDataInputStream(fin);
       this.conf = conf;
+      this.coalescingIn = fin instanceof CoalescingInputStream ? (CoalescingInputStream) fin : null;
 
       ByteArrayInputStream bais = new ByteArrayInputStream(serializedMetadata);
       DataInputStream dis = new DataInputStream(bais);
@@ -734,8 +822,24 @@ public final class BCFile {
 
     public BlockReader getDataBlock(long offset, long compressedSize, long rawSize)
         throws IOException {
+      return getDataBlock(offset, compressedSize, rawSize, null);
+    }
+
+    /**
+     * Stream access to a Data Block that may have been compressed with a preset dictionary.
+     *
+     * @param dictionary
+     *          the dictionary the block was compressed with, or null if the block was compressed
+     *          with the default compression algorithm
+     * @see Writer#prepareDataBlock(byte[])
+     */
+    public BlockReader getDataBlock(long offset, long compressedSize, long rawSize,
+        byte[] dictionary) throws IOException {
       BlockRegion region = new BlockRegion(offset, compressedSize, rawSize);
-      return createReader(dataIndex.getDefaultCompressionAlgorithm(), region);
+      prefetch(offset, compressedSize);
+      RBlockState rbs = new RBlockState(dataIndex.getDefaultCompressionAlgorithm(), in, region,
+          conf, decrypter, dictionary);
+      return new BlockReader(rbs);
     }
 
     public long getDataBlockRawSize(int blockIndex) {
@@ -747,9 +851,43 @@ public final class BCFile {
       return dataIndex.getBlockRegionList().get(blockIndex).getRawSize();
     }
 
+    /**
+     * Stream access to the compressed bytes of a Data Block, as they are stored in the file.
+     *
+     * @return input stream over exactly the compressed bytes of the block
+     * @see Writer#appendRawDataBlock(InputStream, long)
+     */
+    public InputStream getRawDataBlock(long offset, long compressedSize) {
+      return new BoundedRangeFileInputStream(in, offset, compressedSize);
+    }
+
+    /**
+     * @return true if the compressed bytes of this file's Data Blocks can be copied verbatim into a
+     *         file being written by the given writer. This requires both files use the same default
+     *         compression and that neither file is encrypted.
+     */
+    public boolean isRawCopyCompatible(Writer writer) {
+      return dataIndex.getDefaultCompressionAlgorithm() == writer.getDefaultCompressionAlgorithm()
+          && decrypter instanceof NoFileDecrypter && writer.encrypter instanceof NoFileEncrypter;
+    }
+
+    /**
+     * Reads a range of the file with a single read when the file was opened with a
+     * {@link CoalescingInputStream}, so that blocks in the range are read from memory. Does nothing
+     * otherwise.
+     */
+    public void prefetch(long offset, long length) throws IOException {
+      if (coalescingIn != null) {
+        synchronized (in) {
+          coalescingIn.prefetch(offset, length);
+        }
+      }
+    }
+
     private BlockReader createReader(Algorithm compressAlgo, BlockRegion region)
         throws IOException {
-      RBlockState rbs = new RBlockState(compressAlgo, in, region, conf, decrypter);
+      prefetch(region.getOffset(), region.getCompressedSize());
+      RBlockState rbs = new RBlockState(compressAlgo, in, region, conf, decrypter, null);
       return new BlockReader(rbs);
     }
   }
@@ -26,8 +26,10 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.compress.CodecPool;
@@ -37,6 +39,7 @@ import org.apache.hadoop.io.compress.CompressionOutputStream;
 import org.apache.hadoop.io.compress.Compressor;
 import org.apache.hadoop.io.compress.Decompressor;
 import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.io.compress.DoNotPool;
 import org.apache.hadoop.util.ReflectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,6 +63,37 @@ public final class Compression {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * A bounded, lock free pool of the compressors or decompressors of one algorithm. The most
+   * recently returned one is handed out first, while its buffers are likely still in the cache.
+   */
+  static class CodecQueue<T> {
+    static final int MAX_SIZE = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    private final ConcurrentLinkedDeque<T> pool = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    T poll() {
+      T t = pool.pollFirst();
+      if (t != null) {
+        size.decrementAndGet();
+      }
+      return t;
+    }
+
+    /**
+     * @return false if the pool is full
+     */
+    boolean offer(T t) {
+      if (size.incrementAndGet() > MAX_SIZE) {
+        size.decrementAndGet();
+        return false;
+      }
+      pool.offerFirst(t);
+      return true;
+    }
+  }
+
   static class FinishOnFlushCompressionStream extends FilterOutputStream {
 
     FinishOnFlushCompressionStream(CompressionOutputStream cout) {
@@ -492,6 +526,12 @@ public final class Compression {
     // The name of the compression algorithm.
     private final String name;
 
+    // Returned compressors and decompressors are pooled here, so that threads reading or writing
+    // many blocks reuse them instead of contending on the synchronized CodecPool. Those that do not
+    // fit in the pool go back to CodecPool.
+    private final CodecQueue<Compressor> compressors = new CodecQueue<>();
+    private final CodecQueue<Decompressor> decompressors = new CodecQueue<>();
+
     Algorithm(String name) {
       this.name = name;
     }
@@ -520,7 +560,14 @@ public final class Compression {
     public Compressor getCompressor() {
       CompressionCodec codec = getCodec();
       if (codec != null) {
-        Compressor compressor = CodecPool.getCompressor(codec);
+        Compressor compressor = compressors.poll();
+        if (compressor != null && !isType(compressor, codec.getCompressorType())) {
+          CodecPool.returnCompressor(compressor);
+          compressor = null;
+        }
+        if (compressor == null) {
+          compressor = CodecPool.getCompressor(codec);
+        }
         if (compressor != null) {
           if (compressor.finished()) {
             // Somebody returns the compressor to CodecPool but is still using it.
@@ -541,14 +588,23 @@ public final class Compression {
     public void returnCompressor(final Compressor compressor) {
       if (compressor != null) {
         log.trace("Return a compressor: {}", compressor.hashCode());
-        CodecPool.returnCompressor(compressor);
+        if (!isPoolable(compressor) || !compressors.offer(compressor)) {
+          CodecPool.returnCompressor(compressor);
+        }
       }
     }
 
     public Decompressor getDecompressor() {
       CompressionCodec codec = getCodec();
       if (codec != null) {
-        Decompressor decompressor = CodecPool.getDecompressor(codec);
+        Decompressor decompressor = decompressors.poll();
+        if (decompressor != null && !isType(decompressor, codec.getDecompressorType())) {
+          CodecPool.returnDecompressor(decompressor);
+          decompressor = null;
+        }
+        if (decompressor == null) {
+          decompressor = CodecPool.getDecompressor(codec);
+        }
         if (decompressor != null) {
           if (decompressor.finished()) {
             // Somebody returns the decompressor to CodecPool but is still using it.
@@ -572,10 +628,24 @@ public final class Compression {
     public void returnDecompressor(final Decompressor decompressor) {
       if (decompressor != null) {
         log.trace("Returned a decompressor: {}", decompressor.hashCode());
-        CodecPool.returnDecompressor(decompressor);
+        if (!isPoolable(decompressor) || !decompressors.offer(decompressor)) {
+          CodecPool.returnDecompressor(decompressor);
+        }
       }
     }
 
+    private static boolean isType(Object compressor, Class<?> type) {
+      return type != null && type.isInstance(compressor);
+    }
+
+    /**
+     * Follows the same rule as {@link CodecPool}, compressors that are annotated with
+     * {@link DoNotPool} can not be reused.
+     */
+    private static boolean isPoolable(Object compressor) {
+      return !compressor.getClass().isAnnotationPresent(DoNotPool.class);
+    }
+
     /**
      * Returns the name of the compression algorithm.
      *
@@ -696,7 +766,7 @@ public final class Compression {
     return supportedAlgorithms.toArray(new String[0]);
   }
 
-  static Algorithm getCompressionAlgorithmByName(final String name) {
+  public static Algorithm getCompressionAlgorithmByName(final String name) {
     Algorithm[] algorithms = Algorithm.class.getEnumConstants();
     for (Algorithm algorithm : algorithms) {
       if (algorithm.getName().equals(name)) {
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.rfile.bcfile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compresses blocks using deflate with a preset dictionary. Small blocks of similar data compress
+ * poorly on their own because the compressor has no history to find matches in. Presetting the
+ * dictionary with data like the block's gives the compressor that history. The same dictionary must
+ * be supplied to decompress the block.
+ *
+ * <p>
+ * Blocks are written in the raw deflate format, without the zlib header and checksum, so that the
+ * dictionary can be set before decompression starts.
+ */
+final class DictionaryCompression {
+
+  private static final int BUFFER_SIZE = 4 * 1024;
+
+  private DictionaryCompression() {}
+
+  /**
+   * The returned stream finishes the block when flushed, like the streams created by
+   * {@link Compression.Algorithm}. Closing the stream closes the down stream.
+   */
+  static OutputStream createCompressionStream(OutputStream downStream, byte[] dictionary) {
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    deflater.setDictionary(dictionary);
+    return new DeflaterOutputStream(downStream, deflater, BUFFER_SIZE) {
+      private boolean finished = false;
+
+      @Override
+      public void flush() throws IOException {
+        if (!finished) {
+          finished = true;
+          try {
+            finish();
+          } finally {
+            def.end();
+          }
+        }
+        out.flush();
+      }
+
+      @Override
+      public void close() throws IOException {
+        try {
+          flush();
+        } finally {
+          out.close();
+        }
+      }
+    };
+  }
+
+  static InputStream createDecompressionStream(InputStream downStream, byte[] dictionary) {
+    Inflater inflater = new Inflater(true);
+    inflater.setDictionary(dictionary);
+    InflaterInputStream iis = new InflaterInputStream(downStream, inflater, BUFFER_SIZE) {
+      private boolean closed = false;
+
+      @Override
+      public void close() throws IOException {
+        if (!closed) {
+          closed = true;
+          try {
+            super.close();
+          } finally {
+            inf.end();
+          }
+        }
+      }
+    };
+    return new BufferedInputStream(iis, BUFFER_SIZE);
+  }
+}
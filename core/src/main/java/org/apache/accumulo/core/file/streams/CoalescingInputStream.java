@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.streams;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.hadoop.fs.Seekable;
+
+/**
+ * A decorator for an {@code InputStream} that reads whole blocks with a single ranged read instead
+ * of the many small reads a decompressor issues. Each file system read may be a round trip to a
+ * remote server, so fewer and larger reads make cold reads much faster on remote volumes.
+ *
+ * <p>
+ * {@link #prefetch(long, long)} buffers a range of the file. When a range starts shortly after the
+ * previously buffered range, the file is probably being read sequentially and the read is extended
+ * to {@code maxReadSize} so that the blocks that follow are buffered by the same read. Reads of
+ * positions that are not buffered go to the underlying stream.
+ */
+public class CoalescingInputStream extends InputStream implements Seekable {
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private final InputStream in;
+  private final int maxReadSize;
+
+  private byte[] buffer = EMPTY;
+  private long bufferStart = 0;
+  private int bufferLength = 0;
+  private long pos = 0;
+
+  public <StreamType extends InputStream & Seekable> CoalescingInputStream(StreamType stream,
+      int maxReadSize) {
+    this.in = stream;
+    this.maxReadSize = maxReadSize;
+  }
+
+  /**
+   * @return the largest range that is read with a single read
+   */
+  public int getMaxReadSize() {
+    return maxReadSize;
+  }
+
+  /**
+   * Makes sure a range of the file is buffered, reading it with a single read when it is not.
+   * Ranges larger than the maximum read size are not buffered.
+   */
+  public synchronized void prefetch(long offset, long length) throws IOException {
+    if (length <= 0 || length > maxReadSize) {
+      return;
+    }
+
+    long bufferEnd = bufferStart + bufferLength;
+    if (offset >= bufferStart && offset + length <= bufferEnd) {
+      return;
+    }
+
+    int size = (int) length;
+    if (bufferLength > 0 && offset >= bufferEnd && offset - bufferEnd <= maxReadSize) {
+      // reading forward through the file, so read the blocks that follow too
+      size = maxReadSize;
+    }
+
+    if (buffer.length < size) {
+      buffer = new byte[size];
+    }
+    bufferLength = 0;
+
+    ((Seekable) in).seek(offset);
+    int total = 0;
+    while (total < size) {
+      int n = in.read(buffer, total, size - total);
+      if (n < 0) {
+        break;
+      }
+      total += n;
+    }
+
+    bufferStart = offset;
+    bufferLength = total;
+  }
+
+  @Override
+  public synchronized int read() throws IOException {
+    if (pos >= bufferStart && pos < bufferStart + bufferLength) {
+      return buffer[(int) (pos++ - bufferStart)] & 0xff;
+    }
+
+    ((Seekable) in).seek(pos);
+    int b = in.read();
+    if (b >= 0) {
+      pos++;
+    }
+    return b;
+  }
+
+  @Override
+  public synchronized int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+
+    int n;
+    if (pos >= bufferStart && pos < bufferStart + bufferLength) {
+      n = (int) Math.min(len, bufferStart + bufferLength - pos);
+      System.arraycopy(buffer, (int) (pos - bufferStart), b, off, n);
+    } else {
+      ((Seekable) in).seek(pos);
+      n = in.read(b, off, len);
+    }
+
+    if (n > 0) {
+      pos += n;
+    }
+    return n;
+  }
+
+  @Override
+  public synchronized void seek(long pos) {
+    this.pos = pos;
+  }
+
+  @Override
+  public synchronized long getPos() {
+    return pos;
+  }
+
+  @Override
+  public synchronized boolean seekToNewSource(long targetPos) throws IOException {
+    bufferLength = 0;
+    return ((Seekable) in).seekToNewSource(targetPos);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    buffer = EMPTY;
+    bufferLength = 0;
+    in.close();
+  }
+}
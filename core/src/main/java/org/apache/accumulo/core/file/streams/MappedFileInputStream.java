@@ -0,0 +1,326 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.streams;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.hadoop.fs.PositionedReadable;
+import org.apache.hadoop.fs.Seekable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An input stream over a memory mapped local file. Reads copy straight out of the page cache
+ * instead of going through a read system call and the buffers of the local file system, which
+ * avoids most of the per read overhead when blocks are read from a file on local disk.
+ *
+ * <p>
+ * The file is mapped in segments because a single mapping can not be larger than 2GB. Streams
+ * opened on the same file share one mapping, which is unmapped when the last stream on it is
+ * closed, so mappings do not pile up waiting for garbage collection. The file must not change while
+ * it is mapped, which holds for RFiles since they are never modified after they are written.
+ */
+public class MappedFileInputStream extends InputStream implements Seekable, PositionedReadable {
+
+  private static final Logger log = LoggerFactory.getLogger(MappedFileInputStream.class);
+
+  // unmaps a buffer, or null if the JVM does not allow it and mappings are released when their
+  // buffers are garbage collected
+  private static final MethodHandle UNMAP = findUnmap();
+
+  static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+
+  // mappings shared by the open streams, guarded by synchronizing on the map
+  private static final Map<String,MappedFile> mappedFiles = new HashMap<>();
+
+  private final MappedFile mapped;
+  private final int segmentSize;
+  private final long length;
+  private long pos = 0;
+  private volatile boolean closed = false;
+
+  public MappedFileInputStream(File file) throws IOException {
+    this(file, DEFAULT_SEGMENT_SIZE);
+  }
+
+  MappedFileInputStream(File file, int segmentSize) throws IOException {
+    this.segmentSize = segmentSize;
+    this.mapped = MappedFile.acquire(file, segmentSize);
+    this.length = mapped.length;
+  }
+
+  /**
+   * Finds {@code sun.misc.Unsafe.invokeCleaner}, which unmaps a mapped buffer. It is exported by
+   * the jdk.unsupported module, but is only looked up reflectively so that JVMs without it still
+   * work.
+   */
+  private static MethodHandle findUnmap() {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      return MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner",
+          MethodType.methodType(void.class, ByteBuffer.class)).bindTo(theUnsafe.get(null));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      log.debug("Mapped files can not be unmapped, they are released when garbage collected", e);
+      return null;
+    }
+  }
+
+  /**
+   * @return the length of the mapped file
+   */
+  public long length() {
+    return length;
+  }
+
+  /**
+   * @return true if mappings are unmapped when the last stream on them is closed
+   */
+  static boolean isUnmapSupported() {
+    return UNMAP != null;
+  }
+
+  /**
+   * @return the number of files currently mapped by open streams
+   */
+  static int getMappedFileCount() {
+    synchronized (mappedFiles) {
+      return mappedFiles.size();
+    }
+  }
+
+  @Override
+  public synchronized int read() throws IOException {
+    Lock readLock = mapped.lock.readLock();
+    readLock.lock();
+    try {
+      ensureOpen();
+      if (pos >= length) {
+        return -1;
+      }
+      int b = mapped.segments[(int) (pos / segmentSize)].get((int) (pos % segmentSize)) & 0xff;
+      pos++;
+      return b;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  public synchronized int read(byte[] b, int off, int len) throws IOException {
+    int n = read(pos, b, off, len);
+    if (n > 0) {
+      pos += n;
+    }
+    return n;
+  }
+
+  @Override
+  public synchronized long skip(long n) throws IOException {
+    ensureOpen();
+    long skipped = Math.max(0, Math.min(n, length - pos));
+    pos += skipped;
+    return skipped;
+  }
+
+  @Override
+  public synchronized int available() throws IOException {
+    ensureOpen();
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(0, length - pos));
+  }
+
+  @Override
+  public synchronized void seek(long newPos) throws IOException {
+    ensureOpen();
+    if (newPos < 0) {
+      throw new EOFException("Cannot seek to negative offset " + newPos);
+    }
+    if (newPos > length) {
+      throw new EOFException("Cannot seek to " + newPos + " past end of file " + length);
+    }
+    pos = newPos;
+  }
+
+  @Override
+  public synchronized long getPos() {
+    return pos;
+  }
+
+  @Override
+  public boolean seekToNewSource(long targetPos) {
+    return false;
+  }
+
+  /**
+   * Reads from the given position without changing the position of the stream. Positional reads do
+   * not need to synchronize on the stream, so concurrent readers of the same file do not block each
+   * other. They only hold the read lock of the mapping, which keeps it from being unmapped under
+   * them.
+   */
+  @Override
+  public int read(long position, byte[] b, int off, int len) throws IOException {
+    if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (position < 0) {
+      throw new EOFException("Cannot read from negative offset " + position);
+    }
+
+    Lock readLock = mapped.lock.readLock();
+    readLock.lock();
+    try {
+      ensureOpen();
+      if (len == 0) {
+        return 0;
+      }
+      if (position >= length) {
+        return -1;
+      }
+
+      int total = (int) Math.min(len, length - position);
+      int remaining = total;
+      while (remaining > 0) {
+        int segment = (int) (position / segmentSize);
+        int segmentOffset = (int) (position % segmentSize);
+        // duplicate so that concurrent readers do not share a buffer position
+        ByteBuffer buf = mapped.segments[segment].duplicate();
+        buf.position(segmentOffset);
+        int n = Math.min(remaining, buf.remaining());
+        buf.get(b, off, n);
+        off += n;
+        position += n;
+        remaining -= n;
+      }
+      return total;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  public void readFully(long position, byte[] buffer, int offset, int len) throws IOException {
+    if (position < 0 || position + len > length) {
+      throw new EOFException(
+          "Cannot read " + len + " bytes at " + position + " from file of length " + length);
+    }
+    read(position, buffer, offset, len);
+  }
+
+  @Override
+  public void readFully(long position, byte[] buffer) throws IOException {
+    readFully(position, buffer, 0, buffer.length);
+  }
+
+  @Override
+  public synchronized void close() {
+    if (!closed) {
+      closed = true;
+      mapped.release();
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+  }
+
+  /**
+   * The segments of a mapped file, shared by all streams open on the file.
+   */
+  private static class MappedFile {
+
+    private final String key;
+    private final ByteBuffer[] segments;
+    private final long length;
+    // reads hold the read lock, unmapping holds the write lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int refs = 0;
+
+    private MappedFile(String key, File file, int segmentSize) throws IOException {
+      this.key = key;
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+        this.length = channel.size();
+        int count = (int) ((length + segmentSize - 1) / segmentSize);
+        this.segments = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+          long start = (long) i * segmentSize;
+          segments[i] =
+              channel.map(MapMode.READ_ONLY, start, Math.min(segmentSize, length - start));
+        }
+      }
+    }
+
+    static MappedFile acquire(File file, int segmentSize) throws IOException {
+      // the length and modification time keep a replaced file from using the old mapping
+      String key = file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified() + ":"
+          + segmentSize;
+      synchronized (mappedFiles) {
+        MappedFile mapped = mappedFiles.get(key);
+        if (mapped == null) {
+          mapped = new MappedFile(key, file, segmentSize);
+          mappedFiles.put(key, mapped);
+        }
+        mapped.refs++;
+        return mapped;
+      }
+    }
+
+    void release() {
+      synchronized (mappedFiles) {
+        if (--refs > 0) {
+          return;
+        }
+        mappedFiles.remove(key);
+      }
+
+      if (UNMAP == null) {
+        // the mapping is released when the buffers are garbage collected
+        return;
+      }
+      Lock writeLock = lock.writeLock();
+      writeLock.lock();
+      try {
+        for (ByteBuffer segment : segments) {
+          UNMAP.invokeExact(segment);
+        }
+      } catch (Throwable e) {
+        log.warn("Failed to unmap {}, it will be unmapped when garbage collected", key, e);
+      } finally {
+        writeLock.unlock();
+      }
+    }
+  }
+}
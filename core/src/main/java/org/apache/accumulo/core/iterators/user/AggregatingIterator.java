@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.iterators.user;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.ScanAggregation;
+import org.apache.accumulo.core.client.ScanAggregation.GroupBy;
+import org.apache.accumulo.core.client.ScanAggregation.Result;
+import org.apache.accumulo.core.client.lexicoder.Encoder;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.LongCombiner;
+import org.apache.accumulo.core.iterators.OptionDescriber;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.hadoop.io.Text;
+
+/**
+ * Reduces the entries of a seeked range to partial aggregates, one {@link Result} per group. The
+ * results are encoded into a single value with {@link Result#encode(Map)}. With {@link GroupBy#ROW}
+ * one value is returned for each row, otherwise one value is returned for the whole range.
+ *
+ * <p>
+ * So that a scan of a large tablet keeps returning batches and its scan session can be interrupted,
+ * a value is also returned once {@value #MAX_ENTRIES_OPTION} entries were aggregated into it or
+ * {@value #MAX_MILLIS_OPTION} milliseconds were spent on it. The next value continues the same
+ * groups. A row is counted for a group by the value that holds the last entry of the group in the
+ * row, so merging the values of a range counts each row once.
+ *
+ * <p>
+ * Each value is returned with the last key that was aggregated into it. When the scan is continued
+ * after that key, because of a new batch or the tablet server swapping out sources, the entries
+ * that were already aggregated are not aggregated again.
+ *
+ * <p>
+ * Values are only decoded, with one of the encodings of {@link LongCombiner}, when the
+ * {@value #TYPE_OPTION} option is set. Use {@link ScanAggregation} to configure this iterator and
+ * merge its results.
+ */
+public class AggregatingIterator implements SortedKeyValueIterator<Key,Value>, OptionDescriber {
+
+  public static final String GROUP_BY_OPTION = "groupBy";
+  // same option as LongCombiner.setEncodingType(IteratorSetting, LongCombiner.Type)
+  public static final String TYPE_OPTION = "type";
+  public static final String MAX_ENTRIES_OPTION = "maxEntries";
+  public static final String MAX_MILLIS_OPTION = "maxMillis";
+
+  public static final long DEFAULT_MAX_ENTRIES = 100_000;
+  public static final long DEFAULT_MAX_MILLIS = 1000;
+
+  private static final Text NO_GROUP = new Text();
+
+  private SortedKeyValueIterator<Key,Value> source;
+  private GroupBy groupBy = GroupBy.NONE;
+  private Encoder<Long> encoder = null;
+  private long maxEntries = DEFAULT_MAX_ENTRIES;
+  private long maxNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_MILLIS);
+
+  private Key topKey = null;
+  private Value topValue = null;
+
+  public AggregatingIterator() {}
+
+  AggregatingIterator(SortedKeyValueIterator<Key,Value> source, GroupBy groupBy,
+      Encoder<Long> encoder) {
+    this(source, groupBy, encoder, DEFAULT_MAX_ENTRIES,
+        TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_MILLIS));
+  }
+
+  AggregatingIterator(SortedKeyValueIterator<Key,Value> source, GroupBy groupBy,
+      Encoder<Long> encoder, long maxEntries, long maxNanos) {
+    this.source = source;
+    this.groupBy = groupBy;
+    this.encoder = encoder;
+    this.maxEntries = maxEntries;
+    this.maxNanos = maxNanos;
+  }
+
+  @Override
+  public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options,
+      IteratorEnvironment env) throws IOException {
+    this.source = source;
+    setOptions(options);
+  }
+
+  private void setOptions(Map<String,String> options) {
+    String gb = options.get(GROUP_BY_OPTION);
+    groupBy = gb == null ? GroupBy.NONE : GroupBy.valueOf(gb);
+    String type = options.get(TYPE_OPTION);
+    encoder = type == null ? null : getEncoder(LongCombiner.Type.valueOf(type));
+    maxEntries = getPositiveLong(options, MAX_ENTRIES_OPTION, DEFAULT_MAX_ENTRIES);
+    maxNanos = TimeUnit.MILLISECONDS
+        .toNanos(getPositiveLong(options, MAX_MILLIS_OPTION, DEFAULT_MAX_MILLIS));
+  }
+
+  private static long getPositiveLong(Map<String,String> options, String name, long defaultValue) {
+    String value = options.get(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    long l = Long.parseLong(value);
+    if (l <= 0) {
+      throw new IllegalArgumentException(name + " must be positive : " + value);
+    }
+    return l;
+  }
+
+  private static Encoder<Long> getEncoder(LongCombiner.Type type) {
+    switch (type) {
+      case VARLEN:
+        return LongCombiner.VAR_LEN_ENCODER;
+      case FIXEDLEN:
+        return LongCombiner.FIXED_LEN_ENCODER;
+      case STRING:
+        return LongCombiner.STRING_ENCODER;
+      default:
+        throw new IllegalArgumentException("Unknown type " + type);
+    }
+  }
+
+  @Override
+  public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+    return new AggregatingIterator(source.deepCopy(env), groupBy, encoder, maxEntries, maxNanos);
+  }
+
+  @Override
+  public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive)
+      throws IOException {
+    source.seek(range, columnFamilies, inclusive);
+    aggregate();
+  }
+
+  @Override
+  public void next() throws IOException {
+    aggregate();
+  }
+
+  private void aggregate() throws IOException {
+    topKey = null;
+    topValue = null;
+    if (!source.hasTop()) {
+      return;
+    }
+
+    SortedMap<Text,Result> results = new TreeMap<>();
+    Text row = new Text();
+    Text group = new Text();
+    Key lastKey = new Key();
+    boolean first = true;
+    long entries = 0;
+    long start = System.nanoTime();
+
+    while (source.hasTop()) {
+      Key key = source.getTopKey();
+      if (first || key.compareRow(row) != 0) {
+        if (!first && groupBy == GroupBy.ROW) {
+          break;
+        }
+        key.getRow(row);
+      }
+
+      Text g;
+      switch (groupBy) {
+        case ROW:
+          g = row;
+          break;
+        case FAMILY:
+          g = key.getColumnFamily(group);
+          break;
+        default:
+          g = NO_GROUP;
+      }
+
+      Result result = results.get(g);
+      if (result == null) {
+        result = new Result();
+        results.put(new Text(g), result);
+      }
+      if (encoder == null) {
+        result.addEntry();
+      } else {
+        result.addEntry(encoder.decode(source.getTopValue().get()));
+      }
+
+      lastKey.set(key);
+      first = false;
+      entries++;
+      source.next();
+
+      // the entries of a group are contiguous within a row, so this is the last entry of the group
+      // in the row when the next entry is in another row or group
+      if (!source.hasTop() || !inGroup(source.getTopKey(), row, g)) {
+        result.addRow();
+      }
+
+      if (entries >= maxEntries || System.nanoTime() - start >= maxNanos) {
+        break;
+      }
+    }
+
+    topKey = lastKey;
+    topValue = Result.encode(results);
+  }
+
+  private boolean inGroup(Key key, Text row, Text group) {
+    return key.compareRow(row) == 0
+        && (groupBy != GroupBy.FAMILY || key.compareColumnFamily(group) == 0);
+  }
+
+  @Override
+  public boolean hasTop() {
+    return topKey != null;
+  }
+
+  @Override
+  public Key getTopKey() {
+    return topKey;
+  }
+
+  @Override
+  public Value getTopValue() {
+    return topValue;
+  }
+
+  @Override
+  public IteratorOptions describeOptions() {
+    IteratorOptions io = new IteratorOptions("aggregation",
+        "Reduces entries to counts, sums, minimums, maximums and distinct row counts per group",
+        null, null);
+    io.addNamedOption(GROUP_BY_OPTION, "<NONE|ROW|FAMILY> what entries to aggregate together");
+    io.addNamedOption(TYPE_OPTION, "<VARLEN|FIXEDLEN|STRING> the encoding of values to decode");
+    io.addNamedOption(MAX_ENTRIES_OPTION, "<long> the most entries to aggregate into one value");
+    io.addNamedOption(MAX_MILLIS_OPTION,
+        "<long> the most milliseconds to spend aggregating one value");
+    return io;
+  }
+
+  @Override
+  public boolean validateOptions(Map<String,String> options) {
+    try {
+      setOptions(options);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("bad aggregation option", e);
+    }
+    return true;
+  }
+
+  /**
+   * Sets what entries are aggregated together.
+   */
+  public static void setGroupBy(IteratorSetting is, GroupBy groupBy) {
+    is.addOption(GROUP_BY_OPTION, groupBy.name());
+  }
+
+  /**
+   * Sets the most entries to aggregate, and the most time to spend aggregating, before returning a
+   * partial value. Defaults to {@value #DEFAULT_MAX_ENTRIES} entries and
+   * {@value #DEFAULT_MAX_MILLIS} milliseconds.
+   */
+  public static void setPartialLimits(IteratorSetting is, long maxEntries, long maxMillis) {
+    is.addOption(MAX_ENTRIES_OPTION, Long.toString(maxEntries));
+    is.addOption(MAX_MILLIS_OPTION, Long.toString(maxMillis));
+  }
+}
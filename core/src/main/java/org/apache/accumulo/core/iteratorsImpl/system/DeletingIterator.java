@@ -21,6 +21,7 @@ package org.apache.accumulo.core.iteratorsImpl.system;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.Property;
@@ -37,6 +38,7 @@ import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 public class DeletingIterator extends ServerWrappingIterator {
   private boolean propogateDeletes;
   private Key workKey = new Key();
+  private AtomicLong deletedCounter;
 
   public enum Behavior {
     PROCESS, FAIL
@@ -50,11 +52,14 @@ public class DeletingIterator extends ServerWrappingIterator {
   private DeletingIterator(DeletingIterator other, IteratorEnvironment env) {
     super(other.source.deepCopy(env));
     propogateDeletes = other.propogateDeletes;
+    deletedCounter = other.deletedCounter;
   }
 
-  private DeletingIterator(SortedKeyValueIterator<Key,Value> iterator, boolean propogateDeletes) {
+  private DeletingIterator(SortedKeyValueIterator<Key,Value> iterator, boolean propogateDeletes,
+      AtomicLong deletedCounter) {
     super(iterator);
     this.propogateDeletes = propogateDeletes;
+    this.deletedCounter = deletedCounter;
   }
 
   @Override
@@ -100,10 +105,16 @@ public class DeletingIterator extends ServerWrappingIterator {
 
     Key keyToSkip = workKey;
     source.next();
+    long skipped = 1;
 
     while (source.hasTop()
         && source.getTopKey().equals(keyToSkip, PartialKey.ROW_COLFAM_COLQUAL_COLVIS)) {
       source.next();
+      skipped++;
+    }
+
+    if (deletedCounter != null) {
+      deletedCounter.addAndGet(skipped);
     }
   }
 
@@ -115,9 +126,19 @@ public class DeletingIterator extends ServerWrappingIterator {
 
   public static SortedKeyValueIterator<Key,Value> wrap(SortedKeyValueIterator<Key,Value> source,
       boolean propogateDeletes, Behavior behavior) {
+    return wrap(source, propogateDeletes, behavior, null);
+  }
+
+  /**
+   * @param deletedCounter
+   *          if not null, incremented by the number of keys skipped because they were deleted,
+   *          including the delete markers themselves
+   */
+  public static SortedKeyValueIterator<Key,Value> wrap(SortedKeyValueIterator<Key,Value> source,
+      boolean propogateDeletes, Behavior behavior, AtomicLong deletedCounter) {
     switch (behavior) {
       case PROCESS:
-        return new DeletingIterator(source, propogateDeletes);
+        return new DeletingIterator(source, propogateDeletes, deletedCounter);
       case FAIL:
         return new ServerWrappingIterator(source) {
           @Override
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
@@ -99,8 +100,15 @@ public class SystemIteratorUtil {
   public static SortedKeyValueIterator<Key,Value> setupSystemScanIterators(
       SortedKeyValueIterator<Key,Value> source, Set<Column> cols, Authorizations auths,
       byte[] defaultVisibility, AccumuloConfiguration conf) throws IOException {
+    return setupSystemScanIterators(source, cols, auths, defaultVisibility, conf, null);
+  }
+
+  public static SortedKeyValueIterator<Key,Value> setupSystemScanIterators(
+      SortedKeyValueIterator<Key,Value> source, Set<Column> cols, Authorizations auths,
+      byte[] defaultVisibility, AccumuloConfiguration conf, AtomicLong deletedCounter)
+      throws IOException {
     SortedKeyValueIterator<Key,Value> delIter =
-        DeletingIterator.wrap(source, false, DeletingIterator.getBehavior(conf));
+        DeletingIterator.wrap(source, false, DeletingIterator.getBehavior(conf), deletedCounter);
     ColumnFamilySkippingIterator cfsi = new ColumnFamilySkippingIterator(delIter);
     SortedKeyValueIterator<Key,Value> colFilter = ColumnQualifierFilter.wrap(cfsi, cols);
     return VisibilityFilter.wrap(colFilter, auths, defaultVisibility);
@@ -0,0 +1,468 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.rpc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.accumulo.core.file.rfile.bcfile.Compression;
+import org.apache.accumulo.core.file.rfile.bcfile.Compression.Algorithm;
+import org.apache.accumulo.core.util.UnsynchronizedBuffer;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.thrift.TByteArrayOutputStream;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolDecorator;
+import org.apache.thrift.protocol.TProtocolFactory;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+
+/**
+ * Compresses thrift messages that are at least a threshold in size.
+ *
+ * <p>
+ * The transport only looks for a compressed message at the start of a message, so it must be read
+ * through a protocol created by {@link #getProtocol(TProtocolFactory)}, which reports the end of
+ * each message read.
+ *
+ * <p>
+ * Messages from a client start with a marker byte, the name of the codec and the uncompressed and
+ * compressed lengths. Requests below the threshold are stored uncompressed behind the same header.
+ * Messages from the compact protocol never start with that byte, so a server can accept these and
+ * plain messages on the same connection without any negotiation. A server only compresses its
+ * response when the request named a codec, and uses that codec, so clients that do not compress
+ * never see a compressed response.
+ *
+ * <p>
+ * The lengths in a header are checked against a maximum message size before anything is allocated
+ * for the message, and a message that claims to decompress to far more than its compressed length
+ * is rejected.
+ */
+public class CompressedTransport extends FilterTransport {
+
+  static final int MARKER = 0x01;
+  private static final int STORED = -1;
+  // well above what the supported codecs achieve on thrift messages
+  static final int MAX_COMPRESSION_RATIO = 1024;
+  private static final int MAX_CODEC_NAME_LENGTH = 64;
+
+  /**
+   * The codec of the last request read by this thread, set by server side transports. A request is
+   * read, processed and its response written on the same thread.
+   */
+  private static final ThreadLocal<Algorithm> requestCodec = new ThreadLocal<>();
+
+  private final boolean server;
+  private final Algorithm codec;
+  private final int threshold;
+  private final long maxMessageSize;
+
+  private final TByteArrayOutputStream writeBuffer = new TByteArrayOutputStream(1024);
+  private boolean buffering = false;
+
+  private boolean messageStart = true;
+  private boolean compressedMessage = false;
+  private byte[] readBuffer;
+  private int readPos;
+  private int readEnd;
+  private int firstByte = -1;
+
+  private long logicalBytesRead;
+  private long wireBytesRead;
+  private long logicalBytesWritten;
+  private long wireBytesWritten;
+
+  private CompressedTransport(TTransport wrapped, boolean server, Algorithm codec, int threshold,
+      long maxMessageSize) {
+    super(wrapped);
+    this.server = server;
+    this.codec = codec;
+    this.threshold = threshold;
+    this.maxMessageSize = maxMessageSize;
+  }
+
+  /**
+   * Wraps a client transport so that requests of at least threshold bytes are compressed with the
+   * given codec. Compressed responses larger than maxMessageSize are rejected.
+   */
+  public static CompressedTransport forClient(TTransport wrapped, Algorithm codec, int threshold,
+      long maxMessageSize) {
+    return new CompressedTransport(wrapped, false, requireNonNull(codec), threshold,
+        maxMessageSize);
+  }
+
+  /**
+   * Wraps a server transport so that compressed requests are accepted, and responses of at least
+   * threshold bytes to compressed requests are compressed. A negative threshold never compresses
+   * responses. Compressed requests larger than maxMessageSize are rejected.
+   */
+  public static CompressedTransport forServer(TTransport wrapped, int threshold,
+      long maxMessageSize) {
+    return new CompressedTransport(wrapped, true, null, threshold, maxMessageSize);
+  }
+
+  /**
+   * Creates a protocol factory that wraps the transport of each server protocol in a
+   * {@link CompressedTransport}.
+   *
+   * @see #forServer(TTransport, int, long)
+   */
+  public static TProtocolFactory serverProtocolFactory(TProtocolFactory protocolFactory,
+      int threshold, long maxMessageSize) {
+    return new TProtocolFactory() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      public TProtocol getProtocol(TTransport trans) {
+        return forServer(trans, threshold, maxMessageSize).getProtocol(protocolFactory);
+      }
+    };
+  }
+
+  /**
+   * Creates a protocol over this transport that tells the transport where each message it reads
+   * ends, so the next read looks for the header of a compressed message.
+   */
+  public TProtocol getProtocol(TProtocolFactory protocolFactory) {
+    return new TProtocolDecorator(protocolFactory.getProtocol(this)) {
+      @Override
+      public void readMessageEnd() throws TException {
+        super.readMessageEnd();
+        messageStart = true;
+        compressedMessage = false;
+        readBuffer = null;
+      }
+    };
+  }
+
+  /**
+   * Looks up a codec by the name used for RFile compression, returning null for none.
+   *
+   * @throws IllegalArgumentException
+   *           if the codec is unknown or not supported by this JVM
+   */
+  public static Algorithm getCodec(String name) {
+    Algorithm algorithm = Compression.getCompressionAlgorithmByName(name);
+    if (algorithm == Algorithm.NONE) {
+      return null;
+    }
+    if (!algorithm.isSupported()) {
+      throw new IllegalArgumentException("RPC compression codec " + name + " is not supported");
+    }
+    return algorithm;
+  }
+
+  @Override
+  public int read(byte[] buf, int off, int len) throws TTransportException {
+    if (messageStart) {
+      readMessageStart();
+    }
+    if (compressedMessage) {
+      if (readPos == readEnd) {
+        throw new TTransportException(TTransportException.END_OF_FILE,
+            "Read past the end of a compressed message");
+      }
+      int n = Math.min(len, readEnd - readPos);
+      System.arraycopy(readBuffer, readPos, buf, off, n);
+      readPos += n;
+      return n;
+    }
+    if (firstByte >= 0) {
+      buf[off] = (byte) firstByte;
+      firstByte = -1;
+      return 1;
+    }
+    int n = getWrapped().read(buf, off, len);
+    logicalBytesRead += n;
+    wireBytesRead += n;
+    return n;
+  }
+
+  /**
+   * Reads the first byte of the next message, decompressing the message if it is compressed.
+   */
+  private void readMessageStart() throws TTransportException {
+    messageStart = false;
+    byte[] one = new byte[1];
+    getWrapped().readAll(one, 0, 1);
+    if ((one[0] & 0xff) != MARKER) {
+      compressedMessage = false;
+      firstByte = one[0] & 0xff;
+      logicalBytesRead++;
+      wireBytesRead++;
+      if (server) {
+        requestCodec.remove();
+      }
+      return;
+    }
+
+    wireBytesRead++;
+    int nameLength = readVInt();
+    if (nameLength < 0 || nameLength > MAX_CODEC_NAME_LENGTH) {
+      throw new TTransportException(TTransportException.CORRUPTED_DATA,
+          "Invalid codec name length " + nameLength);
+    }
+    byte[] name = new byte[nameLength];
+    getWrapped().readAll(name, 0, name.length);
+    wireBytesRead += name.length;
+    Algorithm algorithm;
+    try {
+      algorithm = getCodec(new String(name, UTF_8));
+    } catch (IllegalArgumentException e) {
+      throw new TTransportException(e);
+    }
+    int uncompressedLength = readVInt();
+    int compressedLength = readVInt();
+    checkLengths(uncompressedLength, compressedLength);
+
+    readBuffer = new byte[uncompressedLength];
+    if (compressedLength == STORED) {
+      getWrapped().readAll(readBuffer, 0, uncompressedLength);
+      wireBytesRead += uncompressedLength;
+    } else {
+      byte[] compressed = new byte[compressedLength];
+      getWrapped().readAll(compressed, 0, compressedLength);
+      wireBytesRead += compressedLength;
+      Decompressor decompressor = algorithm.getDecompressor();
+      try (InputStream in = algorithm
+          .createDecompressionStream(new ByteArrayInputStream(compressed), decompressor, 0)) {
+        IOUtils.readFully(in, readBuffer, 0, uncompressedLength);
+      } catch (IOException e) {
+        throw new TTransportException(e);
+      } finally {
+        algorithm.returnDecompressor(decompressor);
+      }
+    }
+    readPos = 0;
+    readEnd = uncompressedLength;
+    compressedMessage = true;
+    logicalBytesRead += uncompressedLength;
+    if (server) {
+      requestCodec.set(algorithm);
+    }
+  }
+
+  /**
+   * Rejects lengths that are negative, larger than the maximum message size, or that would need an
+   * implausible compression ratio, before any memory is allocated for them.
+   */
+  private void checkLengths(int uncompressedLength, int compressedLength)
+      throws TTransportException {
+    if (uncompressedLength < 0 || uncompressedLength > maxMessageSize) {
+      throw new TTransportException(TTransportException.CORRUPTED_DATA,
+          "Message length " + uncompressedLength + " is not between 0 and " + maxMessageSize);
+    }
+    if (compressedLength == STORED) {
+      return;
+    }
+    // messages that do not get smaller are sent stored
+    if (compressedLength < 0 || compressedLength >= uncompressedLength) {
+      throw new TTransportException(TTransportException.CORRUPTED_DATA, "Compressed length "
+          + compressedLength + " is not between 0 and message length " + uncompressedLength);
+    }
+    if ((long) compressedLength * MAX_COMPRESSION_RATIO < uncompressedLength) {
+      throw new TTransportException(TTransportException.CORRUPTED_DATA, "Compressed length "
+          + compressedLength + " is too small for message length " + uncompressedLength);
+    }
+  }
+
+  private int readVInt() throws TTransportException {
+    byte[] b = new byte[1];
+    getWrapped().readAll(b, 0, 1);
+    byte firstByte = b[0];
+    int len = WritableUtils.decodeVIntSize(firstByte);
+    wireBytesRead += len;
+    if (len == 1) {
+      return firstByte;
+    }
+    long i = 0;
+    for (int idx = 0; idx < len - 1; idx++) {
+      getWrapped().readAll(b, 0, 1);
+      i = (i << 8) | (b[0] & 0xff);
+    }
+    return (int) (WritableUtils.isNegativeVInt(firstByte) ? (i ^ -1L) : i);
+  }
+
+  @Override
+  public int readAll(byte[] buf, int off, int len) throws TTransportException {
+    int got = 0;
+    while (got < len) {
+      got += read(buf, off + got, len - got);
+    }
+    return got;
+  }
+
+  // The buffer methods hide the wrapped buffer until the first byte of a message has been read, so
+  // protocols read the start of each message through read()
+
+  @Override
+  public byte[] getBuffer() {
+    if (compressedMessage) {
+      return readBuffer;
+    }
+    return messageStart || firstByte >= 0 ? null : getWrapped().getBuffer();
+  }
+
+  @Override
+  public int getBufferPosition() {
+    if (compressedMessage) {
+      return readPos;
+    }
+    return messageStart || firstByte >= 0 ? 0 : getWrapped().getBufferPosition();
+  }
+
+  @Override
+  public int getBytesRemainingInBuffer() {
+    if (compressedMessage) {
+      return readEnd - readPos;
+    }
+    return messageStart || firstByte >= 0 ? 0 : getWrapped().getBytesRemainingInBuffer();
+  }
+
+  @Override
+  public void consumeBuffer(int len) {
+    if (compressedMessage) {
+      readPos += len;
+    } else {
+      logicalBytesRead += len;
+      wireBytesRead += len;
+      getWrapped().consumeBuffer(len);
+    }
+  }
+
+  /**
+   * @return the codec to compress the message being written with, or null to send it as is
+   */
+  private Algorithm writeCodec() {
+    if (server) {
+      return threshold < 0 ? null : requestCodec.get();
+    }
+    return codec;
+  }
+
+  @Override
+  public void write(byte[] buf) throws TTransportException {
+    write(buf, 0, buf.length);
+  }
+
+  @Override
+  public void write(byte[] buf, int off, int len) throws TTransportException {
+    if (!buffering && writeBuffer.len() == 0) {
+      buffering = writeCodec() != null;
+    }
+    logicalBytesWritten += len;
+    if (buffering) {
+      writeBuffer.write(buf, off, len);
+    } else {
+      wireBytesWritten += len;
+      getWrapped().write(buf, off, len);
+    }
+  }
+
+  @Override
+  public void flush() throws TTransportException {
+    if (buffering) {
+      buffering = false;
+      Algorithm algorithm = writeCodec();
+      byte[] message = writeBuffer.get();
+      int length = writeBuffer.len();
+      writeBuffer.reset();
+      if (algorithm == null || length < threshold || !writeCompressed(algorithm, message, length)) {
+        if (!server) {
+          // let the server know which codec it may use for the response
+          writeHeader(algorithm, length, STORED);
+        }
+        wireBytesWritten += length;
+        getWrapped().write(message, 0, length);
+      }
+    }
+    getWrapped().flush();
+  }
+
+  /**
+   * @return false if the message did not get smaller and was not written
+   */
+  private boolean writeCompressed(Algorithm algorithm, byte[] message, int length)
+      throws TTransportException {
+    TByteArrayOutputStream compressed = new TByteArrayOutputStream(length / 2 + 64);
+    Compressor compressor = algorithm.getCompressor();
+    try (OutputStream out = algorithm.createCompressionStream(compressed, compressor, 0)) {
+      out.write(message, 0, length);
+    } catch (IOException e) {
+      throw new TTransportException(e);
+    } finally {
+      algorithm.returnCompressor(compressor);
+    }
+
+    if (compressed.len() >= length) {
+      return false;
+    }
+    writeHeader(algorithm, length, compressed.len());
+    wireBytesWritten += compressed.len();
+    getWrapped().write(compressed.get(), 0, compressed.len());
+    return true;
+  }
+
+  private void writeHeader(Algorithm algorithm, int length, int compressedLength)
+      throws TTransportException {
+    byte[] name = algorithm.getName().getBytes(UTF_8);
+    UnsynchronizedBuffer.Writer header = new UnsynchronizedBuffer.Writer(name.length + 16);
+    header.add(new byte[] {MARKER}, 0, 1);
+    header.writeVInt(name.length);
+    header.add(name, 0, name.length);
+    header.writeVInt(length);
+    header.writeVInt(compressedLength);
+    wireBytesWritten += header.size();
+    getWrapped().write(header.toArray(), 0, header.size());
+  }
+
+  /**
+   * Gets the uncompressed size of the messages read since the last call to {@link #resetCounts()}.
+   */
+  public long getLogicalBytesRead() {
+    return logicalBytesRead;
+  }
+
+  /**
+   * Gets the size the messages read since the last call to {@link #resetCounts()} had on the wire.
+   */
+  public long getWireBytesRead() {
+    return wireBytesRead;
+  }
+
+  public long getLogicalBytesWritten() {
+    return logicalBytesWritten;
+  }
+
+  public long getWireBytesWritten() {
+    return wireBytesWritten;
+  }
+
+  public void resetCounts() {
+    logicalBytesRead = wireBytesRead = logicalBytesWritten = wireBytesWritten = 0;
+  }
+}
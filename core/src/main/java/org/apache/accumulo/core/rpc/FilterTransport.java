@@ -35,7 +35,7 @@ public class FilterTransport extends TTransport {
     this.wrapped = wrapped;
   }
 
-  protected TTransport getWrapped() {
+  public TTransport getWrapped() {
     return wrapped;
   }
 
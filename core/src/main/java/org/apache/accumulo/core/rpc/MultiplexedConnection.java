@@ -0,0 +1,346 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.rpc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.accumulo.core.util.Daemon;
+import org.apache.accumulo.core.util.HostAndPort;
+import org.apache.thrift.TByteArrayOutputStream;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A connection to a server that carries many concurrent Thrift calls. Each caller gets its own
+ * {@link TTransport} stream over the connection. A call is written to the connection as a frame
+ * tagged with the id of its stream and a sequence number, and the server tags the response the same
+ * way, so responses can come back in any order and a slow call does not hold up the others.
+ *
+ * <p>
+ * A connection starts with {@link #MAGIC}, which can not be mistaken for the length of a Thrift
+ * frame, so that a server can tell multiplexed connections from framed ones. Each frame is made of
+ * the stream id, the sequence number and the length of the payload, followed by the payload. The
+ * server processes the calls of a stream in order and answers every call, with an empty payload for
+ * oneway calls.
+ *
+ * <p>
+ * When the connection fails, every call waiting on a response fails with it and the connection can
+ * not be used again.
+ */
+public class MultiplexedConnection implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(MultiplexedConnection.class);
+
+  /**
+   * Written by a client when it opens a multiplexed connection. It is negative, so a server can not
+   * mistake it for the size of a Thrift frame.
+   */
+  public static final int MAGIC = 0xACC04D58;
+
+  private final HostAndPort address;
+  private final Socket socket;
+  private final DataOutputStream out;
+  private final DataInputStream in;
+  private final long maxFrameSize;
+  private final Map<Long,CompletableFuture<byte[]>> pending = new ConcurrentHashMap<>();
+  private final AtomicInteger nextStreamId = new AtomicInteger();
+  private final AtomicInteger openStreams = new AtomicInteger();
+  private volatile long lastUseTime = System.currentTimeMillis();
+  private volatile IOException failure = null;
+
+  private MultiplexedConnection(HostAndPort address, Socket socket, long maxFrameSize)
+      throws IOException {
+    this.address = address;
+    this.socket = socket;
+    this.maxFrameSize = maxFrameSize;
+    this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+    out.writeInt(MAGIC);
+    out.flush();
+
+    Thread reader = new Daemon(this::readResponses, "Multiplexed connection reader " + address);
+    reader.start();
+  }
+
+  /**
+   * Opens a multiplexed connection to the given server.
+   *
+   * @param timeout
+   *          the time to wait to connect in milliseconds, or 0 to wait forever
+   * @param maxFrameSize
+   *          the largest response the server may send, a larger one fails the connection
+   */
+  public static MultiplexedConnection open(HostAndPort address, int timeout, long maxFrameSize)
+      throws TTransportException {
+    Socket socket = new Socket();
+    try {
+      socket.setSoLinger(false, 0);
+      socket.setTcpNoDelay(true);
+      socket.connect(new InetSocketAddress(address.getHost(), address.getPort()), timeout);
+      return new MultiplexedConnection(address, socket, maxFrameSize);
+    } catch (IOException e) {
+      try {
+        socket.close();
+      } catch (IOException e2) {
+        e.addSuppressed(e2);
+      }
+      throw new TTransportException(e);
+    }
+  }
+
+  public HostAndPort getAddress() {
+    return address;
+  }
+
+  public boolean isOpen() {
+    return failure == null;
+  }
+
+  /**
+   * @return the number of calls waiting on a response
+   */
+  public int getPendingCalls() {
+    return pending.size();
+  }
+
+  /**
+   * @return true if no stream is open on the connection and it has not been used for the given time
+   *         in milliseconds
+   */
+  public boolean isIdle(long idleTime) {
+    return openStreams.get() == 0 && pending.isEmpty()
+        && System.currentTimeMillis() - lastUseTime > idleTime;
+  }
+
+  /**
+   * Creates a new stream over this connection. A stream is used by one caller at a time, like any
+   * other {@link TTransport}.
+   *
+   * @param timeout
+   *          the time to wait for a response in milliseconds, or 0 to wait forever
+   */
+  public TTransport newTransport(long timeout) {
+    openStreams.incrementAndGet();
+    lastUseTime = System.currentTimeMillis();
+    return new StreamTransport(nextStreamId.incrementAndGet(), timeout);
+  }
+
+  private static long tag(int stream, int seq) {
+    return ((long) stream << 32) | (seq & 0xffffffffL);
+  }
+
+  private CompletableFuture<byte[]> send(long tag, byte[] payload, int length)
+      throws TTransportException {
+    CompletableFuture<byte[]> response = new CompletableFuture<>();
+    lastUseTime = System.currentTimeMillis();
+    pending.put(tag, response);
+    if (failure != null) {
+      pending.remove(tag);
+      throw new TTransportException(failure);
+    }
+
+    try {
+      synchronized (out) {
+        out.writeLong(tag);
+        out.writeInt(length);
+        out.write(payload, 0, length);
+        out.flush();
+      }
+    } catch (IOException e) {
+      pending.remove(tag);
+      fail(e);
+      throw new TTransportException(e);
+    }
+    return response;
+  }
+
+  private void readResponses() {
+    try {
+      while (true) {
+        long tag = in.readLong();
+        int length = in.readInt();
+        if (length < 0 || length > maxFrameSize) {
+          throw new IOException(
+              "Frame size " + length + " is invalid or exceeds the maximum of " + maxFrameSize);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        CompletableFuture<byte[]> response = pending.remove(tag);
+        if (response != null) {
+          response.complete(payload);
+        }
+      }
+    } catch (Throwable t) {
+      // fail the pending calls whatever went wrong, or they would wait on this thread forever
+      if (isOpen()) {
+        log.debug("Multiplexed connection to {} failed", address, t);
+      }
+      fail(t instanceof IOException ? (IOException) t : new IOException(t));
+      if (t instanceof Error) {
+        throw (Error) t;
+      }
+    }
+  }
+
+  private void fail(IOException e) {
+    synchronized (this) {
+      if (failure != null) {
+        return;
+      }
+      failure = e;
+    }
+
+    try {
+      socket.close();
+    } catch (IOException e2) {
+      log.debug("Error closing multiplexed connection to {}", address, e2);
+    }
+
+    pending.values().forEach(response -> response.completeExceptionally(e));
+    pending.clear();
+  }
+
+  @Override
+  public void close() {
+    fail(new IOException("Multiplexed connection to " + address + " closed"));
+  }
+
+  /**
+   * A stream of calls over the connection. Writes are buffered until the call is flushed, and the
+   * first read after that waits for the response to the call.
+   */
+  private class StreamTransport extends TTransport {
+
+    private final int stream;
+    private final long timeout;
+    private final TByteArrayOutputStream writeBuffer = new TByteArrayOutputStream(1024);
+    private int seq = 0;
+    private long responseTag;
+    private CompletableFuture<byte[]> response = null;
+    private byte[] readBuffer = null;
+    private int readPos = 0;
+    // a stream that is not open may still need closing, after a call on it failed
+    private boolean open = true;
+    private boolean closed = false;
+
+    StreamTransport(int stream, long timeout) {
+      this.stream = stream;
+      this.timeout = timeout;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return open && MultiplexedConnection.this.isOpen();
+    }
+
+    @Override
+    public void open() {}
+
+    @Override
+    public void close() {
+      open = false;
+      if (!closed) {
+        closed = true;
+        openStreams.decrementAndGet();
+      }
+    }
+
+    @Override
+    public void write(byte[] buf, int off, int len) {
+      writeBuffer.write(buf, off, len);
+    }
+
+    @Override
+    public void flush() throws TTransportException {
+      if (!open) {
+        throw new TTransportException(TTransportException.NOT_OPEN, "Stream closed");
+      }
+      responseTag = tag(stream, seq++);
+      try {
+        response = send(responseTag, writeBuffer.get(), writeBuffer.len());
+      } finally {
+        writeBuffer.reset();
+      }
+      readBuffer = null;
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws TTransportException {
+      if (readBuffer == null || readPos == readBuffer.length) {
+        readBuffer = awaitResponse();
+        readPos = 0;
+      }
+
+      int n = Math.min(len, readBuffer.length - readPos);
+      System.arraycopy(readBuffer, readPos, buf, off, n);
+      readPos += n;
+      return n;
+    }
+
+    private byte[] awaitResponse() throws TTransportException {
+      if (response == null) {
+        throw new TTransportException(TTransportException.END_OF_FILE, "No call awaiting response");
+      }
+
+      byte[] payload;
+      try {
+        payload = timeout > 0 ? response.get(timeout, TimeUnit.MILLISECONDS) : response.get();
+      } catch (TimeoutException e) {
+        // a late response would be read by the next call, so this stream can not be used again
+        pending.remove(responseTag);
+        open = false;
+        throw new TTransportException(TTransportException.TIMED_OUT,
+            "Timed out waiting on response from " + address, e);
+      } catch (ExecutionException e) {
+        open = false;
+        throw new TTransportException(e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        pending.remove(responseTag);
+        open = false;
+        throw new TTransportException(e);
+      } finally {
+        response = null;
+      }
+
+      if (payload.length == 0) {
+        throw new TTransportException(TTransportException.END_OF_FILE,
+            "No response to read from " + address);
+      }
+      return payload;
+    }
+  }
+}
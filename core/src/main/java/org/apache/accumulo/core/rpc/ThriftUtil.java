@@ -35,6 +35,8 @@ import javax.net.ssl.TrustManagerFactory;
 
 import org.apache.accumulo.core.clientImpl.ClientContext;
 import org.apache.accumulo.core.clientImpl.ThriftTransportPool;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.file.rfile.bcfile.Compression.Algorithm;
 import org.apache.accumulo.core.rpc.SaslConnectionParams.SaslMechanism;
 import org.apache.accumulo.core.tabletserver.thrift.TabletClientService;
 import org.apache.accumulo.core.util.HostAndPort;
@@ -43,6 +45,7 @@ import org.apache.hadoop.security.UserGroupInformation.AuthenticationMethod;
 import org.apache.thrift.TException;
 import org.apache.thrift.TServiceClient;
 import org.apache.thrift.TServiceClientFactory;
+import org.apache.thrift.protocol.TProtocol;
 import org.apache.thrift.protocol.TProtocolFactory;
 import org.apache.thrift.transport.TFramedTransport;
 import org.apache.thrift.transport.TSSLTransportFactory;
@@ -128,9 +131,7 @@ public class ThriftUtil {
    */
   public static <T extends TServiceClient> T getClient(TServiceClientFactory<T> factory,
       HostAndPort address, ClientContext context) throws TTransportException {
-    TTransport transport = ThriftTransportPool.getInstance().getTransport(address,
-        context.getClientTimeoutInMillis(), context);
-    return createClient(factory, transport);
+    return getClient(factory, address, context, context.getClientTimeoutInMillis());
   }
 
   /**
@@ -148,9 +149,43 @@ public class ThriftUtil {
    */
   public static <T extends TServiceClient> T getClient(TServiceClientFactory<T> factory,
       HostAndPort address, ClientContext context, long timeout) throws TTransportException {
-    TTransport transport =
-        ThriftTransportPool.getInstance().getTransport(address, timeout, context);
-    return createClient(factory, transport);
+    TTransport transport;
+    try {
+      transport = ThriftTransportPool.getInstance().getTransport(address, timeout, context);
+    } catch (TTransportException e) {
+      context.getRpcLatencyTracker().recordFailure(address.toString());
+      throw e;
+    }
+    return createClient(factory, compress(transport, context), address, context);
+  }
+
+  /**
+   * Create a Thrift client that records the latency of its RPCs with the client context
+   */
+  private static <T extends TServiceClient> T createClient(TServiceClientFactory<T> factory,
+      TTransport transport, HostAndPort address, ClientContext context) {
+    return context.getRpcLatencyTracker().createClient(factory, address.toString(),
+        getProtocol(transport), getProtocol(transport));
+  }
+
+  private static TProtocol getProtocol(TTransport transport) {
+    if (transport instanceof CompressedTransport) {
+      return ((CompressedTransport) transport).getProtocol(protocolFactory);
+    }
+    return protocolFactory.getProtocol(transport);
+  }
+
+  /**
+   * Wraps a pooled transport to compress messages when the client is configured to. The pool
+   * unwraps it again when the transport is returned.
+   */
+  private static TTransport compress(TTransport transport, ClientContext context) {
+    Algorithm codec = context.getRpcCompressionCodec();
+    if (codec == null) {
+      return transport;
+    }
+    return CompressedTransport.forClient(transport, codec, context.getRpcCompressionThreshold(),
+        context.getConfiguration().getAsBytes(Property.GENERAL_MAX_MESSAGE_SIZE));
   }
 
   /**
@@ -39,7 +39,8 @@ public abstract class BlockCacheManager {
      * Before Accumulo's cache implementation was configurable, its built in caches had a
      * configurable size. These sizes were specified by the system properties
      * {@code tserver.cache.config.data.size}, {@code tserver.cache.config.index.size}, and {code
-     * tserver.cache.config.summary.size}. This method returns the values of those settings. The
+     * tserver.cache.config.summary.size}. The bloom filter cache size is specified by
+     * {@code tserver.cache.bloom.size}. This method returns the values of those settings. The
      * settings are made available, but cache implementations are under no obligation to use them.
      *
      */
@@ -92,13 +93,17 @@ public abstract class BlockCacheManager {
   }
 
   /**
-   * Initialize the caches for each CacheType based on the configuration
+   * Initialize the caches for each CacheType based on the configuration. No bloom filter cache is
+   * created when its size is 0.
    *
    * @param conf
    *          accumulo configuration
    */
   public void start(Configuration conf) {
     for (CacheType type : CacheType.values()) {
+      if (type == CacheType.BLOOM && conf.getMaxSize(type) == 0) {
+        continue;
+      }
       BlockCache cache = this.createCache(conf, type);
       this.caches.put(type, cache);
     }
@@ -61,6 +61,8 @@ struct TKeyValue {
 struct ScanResult {
   1:list<TKeyValue> results
   2:bool more
+  // results encoded as a single prefix compressed block, see ScanResultEncoding
+  3:optional binary encodedResults
 }
 
 struct TRange {
@@ -179,6 +179,8 @@ service TabletClientService extends client.ClientService {
     // name of the classloader context
     15:string classLoaderContext
     16:map<string, string> executionHints
+    // send results in ScanResult.encodedResults, older servers ignore this
+    17:bool encodeResults
   ) throws (
     1:client.ThriftSecurityException sec
     2:NotServingTabletException nste
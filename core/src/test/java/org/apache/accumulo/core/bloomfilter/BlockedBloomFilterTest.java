@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.bloomfilter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.hadoop.util.bloom.Key;
+import org.apache.hadoop.util.hash.Hash;
+import org.junit.Test;
+
+public class BlockedBloomFilterTest {
+
+  private static final int NUM_KEYS = 100_000;
+  private static final double ERROR_RATE = 0.005;
+
+  private static byte[] key(String prefix, int i) {
+    return String.format("%s%010d", prefix, i).getBytes();
+  }
+
+  private static long hash(byte[] key) {
+    return BlockedBloomFilter.hash(BlockedBloomFilter.HASH_SEED, new ArrayByteSequence(key));
+  }
+
+  @Test
+  public void testHashIsIncremental() {
+    byte[] whole = "row1fam1".getBytes();
+    long h = BlockedBloomFilter.hash(BlockedBloomFilter.HASH_SEED, new ArrayByteSequence("row1"));
+    h = BlockedBloomFilter.hash(h, new ArrayByteSequence(whole, 4, 4));
+    assertEquals(hash(whole), h);
+  }
+
+  @Test
+  public void testNoFalseNegatives() throws IOException {
+    BlockedBloomFilter filter = new BlockedBloomFilter(NUM_KEYS, ERROR_RATE);
+    for (int i = 0; i < NUM_KEYS; i++) {
+      filter.add(hash(key("r", i)));
+    }
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    filter.write(new DataOutputStream(baos));
+    byte[] data = baos.toByteArray();
+
+    BlockedBloomFilter read =
+        BlockedBloomFilter.read(new DataInputStream(new ByteArrayInputStream(data)));
+    // the blocks follow the block and hash counts and can be used in place
+    BlockedBloomFilter wrapped =
+        new BlockedBloomFilter(ByteBuffer.wrap(data, 8, data.length - 8), filter.getHashCount());
+    assertEquals(filter.getSize(), data.length - 8);
+
+    for (int i = 0; i < NUM_KEYS; i++) {
+      long h = hash(key("r", i));
+      assertTrue(filter.membershipTest(h));
+      assertTrue(read.membershipTest(h));
+      assertTrue(wrapped.membershipTest(h));
+    }
+  }
+
+  @Test
+  public void testFalsePositiveRate() {
+    BlockedBloomFilter blocked = new BlockedBloomFilter(NUM_KEYS, ERROR_RATE);
+    int hashCount = 5;
+    int vectorSize = (int) Math
+        .ceil(-hashCount * NUM_KEYS / Math.log(1.0 - Math.pow(ERROR_RATE, 1.0 / hashCount)));
+    DynamicBloomFilter dynamic =
+        new DynamicBloomFilter(vectorSize, hashCount, Hash.MURMUR_HASH, NUM_KEYS);
+
+    for (int i = 0; i < NUM_KEYS; i++) {
+      byte[] key = key("r", i);
+      blocked.add(hash(key));
+      dynamic.add(new Key(key));
+    }
+
+    int blockedFalsePositives = 0;
+    int dynamicFalsePositives = 0;
+    for (int i = 0; i < NUM_KEYS; i++) {
+      byte[] key = key("x", i);
+      if (blocked.membershipTest(hash(key))) {
+        blockedFalsePositives++;
+      }
+      if (dynamic.membershipTest(new Key(key))) {
+        dynamicFalsePositives++;
+      }
+    }
+
+    double blockedRate = blockedFalsePositives / (double) NUM_KEYS;
+    double dynamicRate = dynamicFalsePositives / (double) NUM_KEYS;
+
+    // confining the bits for a key to one block costs some accuracy, but not much
+    assertTrue("blocked false positive rate " + blockedRate, blockedRate < ERROR_RATE * 2);
+    assertTrue("dynamic false positive rate " + dynamicRate, dynamicRate < ERROR_RATE * 2);
+  }
+}
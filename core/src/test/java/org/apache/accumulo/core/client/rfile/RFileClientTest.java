@@ -41,6 +41,10 @@ import java.util.SortedMap;
 import java.util.TreeMap;
 
 import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.ScanAggregation;
+import org.apache.accumulo.core.client.ScanAggregation.GroupBy;
+import org.apache.accumulo.core.client.ScanAggregation.Result;
+import org.apache.accumulo.core.client.ScanPredicate;
 import org.apache.accumulo.core.client.Scanner;
 import org.apache.accumulo.core.client.admin.NewTableConfiguration;
 import org.apache.accumulo.core.client.sample.RowSampler;
@@ -61,7 +65,9 @@ import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.file.FileOperations;
 import org.apache.accumulo.core.file.FileSKVIterator;
 import org.apache.accumulo.core.file.rfile.RFile.Reader;
+import org.apache.accumulo.core.iterators.LongCombiner;
 import org.apache.accumulo.core.iterators.user.RegExFilter;
+import org.apache.accumulo.core.iterators.user.RowDeletingIterator;
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
@@ -841,4 +847,222 @@ public class RFileClientTest {
     assertEquals(testData, toMap(scanner));
     scanner.close();
   }
+
+  @Test
+  public void testPredicate() throws Exception {
+    TreeMap<Key,Value> testData = new TreeMap<>();
+    for (int r = 0; r < 64; r++) {
+      for (int f = 0; f < 8; f++) {
+        for (int q = 0; q < 8; q++) {
+          testData.put(new Key(rowStr(r), colStr(f), colStr(q), r),
+              new Value(q % 2 == 0 ? "even" : "odd"));
+        }
+      }
+    }
+    String testFile = createRFile(testData);
+    LocalFileSystem localFs = FileSystem.getLocal(new Configuration());
+
+    Scanner scanner = RFile.newScanner().from(testFile).withFileSystem(localFs).build();
+    scanner.setRange(new Range(rowStr(8), rowStr(0x40)));
+    scanner.setPredicate(ScanPredicate.builder().rowPrefix("00001")
+        .columnSlice(colStr(2), colStr(3), null, colStr(5)).timestampRange(20, 30)
+        .valueRegex("even").build());
+
+    TreeMap<Key,Value> expected = new TreeMap<>();
+    testData.forEach((k, v) -> {
+      int f = Integer.parseInt(k.getColumnFamily().toString(), 16);
+      int q = Integer.parseInt(k.getColumnQualifier().toString(), 16);
+      if (k.getRow().toString().startsWith("00001") && f >= 2 && f <= 3 && q <= 5
+          && k.getTimestamp() >= 20 && k.getTimestamp() <= 30 && v.toString().equals("even")) {
+        expected.put(k, v);
+      }
+    });
+    assertEquals(11 * 2 * 3, expected.size());
+    assertEquals(expected, toMap(scanner));
+
+    // a new predicate replaces the filters of the old one
+    scanner.setPredicate(ScanPredicate.builder().rowPrefix("00003")
+        .columns(List.of(new IteratorSetting.Column(colStr(1)))).build());
+    expected.clear();
+    testData.forEach((k, v) -> {
+      if (k.getRow().toString().startsWith("00003")
+          && k.getColumnFamily().toString().equals(colStr(1))) {
+        expected.put(k, v);
+      }
+    });
+    assertEquals(16 * 8, expected.size());
+    assertEquals(expected, toMap(scanner));
+
+    // no rows with the prefix are in the range
+    scanner.setPredicate(ScanPredicate.builder().rowPrefix("00005").build());
+    scanner.clearColumns();
+    assertEquals(Collections.emptyMap(), toMap(scanner));
+
+    // the row prefix is cleared with the scan iterators
+    scanner.clearScanIterators();
+    assertEquals(testData.subMap(new Key(rowStr(8)), new Key(rowStr(0x40))), toMap(scanner));
+    scanner.close();
+  }
+
+  @Test
+  public void testPredicateAfterTableIterators() throws Exception {
+    LocalFileSystem localFs = FileSystem.getLocal(new Configuration());
+    String testFile = createTmpTestFile();
+    RFileWriter writer = RFile.newWriter().to(testFile).withFileSystem(localFs).build();
+
+    Key k1 = new Key("r1", "f1", "q1", 3);
+    Key k2 = new Key("r1", "f1", "q1", 6);
+    Value v1 = new Value("p");
+    Value v2 = new Value("q");
+    writer.append(k2, v2);
+    writer.append(k1, v1);
+    writer.close();
+
+    // the versioning iterator hides the old version, so the filters must not find it
+    NewTableConfiguration ntc = new NewTableConfiguration();
+    Scanner scanner = RFile.newScanner().from(testFile).withFileSystem(localFs)
+        .withTableProperties(ntc.getProperties()).build();
+    scanner.setPredicate(ScanPredicate.builder().valueRegex("p").build());
+    assertEquals(Collections.emptyMap(), toMap(scanner));
+    scanner.setPredicate(ScanPredicate.builder().timestampRange(0, 4).build());
+    assertEquals(Collections.emptyMap(), toMap(scanner));
+    scanner.setPredicate(ScanPredicate.builder().timestampRange(5, 10).build());
+    assertEquals(Map.of(k2, v2), toMap(scanner));
+
+    // scan iterators at the priorities of the filters move them aside
+    scanner.setPredicate(ScanPredicate.builder().columnSlice("f0", "f2", null, null)
+        .timestampRange(5, 10).valueRegex("q").build());
+    IteratorSetting is =
+        new IteratorSetting(ScanPredicate.SLICE_PRIORITY, "rows", RegExFilter.class);
+    RegExFilter.setRegexs(is, "r1", null, null, null, false);
+    scanner.addScanIterator(is);
+    is = new IteratorSetting(ScanPredicate.VALUE_PRIORITY, "families", RegExFilter.class);
+    RegExFilter.setRegexs(is, null, "f1", null, null, false);
+    scanner.addScanIterator(is);
+    assertEquals(Map.of(k2, v2), toMap(scanner));
+    scanner.close();
+  }
+
+  @Test
+  public void testPredicateAfterRowDeletes() throws Exception {
+    LocalFileSystem localFs = FileSystem.getLocal(new Configuration());
+    String testFile = createTmpTestFile();
+    RFileWriter writer = RFile.newWriter().to(testFile).withFileSystem(localFs).build();
+    Key deleted = new Key("r1", "f1", "q1", 3);
+    Key kept = new Key("r2", "f1", "q1", 3);
+    // the row delete marker is in the empty column, outside any slice of named columns
+    writer.append(new Key("r1", "", "", 5), RowDeletingIterator.DELETE_ROW_VALUE);
+    writer.append(deleted, new Value("v1"));
+    writer.append(kept, new Value("v2"));
+    writer.close();
+
+    Map<String,String> props =
+        Map.of("table.iterator.scan.rowdel", "10," + RowDeletingIterator.class.getName());
+    Scanner scanner = RFile.newScanner().from(testFile).withFileSystem(localFs)
+        .withTableProperties(props).build();
+    assertEquals(Map.of(kept, new Value("v2")), toMap(scanner));
+    scanner.setPredicate(ScanPredicate.builder().columnSlice("f1", "f1", null, null).build());
+    assertEquals(Map.of(kept, new Value("v2")), toMap(scanner));
+    scanner.close();
+  }
+
+  @Test
+  public void testAggregation() throws Exception {
+    TreeMap<Key,Value> testData = new TreeMap<>();
+    for (int r = 0; r < 32; r++) {
+      for (int f = 0; f < 4; f++) {
+        for (int q = 0; q <= r % 5; q++) {
+          testData.put(new Key(rowStr(r), colStr(f), colStr(q)), new Value("" + (r * 10 + f)));
+        }
+      }
+    }
+    String testFile = createRFile(testData);
+    LocalFileSystem localFs = FileSystem.getLocal(new Configuration());
+    List<Range> ranges = List.of(new Range(rowStr(0), rowStr(7)),
+        new Range(rowStr(8), true, rowStr(20), false), new Range(rowStr(25), null));
+
+    for (GroupBy groupBy : GroupBy.values()) {
+      SortedMap<Text,Result> expected = new TreeMap<>();
+      for (Range range : ranges) {
+        SortedMap<Text,Text> lastRows = new TreeMap<>();
+        testData.forEach((k, v) -> {
+          if (range.contains(k)) {
+            Text group = groupBy == GroupBy.ROW ? k.getRow()
+                : groupBy == GroupBy.FAMILY ? k.getColumnFamily() : new Text();
+            Result result = expected.computeIfAbsent(group, g -> new Result());
+            if (!k.getRow().equals(lastRows.put(group, k.getRow()))) {
+              result.addRow();
+            }
+            result.addEntry(Long.parseLong(v.toString()));
+          }
+        });
+      }
+
+      // small partial limits, so most partials end in the middle of a row
+      ScanAggregation aggregation = ScanAggregation.builder().groupBy(groupBy)
+          .valueType(LongCombiner.Type.STRING).partialLimits(3, 1000).build();
+      Scanner scanner = RFile.newScanner().from(testFile).withFileSystem(localFs).build();
+      SortedMap<Text,Result> actual = new TreeMap<>();
+      for (Range range : ranges) {
+        scanner.setRange(range);
+        aggregation.aggregate(scanner)
+            .forEach((group, result) -> actual.merge(group, result, (r1, r2) -> {
+              r1.merge(r2);
+              return r1;
+            }));
+      }
+
+      assertEquals(expected.keySet(), actual.keySet());
+      expected.forEach((group, result) -> assertEquals(group.toString(), result.toString(),
+          actual.get(group).toString()));
+
+      // the aggregation iterator is removed once the aggregation is done
+      scanner.setRange(ranges.get(0));
+      assertEquals(testData.subMap(new Key(rowStr(0)), new Key(rowStr(8))), toMap(scanner));
+      scanner.close();
+    }
+  }
+
+  @Test
+  public void testAggregationWithPredicate() throws Exception {
+    TreeMap<Key,Value> testData = new TreeMap<>();
+    for (int r = 0; r < 16; r++) {
+      for (int q = 0; q < 8; q++) {
+        testData.put(new Key(rowStr(r), colStr(0), colStr(q), r + q), new Value("" + (r * q)));
+      }
+    }
+    String testFile = createRFile(testData);
+    LocalFileSystem localFs = FileSystem.getLocal(new Configuration());
+    Scanner scanner = RFile.newScanner().from(testFile).withFileSystem(localFs).build();
+
+    // a scan iterator at the top priority moves the value filter aside when it is set
+    IteratorSetting is =
+        new IteratorSetting(ScanPredicate.VALUE_PRIORITY, "top", RegExFilter.class);
+    RegExFilter.setRegexs(is, null, null, null, ".*", false);
+    scanner.addScanIterator(is);
+    scanner.setPredicate(
+        ScanPredicate.builder().timestampRange(4, 12).valueRegex(".*[02468]").build());
+    scanner.removeScanIterator("top");
+
+    Result expected = new Result();
+    Text lastRow = null;
+    for (Entry<Key,Value> entry : testData.entrySet()) {
+      Key k = entry.getKey();
+      long v = Long.parseLong(entry.getValue().toString());
+      if (k.getTimestamp() >= 4 && k.getTimestamp() <= 12 && v % 2 == 0) {
+        if (!k.getRow().equals(lastRow)) {
+          expected.addRow();
+          lastRow = k.getRow();
+        }
+        expected.addEntry(v);
+      }
+    }
+
+    // the aggregation must see the entries the filters pass, not filter its own results
+    SortedMap<Text,Result> actual = ScanAggregation.builder().valueType(LongCombiner.Type.STRING)
+        .partialLimits(5, 1000).build().aggregate(scanner);
+    assertEquals(Collections.singleton(new Text()), actual.keySet());
+    assertEquals(expected.toString(), actual.get(new Text()).toString());
+    scanner.close();
+  }
 }
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.accumulo.core.client.admin.RpcStatistics;
+import org.junit.Test;
+
+public class RpcLatencyTrackerTest {
+
+  @Test
+  public void testBucketsAreContiguous() {
+    int last = -1;
+    for (long v = 0; v < 100_000; v++) {
+      int index = LatencyHistogram.index(v);
+      assertTrue(index == last || index == last + 1);
+      assertTrue(v <= LatencyHistogram.highestEquivalentValue(index));
+      last = index;
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 10_000; i++) {
+      histogram.record(i, MICROSECONDS);
+    }
+    assertEquals(10_000, histogram.getCount());
+    assertEquals(5000.5, histogram.getMean(), 0.001);
+    assertNear(5000, histogram.getValueAtPercentile(50));
+    assertNear(9900, histogram.getValueAtPercentile(99));
+    assertNear(10_000, histogram.getMax());
+    assertEquals(0, new LatencyHistogram().getValueAtPercentile(50));
+  }
+
+  private static void assertNear(long expected, long actual) {
+    assertTrue(expected + " vs " + actual, Math.abs(expected - actual) <= expected * 0.04);
+  }
+
+  @Test
+  public void testHealth() {
+    RpcLatencyTracker tracker = new RpcLatencyTracker();
+    for (int i = 0; i < 20; i++) {
+      tracker.record("fast1:9997", "startScan", MILLISECONDS.toNanos(2));
+      tracker.record("fast2:9997", "startScan", MILLISECONDS.toNanos(2));
+      tracker.record("slow:9997", "startScan", MILLISECONDS.toNanos(8));
+      tracker.record("failing:9997", "startScan", MILLISECONDS.toNanos(2));
+    }
+    for (int i = 0; i < 5; i++) {
+      tracker.recordFailure("failing:9997");
+    }
+
+    assertEquals(1.0, tracker.getHealth("fast1:9997"), 0.001);
+    assertEquals(1.0, tracker.getHealth("unknown:9997"), 0.001);
+    assertEquals(0.25, tracker.getHealth("slow:9997"), 0.001);
+    double failing = tracker.getHealth("failing:9997");
+    assertEquals(0.9 * 0.9 * 0.9 * 0.9 * 0.9, failing, 0.001);
+    assertEquals(4, tracker.getHealth().size());
+    assertEquals(20, tracker.getHistograms("slow:9997").get("startScan").getCount());
+
+    List<String> servers = new ArrayList<>(
+        Arrays.asList("fast1:9997", "unknown:9997", "slow:9997", "fast2:9997", "failing:9997"));
+    Map<String,Integer> first = new HashMap<>();
+    Map<String,Integer> last = new HashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      tracker.shuffleByHealth(servers);
+      first.merge(servers.get(0), 1, Integer::sum);
+      last.merge(servers.get(servers.size() - 1), 1, Integer::sum);
+    }
+    // the order stays random, but the slow server tends to go last
+    assertTrue(first.toString(), first.size() > 1);
+    assertTrue(last.toString(), last.get("slow:9997") > last.getOrDefault("fast1:9997", 0) * 2);
+  }
+
+  @Test
+  public void testStatistics() {
+    RpcLatencyTracker tracker = new RpcLatencyTracker();
+    for (int i = 0; i < 10; i++) {
+      tracker.record("tserver:9997", "startScan", MILLISECONDS.toNanos(2));
+    }
+    tracker.recordFailure("failing:9997");
+
+    Map<String,RpcStatistics> statistics = new HashMap<>();
+    tracker.getStatistics().forEach(s -> statistics.put(s.getServer(), s));
+    assertEquals(2, statistics.size());
+    assertTrue(statistics.get("failing:9997").getLatencies().isEmpty());
+    assertEquals(0.9, statistics.get("failing:9997").getHealth(), 0.001);
+
+    RpcStatistics.Latency latency = statistics.get("tserver:9997").getLatencies().get("startScan");
+    assertEquals(10, latency.getCount());
+    assertNear(2000, latency.getValueAtPercentile(50));
+
+    // the statistics are a snapshot
+    tracker.record("tserver:9997", "startScan", MILLISECONDS.toNanos(2));
+    assertEquals(10, latency.getCount());
+    assertNear(2000, (long) latency.getMean());
+  }
+
+  @Test
+  public void testExpiration() {
+    AtomicLong now = new AtomicLong();
+    RpcLatencyTracker tracker = new RpcLatencyTracker(now::get);
+    tracker.record("old:9997", "startScan", MILLISECONDS.toNanos(2));
+    tracker.record("busy:9997", "startScan", MILLISECONDS.toNanos(2));
+    now.addAndGet(MINUTES.toNanos(6));
+    tracker.record("busy:9997", "startScan", MILLISECONDS.toNanos(2));
+    now.addAndGet(MINUTES.toNanos(6));
+    tracker.recordFailure("new:9997");
+
+    List<String> servers = tracker.getServers();
+    Collections.sort(servers);
+    assertEquals(Arrays.asList("busy:9997", "new:9997"), servers);
+  }
+}
@@ -24,6 +24,10 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -35,6 +39,12 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.accumulo.core.clientImpl.TabletLocator.TabletLocation;
 import org.apache.accumulo.core.clientImpl.TabletLocator.TabletLocations;
@@ -52,13 +62,18 @@ import org.apache.accumulo.core.metadata.MetadataLocationObtainer;
 import org.apache.accumulo.core.metadata.MetadataTable;
 import org.apache.accumulo.core.metadata.RootTable;
 import org.apache.accumulo.core.metadata.schema.MetadataSchema.TabletsSection;
+import org.apache.accumulo.fate.zookeeper.ZooCache;
 import org.apache.hadoop.io.Text;
 import org.easymock.EasyMock;
 import org.junit.Before;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class TabletLocatorImplTest {
 
+  private static final Logger log = LoggerFactory.getLogger(TabletLocatorImplTest.class);
+
   private static final KeyExtent RTE = RootTable.EXTENT;
   private static final KeyExtent MTE = new KeyExtent(MetadataTable.ID, null, RTE.getEndRow());
 
@@ -136,6 +151,11 @@ public class TabletLocatorImplTest {
 
   static TabletLocatorImpl createLocators(TServers tservers, String rootTabLoc, String metaTabLoc,
       String table, TabletServerLockChecker tslc, Object... data) {
+    return createLocators(tservers, rootTabLoc, metaTabLoc, table, tslc, null, data);
+  }
+
+  static TabletLocatorImpl createLocators(TServers tservers, String rootTabLoc, String metaTabLoc,
+      String table, TabletServerLockChecker tslc, TabletLocationUpdates updates, Object... data) {
 
     TreeMap<KeyExtent,TabletLocation> mcke = createMetaCacheKE(data);
 
@@ -145,7 +165,7 @@ public class TabletLocatorImplTest {
     TabletLocatorImpl rootTabletCache =
         new TabletLocatorImpl(MetadataTable.ID, rtl, ttlo, new YesLockChecker());
     TabletLocatorImpl tab1TabletCache =
-        new TabletLocatorImpl(TableId.of(table), rootTabletCache, ttlo, tslc);
+        new TabletLocatorImpl(TableId.of(table), rootTabletCache, ttlo, tslc, updates);
 
     setLocation(tservers, rootTabLoc, RTE, MTE, metaTabLoc);
 
@@ -1419,4 +1439,131 @@ public class TabletLocatorImplTest {
     runTest(ranges, metaCache, expected);
   }
 
+  @Test
+  public void testConcurrentBinning() throws Exception {
+    // bin mutations from many threads while another thread keeps invalidating tablets
+    KeyExtent ke1 = nke("foo", "g", null);
+    KeyExtent ke2 = nke("foo", "q", "g");
+    KeyExtent ke3 = nke("foo", null, "q");
+
+    TabletLocatorImpl metaCache = createLocators("foo", ke1, "l1", ke2, "l2", ke3, "l3");
+
+    List<Mutation> ml = nml(nm("a", "cf1:cq1=v1"), nm("h", "cf1:cq1=v2"), nm("r", "cf1:cq1=v3"),
+        nm("z", "cf1:cq1=v4"));
+    Map<String,Map<KeyExtent,List<String>>> emb =
+        cemb(nol("a", "l1", ke1), nol("h", "l2", ke2), nol("r", "l3", ke3), nol("z", "l3", ke3));
+
+    int threads = 16;
+    int binsPerThread = 2000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+    AtomicBoolean done = new AtomicBoolean(false);
+    try {
+      Future<Integer> invalidator = executor.submit(() -> {
+        KeyExtent[] extents = {ke1, ke2, ke3};
+        int invalidations = 0;
+        while (!done.get()) {
+          metaCache.invalidateCache(extents[invalidations++ % extents.length]);
+          Thread.sleep(1);
+        }
+        return invalidations;
+      });
+
+      long start = System.nanoTime();
+      List<Future<?>> binners = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        binners.add(executor.submit(() -> {
+          for (int j = 0; j < binsPerThread; j++) {
+            runTest(metaCache, ml, emb);
+          }
+          return null;
+        }));
+      }
+      for (Future<?> binner : binners) {
+        binner.get();
+      }
+      double secs = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+      done.set(true);
+
+      log.info("{} threads binned {} mutations/sec with {} invalidations", threads,
+          String.format("%.0f", threads * binsPerThread * ml.size() / secs), invalidator.get());
+    } finally {
+      done.set(true);
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * A tablet location update feed held in memory, as a ZooCache would show it.
+   */
+  private static class TestFeed {
+    final Map<String,byte[]> updates = new HashMap<>();
+    final AtomicReference<List<String>> names = new AtomicReference<>();
+    long seq = 0;
+
+    void publish(KeyExtent extent, String location, String session) {
+      String name = String.format("%s%010d", TabletLocationUpdates.UPDATE_PREFIX, seq++);
+      updates.put(name, TabletLocationUpdates.encode(extent, location, session));
+      // the cache hands out a new list when the children of the node change
+      names.set(List.copyOf(updates.keySet()));
+    }
+
+    void expire() {
+      TabletLocationUpdates.expired(names.get(), seq - 1).forEach(updates::remove);
+      names.set(List.copyOf(updates.keySet()));
+    }
+
+    ZooCache zooCache() {
+      ZooCache zc = EasyMock.createMock(ZooCache.class);
+      EasyMock.expect(zc.getChildren("/updates")).andAnswer(names::get).anyTimes();
+      EasyMock.expect(zc.get(EasyMock.anyString())).andAnswer(() -> {
+        String path = (String) EasyMock.getCurrentArguments()[0];
+        return updates.get(path.substring(path.lastIndexOf('/') + 1));
+      }).anyTimes();
+      replay(zc);
+      return zc;
+    }
+  }
+
+  @Test
+  public void testLocationUpdates() throws Exception {
+    TestFeed feed = new TestFeed();
+
+    KeyExtent ke1 = nke("foo", null, null);
+    TServers tservers = new TServers();
+    TabletLocatorImpl metaCache = createLocators(tservers, "tserver1", "tserver2", "foo",
+        new YesLockChecker(), new TabletLocationUpdates(feed.zooCache(), "/updates"), ke1, "l1");
+
+    List<Mutation> ml = nml(nm("a", "cf1:cq1=v1"), nm("z", "cf1:cq1=v2"));
+    runTest(metaCache, ml, cemb(nol("a", "l1", ke1), nol("z", "l1", ke1)));
+
+    // published moves are applied without reading the metadata table, which still has l1
+    feed.publish(ke1, "l2", "1");
+    runTest(metaCache, ml, cemb(nol("a", "l2", ke1), nol("z", "l2", ke1)));
+
+    KeyExtent ke11 = nke("foo", "n", null);
+    KeyExtent ke12 = nke("foo", null, "n");
+    feed.publish(ke11, "l3", "1");
+    feed.publish(ke12, "l4", "1");
+    runTest(metaCache, ml, cemb(nol("a", "l3", ke11), nol("z", "l4", ke12)));
+
+    // an unloaded tablet is looked up again
+    setLocation(tservers, "tserver2", MTE, ke12, "l5");
+    feed.publish(ke12, null, null);
+    runTest(metaCache, ml, cemb(nol("a", "l3", ke11), nol("z", "l5", ke12)));
+
+    // updates already applied are not applied again
+    metaCache.invalidateCache(ke11);
+    setLocation(tservers, "tserver2", MTE, ke11, "l6");
+    feed.publish(ke12, "l5", "1");
+    runTest(metaCache, ml, cemb(nol("a", "l6", ke11), nol("z", "l5", ke12)));
+
+    // expired updates are dropped from the feed, and newer ones still apply
+    for (int i = 0; i < TabletLocationUpdates.MAX_UPDATES; i++) {
+      feed.publish(ke12, "l5", "1");
+    }
+    feed.expire();
+    assertEquals(TabletLocationUpdates.MAX_UPDATES, feed.names.get().size());
+    feed.publish(ke11, "l7", "1");
+    runTest(metaCache, ml, cemb(nol("a", "l7", ke11), nol("z", "l5", ke12)));
+  }
 }
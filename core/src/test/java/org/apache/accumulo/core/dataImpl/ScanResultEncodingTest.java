@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.dataImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.KeyValue;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.dataImpl.thrift.ScanResult;
+import org.apache.accumulo.core.tabletserver.thrift.TabletClientService.startScan_args;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.transport.TMemoryBuffer;
+import org.apache.thrift.transport.TMemoryInputTransport;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ScanResultEncodingTest {
+
+  private static final Logger log = LoggerFactory.getLogger(ScanResultEncodingTest.class);
+
+  private static List<KeyValue> createResults(int rows, int cols) {
+    Random random = new Random(42);
+    List<KeyValue> results = new ArrayList<>();
+    for (int r = 0; r < rows; r++) {
+      String row = String.format("user%08d", r * 7);
+      for (int c = 0; c < cols; c++) {
+        String value = Long.toHexString(random.nextLong());
+        Key key = new Key(row, c % 2 == 0 ? "attr" : "meta", String.format("field%03d", c),
+            c % 3 == 0 ? "" : "public", 1000 + random.nextInt(3));
+        results.add(new KeyValue(key, value.getBytes()));
+      }
+    }
+    return results;
+  }
+
+  private static byte[] serialize(ScanResult scanResult) throws TException {
+    TMemoryBuffer buffer = new TMemoryBuffer(1024);
+    scanResult.write(new TCompactProtocol(buffer));
+    return Arrays.copyOf(buffer.getArray(), buffer.length());
+  }
+
+  private static ScanResult deserialize(byte[] bytes) throws TException {
+    ScanResult scanResult = new ScanResult();
+    scanResult.read(new TCompactProtocol(new TMemoryInputTransport(bytes)));
+    return scanResult;
+  }
+
+  private static void assertSameResults(List<KeyValue> expected, List<KeyValue> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).getKey(), actual.get(i).getKey());
+      assertEquals(expected.get(i).getKey().isDeleted(), actual.get(i).getKey().isDeleted());
+      assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+    }
+  }
+
+  @Test
+  public void testRoundTrip() throws TException {
+    List<KeyValue> results = createResults(50, 20);
+    Key deleted = new Key("zzz", "f", "q", "", 5);
+    deleted.setDeleted(true);
+    results.add(new KeyValue(deleted, new byte[0]));
+
+    ScanResult scanResult =
+        deserialize(serialize(ScanResultEncoding.toThrift(results, true, true)));
+    assertTrue(scanResult.isSetEncodedResults());
+    assertTrue(scanResult.more);
+
+    List<KeyValue> decoded = ScanResultEncoding.fromThrift(scanResult);
+    assertEquals(deleted, ScanResultEncoding.lastKey(decoded));
+    // entries are decoded on demand, reading out of order must still work
+    assertEquals(results.get(500).getKey(), decoded.get(500).getKey());
+    assertSameResults(results, decoded);
+  }
+
+  @Test
+  public void testEmpty() throws TException {
+    ScanResult scanResult =
+        deserialize(serialize(ScanResultEncoding.toThrift(Collections.emptyList(), false, true)));
+    assertFalse(scanResult.more);
+    assertTrue(ScanResultEncoding.fromThrift(scanResult).isEmpty());
+  }
+
+  @Test
+  public void testUnencoded() throws TException {
+    List<KeyValue> results = createResults(10, 5);
+    ScanResult scanResult =
+        deserialize(serialize(ScanResultEncoding.toThrift(results, false, false)));
+    assertFalse(scanResult.isSetEncodedResults());
+
+    List<KeyValue> decoded = ScanResultEncoding.fromThrift(scanResult);
+    assertEquals(results.get(results.size() - 1).getKey(), ScanResultEncoding.lastKey(decoded));
+    assertSameResults(results, decoded);
+  }
+
+  @Test
+  public void testSmallerThanCompressedKeys() throws TException {
+    List<KeyValue> results = createResults(100, 10);
+    int compressed = serialize(ScanResultEncoding.toThrift(results, true, false)).length;
+    int encoded = serialize(ScanResultEncoding.toThrift(results, true, true)).length;
+    log.info("{} entries, compressed keys {} bytes, encoded block {} bytes", results.size(),
+        compressed, encoded);
+    assertTrue(encoded < compressed);
+  }
+
+  @Test
+  public void testEncodeResultsArgument() throws TException {
+    startScan_args args = new startScan_args();
+    assertFalse(args.isEncodeResults());
+    args.setExecutionHints(Map.of("scan_type", "quick"));
+    args.setEncodeResults(true);
+
+    TMemoryBuffer buffer = new TMemoryBuffer(1024);
+    args.write(new TCompactProtocol(buffer));
+    startScan_args read = new startScan_args();
+    read.read(new TCompactProtocol(
+        new TMemoryInputTransport(Arrays.copyOf(buffer.getArray(), buffer.length()))));
+
+    assertTrue(read.isEncodeResults());
+    assertEquals(Map.of("scan_type", "quick"), read.getExecutionHints());
+  }
+
+  @Test
+  public void testValuesAreCopied() {
+    byte[] value = {1, 2, 3};
+    List<KeyValue> results = Collections.singletonList(new KeyValue(new Key("r", "f", "q"), value));
+    List<KeyValue> decoded = ScanResultEncoding.decode(ScanResultEncoding.encode(results));
+    value[0] = 9;
+    assertEquals(new Value(new byte[] {1, 2, 3}), decoded.get(0).getValue());
+  }
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.accumulo.core.file;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -36,8 +37,16 @@ import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheConfiguration;
+import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCacheManager;
+import org.apache.accumulo.core.file.blockfile.impl.BasicCacheProvider;
+import org.apache.accumulo.core.file.blockfile.impl.CacheProvider;
 import org.apache.accumulo.core.file.keyfunctor.ColumnFamilyFunctor;
+import org.apache.accumulo.core.file.keyfunctor.RowPrefixFunctor;
 import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheType;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.io.Text;
@@ -65,6 +74,15 @@ public class BloomFilterLayerLookupTest {
 
   @Test
   public void test() throws IOException {
+    runTest("dynamic");
+  }
+
+  @Test
+  public void testBlocked() throws IOException {
+    runTest("blocked");
+  }
+
+  private void runTest(String bloomType) throws IOException {
     HashSet<Integer> valsSet = new HashSet<>();
     for (int i = 0; i < 100000; i++) {
       valsSet.add(random.nextInt(Integer.MAX_VALUE));
@@ -75,6 +93,7 @@ public class BloomFilterLayerLookupTest {
 
     ConfigurationCopy acuconf = new ConfigurationCopy(DefaultConfiguration.getInstance());
     acuconf.set(Property.TABLE_BLOOM_ENABLED, "true");
+    acuconf.set(Property.TABLE_BLOOM_TYPE, bloomType);
     acuconf.set(Property.TABLE_BLOOM_KEY_FUNCTOR, ColumnFamilyFunctor.class.getName());
     acuconf.set(Property.TABLE_FILE_TYPE, RFile.EXTENSION);
     acuconf.set(Property.TABLE_BLOOM_LOAD_THRESHOLD, "1");
@@ -146,6 +165,140 @@ public class BloomFilterLayerLookupTest {
     assertTrue(rate1 > rate2);
   }
 
+  @Test
+  public void testRowPrefix() throws IOException {
+    runRowPrefixTest("dynamic");
+    runRowPrefixTest("blocked");
+  }
+
+  private void runRowPrefixTest(String bloomType) throws IOException {
+    ConfigurationCopy acuconf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    acuconf.set(Property.TABLE_BLOOM_ENABLED, "true");
+    acuconf.set(Property.TABLE_BLOOM_TYPE, bloomType);
+    acuconf.set(Property.TABLE_BLOOM_KEY_FUNCTOR, RowPrefixFunctor.class.getName());
+    acuconf.set(Property.TABLE_BLOOM_PREFIX_LENGTH, "9");
+    acuconf.set(Property.TABLE_FILE_TYPE, RFile.EXTENSION);
+    acuconf.set(Property.TABLE_BLOOM_LOAD_THRESHOLD, "0");
+
+    Configuration conf = new Configuration();
+    FileSystem fs = FileSystem.get(conf);
+
+    String suffix = FileOperations.getNewFileExtension(acuconf);
+    String fname = new File(tempDir.getRoot(), testName.getMethodName() + bloomType + "." + suffix)
+        .getAbsolutePath();
+    FileSKVWriter bmfw = FileOperations.getInstance().newWriterBuilder()
+        .forFile(fname, fs, conf, CryptoServiceFactory.newDefaultInstance())
+        .withTableConfiguration(acuconf).build();
+
+    // rows with even user ids
+    bmfw.startDefaultLocalityGroup();
+    for (int user = 0; user < 1000; user += 2) {
+      for (int item = 0; item < 10; item++) {
+        bmfw.append(new Key(String.format("user%04d_%04d", user, item), "cf", "cq"),
+            new Value("v"));
+      }
+    }
+    bmfw.close();
+
+    // the prefix length used to write the file is stored with the bloom filter
+    acuconf.set(Property.TABLE_BLOOM_PREFIX_LENGTH, "4");
+    FileSKVIterator bmfr = FileOperations.getInstance().newReaderBuilder()
+        .forFile(fname, fs, conf, CryptoServiceFactory.newDefaultInstance())
+        .withTableConfiguration(acuconf).build();
+
+    for (int user = 0; user < 1000; user++) {
+      bmfr.seek(Range.prefix(new Text(String.format("user%04d_", user))), new ArrayList<>(), false);
+      if (user % 2 == 0) {
+        assertTrue(bmfr.hasTop());
+        assertEquals(String.format("user%04d_0000", user), bmfr.getTopKey().getRow().toString());
+      }
+
+      bmfr.seek(Range.exact(String.format("user%04d_0005", user)), new ArrayList<>(), false);
+      assertEquals(user % 2 == 0, bmfr.hasTop());
+    }
+    bmfr.close();
+  }
+
+  @Test
+  public void testBloomFilterCache() throws IOException {
+    runBloomFilterCacheTest("dynamic");
+    runBloomFilterCacheTest("blocked");
+  }
+
+  private void runBloomFilterCacheTest(String bloomType) throws IOException {
+    ConfigurationCopy acuconf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    acuconf.set(Property.TABLE_BLOOM_ENABLED, "true");
+    acuconf.set(Property.TABLE_BLOOM_TYPE, bloomType);
+    acuconf.set(Property.TABLE_FILE_TYPE, RFile.EXTENSION);
+
+    Configuration conf = new Configuration();
+    FileSystem fs = FileSystem.get(conf);
+
+    String suffix = FileOperations.getNewFileExtension(acuconf);
+    String fname = new File(tempDir.getRoot(), testName.getMethodName() + bloomType + "." + suffix)
+        .getAbsolutePath();
+    FileSKVWriter bmfw = FileOperations.getInstance().newWriterBuilder()
+        .forFile(fname, fs, conf, CryptoServiceFactory.newDefaultInstance())
+        .withTableConfiguration(acuconf).build();
+    bmfw.startDefaultLocalityGroup();
+    for (int i = 0; i < 1000; i += 2) {
+      bmfw.append(new Key(String.format("r%010d", i), "cf1"), new Value("v"));
+    }
+    bmfw.close();
+
+    ConfigurationCopy sysConf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    sysConf.set(Property.TSERV_BLOOMCACHE_SIZE, "10M");
+    BlockCacheManager manager = new LruBlockCacheManager();
+    manager.start(new BlockCacheConfiguration(sysConf));
+    BlockCache bloomCache = manager.getBlockCache(CacheType.BLOOM);
+    CacheProvider cacheProvider = new BasicCacheProvider(null, null, bloomCache);
+
+    long loads = BloomFilterLayer.getStats().getLoads();
+    // the bloom filter is kept in the cache when the reader that loaded it is closed
+    for (int i = 0; i < 3; i++) {
+      try (FileSKVIterator reader = FileOperations.getInstance().newReaderBuilder()
+          .forFile(fname, fs, conf, CryptoServiceFactory.newDefaultInstance())
+          .withTableConfiguration(acuconf).withCacheProvider(cacheProvider).build()) {
+        BloomFilterLayer.loadBloomFilter(reader, acuconf);
+      }
+    }
+    assertEquals(2, bloomCache.getStats().hitCount());
+    assertEquals(loads + 3, BloomFilterLayer.getStats().getLoads());
+
+    // readers use the cached bloom filter to skip seeks
+    acuconf.set(Property.TABLE_BLOOM_LOAD_THRESHOLD, "0");
+    acuconf.set(Property.TSERV_BLOOM_LOAD_MAXCONCURRENT, "0");
+    FileSKVIterator bmfr = FileOperations.getInstance().newReaderBuilder()
+        .forFile(fname, fs, conf, CryptoServiceFactory.newDefaultInstance())
+        .withTableConfiguration(acuconf).withCacheProvider(cacheProvider).build();
+    long negatives = BloomFilterLayer.getStats().getNegatives();
+    int absent = 0;
+    for (int i = 0; i < 1000; i++) {
+      Key k1 = new Key(String.format("r%010d", i));
+      bmfr.seek(new Range(k1, true, k1.followingKey(PartialKey.ROW), false), new ArrayList<>(),
+          false);
+      assertEquals(i % 2 == 0, bmfr.hasTop());
+      if (i % 2 == 1) {
+        absent++;
+      }
+    }
+    bmfr.close();
+    // the bloom filter may load in the background, so early seeks may not use it
+    assertTrue(BloomFilterLayer.getStats().getNegatives() > negatives);
+    assertTrue(BloomFilterLayer.getStats().getNegatives() - negatives <= absent);
+
+    // tables that warm their caches load bloom filters when a file is opened
+    acuconf.set(Property.TABLE_BLOOM_LOAD_THRESHOLD, "1000");
+    acuconf.set(Property.TABLE_CACHE_WARMUP_ENABLED, "true");
+    long hits = bloomCache.getStats().hitCount();
+    FileOperations.getInstance().newReaderBuilder()
+        .forFile(fname, fs, conf, CryptoServiceFactory.newDefaultInstance())
+        .withTableConfiguration(acuconf).withCacheProvider(cacheProvider).build().close();
+    assertEquals(hits + 1, bloomCache.getStats().hitCount());
+
+    manager.stop();
+  }
+
   private void seek(FileSKVIterator bmfr, int row) throws IOException {
     String fi = String.format("%010d", row);
     // bmfr.seek(new Range(new Text("r"+fi)));
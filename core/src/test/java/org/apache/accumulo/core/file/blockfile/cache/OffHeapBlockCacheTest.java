@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheConfiguration;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheManagerFactory;
+import org.apache.accumulo.core.file.blockfile.cache.offheap.OffHeapBlockCache;
+import org.apache.accumulo.core.file.blockfile.cache.offheap.OffHeapBlockCacheManager;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
+import org.apache.accumulo.core.spi.cache.CacheEntry.Weighable;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.junit.Test;
+
+public class OffHeapBlockCacheTest {
+
+  private static OffHeapBlockCache createCache(long maxSize, int chunkSize) throws Exception {
+    return createCache(maxSize, chunkSize, new ConfigurationCopy());
+  }
+
+  private static OffHeapBlockCache createCache(long maxSize, int chunkSize, ConfigurationCopy props)
+      throws Exception {
+    ConfigurationCopy cc = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    props.forEach(e -> cc.set(e.getKey(), e.getValue()));
+    cc.set(Property.TSERV_CACHE_MANAGER_IMPL, OffHeapBlockCacheManager.class.getName());
+    cc.set(Property.TSERV_DEFAULT_BLOCKSIZE, Long.toString(chunkSize));
+    cc.set(Property.TSERV_DATACACHE_SIZE, Long.toString(maxSize));
+    cc.set(BlockCacheManager.getFullyQualifiedPropertyPrefix(OffHeapBlockCache.PROPERTY_PREFIX)
+        + OffHeapBlockCache.CHUNK_SIZE_PROPERTY, Integer.toString(chunkSize));
+    BlockCacheManager manager = BlockCacheManagerFactory.getInstance(cc);
+    manager.start(new BlockCacheConfiguration(cc));
+    return (OffHeapBlockCache) manager.getBlockCache(CacheType.DATA);
+  }
+
+  private static byte[] randomBlock(Random random, int size) {
+    byte[] data = new byte[size];
+    random.nextBytes(data);
+    return data;
+  }
+
+  @Test
+  public void testCacheBlocks() throws Exception {
+    OffHeapBlockCache cache = createCache(100 * 1024, 1024);
+    assertEquals(100 * 1024, cache.getMaxSize());
+    assertTrue(cache.getMaxHeapSize() < cache.getMaxSize());
+
+    Random random = new Random(42);
+    byte[][] blocks = new byte[10][];
+    for (int i = 0; i < blocks.length; i++) {
+      // sizes that are smaller, equal to and larger than a chunk
+      blocks[i] = randomBlock(random, 1 + i * 997);
+      cache.cacheBlock("b" + i, blocks[i]);
+    }
+
+    for (int i = 0; i < blocks.length; i++) {
+      CacheEntry ce = cache.getBlock("b" + i);
+      assertNotNull(ce);
+      assertArrayEquals(blocks[i], ce.getBuffer());
+    }
+
+    assertNull(cache.getBlock("b10"));
+    assertEquals(11, cache.getStats().requestCount());
+    assertEquals(10, cache.getStats().hitCount());
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    OffHeapBlockCache cache = createCache(64 * 1024, 1024);
+
+    Random random = new Random(7);
+    byte[][] blocks = new byte[200][];
+    for (int i = 0; i < blocks.length; i++) {
+      blocks[i] = randomBlock(random, 1500 + random.nextInt(3000));
+      CacheEntry ce = cache.cacheBlock("b" + i, blocks[i]);
+      assertArrayEquals(blocks[i], ce.getBuffer());
+    }
+
+    // many blocks were evicted, the ones remaining must not have been overwritten by others
+    int cached = 0;
+    for (int i = 0; i < blocks.length; i++) {
+      CacheEntry ce = cache.getBlock("b" + i);
+      if (ce != null) {
+        assertArrayEquals(blocks[i], ce.getBuffer());
+        cached++;
+      }
+    }
+    assertTrue(cached > 0);
+    assertTrue(cached < blocks.length);
+
+    // larger than the whole cache, is returned but not cached
+    byte[] huge = randomBlock(random, 65 * 1024);
+    assertArrayEquals(huge, cache.cacheBlock("huge", huge).getBuffer());
+    assertNull(cache.getBlock("huge"));
+  }
+
+  @Test
+  public void testLoaderAndIndex() throws Exception {
+    OffHeapBlockCache cache = createCache(64 * 1024, 1024);
+    byte[] data = randomBlock(new Random(3), 5000);
+
+    BlockCache.Loader loader = new BlockCache.Loader() {
+      @Override
+      public Map<String,BlockCache.Loader> getDependencies() {
+        return Collections.emptyMap();
+      }
+
+      @Override
+      public byte[] load(int maxSize, Map<String,byte[]> dependencies) {
+        return data;
+      }
+    };
+
+    CacheEntry ce = cache.getBlock("b", loader);
+    assertArrayEquals(data, ce.getBuffer());
+
+    Weighable index = () -> 10;
+    assertSame(index, ce.getIndex(() -> index));
+
+    // the index is kept with the cached block, the data is copied from off heap memory
+    CacheEntry ce2 = cache.getBlock("b");
+    assertArrayEquals(data, ce2.getBuffer());
+    assertSame(index, ce2.getIndex(() -> null));
+  }
+
+  @Test
+  public void testHeapCopyReused() throws Exception {
+    OffHeapBlockCache cache = createCache(64 * 1024, 1024);
+    byte[] data = randomBlock(new Random(5), 5000);
+    cache.cacheBlock("b", data);
+
+    // while a reader holds the array of a block, other reads of the block use it
+    CacheEntry ce = cache.getBlock("b");
+    assertSame(data, ce.getBuffer());
+    assertSame(ce.getBuffer(), cache.getBlock("b").getBuffer());
+  }
+
+  @Test
+  public void testHeapLimit() throws Exception {
+    ConfigurationCopy props = new ConfigurationCopy();
+    props.set(BlockCacheManager.getFullyQualifiedPropertyPrefix(OffHeapBlockCache.PROPERTY_PREFIX)
+        + OffHeapBlockCache.HEAP_SIZE_PROPERTY, "20K");
+    OffHeapBlockCache cache = createCache(1024 * 1024, 1024, props);
+    assertEquals(20 * 1024, cache.getMaxHeapSize());
+
+    Random random = new Random(11);
+    for (int i = 0; i < 10; i++) {
+      cache.cacheBlock("b" + i, randomBlock(random, 2000));
+    }
+    long recordsSize = cache.getHeapSize();
+    assertTrue(recordsSize >= 10 * OffHeapBlockCache.PER_BLOCK_OVERHEAD);
+
+    // indexes count against the heap limit, so blocks are evicted once they grow too large
+    Weighable index = () -> 4096;
+    for (int i = 0; i < 10; i++) {
+      CacheEntry ce = cache.getBlock("b" + i);
+      if (ce != null) {
+        assertSame(index, ce.getIndex(() -> index));
+        ce.indexWeightChanged();
+        assertTrue(cache.getHeapSize() <= cache.getMaxHeapSize());
+      }
+    }
+
+    int remaining = 0;
+    for (int i = 0; i < 10; i++) {
+      if (cache.getBlock("b" + i) != null) {
+        remaining++;
+      }
+    }
+    assertTrue(remaining < 10);
+
+    // the heap of evicted blocks is released
+    for (int i = 0; i < 10; i++) {
+      cache.cacheBlock("b" + i, randomBlock(random, 2000));
+    }
+    assertTrue(cache.getHeapSize() <= recordsSize);
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Random;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheConfiguration;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheManagerFactory;
+import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCache;
+import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCacheConfiguration;
+import org.apache.accumulo.core.file.blockfile.cache.tiered.TieredBlockCache;
+import org.apache.accumulo.core.file.blockfile.cache.tiered.TieredBlockCacheManager;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TieredBlockCacheTest {
+
+  @Rule
+  public TemporaryFolder tempFolder =
+      new TemporaryFolder(new File(System.getProperty("user.dir") + "/target"));
+
+  private BlockCacheManager startManager(File dir) throws Exception {
+    ConfigurationCopy cc = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    cc.set(Property.TSERV_CACHE_MANAGER_IMPL, TieredBlockCacheManager.class.getName());
+    cc.set(Property.TSERV_DEFAULT_BLOCKSIZE, "1000");
+    cc.set(Property.TSERV_DATACACHE_SIZE, "100000");
+    LruBlockCacheConfiguration.builder(CacheType.DATA).useEvictionThread(false).buildMap()
+        .forEach(cc::set);
+    String prefix = BlockCacheManager
+        .getFullyQualifiedPropertyPrefix(TieredBlockCacheManager.PROPERTY_PREFIX, CacheType.DATA);
+    cc.set(prefix + TieredBlockCacheManager.L2_DIR_PROPERTY, dir.getAbsolutePath());
+    cc.set(prefix + TieredBlockCacheManager.L2_SIZE_PROPERTY, "10M");
+
+    BlockCacheManager manager = BlockCacheManagerFactory.getInstance(cc);
+    manager.start(new BlockCacheConfiguration(cc));
+    return manager;
+  }
+
+  @Test
+  public void testLevels() throws Exception {
+    File dir = tempFolder.newFolder();
+    BlockCacheManager manager = startManager(dir);
+
+    // no directory is configured for the index cache
+    assertTrue(manager.getBlockCache(CacheType.INDEX) instanceof LruBlockCache);
+
+    TieredBlockCache cache = (TieredBlockCache) manager.getBlockCache(CacheType.DATA);
+
+    Random random = new Random(11);
+    byte[][] blocks = new byte[50][];
+    for (int i = 0; i < blocks.length; i++) {
+      blocks[i] = new byte[5000];
+      random.nextBytes(blocks[i]);
+      cache.cacheBlock("b" + i, blocks[i]);
+    }
+
+    // fewer blocks than the write queue holds were added, stopping waits for them to be written
+    // to the second level
+    manager.stop();
+    assertTrue(new File(dir, "data").isDirectory());
+
+    // the blocks are found again after a restart and the first level is filled as they are read
+    manager = startManager(dir);
+    cache = (TieredBlockCache) manager.getBlockCache(CacheType.DATA);
+    for (int i = 0; i < blocks.length; i++) {
+      CacheEntry ce = cache.getBlock("b" + i);
+      assertNotNull(ce);
+      assertArrayEquals(blocks[i], ce.getBuffer());
+    }
+    assertEquals(50, cache.getL2Stats().hitCount());
+    assertEquals(50, cache.getStats().hitCount());
+
+    CacheEntry ce = cache.getBlock("b" + 49);
+    assertArrayEquals(blocks[49], ce.getBuffer());
+    assertEquals(1, cache.getL1Stats().hitCount());
+
+    assertNull(cache.getBlock("b50"));
+    assertEquals(51, cache.getL2Stats().requestCount());
+
+    manager.stop();
+  }
+}
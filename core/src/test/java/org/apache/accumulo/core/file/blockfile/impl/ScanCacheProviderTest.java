@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheConfiguration;
+import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCacheManager;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.apache.accumulo.core.spi.scan.ScanDirectives;
+import org.apache.accumulo.core.spi.scan.ScanDirectives.CacheUsage;
+import org.junit.Test;
+
+public class ScanCacheProviderTest {
+
+  @Test
+  public void testCacheUsage() {
+    ConfigurationCopy tableConf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    tableConf.set(Property.TABLE_INDEXCACHE_ENABLED, "true");
+    tableConf.set(Property.TABLE_BLOCKCACHE_ENABLED, "false");
+
+    // there is no bloom filter cache unless it is given a size
+    BlockCacheManager manager = new LruBlockCacheManager();
+    manager.start(new BlockCacheConfiguration(DefaultConfiguration.getInstance()));
+    assertNull(manager.getBlockCache(CacheType.BLOOM));
+    manager.stop();
+
+    ConfigurationCopy sysConf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    sysConf.set(Property.TSERV_BLOOMCACHE_SIZE, "1M");
+    manager = new LruBlockCacheManager();
+    manager.start(new BlockCacheConfiguration(sysConf));
+    BlockCache indexCache = manager.getBlockCache(CacheType.INDEX);
+    BlockCache dataCache = manager.getBlockCache(CacheType.DATA);
+    BlockCache bloomCache = manager.getBlockCache(CacheType.BLOOM);
+
+    // table settings are resolved to enabled or disabled
+    ScanCacheProvider provider = new ScanCacheProvider(tableConf, ScanDirectives.builder().build(),
+        indexCache, dataCache, bloomCache);
+    assertEquals(CacheUsage.ENABLED, provider.getIndexCacheUsage());
+    assertSame(indexCache, provider.getIndexCache());
+    assertEquals(CacheUsage.DISABLED, provider.getDataCacheUsage());
+    assertNull(provider.getDataCache());
+
+    provider = new ScanCacheProvider(tableConf,
+        ScanDirectives.builder().setIndexCacheUsage(CacheUsage.DISABLED)
+            .setDataCacheUsage(CacheUsage.OPPORTUNISTIC).build(),
+        indexCache, dataCache, bloomCache);
+    assertEquals(CacheUsage.DISABLED, provider.getIndexCacheUsage());
+    assertNull(provider.getIndexCache());
+    // bloom filters are cached even when the scan does not use the index cache
+    assertSame(bloomCache, provider.getBloomCache());
+    assertEquals(CacheUsage.OPPORTUNISTIC, provider.getDataCacheUsage());
+    assertTrue(provider.getDataCache() instanceof OpportunisticBlockCache);
+
+    provider = new ScanCacheProvider(tableConf,
+        ScanDirectives.builder().setDataCacheUsage(CacheUsage.ENABLED).build(), indexCache,
+        dataCache, bloomCache);
+    assertEquals(CacheUsage.ENABLED, provider.getDataCacheUsage());
+    assertSame(dataCache, provider.getDataCache());
+
+    manager.stop();
+  }
+}
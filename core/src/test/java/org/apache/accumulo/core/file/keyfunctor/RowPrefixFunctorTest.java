@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.keyfunctor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.accumulo.core.bloomfilter.BlockedBloomFilter;
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+public class RowPrefixFunctorTest {
+
+  private static RowPrefixFunctor create(int prefixLength) {
+    RowPrefixFunctor functor = new RowPrefixFunctor();
+    functor.setPrefixLength(prefixLength);
+    return functor;
+  }
+
+  @Test
+  public void testTransformKey() {
+    RowPrefixFunctor functor = create(5);
+    assertArrayEquals("user_".getBytes(),
+        functor.transform(new Key("user_123", "cf", "cq")).getBytes());
+    // rows shorter than the prefix are used whole
+    assertArrayEquals("usr".getBytes(), functor.transform(new Key("usr", "cf", "cq")).getBytes());
+
+    long expected =
+        BlockedBloomFilter.hash(BlockedBloomFilter.HASH_SEED, new ArrayByteSequence("user_"));
+    assertEquals(expected, functor.hash(new Key("user_123", "cf", "cq")));
+  }
+
+  @Test
+  public void testTransformRange() {
+    RowPrefixFunctor functor = create(5);
+
+    assertArrayEquals("user_".getBytes(),
+        functor.transform(Range.prefix(new Text("user_"))).getBytes());
+    assertArrayEquals("user_".getBytes(),
+        functor.transform(Range.prefix(new Text("user_12"))).getBytes());
+    assertArrayEquals("user_".getBytes(), functor.transform(Range.exact("user_123")).getBytes());
+    assertArrayEquals("user_".getBytes(),
+        functor.transform(new Range("user_123", "user_456")).getBytes());
+    assertTrue(functor.canTransform(Range.prefix(new Text("user_"))));
+    assertEquals(functor.hash(new Key("user_")), functor.hash(Range.prefix(new Text("user_"))));
+
+    // ranges shorter than the prefix or that span prefixes can not be checked
+    assertNull(functor.transform(Range.prefix(new Text("user"))));
+    assertNull(functor.transform(new Range("user_123", "users")));
+    assertNull(functor.transform(new Range(new Key("user_"), true, new Key("user`"), true)));
+    assertNull(functor.transform(new Range("user_", null)));
+    assertFalse(functor.canTransform(new Range()));
+
+    // exact lookups of rows shorter than the prefix are checked against the whole row
+    assertArrayEquals("usr".getBytes(), functor.transform(Range.exact("usr")).getBytes());
+    assertNull(functor.transform(Range.prefix(new Text("usr"))));
+  }
+
+  @Test
+  public void testFollowingPrefixWithMaxBytes() {
+    RowPrefixFunctor functor = create(3);
+    Text prefix = new Text(new byte[] {'a', (byte) 0xff, (byte) 0xff});
+    assertArrayEquals(prefix.copyBytes(), functor.transform(Range.prefix(prefix)).getBytes());
+  }
+
+  @Test
+  public void testEmptyBloomKey() {
+    RowPrefixFunctor functor = create(5);
+    assertTrue(functor.isBloomKeyEmpty(new Key("", "cf", "cq")));
+    assertTrue(functor.isBloomKeyEmpty(Range.exact("")));
+    assertFalse(functor.isBloomKeyEmpty(new Key("u", "cf", "cq")));
+    assertFalse(functor.isBloomKeyEmpty(Range.prefix(new Text("user_"))));
+
+    // the built in functors check in place, and must agree with the bloom keys they create
+    KeyFunctor[] functors =
+        {new RowFunctor(), new ColumnFamilyFunctor(), new ColumnQualifierFunctor(), functor};
+    Key[] keys = {new Key(), new Key("", "cf"), new Key("", "", "cq"), new Key("r")};
+    for (KeyFunctor kf : functors) {
+      for (Key key : keys) {
+        assertEquals(kf.transform(key).getBytes().length == 0, kf.isBloomKeyEmpty(key));
+      }
+    }
+  }
+
+  @Test
+  public void testWritable() throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    create(7).write(new DataOutputStream(baos));
+
+    RowPrefixFunctor read = new RowPrefixFunctor();
+    read.readFields(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+    assertArrayEquals("abcdefg".getBytes(), read.transform(new Key("abcdefghij")).getBytes());
+  }
+}
@@ -20,10 +20,14 @@ package org.apache.accumulo.core.file.rfile;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
@@ -133,4 +137,65 @@ public class MultiLevelIndexTest {
 
   }
 
+  @Test
+  public void testLookupComparesAllKeyFields() throws Exception {
+    List<Key> keys = new ArrayList<>();
+    for (String row : new String[] {"a", "ab", "b"}) {
+      for (String cf : new String[] {"", "f1", "f2"}) {
+        for (String cq : new String[] {"q", "q\u00ff"}) {
+          for (String cv : new String[] {"", "A&B"}) {
+            for (long ts : new long[] {Long.MAX_VALUE, 5, -1}) {
+              Key deleted = new Key(row, cf, cq, cv, ts);
+              deleted.setDeleted(true);
+              keys.add(deleted);
+              keys.add(new Key(row, cf, cq, cv, ts));
+            }
+          }
+        }
+      }
+    }
+    Collections.sort(keys);
+
+    AccumuloConfiguration aconf = DefaultConfiguration.getInstance();
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    FSDataOutputStream dos = new FSDataOutputStream(baos, new FileSystem.Statistics("a"));
+    BCFile.Writer _cbw = new BCFile.Writer(dos, null, "gz", hadoopConf,
+        CryptoServiceFactory.newInstance(aconf, ClassloaderType.JAVA));
+
+    // only index every other key so that lookups also land between entries
+    BufferedWriter mliw = new BufferedWriter(new Writer(_cbw, 200));
+    for (int i = 0; i < keys.size() - 2; i += 2) {
+      mliw.add(keys.get(i), i, 0, 0, 0);
+    }
+    mliw.addLast(keys.get(keys.size() - 2), keys.size() - 2, 0, 0, 0);
+
+    BCFile.Writer.BlockAppender root = _cbw.prepareMetaBlock("root");
+    mliw.close(root);
+    root.close();
+    _cbw.close();
+    dos.close();
+
+    byte[] data = baos.toByteArray();
+    FSDataInputStream in = new FSDataInputStream(new SeekableByteArrayInputStream(data));
+    CachableBuilder cb = new CachableBuilder().input(in).length(data.length).conf(hadoopConf)
+        .cryptoService(CryptoServiceFactory.newInstance(aconf, ClassloaderType.JAVA));
+    CachableBlockFile.Reader _cbr = new CachableBlockFile.Reader(cb);
+
+    Reader reader = new Reader(_cbr, RFile.RINDEX_VER_8);
+    CachableBlockFile.CachedBlockRead rootIn = _cbr.getMetaBlock("root");
+    reader.readFields(rootIn);
+    rootIn.close();
+
+    for (int i = 0; i < keys.size() - 1; i++) {
+      // the first index entry that is greater than or equal to the key
+      int expected = i % 2 == 0 ? i : i + 1;
+      IndexIterator liter = reader.lookup(keys.get(i));
+      assertTrue(liter.hasNext());
+      IndexEntry ie = liter.next();
+      assertEquals(expected, ie.getNumEntries());
+      assertEquals(keys.get(expected), ie.getKey());
+    }
+
+    assertFalse(reader.lookup(keys.get(keys.size() - 1)).hasNext());
+  }
 }
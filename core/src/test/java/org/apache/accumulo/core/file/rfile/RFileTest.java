@@ -47,6 +47,7 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.accumulo.core.client.sample.RowSampler;
 import org.apache.accumulo.core.client.sample.Sampler;
@@ -75,6 +76,7 @@ import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.CachableBu
 import org.apache.accumulo.core.file.rfile.RFile.Reader;
 import org.apache.accumulo.core.file.rfile.bcfile.BCFile;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.LongCombiner;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.ColumnFamilySkippingIterator;
 import org.apache.accumulo.core.metadata.MetadataTable;
@@ -84,6 +86,7 @@ import org.apache.accumulo.core.metadata.schema.MetadataSchema.TabletsSection.Se
 import org.apache.accumulo.core.sample.impl.SamplerConfigurationImpl;
 import org.apache.accumulo.core.sample.impl.SamplerFactory;
 import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.BlockCache;
 import org.apache.accumulo.core.spi.cache.CacheType;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
@@ -141,10 +144,19 @@ public class RFileTest {
   static class SeekableByteArrayInputStream extends ByteArrayInputStream
       implements Seekable, PositionedReadable {
 
+    // the number of times data was read through the stream
+    int reads = 0;
+
     public SeekableByteArrayInputStream(byte[] buf) {
       super(buf);
     }
 
+    @Override
+    public synchronized int read(byte[] b, int off, int len) {
+      reads++;
+      return super.read(b, off, len);
+    }
+
     @Override
     public long getPos() {
       return pos;
@@ -259,7 +271,11 @@ public class RFileTest {
         sampler = SamplerFactory.newSampler(samplerConfig, accumuloConfiguration);
       }
 
-      writer = new RFile.Writer(_cbw, blockSize, 1000, samplerConfig, sampler);
+      int dictionarySize =
+          (int) accumuloConfiguration.getAsBytes(Property.TABLE_FILE_COMPRESSION_DICTIONARY_SIZE);
+
+      writer = new RFile.Writer(_cbw, blockSize, 1000, samplerConfig, sampler, dictionarySize,
+          accumuloConfiguration.getBoolean(Property.TABLE_FILE_COLUMNAR_ENABLED));
 
       if (startDLG)
         writer.startDefaultLocalityGroup();
@@ -311,8 +327,11 @@ public class RFileTest {
       LruBlockCache dataCache = (LruBlockCache) manager.getBlockCache(CacheType.DATA);
 
       CachableBuilder cb = new CachableBuilder().cacheId("source-1").input(in).length(fileLength)
-          .conf(conf).cacheProvider(new BasicCacheProvider(indexCache, dataCache)).cryptoService(
-              CryptoServiceFactory.newInstance(accumuloConfiguration, ClassloaderType.JAVA));
+          .conf(conf).cacheProvider(new BasicCacheProvider(indexCache, dataCache))
+          .cryptoService(
+              CryptoServiceFactory.newInstance(accumuloConfiguration, ClassloaderType.JAVA))
+          .coalesceReads(
+              (int) accumuloConfiguration.getAsBytes(Property.TABLE_FILE_READ_COALESCE_SIZE));
       reader = new RFile.Reader(cb);
       if (cfsi)
         iter = new ColumnFamilySkippingIterator(reader);
@@ -2292,6 +2311,380 @@ public class RFileTest {
     }
   }
 
+  private static List<Entry<Key,Value>> readAll(TestRFile trf) throws IOException {
+    List<Entry<Key,Value>> entries = new ArrayList<>();
+    trf.iter.seek(new Range(), EMPTY_COL_FAMS, false);
+    while (trf.iter.hasTop()) {
+      entries.add(new AbstractMap.SimpleImmutableEntry<>(new Key(trf.iter.getTopKey()),
+          new Value(trf.iter.getTopValue())));
+      trf.iter.next();
+    }
+    return entries;
+  }
+
+  @Test
+  public void testDataBlockCopy() throws IOException {
+    TestRFile source = new TestRFile(conf);
+    source.openWriter();
+    for (int i = 0; i < 1000; i++) {
+      source.writer.append(newKey(formatString("r_", i), "cf1", "cq1", "", 5),
+          newValue(formatString("v_", i)));
+    }
+    source.closeWriter();
+    source.openReader();
+    List<Entry<Key,Value>> sourceEntries = readAll(source);
+
+    List<RFile.DataBlock> blocks = source.reader.getDataBlocks(null);
+    assertTrue(blocks.size() > 2);
+    assertNull(blocks.get(0).getPrevIndexKey());
+    assertEquals(sourceEntries.get(0).getKey(), blocks.get(0).getFirstKey());
+    assertFalse(blocks.get(1).containsDeletes());
+
+    // copy every block in between keys that sort before and after the copied blocks
+    TestRFile copy = new TestRFile(conf);
+    copy.openWriter();
+    List<Entry<Key,Value>> expected = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      Key k = newKey(formatString("a_", i), "cf1", "cq1", "", 5);
+      copy.writer.append(k, newValue("a" + i));
+      expected.add(new AbstractMap.SimpleImmutableEntry<>(k, newValue("a" + i)));
+    }
+    for (RFile.DataBlock block : blocks) {
+      assertTrue(copy.writer.canAppend(block));
+      copy.writer.append(block);
+    }
+    expected.addAll(sourceEntries);
+    for (int i = 0; i < 10; i++) {
+      Key k = newKey(formatString("s_", i), "cf1", "cq1", "", 5);
+      copy.writer.append(k, newValue("s" + i));
+      expected.add(new AbstractMap.SimpleImmutableEntry<>(k, newValue("s" + i)));
+    }
+    copy.closeWriter();
+    copy.openReader();
+    assertEquals(expected, readAll(copy));
+    for (int i = 0; i < expected.size(); i += 7) {
+      copy.seek(expected.get(i).getKey());
+      assertTrue(copy.iter.hasTop());
+      assertEquals(expected.get(i).getKey(), copy.iter.getTopKey());
+      assertEquals(expected.get(i).getValue(), copy.iter.getTopValue());
+    }
+    copy.closeReader();
+
+    // copy only the leading blocks, the last copied block is not the last block of the source
+    // so it must be rewritten for the last key of the copy to be correct
+    copy = new TestRFile(conf);
+    copy.openWriter();
+    int copiedEntries = 0;
+    for (RFile.DataBlock block : blocks.subList(0, 2)) {
+      copy.writer.append(block);
+      copiedEntries += block.getNumEntries();
+    }
+    copy.closeWriter();
+    copy.openReader();
+    expected = sourceEntries.subList(0, copiedEntries);
+    assertEquals(expected, readAll(copy));
+    assertEquals(expected.get(expected.size() - 1).getKey(), copy.reader.getLastKey());
+    copy.closeReader();
+
+    source.closeReader();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDataBlockCopyOutOfOrder() throws IOException {
+    TestRFile source = new TestRFile(conf);
+    source.openWriter();
+    source.writer.append(newKey("r1", "cf1", "cq1", "", 5), newValue("v1"));
+    source.closeWriter();
+    source.openReader();
+
+    TestRFile copy = new TestRFile(conf);
+    copy.openWriter();
+    copy.writer.append(newKey("r2", "cf1", "cq1", "", 5), newValue("v2"));
+    copy.writer.append(source.reader.getDataBlocks(null).get(0));
+  }
+
+  private void writeDictionaryTestData(TestRFile trf) throws IOException {
+    trf.openWriter(false);
+    trf.writer.startNewLocalityGroup("lg1", newColFamByteSequence("cf1"));
+    for (int i = 0; i < 2000; i++) {
+      trf.writer.append(newKey(formatString("r_", i), "cf1", formatString("cq_", i % 7), "A&B", 5),
+          newValue(formatString("v_", i)));
+    }
+    trf.writer.startDefaultLocalityGroup();
+    for (int i = 0; i < 2000; i++) {
+      trf.writer.append(newKey(formatString("r_", i), "cf2", "cq1", "", 5),
+          newValue(formatString("v_", i)));
+    }
+    trf.closeWriter();
+  }
+
+  @Test
+  public void testDictionaryCompression() throws IOException {
+    TestRFile plain = new TestRFile(conf);
+    writeDictionaryTestData(plain);
+    plain.openReader();
+    List<Entry<Key,Value>> expected = readAll(plain);
+    assertEquals(4000, expected.size());
+
+    ConfigurationCopy dictConf =
+        new ConfigurationCopy(conf == null ? DefaultConfiguration.getInstance() : conf);
+    dictConf.set(Property.TABLE_FILE_COMPRESSION_DICTIONARY_SIZE, "4K");
+
+    TestRFile trf = new TestRFile(dictConf);
+    writeDictionaryTestData(trf);
+    assertTrue(trf.baos.size() < plain.baos.size());
+
+    trf.openReader();
+    assertEquals(expected, readAll(trf));
+
+    for (int i = 0; i < 2000; i += 97) {
+      Key key = newKey(formatString("r_", i), "cf1", formatString("cq_", i % 7), "A&B", 5);
+      trf.iter.seek(new Range(key, true, key, true), newColFamByteSequence("cf1"), true);
+      assertTrue(trf.iter.hasTop());
+      assertEquals(key, trf.iter.getTopKey());
+      assertEquals(newValue(formatString("v_", i)), trf.iter.getTopValue());
+    }
+
+    // the first block is used to build the dictionary, the blocks compressed with the dictionary
+    // can not be copied to another file
+    TestRFile copy = new TestRFile(conf);
+    copy.openWriter(false);
+    copy.writer.startNewLocalityGroup("lg1", newColFamByteSequence("cf1"));
+    List<RFile.DataBlock> blocks = trf.reader.getDataBlocks("lg1");
+    assertTrue(blocks.size() > 2);
+    assertTrue(copy.writer.canAppend(blocks.get(0)));
+    for (RFile.DataBlock block : blocks.subList(1, blocks.size())) {
+      assertFalse(copy.writer.canAppend(block));
+    }
+
+    trf.closeReader();
+    plain.closeReader();
+  }
+
+  private void writeColumnarTestData(TestRFile trf) throws IOException {
+    trf.openWriter(false, 4000);
+    trf.writer.startNewLocalityGroup("fixed", newColFamByteSequence("cf1"));
+    for (int i = 0; i < 2000; i++) {
+      trf.writer.append(newKey(formatString("r_", i), "cf1", "cq1", "", 5 + i),
+          new Value(LongCombiner.FIXED_LEN_ENCODER.encode(1_000_000L + 3 * i)));
+    }
+    trf.writer.startNewLocalityGroup("string", newColFamByteSequence("cf2"));
+    for (int i = 0; i < 2000; i++) {
+      trf.writer.append(newKey(formatString("r_", i), "cf2", "cq1", "", 5 + i),
+          new Value(LongCombiner.STRING_ENCODER.encode(1000L - i)));
+    }
+    trf.writer.startDefaultLocalityGroup();
+    for (int i = 0; i < 2000; i++) {
+      // few distinct values, except for some blocks that have too many for a dictionary
+      String val = i >= 1000 && i < 1300 ? formatString("unique_", i) : "v_" + (i % 3);
+      trf.writer.append(newKey(formatString("r_", i), "cf3", "cq1", "", 5), newValue(val));
+      // values that look like longs, but would not be written back the same way
+      trf.writer.append(newKey(formatString("r_", i), "cf4", "cq1", "", 5),
+          newValue(i % 2 == 0 ? "0" + i : "-0"));
+    }
+    trf.closeWriter();
+  }
+
+  @Test
+  public void testColumnarDataBlocks() throws IOException {
+    TestRFile plain = new TestRFile(conf);
+    writeColumnarTestData(plain);
+    plain.openReader();
+    List<Entry<Key,Value>> expected = readAll(plain);
+    assertEquals(8000, expected.size());
+
+    ConfigurationCopy columnarConf =
+        new ConfigurationCopy(conf == null ? DefaultConfiguration.getInstance() : conf);
+    columnarConf.set(Property.TABLE_FILE_COLUMNAR_ENABLED, "true");
+
+    TestRFile trf = new TestRFile(columnarConf);
+    writeColumnarTestData(trf);
+    assertTrue(trf.baos.size() < plain.baos.size());
+
+    trf.openReader();
+    assertEquals(expected, readAll(trf));
+
+    // seek to entries within blocks several times, so that block indexes are built and used
+    for (int pass = 0; pass < 8; pass++) {
+      for (int i = pass; i < expected.size(); i += 37) {
+        Key key = expected.get(i).getKey();
+        trf.iter.seek(new Range(key, true, key, true), EMPTY_COL_FAMS, false);
+        assertTrue(trf.iter.hasTop());
+        assertEquals(key, trf.iter.getTopKey());
+        assertEquals(expected.get(i).getValue(), trf.iter.getTopValue());
+      }
+    }
+
+    // seek forward within the current block, only looking at the values of some entries
+    trf.iter.seek(new Range(), EMPTY_COL_FAMS, false);
+    for (int i = 0; i < 2000; i += 7) {
+      trf.iter.seek(new Range(newKey(formatString("r_", i), "cf1", "cq1", "", 5 + i), null),
+          newColFamByteSequence("cf1"), true);
+      assertTrue(trf.iter.hasTop());
+      if (i % 2 == 0) {
+        assertEquals(1_000_000L + 3 * i,
+            LongCombiner.FIXED_LEN_ENCODER.decode(trf.iter.getTopValue().get()).longValue());
+      }
+    }
+
+    // columnar blocks can only be copied to files with columnar blocks
+    List<RFile.DataBlock> blocks = trf.reader.getDataBlocks("string");
+    assertTrue(blocks.size() > 2);
+    assertFalse(blocks.get(0).containsDeletes());
+    assertTrue(blocks.get(0).isCompacted(1));
+
+    TestRFile copy = new TestRFile(conf);
+    copy.openWriter(false);
+    copy.writer.startNewLocalityGroup("string", newColFamByteSequence("cf2"));
+    assertFalse(copy.writer.canAppend(blocks.get(0)));
+
+    TestRFile columnarCopy = new TestRFile(columnarConf);
+    columnarCopy.openWriter(false);
+    columnarCopy.writer.startNewLocalityGroup("string", newColFamByteSequence("cf2"));
+    // the last copied block is not the last block of its locality group, so it is decoded and
+    // written again when the copy is closed
+    List<RFile.DataBlock> copied = blocks.subList(0, blocks.size() - 1);
+    for (RFile.DataBlock block : copied) {
+      assertTrue(columnarCopy.writer.canAppend(block));
+      columnarCopy.writer.append(block);
+    }
+    columnarCopy.closeWriter();
+    columnarCopy.openReader();
+    Key lastCopied = copied.get(copied.size() - 1).getIndexKey();
+    assertEquals(
+        expected.stream().filter(e -> e.getKey().getColumnFamily().toString().equals("cf2"))
+            .filter(e -> e.getKey().compareTo(lastCopied) <= 0).collect(Collectors.toList()),
+        readAll(columnarCopy));
+
+    columnarCopy.closeReader();
+    trf.closeReader();
+    plain.closeReader();
+  }
+
+  @Test
+  public void testCacheDataBlocks() throws IOException {
+    TestRFile trf = new TestRFile(conf);
+    trf.openWriter();
+    for (int i = 0; i < 1000; i++) {
+      trf.writer.append(newKey(formatString("r_", i), "cf1", "cq1", "", 5),
+          newValue(formatString("v_", i)));
+    }
+    trf.closeWriter();
+
+    trf.openReader();
+    BlockCache dataCache = trf.manager.getBlockCache(CacheType.DATA);
+    List<RFile.DataBlock> blocks = trf.reader.getDataBlocks(null);
+    assertTrue(blocks.size() > 1);
+
+    long rawSize = 0;
+    for (RFile.DataBlock block : blocks) {
+      block.cache();
+      rawSize += block.getRawSize();
+    }
+    assertTrue(rawSize > 0);
+
+    // reading all of the data now only hits the cache
+    long hits = dataCache.getStats().hitCount();
+    long requests = dataCache.getStats().requestCount();
+    trf.iter.seek(new Range(), EMPTY_COL_FAMS, false);
+    int count = 0;
+    while (trf.iter.hasTop()) {
+      trf.iter.next();
+      count++;
+    }
+    assertEquals(1000, count);
+    assertEquals(blocks.size(), dataCache.getStats().hitCount() - hits);
+    assertEquals(blocks.size(), dataCache.getStats().requestCount() - requests);
+
+    trf.closeReader();
+  }
+
+  @Test
+  public void testValuesReadOnlyWhenRequested() throws IOException {
+    TestRFile trf = new TestRFile(conf);
+    trf.openWriter();
+    for (int i = 0; i < 2000; i++) {
+      trf.writer.append(newKey(formatString("r_", i), "cf1", "cq1", "", 5),
+          newValue(formatString("v_", i)));
+    }
+    trf.closeWriter();
+
+    trf.openReader();
+
+    // only request some of the values while iterating across many blocks
+    trf.iter.seek(new Range(), EMPTY_COL_FAMS, false);
+    int count = 0;
+    while (trf.iter.hasTop()) {
+      assertEquals(newKey(formatString("r_", count), "cf1", "cq1", "", 5), trf.iter.getTopKey());
+      if (count % 3 == 0) {
+        assertEquals(newValue(formatString("v_", count)), trf.iter.getTopValue());
+      }
+      trf.iter.next();
+      count++;
+    }
+    assertEquals(2000, count);
+
+    // seek forward within and across blocks without reading the values in between
+    for (int i = 7; i < 2000; i += 89) {
+      trf.iter.seek(new Range(formatString("r_", i), null), EMPTY_COL_FAMS, false);
+      assertTrue(trf.iter.hasTop());
+      trf.iter.next();
+      assertEquals(newValue(formatString("v_", i + 1)), trf.iter.getTopValue());
+      assertEquals(newValue(formatString("v_", i + 1)), trf.iter.getTopValue());
+    }
+
+    trf.closeReader();
+  }
+
+  @Test
+  public void testCoalescedReads() throws IOException {
+    int reads = runCoalescedReads("0B");
+    int coalescedReads = runCoalescedReads("8K");
+    // the blocks are a few hundred bytes, so coalescing should read many blocks at once
+    assertTrue("expected fewer reads than " + reads + " but saw " + coalescedReads,
+        coalescedReads * 4 < reads);
+  }
+
+  private int runCoalescedReads(String coalesceSize) throws IOException {
+    ConfigurationCopy cc = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    cc.set(Property.TABLE_FILE_READ_COALESCE_SIZE, coalesceSize);
+
+    TestRFile trf = new TestRFile(cc);
+    // small data and index blocks so that the index has several levels
+    trf.openWriter(true, 300);
+    for (int i = 0; i < 5000; i++) {
+      trf.writer.append(newKey(formatString("r_", i), "cf1", "cq1", "", 5),
+          newValue(formatString("v_", i)));
+    }
+    trf.closeWriter();
+
+    trf.openReader();
+
+    // reading the file from start to end reads the blocks that follow each block along with it
+    trf.iter.seek(new Range(), EMPTY_COL_FAMS, false);
+    int count = 0;
+    while (trf.iter.hasTop()) {
+      assertEquals(newValue(formatString("v_", count)), trf.iter.getTopValue());
+      trf.iter.next();
+      count++;
+    }
+    assertEquals(5000, count);
+    int reads = trf.bais.reads;
+
+    for (int i = 0; i < 500; i++) {
+      int row = (i * 7919) % 5000;
+      trf.iter.seek(new Range(formatString("r_", row), null), EMPTY_COL_FAMS, false);
+      for (int j = row; j < Math.min(row + 20, 5000); j++) {
+        assertTrue(trf.iter.hasTop());
+        assertEquals(newKey(formatString("r_", j), "cf1", "cq1", "", 5), trf.iter.getTopKey());
+        assertEquals(newValue(formatString("v_", j)), trf.iter.getTopValue());
+        trf.iter.next();
+      }
+    }
+    trf.closeReader();
+    return reads;
+  }
+
   @Test
   public void testCryptoDoesntLeakSensitive() throws IOException {
     conf = getAccumuloConfig(CryptoTest.CRYPTO_ON_CONF);
@@ -19,8 +19,11 @@
 package org.apache.accumulo.core.file.rfile.bcfile;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
@@ -36,6 +39,7 @@ import java.util.concurrent.TimeUnit;
 import org.apache.accumulo.core.file.rfile.bcfile.Compression.Algorithm;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.Decompressor;
 import org.apache.hadoop.util.ReflectionUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -115,6 +119,42 @@ public class CompressionTest {
     }
   }
 
+  @Test
+  public void testDecompressorPooled() throws InterruptedException, ExecutionException {
+    Algorithm al = Algorithm.GZ;
+
+    Decompressor decompressor = al.getDecompressor();
+    assertNotNull(decompressor);
+    // a decompressor in use is never handed out twice
+    Decompressor other = al.getDecompressor();
+    assertNotSame(decompressor, other);
+    al.returnDecompressor(decompressor);
+    al.returnDecompressor(other);
+
+    // the most recently returned decompressor is reused, without going through the CodecPool
+    assertSame(other, al.getDecompressor());
+
+    // the pool is shared, so other threads reuse it too
+    al.returnDecompressor(other);
+    ExecutorService service = Executors.newSingleThreadExecutor();
+    try {
+      assertSame(other, service.submit(al::getDecompressor).get());
+    } finally {
+      service.shutdown();
+    }
+  }
+
+  @Test
+  public void testCodecQueueBounded() {
+    Compression.CodecQueue<Object> queue = new Compression.CodecQueue<>();
+    for (int i = 0; i < Compression.CodecQueue.MAX_SIZE; i++) {
+      assertTrue(queue.offer(new Object()));
+    }
+    assertFalse(queue.offer(new Object()));
+    assertNotNull(queue.poll());
+    assertTrue(queue.offer(new Object()));
+  }
+
   @Test(timeout = 60 * 1000)
   public void testManyStartNotNull() throws InterruptedException, ExecutionException {
 
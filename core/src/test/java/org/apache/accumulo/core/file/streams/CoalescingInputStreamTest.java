@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.streams;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.fs.Seekable;
+import org.junit.Test;
+
+public class CoalescingInputStreamTest {
+
+  private static class CountingInputStream extends ByteArrayInputStream implements Seekable {
+
+    int reads = 0;
+
+    CountingInputStream(byte[] data) {
+      super(data);
+    }
+
+    @Override
+    public synchronized int read() {
+      reads++;
+      return super.read();
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) {
+      reads++;
+      // return short reads like a remote file system would
+      return super.read(b, off, Math.min(len, 16));
+    }
+
+    @Override
+    public synchronized void seek(long newPos) {
+      pos = (int) newPos;
+    }
+
+    @Override
+    public synchronized long getPos() {
+      return pos;
+    }
+
+    @Override
+    public boolean seekToNewSource(long targetPos) {
+      return false;
+    }
+  }
+
+  private static byte[] createData(int size) {
+    byte[] data = new byte[size];
+    for (int i = 0; i < size; i++) {
+      data[i] = (byte) i;
+    }
+    return data;
+  }
+
+  private static byte[] read(CoalescingInputStream in, long offset, int length) throws IOException {
+    byte[] buf = new byte[length];
+    in.seek(offset);
+    int total = 0;
+    while (total < length) {
+      int n = in.read(buf, total, length - total);
+      if (n < 0) {
+        break;
+      }
+      total += n;
+    }
+    return Arrays.copyOf(buf, total);
+  }
+
+  @Test
+  public void testPrefetchedRangeReadFromMemory() throws IOException {
+    byte[] data = createData(1000);
+    CountingInputStream counting = new CountingInputStream(data);
+    try (CoalescingInputStream in = new CoalescingInputStream(counting, 200)) {
+      in.prefetch(100, 150);
+      int reads = counting.reads;
+
+      assertArrayEquals(Arrays.copyOfRange(data, 100, 250), read(in, 100, 150));
+      assertArrayEquals(Arrays.copyOfRange(data, 120, 130), read(in, 120, 10));
+      assertEquals(data[249] & 0xff, readByte(in, 249));
+      assertEquals(reads, counting.reads);
+
+      // a range that was not prefetched goes to the underlying stream
+      assertArrayEquals(Arrays.copyOfRange(data, 500, 510), read(in, 500, 10));
+      assertEquals(reads + 1, counting.reads);
+    }
+  }
+
+  private static int readByte(CoalescingInputStream in, long offset) throws IOException {
+    in.seek(offset);
+    return in.read();
+  }
+
+  @Test
+  public void testSequentialReadAhead() throws IOException {
+    byte[] data = createData(1000);
+    CountingInputStream counting = new CountingInputStream(data);
+    try (CoalescingInputStream in = new CoalescingInputStream(counting, 300)) {
+      in.prefetch(0, 50);
+      assertArrayEquals(Arrays.copyOfRange(data, 0, 50), read(in, 0, 50));
+
+      // the next block follows the previous one, so the read extends to the max read size
+      in.prefetch(50, 50);
+      int reads = counting.reads;
+      for (int offset = 100; offset < 350; offset += 50) {
+        in.prefetch(offset, 50);
+        assertArrayEquals(Arrays.copyOfRange(data, offset, offset + 50), read(in, offset, 50));
+      }
+      assertEquals(reads, counting.reads);
+    }
+  }
+
+  @Test
+  public void testLargeRangeNotBuffered() throws IOException {
+    byte[] data = createData(1000);
+    CountingInputStream counting = new CountingInputStream(data);
+    try (CoalescingInputStream in = new CoalescingInputStream(counting, 100)) {
+      in.prefetch(0, 500);
+      assertEquals(0, counting.reads);
+      assertArrayEquals(Arrays.copyOfRange(data, 0, 500), read(in, 0, 500));
+    }
+  }
+
+  @Test
+  public void testPrefetchPastEnd() throws IOException {
+    byte[] data = createData(100);
+    CountingInputStream counting = new CountingInputStream(data);
+    try (CoalescingInputStream in = new CoalescingInputStream(counting, 100)) {
+      in.prefetch(0, 10);
+      // read ahead is cut short by the end of the file
+      in.prefetch(10, 10);
+      assertArrayEquals(Arrays.copyOfRange(data, 10, 100), read(in, 10, 200));
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.streams;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.crypto.CryptoServiceFactory;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.FileOperations;
+import org.apache.accumulo.core.file.FileSKVIterator;
+import org.apache.accumulo.core.file.FileSKVWriter;
+import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedFileInputStreamTest {
+
+  @Rule
+  public TemporaryFolder tempFolder =
+      new TemporaryFolder(new File(System.getProperty("user.dir") + "/target"));
+
+  private File createFile(int size) throws IOException {
+    byte[] data = new byte[size];
+    for (int i = 0; i < size; i++) {
+      data[i] = (byte) i;
+    }
+    File file = tempFolder.newFile();
+    Files.write(file.toPath(), data);
+    return file;
+  }
+
+  @Test
+  public void testReadAcrossSegments() throws IOException {
+    File file = createFile(100);
+    try (MappedFileInputStream in = new MappedFileInputStream(file, 7)) {
+      assertEquals(100, in.length());
+
+      byte[] buf = new byte[30];
+      in.seek(5);
+      assertEquals(30, in.read(buf, 0, 30));
+      for (int i = 0; i < 30; i++) {
+        assertEquals((byte) (i + 5), buf[i]);
+      }
+      assertEquals(35, in.getPos());
+      assertEquals(35, in.read());
+
+      in.seek(90);
+      assertEquals(10, in.read(buf, 0, 30));
+      assertEquals(-1, in.read(buf, 0, 30));
+      assertEquals(-1, in.read());
+    }
+  }
+
+  @Test
+  public void testPositionedRead() throws IOException {
+    File file = createFile(64);
+    try (MappedFileInputStream in = new MappedFileInputStream(file, 16)) {
+      byte[] buf = new byte[20];
+      in.readFully(10, buf);
+      for (int i = 0; i < buf.length; i++) {
+        assertEquals((byte) (i + 10), buf[i]);
+      }
+      // positioned reads do not move the stream
+      assertEquals(0, in.getPos());
+      assertEquals(-1, in.read(64, buf, 0, 1));
+    }
+  }
+
+  @Test(expected = EOFException.class)
+  public void testReadFullyPastEnd() throws IOException {
+    File file = createFile(10);
+    try (MappedFileInputStream in = new MappedFileInputStream(file)) {
+      in.readFully(5, new byte[10]);
+    }
+  }
+
+  @Test(expected = EOFException.class)
+  public void testSeekPastEnd() throws IOException {
+    File file = createFile(10);
+    try (MappedFileInputStream in = new MappedFileInputStream(file)) {
+      in.seek(11);
+    }
+  }
+
+  @Test(expected = EOFException.class)
+  public void testReadNegativePosition() throws IOException {
+    File file = createFile(10);
+    try (MappedFileInputStream in = new MappedFileInputStream(file)) {
+      in.read(-1, new byte[5], 0, 5);
+    }
+  }
+
+  @Test
+  public void testSharedMapping() throws IOException {
+    File file = createFile(64);
+    int count = MappedFileInputStream.getMappedFileCount();
+    MappedFileInputStream in1 = new MappedFileInputStream(file, 16);
+    MappedFileInputStream in2 = new MappedFileInputStream(file, 16);
+    assertEquals(count + 1, MappedFileInputStream.getMappedFileCount());
+
+    in1.close();
+    in1.close();
+    assertThrows(IOException.class, () -> in1.read(0, new byte[1], 0, 1));
+    // the other stream still reads from the shared mapping
+    byte[] buf = new byte[20];
+    in2.readFully(30, buf);
+    assertEquals((byte) 30, buf[0]);
+    assertEquals(count + 1, MappedFileInputStream.getMappedFileCount());
+
+    in2.close();
+    assertEquals(count, MappedFileInputStream.getMappedFileCount());
+    // the JDKs the build supports all allow unmapping
+    assertTrue(MappedFileInputStream.isUnmapSupported());
+  }
+
+  @Test
+  public void testEmptyFile() throws IOException {
+    File file = createFile(0);
+    try (MappedFileInputStream in = new MappedFileInputStream(file)) {
+      assertEquals(0, in.length());
+      assertEquals(-1, in.read());
+    }
+  }
+
+  @Test
+  public void testReadMappedRFile() throws IOException {
+    Configuration conf = new Configuration();
+    FileSystem fs = FileSystem.getLocal(conf);
+    String filename = new File(tempFolder.getRoot(), "mapped." + RFile.EXTENSION).getPath();
+
+    ConfigurationCopy acuconf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    acuconf.set(Property.TABLE_FILE_MMAP_ENABLED, "true");
+    acuconf.set(Property.TABLE_FILE_COMPRESSED_BLOCK_SIZE, "1K");
+
+    FileSKVWriter writer = FileOperations.getInstance().newWriterBuilder()
+        .forFile(filename, fs, conf, CryptoServiceFactory.newDefaultInstance())
+        .withTableConfiguration(acuconf).build();
+    writer.startDefaultLocalityGroup();
+    for (int i = 0; i < 1000; i++) {
+      writer.append(new Key(String.format("r%05d", i), "cf", "cq"), new Value("v" + i));
+    }
+    writer.close();
+
+    FileSKVIterator reader = FileOperations.getInstance().newReaderBuilder()
+        .forFile(filename, fs, conf, CryptoServiceFactory.newDefaultInstance())
+        .withTableConfiguration(acuconf).seekToBeginning().build();
+    try {
+      for (int i = 0; i < 1000; i++) {
+        assertTrue(reader.hasTop());
+        assertEquals(String.format("r%05d", i), reader.getTopKey().getRow().toString());
+        assertArrayEquals(("v" + i).getBytes(), reader.getTopValue().get());
+        reader.next();
+      }
+      assertFalse(reader.hasTop());
+    } finally {
+      reader.close();
+    }
+  }
+}
@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
@@ -232,6 +233,42 @@ public class DeletingIteratorTest {
     assertFalse(it.hasTop());
   }
 
+  @Test
+  public void testDeletedCounter() throws IOException {
+    TreeMap<Key,Value> tm = new TreeMap<>();
+
+    newKeyValue(tm, "r000", 3, false, "v3");
+    newKeyValue(tm, "r000", 2, true, "");
+    newKeyValue(tm, "r000", 2, false, "v2");
+    newKeyValue(tm, "r000", 1, false, "v1");
+    newKeyValue(tm, "r001", 5, true, "");
+    newKeyValue(tm, "r001", 4, false, "v4");
+    newKeyValue(tm, "r002", 1, false, "v1");
+
+    AtomicLong deletedCounter = new AtomicLong();
+    SortedKeyValueIterator<Key,Value> it =
+        DeletingIterator.wrap(new SortedMapIterator(tm), false, Behavior.PROCESS, deletedCounter);
+    it.seek(new Range(), EMPTY_COL_FAMS, false);
+
+    int count = 0;
+    while (it.hasTop()) {
+      count++;
+      it.next();
+    }
+
+    assertEquals(2, count);
+    assertEquals(5, deletedCounter.get());
+
+    // a deep copy should report to the same counter
+    SortedKeyValueIterator<Key,Value> copy = it.deepCopy(null);
+    copy.seek(new Range(), EMPTY_COL_FAMS, false);
+    while (copy.hasTop()) {
+      copy.next();
+    }
+
+    assertEquals(10, deletedCounter.get());
+  }
+
   @Test
   public void testFail() throws IOException {
     TreeMap<Key,Value> tm = new TreeMap<>();
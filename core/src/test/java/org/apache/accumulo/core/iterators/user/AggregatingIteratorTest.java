@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.iterators.user;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.accumulo.core.client.ScanAggregation.GroupBy;
+import org.apache.accumulo.core.client.ScanAggregation.Result;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.LongCombiner;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+public class AggregatingIteratorTest {
+
+  private static SortedMap<Key,Value> createData() {
+    SortedMap<Key,Value> data = new TreeMap<>();
+    for (int r = 0; r < 10; r++) {
+      for (int f = 0; f < 3; f++) {
+        for (int q = 0; q <= r % 4; q++) {
+          Key k = new Key(String.format("r%02d", r), "f" + f, "q" + q);
+          data.put(k, new Value(Integer.toString(r * 100 + f * 10 + q)));
+        }
+      }
+    }
+    return data;
+  }
+
+  private static SortedMap<Text,Result> expected(SortedMap<Key,Value> data, GroupBy groupBy) {
+    SortedMap<Text,Result> expected = new TreeMap<>();
+    SortedMap<Text,Text> lastRows = new TreeMap<>();
+    data.forEach((k, v) -> {
+      Text group = groupBy == GroupBy.ROW ? k.getRow()
+          : groupBy == GroupBy.FAMILY ? k.getColumnFamily() : new Text();
+      Result r = expected.computeIfAbsent(group, g -> new Result());
+      if (!k.getRow().equals(lastRows.put(group, k.getRow()))) {
+        r.addRow();
+      }
+      r.addEntry(Long.parseLong(v.toString()));
+    });
+    return expected;
+  }
+
+  private static void assertResultsEqual(SortedMap<Text,Result> expected,
+      SortedMap<Text,Result> actual) {
+    assertEquals(expected.keySet(), actual.keySet());
+    expected.forEach(
+        (group, e) -> assertEquals(group.toString(), e.toString(), actual.get(group).toString()));
+  }
+
+  private static void merge(SortedMap<Text,Result> results, Value value) {
+    Result.decode(value).forEach((group, partial) -> results.merge(group, partial, (r1, r2) -> {
+      r1.merge(r2);
+      return r1;
+    }));
+  }
+
+  private static SortedMap<Text,Result> aggregate(SortedMap<Key,Value> data, GroupBy groupBy,
+      Range... ranges) throws IOException {
+    return aggregate(data, groupBy, Long.MAX_VALUE, ranges);
+  }
+
+  private static SortedMap<Text,Result> aggregate(SortedMap<Key,Value> data, GroupBy groupBy,
+      long maxEntries, Range... ranges) throws IOException {
+    SortedMap<Text,Result> results = new TreeMap<>();
+    for (Range range : ranges) {
+      AggregatingIterator iter = new AggregatingIterator(new SortedMapIterator(data), groupBy,
+          LongCombiner.STRING_ENCODER, maxEntries, Long.MAX_VALUE);
+      iter.seek(range, Collections.emptySet(), false);
+      while (iter.hasTop()) {
+        merge(results, iter.getTopValue());
+        iter.next();
+      }
+    }
+    return results;
+  }
+
+  @Test
+  public void testGroupBy() throws IOException {
+    SortedMap<Key,Value> data = createData();
+    for (GroupBy groupBy : GroupBy.values()) {
+      assertResultsEqual(expected(data, groupBy), aggregate(data, groupBy, new Range()));
+      // partial results of each tablet merged on the client
+      assertResultsEqual(expected(data, groupBy), aggregate(data, groupBy, new Range(null, "r03"),
+          new Range("r03", false, "r07", true), new Range("r07", false, null, true)));
+    }
+
+    SortedMap<Text,Result> results = aggregate(data, GroupBy.NONE, new Range());
+    Result all = results.get(new Text());
+    assertEquals(69, all.getCount());
+    assertEquals(10, all.getDistinctRows());
+    assertEquals(0, all.getMin());
+    assertEquals(921, all.getMax());
+  }
+
+  @Test
+  public void testContinueScan() throws IOException {
+    SortedMap<Key,Value> data = createData();
+    for (GroupBy groupBy : GroupBy.values()) {
+      // reseek a new iterator after every returned key, like a scan continued in another batch
+      SortedMap<Text,Result> results = new TreeMap<>();
+      int returned = 0;
+      Range range = new Range();
+      while (true) {
+        AggregatingIterator iter = new AggregatingIterator(new SortedMapIterator(data), groupBy,
+            LongCombiner.STRING_ENCODER);
+        iter.seek(range, Collections.emptySet(), false);
+        if (!iter.hasTop()) {
+          break;
+        }
+        merge(results, iter.getTopValue());
+        returned++;
+        range = new Range(iter.getTopKey(), false, null, true);
+      }
+      assertEquals(groupBy == GroupBy.ROW ? 10 : 1, returned);
+      assertResultsEqual(expected(data, groupBy), results);
+    }
+  }
+
+  @Test
+  public void testPartialLimits() throws IOException {
+    SortedMap<Key,Value> data = createData();
+    for (GroupBy groupBy : GroupBy.values()) {
+      for (long maxEntries = 1; maxEntries <= 7; maxEntries++) {
+        assertResultsEqual(expected(data, groupBy),
+            aggregate(data, groupBy, maxEntries, new Range()));
+        assertResultsEqual(expected(data, groupBy),
+            aggregate(data, groupBy, maxEntries, new Range(null, "r03"),
+                new Range("r03", false, "r07", true), new Range("r07", false, null, true)));
+      }
+
+      // a scan continued after each partial, which may end in the middle of a row or group
+      SortedMap<Text,Result> results = new TreeMap<>();
+      int returned = 0;
+      Range range = new Range();
+      while (true) {
+        AggregatingIterator iter = new AggregatingIterator(new SortedMapIterator(data), groupBy,
+            LongCombiner.STRING_ENCODER, 2, Long.MAX_VALUE);
+        iter.seek(range, Collections.emptySet(), false);
+        if (!iter.hasTop()) {
+          break;
+        }
+        merge(results, iter.getTopValue());
+        returned++;
+        range = new Range(iter.getTopKey(), false, null, true);
+      }
+      assertTrue(returned >= data.size() / 2);
+      assertResultsEqual(expected(data, groupBy), results);
+    }
+
+    // a time limit returns a partial after each entry once it is used up
+    AggregatingIterator iter = new AggregatingIterator(new SortedMapIterator(data), GroupBy.NONE,
+        LongCombiner.STRING_ENCODER, Long.MAX_VALUE, 1);
+    iter.seek(new Range(), Collections.emptySet(), false);
+    assertTrue(iter.hasTop());
+    int returned = 0;
+    while (iter.hasTop()) {
+      returned++;
+      iter.next();
+    }
+    assertTrue(returned > 1);
+  }
+
+  @Test
+  public void testCountOnly() throws IOException {
+    SortedMap<Key,Value> data = new TreeMap<>();
+    data.put(new Key("r1", "f1", "q1"), new Value("not a number"));
+    data.put(new Key("r1", "f2", "q1"), new Value("v"));
+    data.put(new Key("r2", "f1", "q1"), new Value(""));
+
+    AggregatingIterator iter =
+        new AggregatingIterator(new SortedMapIterator(data), GroupBy.FAMILY, null);
+    iter.seek(new Range(), Collections.emptySet(), false);
+    assertTrue(iter.hasTop());
+    assertEquals(new Key("r2", "f1", "q1"), iter.getTopKey());
+    SortedMap<Text,Result> results = Result.decode(iter.getTopValue());
+    assertEquals(2, results.get(new Text("f1")).getCount());
+    assertEquals(2, results.get(new Text("f1")).getDistinctRows());
+    assertEquals(1, results.get(new Text("f2")).getCount());
+    assertEquals(Long.MAX_VALUE, results.get(new Text("f2")).getMin());
+    iter.next();
+    assertFalse(iter.hasTop());
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.rpc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.accumulo.core.file.rfile.bcfile.Compression.Algorithm;
+import org.apache.accumulo.core.util.UnsynchronizedBuffer;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TMessage;
+import org.apache.thrift.protocol.TMessageType;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TFramedTransport;
+import org.apache.thrift.transport.TIOStreamTransport;
+import org.apache.thrift.transport.TMemoryBuffer;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+import org.junit.Test;
+
+public class CompressedTransportTest {
+
+  private static final long MAX_MESSAGE_SIZE = 1 << 20;
+
+  private static String repetitive(int entries) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < entries; i++) {
+      sb.append("row_").append(i / 10).append(":family:qualifier_").append(i % 10).append(';');
+    }
+    return sb.toString();
+  }
+
+  private static void send(TTransport transport, String body) throws TException {
+    TProtocol protocol = new TCompactProtocol(transport);
+    protocol.writeMessageBegin(new TMessage("echo", TMessageType.CALL, 1));
+    protocol.writeBinary(ByteBuffer.wrap(body.getBytes()));
+    protocol.writeMessageEnd();
+    transport.flush();
+  }
+
+  private static String receive(TTransport transport) throws TException {
+    TProtocol protocol = transport instanceof CompressedTransport
+        ? ((CompressedTransport) transport).getProtocol(new TCompactProtocol.Factory())
+        : new TCompactProtocol(transport);
+    assertEquals("echo", protocol.readMessageBegin().name);
+    ByteBuffer body = protocol.readBinary();
+    protocol.readMessageEnd();
+    return new String(body.array(), body.arrayOffset() + body.position(), body.remaining());
+  }
+
+  @Test
+  public void testRoundTrip() throws TException {
+    TMemoryBuffer requests = new TMemoryBuffer(1024);
+    TMemoryBuffer responses = new TMemoryBuffer(1024);
+    CompressedTransport client = CompressedTransport.forClient(new TFramedTransport(requests),
+        Algorithm.GZ, 256, MAX_MESSAGE_SIZE);
+    CompressedTransport serverIn =
+        CompressedTransport.forServer(new TFramedTransport(requests), 256, MAX_MESSAGE_SIZE);
+    CompressedTransport serverOut =
+        CompressedTransport.forServer(new TFramedTransport(responses), 256, MAX_MESSAGE_SIZE);
+    CompressedTransport clientIn = CompressedTransport.forClient(new TFramedTransport(responses),
+        Algorithm.GZ, 256, MAX_MESSAGE_SIZE);
+
+    String big = repetitive(1000);
+    for (String body : new String[] {big, "small", big, "", big}) {
+      send(client, body);
+      assertEquals(body, receive(serverIn));
+      // the server answers on the same thread that read the request
+      send(serverOut, body);
+      assertEquals(body, receive(clientIn));
+    }
+
+    assertEquals(client.getLogicalBytesWritten(), serverIn.getLogicalBytesRead());
+    assertEquals(client.getWireBytesWritten(), serverIn.getWireBytesRead());
+    assertEquals(serverOut.getWireBytesWritten(), clientIn.getWireBytesRead());
+    assertTrue(serverIn.getWireBytesRead() * 4 < serverIn.getLogicalBytesRead());
+    assertTrue(serverOut.getWireBytesWritten() * 4 < serverOut.getLogicalBytesWritten());
+  }
+
+  @Test
+  public void testPlainClient() throws TException {
+    TMemoryBuffer requests = new TMemoryBuffer(1024);
+    TMemoryBuffer responses = new TMemoryBuffer(1024);
+    TTransport client = new TFramedTransport(requests);
+    CompressedTransport serverIn =
+        CompressedTransport.forServer(new TFramedTransport(requests), 0, MAX_MESSAGE_SIZE);
+    CompressedTransport serverOut =
+        CompressedTransport.forServer(new TFramedTransport(responses), 0, MAX_MESSAGE_SIZE);
+    TTransport clientIn = new TFramedTransport(responses);
+
+    String big = repetitive(1000);
+    for (int i = 0; i < 3; i++) {
+      send(client, big);
+      assertEquals(big, receive(serverIn));
+      // a client that does not compress must never get a compressed response
+      send(serverOut, big);
+      assertEquals(big, receive(clientIn));
+    }
+    assertEquals(serverIn.getLogicalBytesRead(), serverIn.getWireBytesRead());
+    assertEquals(serverOut.getLogicalBytesWritten(), serverOut.getWireBytesWritten());
+  }
+
+  @Test
+  public void testResponsesDisabled() throws TException {
+    TMemoryBuffer requests = new TMemoryBuffer(1024);
+    TMemoryBuffer responses = new TMemoryBuffer(1024);
+    CompressedTransport client = CompressedTransport.forClient(new TFramedTransport(requests),
+        Algorithm.GZ, 0, MAX_MESSAGE_SIZE);
+    CompressedTransport serverIn =
+        CompressedTransport.forServer(new TFramedTransport(requests), -1, MAX_MESSAGE_SIZE);
+    CompressedTransport serverOut =
+        CompressedTransport.forServer(new TFramedTransport(responses), -1, MAX_MESSAGE_SIZE);
+    TTransport clientIn = new TFramedTransport(responses);
+
+    String big = repetitive(1000);
+    send(client, big);
+    assertEquals(big, receive(serverIn));
+    send(serverOut, big);
+    assertEquals(big, receive(clientIn));
+    assertEquals(serverOut.getLogicalBytesWritten(), serverOut.getWireBytesWritten());
+  }
+
+  @Test
+  public void testUnbufferedTransport() throws TException {
+    // SASL and multiplexed transports do not expose a read buffer, so the marker byte may only be
+    // looked for at the start of a message
+    String markers = "\u0001\u0001 marker bytes \u0001";
+    String big = repetitive(1000) + markers;
+    TMemoryBuffer requests = new TMemoryBuffer(1024);
+    CompressedTransport client =
+        CompressedTransport.forClient(requests, Algorithm.GZ, 256, MAX_MESSAGE_SIZE);
+    send(requests, markers);
+    send(client, big);
+    send(client, markers);
+    send(requests, big);
+
+    TTransport unbuffered = new TIOStreamTransport(
+        new ByteArrayInputStream(Arrays.copyOf(requests.getArray(), requests.length())));
+    CompressedTransport serverIn = CompressedTransport.forServer(unbuffered, 256, MAX_MESSAGE_SIZE);
+    assertEquals(markers, receive(serverIn));
+    assertEquals(big, receive(serverIn));
+    assertEquals(markers, receive(serverIn));
+    assertEquals(big, receive(serverIn));
+  }
+
+  private static CompressedTransport header(String codec, int length, int compressedLength) {
+    byte[] name = codec.getBytes(UTF_8);
+    UnsynchronizedBuffer.Writer header = new UnsynchronizedBuffer.Writer(32);
+    header.add(new byte[] {CompressedTransport.MARKER}, 0, 1);
+    header.writeVInt(name.length);
+    header.add(name, 0, name.length);
+    header.writeVInt(length);
+    header.writeVInt(compressedLength);
+    // enough bytes behind the header that only the checks can stop the read
+    byte[] message = Arrays.copyOf(header.toArray(), header.size() + 4096);
+    return CompressedTransport.forServer(new TIOStreamTransport(new ByteArrayInputStream(message)),
+        256, MAX_MESSAGE_SIZE);
+  }
+
+  @Test
+  public void testBadLengths() throws TException {
+    int[][] lengths = {{-1, -1}, {-5, 10}, {(int) MAX_MESSAGE_SIZE + 1, -1},
+        {Integer.MAX_VALUE, 1000}, {100, 100}, {100, 200}, {100, -2},
+        {CompressedTransport.MAX_COMPRESSION_RATIO * 10 + 1, 10}};
+    for (int[] l : lengths) {
+      CompressedTransport transport = header("gz", l[0], l[1]);
+      try {
+        transport.read(new byte[1], 0, 1);
+        fail("accepted lengths " + Arrays.toString(l));
+      } catch (TTransportException e) {
+        assertEquals(TTransportException.CORRUPTED_DATA, e.getType());
+      }
+    }
+
+    // valid lengths are read as usual
+    assertEquals(1, header("gz", 100, -1).read(new byte[1], 0, 1));
+  }
+
+  @Test
+  public void testCodecs() {
+    assertNull(CompressedTransport.getCodec("none"));
+    assertEquals(Algorithm.GZ, CompressedTransport.getCodec("gz"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownCodec() {
+    CompressedTransport.getCodec("lz5");
+  }
+}
@@ -237,5 +237,19 @@ public interface InputFormatBuilder {
      * By default, this feature is <b>disabled</b>.
      */
     InputFormatOptions<T> batchScan(boolean value);
+
+    /**
+     * Saves the tablet locations found while computing the InputSplits in each split. Tasks load
+     * them into their client's location cache before scanning, so thousands of tasks starting at
+     * once do not all read the metadata table to find the same tablets. Locations that became stale
+     * since the job started are detected and looked up again as usual.
+     * <p>
+     * This option applies to the table being configured and is ignored for offline scans.
+     * <p>
+     * By default, this feature is <b>disabled</b>.
+     *
+     * @since 2.1.0
+     */
+    InputFormatOptions<T> cacheTabletLocations(boolean value);
   }
 }
@@ -134,6 +134,7 @@ public abstract class AccumuloRecordReader<K,V> implements RecordReader<K,V> {
 
     client = createClient(job, CLASS);
     ClientContext context = (ClientContext) client;
+    SplitUtils.loadTabletLocations(context, baseSplit);
     Authorizations authorizations = InputConfigurator.getScanAuthorizations(CLASS, job);
     String classLoaderContext = InputConfigurator.getClassLoaderContext(CLASS, job);
     String table = baseSplit.getTableName();
@@ -327,7 +328,7 @@ public abstract class AccumuloRecordReader<K,V> implements RecordReader<K,V> {
 
         // get the metadata information for these ranges
         Map<String,Map<KeyExtent,List<Range>>> binnedRanges = new HashMap<>();
-        TabletLocator tl;
+        TabletLocator tl = null;
         try {
           if (tableConfig.isOfflineScan()) {
             binnedRanges = binOfflineTable(job, tableId, ranges, callingClass);
@@ -387,6 +388,7 @@ public abstract class AccumuloRecordReader<K,V> implements RecordReader<K,V> {
               BatchInputSplit split =
                   new BatchInputSplit(tableName, tableId, clippedRanges, new String[] {location});
               SplitUtils.updateSplit(split, tableConfig);
+              SplitUtils.setTabletLocations(split, tableConfig, tl, ke);
 
               splits.add(split);
             } else {
@@ -397,6 +399,7 @@ public abstract class AccumuloRecordReader<K,V> implements RecordReader<K,V> {
                   RangeInputSplit split = new RangeInputSplit(tableName, tableId.canonical(),
                       ke.clip(r), new String[] {location});
                   SplitUtils.updateSplit(split, tableConfig);
+                  SplitUtils.setTabletLocations(split, tableConfig, tl, split.getRange());
                   split.setOffline(tableConfig.isOfflineScan());
                   split.setIsolatedScan(tableConfig.shouldUseIsolatedScanners());
                   split.setUsesLocalIterators(tableConfig.shouldUseLocalIterators());
@@ -420,6 +423,7 @@ public abstract class AccumuloRecordReader<K,V> implements RecordReader<K,V> {
             RangeInputSplit split = new RangeInputSplit(tableName, tableId.canonical(),
                 entry.getKey(), entry.getValue().toArray(new String[0]));
             SplitUtils.updateSplit(split, tableConfig);
+            SplitUtils.setTabletLocations(split, tableConfig, tl, split.getRange());
             split.setOffline(tableConfig.isOfflineScan());
             split.setIsolatedScan(tableConfig.shouldUseIsolatedScanners());
             split.setUsesLocalIterators(tableConfig.shouldUseLocalIterators());
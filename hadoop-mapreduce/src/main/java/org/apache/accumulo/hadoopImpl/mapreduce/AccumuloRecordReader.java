@@ -152,6 +152,7 @@ public abstract class AccumuloRecordReader<K,V> extends RecordReader<K,V> {
 
     client = createClient(attempt, this.CLASS);
     ClientContext context = (ClientContext) client;
+    SplitUtils.loadTabletLocations(context, split);
     Authorizations authorizations = InputConfigurator.getScanAuthorizations(CLASS, conf);
     String classLoaderContext = InputConfigurator.getClassLoaderContext(CLASS, conf);
     String table = split.getTableName();
@@ -360,7 +361,7 @@ public abstract class AccumuloRecordReader<K,V> extends RecordReader<K,V> {
 
         // get the metadata information for these ranges
         Map<String,Map<KeyExtent,List<Range>>> binnedRanges = new HashMap<>();
-        TabletLocator tl;
+        TabletLocator tl = null;
         try {
           if (tableConfig.isOfflineScan()) {
             binnedRanges = binOfflineTable(context, tableId, ranges, callingClass);
@@ -423,6 +424,7 @@ public abstract class AccumuloRecordReader<K,V> extends RecordReader<K,V> {
               BatchInputSplit split =
                   new BatchInputSplit(tableName, tableId, clippedRanges, new String[] {location});
               SplitUtils.updateSplit(split, tableConfig);
+              SplitUtils.setTabletLocations(split, tableConfig, tl, ke);
 
               splits.add(split);
             } else {
@@ -433,6 +435,7 @@ public abstract class AccumuloRecordReader<K,V> extends RecordReader<K,V> {
                   RangeInputSplit split = new RangeInputSplit(tableName, tableId.canonical(),
                       ke.clip(r), new String[] {location});
                   SplitUtils.updateSplit(split, tableConfig);
+                  SplitUtils.setTabletLocations(split, tableConfig, tl, split.getRange());
                   split.setOffline(tableConfig.isOfflineScan());
                   split.setIsolatedScan(tableConfig.shouldUseIsolatedScanners());
                   split.setUsesLocalIterators(tableConfig.shouldUseLocalIterators());
@@ -455,6 +458,7 @@ public abstract class AccumuloRecordReader<K,V> extends RecordReader<K,V> {
             RangeInputSplit split = new RangeInputSplit(tableName, tableId.canonical(),
                 entry.getKey(), entry.getValue().toArray(new String[0]));
             SplitUtils.updateSplit(split, tableConfig);
+            SplitUtils.setTabletLocations(split, tableConfig, tl, split.getRange());
             split.setOffline(tableConfig.isOfflineScan());
             split.setIsolatedScan(tableConfig.shouldUseIsolatedScanners());
             split.setUsesLocalIterators(tableConfig.shouldUseLocalIterators());
@@ -174,6 +174,12 @@ public class InputFormatBuilderImpl<T>
     return this;
   }
 
+  @Override
+  public InputFormatOptions<T> cacheTabletLocations(boolean value) {
+    tableConfigMap.get(currentTable).setCacheTabletLocations(value);
+    return this;
+  }
+
   @Override
   public void store(T j) throws AccumuloException, AccumuloSecurityException {
     if (j instanceof Job) {
@@ -235,6 +241,8 @@ public class InputFormatBuilderImpl<T>
       InputConfigurator.setLocalIterators(callingClass, conf, config.shouldUseLocalIterators());
       InputConfigurator.setOfflineTableScan(callingClass, conf, config.isOfflineScan());
       InputConfigurator.setBatchScan(callingClass, conf, config.shouldBatchScan());
+      InputConfigurator.setCacheTabletLocations(callingClass, conf,
+          config.shouldCacheTabletLocations());
     } else {
       InputConfigurator.setInputTableConfigs(callingClass, conf, tableConfigMap);
     }
@@ -63,6 +63,7 @@ public class InputTableConfig implements Writable {
   private boolean useIsolatedScanners = false;
   private boolean offlineScan = false;
   private boolean batchScan = false;
+  private boolean cacheTabletLocations = false;
   private SamplerConfiguration samplerConfig = null;
   private Map<String,String> executionHints = Collections.emptyMap();
 
@@ -271,6 +272,14 @@ public class InputTableConfig implements Writable {
     return batchScan;
   }
 
+  public void setCacheTabletLocations(boolean value) {
+    this.cacheTabletLocations = value;
+  }
+
+  public boolean shouldCacheTabletLocations() {
+    return cacheTabletLocations;
+  }
+
   /**
    * Set the sampler configuration to use when reading from the data.
    */
@@ -361,6 +370,7 @@ public class InputTableConfig implements Writable {
         dataOutput.writeUTF(entry.getValue());
       }
     }
+    dataOutput.writeBoolean(cacheTabletLocations);
   }
 
   @Override
@@ -414,6 +424,7 @@ public class InputTableConfig implements Writable {
       String v = dataInput.readUTF();
       executionHints.put(k, v);
     }
+    cacheTabletLocations = dataInput.readBoolean();
   }
 
   @Override
@@ -433,6 +444,8 @@ public class InputTableConfig implements Writable {
       return false;
     if (useLocalIterators != that.useLocalIterators)
       return false;
+    if (cacheTabletLocations != that.cacheTabletLocations)
+      return false;
     if (!Objects.equals(columns, that.columns))
       return false;
     if (!Objects.equals(iterators, that.iterators))
@@ -453,6 +466,7 @@ public class InputTableConfig implements Writable {
     result = 31 * result + (useLocalIterators ? 1 : 0);
     result = 31 * result + (useIsolatedScanners ? 1 : 0);
     result = 31 * result + (offlineScan ? 1 : 0);
+    result = 31 * result + (cacheTabletLocations ? 1 : 0);
     result = 31 * result + (samplerConfig == null ? 0 : samplerConfig.hashCode());
     result = 31 * result + (executionHints == null ? 0 : executionHints.hashCode());
     return result;
@@ -33,6 +33,7 @@ import java.util.Set;
 
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.client.sample.SamplerConfiguration;
+import org.apache.accumulo.core.clientImpl.TabletLocationSnapshot;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.PartialKey;
@@ -54,6 +55,7 @@ public class RangeInputSplit extends InputSplit implements Writable {
   private List<IteratorSetting> iterators;
   private SamplerConfiguration samplerConfig;
   private Map<String,String> executionHints;
+  private TabletLocationSnapshot tabletLocations;
 
   public RangeInputSplit() {
     range = new Range();
@@ -174,6 +176,11 @@ public class RangeInputSplit extends InputSplit implements Writable {
       String v = in.readUTF();
       executionHints.put(k, v);
     }
+
+    if (in.readBoolean()) {
+      tabletLocations = new TabletLocationSnapshot();
+      tabletLocations.readFields(in);
+    }
   }
 
   @Override
@@ -231,6 +238,11 @@ public class RangeInputSplit extends InputSplit implements Writable {
         out.writeUTF(entry.getValue());
       }
     }
+
+    out.writeBoolean(tabletLocations != null);
+    if (tabletLocations != null) {
+      tabletLocations.write(out);
+    }
   }
 
   public String getTableName() {
@@ -318,6 +330,7 @@ public class RangeInputSplit extends InputSplit implements Writable {
     sb.append(" iterators: ").append(iterators);
     sb.append(" samplerConfig: ").append(samplerConfig);
     sb.append(" executionHints: ").append(executionHints);
+    sb.append(" tabletLocations: ").append(tabletLocations);
     return sb.toString();
   }
 
@@ -336,4 +349,16 @@ public class RangeInputSplit extends InputSplit implements Writable {
   public Map<String,String> getExecutionHints() {
     return executionHints;
   }
+
+  /**
+   * @param tabletLocations
+   *          locations of the tablets the split reads, for the task to load into its location cache
+   */
+  public void setTabletLocations(TabletLocationSnapshot tabletLocations) {
+    this.tabletLocations = tabletLocations;
+  }
+
+  public TabletLocationSnapshot getTabletLocations() {
+    return tabletLocations;
+  }
 }
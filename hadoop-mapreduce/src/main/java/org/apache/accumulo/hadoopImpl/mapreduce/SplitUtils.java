@@ -20,8 +20,12 @@ package org.apache.accumulo.hadoopImpl.mapreduce;
 
 import java.math.BigInteger;
 
+import org.apache.accumulo.core.clientImpl.ClientContext;
+import org.apache.accumulo.core.clientImpl.TabletLocationSnapshot;
+import org.apache.accumulo.core.clientImpl.TabletLocator;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.TableId;
 import org.apache.hadoop.io.Text;
 
 public class SplitUtils {
@@ -37,6 +41,29 @@ public class SplitUtils {
     split.setExecutionHints(tableConfig.getExecutionHints());
   }
 
+  /**
+   * Saves the cached locations of the tablets a split reads in the split, if the split's table is
+   * configured to cache tablet locations. Does nothing when the locator is null, as it is for
+   * offline scans.
+   */
+  public static void setTabletLocations(RangeInputSplit split, InputTableConfig tableConfig,
+      TabletLocator locator, Range range) {
+    if (locator != null && tableConfig.shouldCacheTabletLocations()) {
+      split.setTabletLocations(TabletLocationSnapshot.capture(locator, range));
+    }
+  }
+
+  /**
+   * Loads the tablet locations saved in a split into the location cache of the client that reads
+   * it.
+   */
+  public static void loadTabletLocations(ClientContext context, RangeInputSplit split) {
+    if (split.getTabletLocations() != null) {
+      split.getTabletLocations()
+          .loadInto(TabletLocator.getLocator(context, TableId.of(split.getTableId())));
+    }
+  }
+
   public static float getProgress(ByteSequence start, ByteSequence end, ByteSequence position) {
     int maxDepth = Math.min(Math.max(end.length(), start.length()), position.length());
     BigInteger startBI = new BigInteger(SplitUtils.extractBytes(start, maxDepth));
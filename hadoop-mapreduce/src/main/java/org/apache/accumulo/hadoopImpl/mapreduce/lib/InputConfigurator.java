@@ -112,7 +112,8 @@ public class InputConfigurator extends ConfiguratorBase {
     USE_LOCAL_ITERATORS,
     SCAN_OFFLINE,
     BATCH_SCANNER,
-    BATCH_SCANNER_THREADS
+    BATCH_SCANNER_THREADS,
+    CACHE_TABLET_LOCATIONS
   }
 
   /**
@@ -597,6 +598,45 @@ public class InputConfigurator extends ConfiguratorBase {
     return conf.getBoolean(enumToConfKey(implementingClass, Features.BATCH_SCANNER), false);
   }
 
+  /**
+   * Controls whether the tablet locations found while computing input splits are saved in the
+   * splits, for tasks to load into their location cache. Applies to the single table configuration,
+   * jobs that read multiple tables set it per table with
+   * {@link InputTableConfig#setCacheTabletLocations(boolean)}.
+   *
+   * <p>
+   * By default, this feature is <b>disabled</b>.
+   *
+   * @param implementingClass
+   *          the class whose name will be used as a prefix for the property configuration key
+   * @param conf
+   *          the Hadoop configuration object to configure
+   * @param enableFeature
+   *          the feature is enabled if true, disabled otherwise
+   * @since 2.1.0
+   */
+  public static void setCacheTabletLocations(Class<?> implementingClass, Configuration conf,
+      boolean enableFeature) {
+    conf.setBoolean(enumToConfKey(implementingClass, Features.CACHE_TABLET_LOCATIONS),
+        enableFeature);
+  }
+
+  /**
+   * Determines whether a configuration saves tablet locations in its input splits.
+   *
+   * @param implementingClass
+   *          the class whose name will be used as a prefix for the property configuration key
+   * @param conf
+   *          the Hadoop configuration object to configure
+   * @return true if the feature is enabled, false otherwise
+   * @since 2.1.0
+   * @see #setCacheTabletLocations(Class, Configuration, boolean)
+   */
+  public static Boolean isCacheTabletLocations(Class<?> implementingClass, Configuration conf) {
+    return conf.getBoolean(enumToConfKey(implementingClass, Features.CACHE_TABLET_LOCATIONS),
+        false);
+  }
+
   /**
    * Sets configurations for multiple tables at a time.
    *
@@ -803,6 +843,7 @@ public class InputConfigurator extends ConfiguratorBase {
           .setUseLocalIterators(usesLocalIterators(implementingClass, conf))
           .setOfflineScan(isOfflineScan(implementingClass, conf))
           .setExecutionHints(getExecutionHints(implementingClass, conf));
+      queryConfig.setCacheTabletLocations(isCacheTabletLocations(implementingClass, conf));
       return Maps.immutableEntry(tableName, queryConfig);
     }
     return null;
@@ -61,6 +61,7 @@ public class InputTableConfigTest {
     tableQueryConfig.setOfflineScan(true);
     tableQueryConfig.setUseIsolatedScanners(true);
     tableQueryConfig.setUseLocalIterators(true);
+    tableQueryConfig.setCacheTabletLocations(true);
     byte[] serialized = serialize(tableQueryConfig);
     InputTableConfig actualConfig = deserialize(serialized);
 
@@ -30,12 +30,17 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.clientImpl.TabletLocationSnapshot;
+import org.apache.accumulo.core.clientImpl.TabletLocator.TabletLocation;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
 import org.apache.accumulo.core.iterators.user.SummingCombiner;
 import org.apache.accumulo.core.iterators.user.WholeRowIterator;
 import org.apache.hadoop.io.Text;
@@ -91,6 +96,8 @@ public class RangeInputSplitTest {
     split.setFetchedColumns(fetchedColumns);
     split.setIterators(iterators);
     split.setExecutionHints(Map.of("priority", "9"));
+    split.setTabletLocations(new TabletLocationSnapshot(List.of(new TabletLocation(
+        new KeyExtent(TableId.of("1"), new Text("c"), null), "localhost:9997", "1234"))));
 
     ByteArrayOutputStream baos = new ByteArrayOutputStream();
     DataOutputStream dos = new DataOutputStream(baos);
@@ -112,6 +119,8 @@ public class RangeInputSplitTest {
     assertEquals(split.getFetchedColumns(), newSplit.getFetchedColumns());
     assertEquals(split.getIterators(), newSplit.getIterators());
     assertEquals(split.getExecutionHints(), newSplit.getExecutionHints());
+    assertEquals(split.getTabletLocations().getLocations(),
+        newSplit.getTabletLocations().getLocations());
   }
 
 }
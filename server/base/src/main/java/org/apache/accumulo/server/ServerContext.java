@@ -202,6 +202,13 @@ public class ServerContext extends ClientContext {
    */
   public ThriftServerType getThriftServerType() {
     AccumuloConfiguration conf = getConfiguration();
+    if ((conf.getBoolean(Property.INSTANCE_RPC_SSL_ENABLED)
+        || conf.getBoolean(Property.INSTANCE_RPC_SASL_ENABLED))
+        && ThriftServerType.get(conf.get(Property.GENERAL_RPC_SERVER_TYPE))
+            == ThriftServerType.MULTIPLEXED) {
+      throw new IllegalStateException(
+          "Cannot create a multiplexed Thrift server with SSL or SASL enabled");
+    }
     if (conf.getBoolean(Property.INSTANCE_RPC_SSL_ENABLED)) {
       if (conf.getBoolean(Property.INSTANCE_RPC_SASL_ENABLED)) {
         throw new IllegalStateException(
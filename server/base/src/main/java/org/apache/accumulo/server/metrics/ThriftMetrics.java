@@ -18,11 +18,24 @@
  */
 package org.apache.accumulo.server.metrics;
 
+import org.apache.hadoop.metrics2.lib.MetricsRegistry;
+import org.apache.hadoop.metrics2.lib.MutableCounterLong;
+
 public class ThriftMetrics extends Metrics {
 
+  private final MutableCounterLong bytesRead;
+  private final MutableCounterLong wireBytesRead;
+  private final MutableCounterLong bytesWritten;
+  private final MutableCounterLong wireBytesWritten;
+
   public ThriftMetrics(String serverName, String threadName) {
     super("Thrift,sub=" + serverName, "Thrift Server Metrics - " + serverName + " " + threadName,
         "thrift", serverName);
+    MetricsRegistry registry = getRegistry();
+    bytesRead = registry.newCounter("bytesRead", "Uncompressed size of requests", 0L);
+    wireBytesRead = registry.newCounter("wireBytesRead", "Size of requests on the wire", 0L);
+    bytesWritten = registry.newCounter("bytesWritten", "Uncompressed size of responses", 0L);
+    wireBytesWritten = registry.newCounter("wireBytesWritten", "Size of responses on the wire", 0L);
   }
 
   public void addIdle(long time) {
@@ -33,4 +46,13 @@ public class ThriftMetrics extends Metrics {
     getRegistry().add("execute", time);
   }
 
+  public void addBytesRead(long logical, long wire) {
+    bytesRead.incr(logical);
+    wireBytesRead.incr(wire);
+  }
+
+  public void addBytesWritten(long logical, long wire) {
+    bytesWritten.incr(logical);
+    wireBytesWritten.incr(wire);
+  }
 }
@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.server.rpc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.rpc.MultiplexedConnection;
+import org.apache.accumulo.core.util.NamingThreadFactory;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.server.TServer;
+import org.apache.thrift.transport.TMemoryBuffer;
+import org.apache.thrift.transport.TMemoryInputTransport;
+import org.apache.thrift.transport.TServerSocket;
+import org.apache.thrift.transport.TTransportException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Throwables;
+
+/**
+ * A Thrift server that accepts {@link MultiplexedConnection multiplexed} client connections, on
+ * which a client may have many calls in flight at once. The calls of a connection are run on the
+ * worker pool, in order for each stream of the connection and concurrently across streams, and
+ * their responses are written back as they complete.
+ *
+ * <p>
+ * Clients that do not multiplex their calls use plain framed connections, which are served one call
+ * at a time like any blocking Thrift server. Their calls also run on the worker pool.
+ *
+ * <p>
+ * Each connection is read by a thread of a pool that is shared by all connections. The server
+ * serves a limited number of connections at once, and stops accepting new connections while it is
+ * at that limit. A multiplexed connection can have a limited number of calls queued or running at
+ * once. When it reaches that limit, the server stops reading from the connection until one of its
+ * calls completes, which pushes back on a client that sends calls faster than the server runs them.
+ *
+ * <p>
+ * Connections are plain sockets, this server does not support SSL or SASL.
+ */
+public class MultiplexedThriftServer extends TServer {
+
+  private static final Logger log = LoggerFactory.getLogger(MultiplexedThriftServer.class);
+
+  // named like the field of the Thrift servers so TServerUtils.stopTServer shuts the pool down
+  private final ExecutorService executorService_;
+  private final TServerSocket serverSocket;
+  private final long maxMessageSize;
+  private final int maxCallsPerConnection;
+  private final Semaphore connectionPermits;
+  // runs one thread per connection being served, so no more than the connection limit
+  private final ExecutorService connectionThreads =
+      Executors.newCachedThreadPool(new NamingThreadFactory("Thrift connection"));
+  private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+  private volatile boolean stopped = false;
+
+  /**
+   * @param maxCallsPerConnection
+   *          the most calls of a multiplexed connection that can be queued or running at once
+   * @param maxConnections
+   *          the most connections that are served at once
+   */
+  public MultiplexedThriftServer(Args args, ExecutorService executorService, long maxMessageSize,
+      int maxCallsPerConnection, int maxConnections) {
+    super(args);
+    this.serverSocket = (TServerSocket) serverTransport_;
+    this.executorService_ = executorService;
+    this.maxMessageSize = maxMessageSize;
+    this.maxCallsPerConnection = maxCallsPerConnection;
+    this.connectionPermits = new Semaphore(maxConnections);
+  }
+
+  @Override
+  public void serve() {
+    try {
+      serverSocket.listen();
+    } catch (TTransportException e) {
+      log.error("Error occurred during listening.", e);
+      return;
+    }
+
+    setServing(true);
+    while (!stopped) {
+      // leave new connections in the accept backlog while the server is at its connection limit
+      try {
+        if (!connectionPermits.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+          continue;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+
+      Socket socket;
+      try {
+        socket = serverSocket.getServerSocket().accept();
+      } catch (IOException e) {
+        connectionPermits.release();
+        if (!stopped) {
+          log.warn("Error accepting connection", e);
+        }
+        continue;
+      }
+
+      connections.add(socket);
+      if (stopped) {
+        closeQuietly(socket);
+        break;
+      }
+      connectionThreads.execute(() -> serveConnection(socket));
+    }
+    setServing(false);
+  }
+
+  @Override
+  public void stop() {
+    stopped = true;
+    serverSocket.close();
+    connections.forEach(MultiplexedThriftServer::closeQuietly);
+    connectionThreads.shutdownNow();
+  }
+
+  private void serveConnection(Socket socket) {
+    String clientAddress = socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
+    try {
+      socket.setTcpNoDelay(true);
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+      int first = in.readInt();
+      if (first == MultiplexedConnection.MAGIC) {
+        serveMultiplexed(socket, in, out, clientAddress);
+      } else {
+        serveFramed(first, in, out, clientAddress);
+      }
+    } catch (EOFException e) {
+      // client closed the connection
+    } catch (IOException | TException e) {
+      if (!stopped && !socket.isClosed()) {
+        log.debug("Closing connection from {}", clientAddress, e);
+      }
+    } finally {
+      connections.remove(socket);
+      closeQuietly(socket);
+      connectionPermits.release();
+    }
+  }
+
+  private void serveFramed(int length, DataInputStream in, DataOutputStream out,
+      String clientAddress) throws IOException, TException {
+    while (true) {
+      byte[] request = readFrame(length, in);
+      byte[] response = processOnWorker(request, clientAddress);
+      // oneway calls have no response
+      if (response.length > 0) {
+        out.writeInt(response.length);
+        out.write(response);
+        out.flush();
+      }
+      length = in.readInt();
+    }
+  }
+
+  private void serveMultiplexed(Socket socket, DataInputStream in, DataOutputStream out,
+      String clientAddress) throws IOException {
+    // the last call queued for each stream, calls of a stream are chained so they run in order
+    Map<Integer,CompletableFuture<Void>> streams = new ConcurrentHashMap<>();
+    Semaphore callPermits = new Semaphore(maxCallsPerConnection);
+
+    while (true) {
+      try {
+        callPermits.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted serving multiplexed connection", e);
+      }
+      long tag = in.readLong();
+      byte[] request = readFrame(in.readInt(), in);
+      int stream = (int) (tag >>> 32);
+
+      Runnable call = () -> {
+        try {
+          byte[] response = process(request, clientAddress);
+          synchronized (out) {
+            out.writeLong(tag);
+            out.writeInt(response.length);
+            out.write(response);
+            out.flush();
+          }
+        } catch (IOException | TException | RuntimeException e) {
+          if (!socket.isClosed()) {
+            log.debug("Closing multiplexed connection from {}", clientAddress, e);
+          }
+          closeQuietly(socket);
+        }
+      };
+
+      CompletableFuture<Void> queued = streams.compute(stream,
+          (k, previous) -> previous == null ? CompletableFuture.runAsync(call, executorService_)
+              : previous.thenRunAsync(call, executorService_));
+      queued.whenComplete((v, t) -> {
+        streams.remove(stream, queued);
+        callPermits.release();
+      });
+    }
+  }
+
+  private byte[] readFrame(int length, DataInputStream in) throws IOException {
+    if (length < 0 || length > maxMessageSize) {
+      throw new IOException(
+          "Frame size " + length + " is invalid or exceeds the maximum of " + maxMessageSize);
+    }
+    byte[] frame = new byte[length];
+    in.readFully(frame);
+    return frame;
+  }
+
+  /**
+   * Runs a call on the worker pool and waits for its response, so the calls of framed connections
+   * share the pool with the calls of multiplexed ones.
+   */
+  private byte[] processOnWorker(byte[] request, String clientAddress)
+      throws IOException, TException {
+    Future<byte[]> response = executorService_.submit(() -> process(request, clientAddress));
+    try {
+      return response.get();
+    } catch (InterruptedException e) {
+      response.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted serving framed connection", e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), TException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private byte[] process(byte[] request, String clientAddress) throws TException {
+    TServerUtils.clientAddress.set(clientAddress);
+    try {
+      TMemoryInputTransport inputTransport = new TMemoryInputTransport(request);
+      TMemoryBuffer outputTransport = new TMemoryBuffer(128);
+      TProtocol inputProtocol = inputProtocolFactory_.getProtocol(inputTransport);
+      TProtocol outputProtocol = outputProtocolFactory_.getProtocol(outputTransport);
+      processorFactory_.getProcessor(inputTransport).process(inputProtocol, outputProtocol);
+      return Arrays.copyOf(outputTransport.getArray(), outputTransport.length());
+    } finally {
+      TServerUtils.clientAddress.remove();
+    }
+  }
+
+  private static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      log.debug("Error closing connection", e);
+    }
+  }
+}
@@ -32,6 +32,8 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Collectors;
 
@@ -40,6 +42,7 @@ import javax.net.ssl.SSLServerSocket;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.conf.PropertyType;
+import org.apache.accumulo.core.rpc.CompressedTransport;
 import org.apache.accumulo.core.rpc.SslConnectionParams;
 import org.apache.accumulo.core.rpc.ThriftUtil;
 import org.apache.accumulo.core.rpc.UGIAssumingTransportFactory;
@@ -143,6 +146,24 @@ public class TServerUtils {
       String threadName, Property portSearchProperty, Property minThreadProperty,
       Property timeBetweenThreadChecksProperty, Property maxMessageSizeProperty)
       throws UnknownHostException {
+    return startServer(metricsSystem, service, hostname, portHintProperty, processor, serverName,
+        threadName, portSearchProperty, minThreadProperty, timeBetweenThreadChecksProperty,
+        maxMessageSizeProperty, null);
+  }
+
+  /**
+   * Start a server, running its RPCs on virtual threads when the given boolean property is set.
+   *
+   * @param virtualThreadsProperty
+   *          A boolean Property to control if RPCs run on virtual threads, or null to disable
+   * @see #startServer(MetricsSystem, ServerContext, String, Property, TProcessor, String, String,
+   *      Property, Property, Property, Property)
+   */
+  public static ServerAddress startServer(MetricsSystem metricsSystem, ServerContext service,
+      String hostname, Property portHintProperty, TProcessor processor, String serverName,
+      String threadName, Property portSearchProperty, Property minThreadProperty,
+      Property timeBetweenThreadChecksProperty, Property maxMessageSizeProperty,
+      Property virtualThreadsProperty) throws UnknownHostException {
     final AccumuloConfiguration config = service.getConfiguration();
 
     final int[] portHint = config.getPort(portHintProperty);
@@ -167,6 +188,21 @@ public class TServerUtils {
       portSearch = config.getBoolean(portSearchProperty);
     }
 
+    boolean virtualThreads = false;
+    if (virtualThreadsProperty != null) {
+      virtualThreads = config.getBoolean(virtualThreadsProperty);
+    }
+
+    final int maxConnections =
+        config.getCount(Property.GENERAL_RPC_MULTIPLEX_SERVER_CONNECTIONS_MAX);
+
+    int compressionThreshold = -1;
+    if (config.getBoolean(Property.GENERAL_RPC_COMPRESSION_ENABLED)) {
+      compressionThreshold = (int) config.getAsBytes(Property.GENERAL_RPC_COMPRESSION_THRESHOLD);
+    }
+    final TProtocolFactory protocolFactory = CompressedTransport
+        .serverProtocolFactory(ThriftUtil.protocolFactory(), compressionThreshold, maxMessageSize);
+
     final int simpleTimerThreadpoolSize =
         config.getCount(Property.GENERAL_SIMPLETIMER_THREADPOOL_SIZE);
     final ThriftServerType serverType = service.getThriftServerType();
@@ -183,10 +219,10 @@ public class TServerUtils {
 
     HostAndPort[] addresses = getHostAndPorts(hostname, portHint);
     try {
-      return TServerUtils.startTServer(serverType, timedProcessor, serverName, threadName,
-          minThreads, simpleTimerThreadpoolSize, timeBetweenThreadChecks, maxMessageSize,
-          service.getServerSslParams(), service.getSaslParams(), service.getClientTimeoutInMillis(),
-          addresses);
+      return TServerUtils.startTServer(serverType, timedProcessor, protocolFactory, serverName,
+          threadName, minThreads, simpleTimerThreadpoolSize, timeBetweenThreadChecks,
+          maxMessageSize, service.getServerSslParams(), service.getSaslParams(),
+          service.getClientTimeoutInMillis(), virtualThreads, maxConnections, addresses);
     } catch (TTransportException e) {
       if (portSearch) {
         // Build a list of reserved ports - as identified by properties of type PropertyType.PORT
@@ -208,10 +244,11 @@ public class TServerUtils {
           }
           try {
             HostAndPort addr = HostAndPort.fromParts(hostname, port);
-            return TServerUtils.startTServer(serverType, timedProcessor, serverName, threadName,
-                minThreads, simpleTimerThreadpoolSize, timeBetweenThreadChecks, maxMessageSize,
-                service.getServerSslParams(), service.getSaslParams(),
-                service.getClientTimeoutInMillis(), addr);
+            return TServerUtils.startTServer(serverType, timedProcessor, protocolFactory,
+                serverName, threadName, minThreads, simpleTimerThreadpoolSize,
+                timeBetweenThreadChecks, maxMessageSize, service.getServerSslParams(),
+                service.getSaslParams(), service.getClientTimeoutInMillis(), virtualThreads,
+                maxConnections, addr);
           } catch (TTransportException tte) {
             log.info("Unable to use port {}, retrying. (Thread Name = {})", port, threadName);
           }
@@ -232,7 +269,7 @@ public class TServerUtils {
   public static ServerAddress createThreadedSelectorServer(HostAndPort address,
       TProcessor processor, TProtocolFactory protocolFactory, final String serverName,
       final int numThreads, final int numSTThreads, long timeBetweenThreadChecks,
-      long maxMessageSize) throws TTransportException {
+      long maxMessageSize, boolean virtualThreads) throws TTransportException {
 
     final TNonblockingServerSocket transport =
         new TNonblockingServerSocket(new InetSocketAddress(address.getHost(), address.getPort()));
@@ -247,8 +284,8 @@ public class TServerUtils {
     options.stopTimeoutVal(5);
 
     // Create our own very special thread pool.
-    ThreadPoolExecutor pool =
-        createSelfResizingThreadPool(serverName, numThreads, numSTThreads, timeBetweenThreadChecks);
+    ExecutorService pool = createExecutor(serverName, numThreads, numSTThreads,
+        timeBetweenThreadChecks, virtualThreads);
 
     options.executorService(pool);
     options.processorFactory(new TProcessorFactory(processor));
@@ -266,8 +303,8 @@ public class TServerUtils {
    */
   public static ServerAddress createNonBlockingServer(HostAndPort address, TProcessor processor,
       TProtocolFactory protocolFactory, final String serverName, final int numThreads,
-      final int numSTThreads, long timeBetweenThreadChecks, long maxMessageSize)
-      throws TTransportException {
+      final int numSTThreads, long timeBetweenThreadChecks, long maxMessageSize,
+      boolean virtualThreads) throws TTransportException {
 
     final TNonblockingServerSocket transport =
         new TNonblockingServerSocket(new InetSocketAddress(address.getHost(), address.getPort()));
@@ -279,8 +316,8 @@ public class TServerUtils {
     options.stopTimeoutVal(5);
 
     // Create our own very special thread pool.
-    ThreadPoolExecutor pool =
-        createSelfResizingThreadPool(serverName, numThreads, numSTThreads, timeBetweenThreadChecks);
+    ExecutorService pool = createExecutor(serverName, numThreads, numSTThreads,
+        timeBetweenThreadChecks, virtualThreads);
 
     options.executorService(pool);
     options.processorFactory(new TProcessorFactory(processor));
@@ -333,6 +370,46 @@ public class TServerUtils {
     return pool;
   }
 
+  /**
+   * Creates the executor a Thrift server runs its RPCs on: a {@link SimpleThreadPool} that resizes
+   * itself, or one virtual thread per RPC when <code>virtualThreads</code> is true and the JVM
+   * supports virtual threads.
+   */
+  private static ExecutorService createExecutor(String serverName, int executorThreads,
+      int simpleTimerThreads, long timeBetweenThreadChecks, boolean virtualThreads) {
+    if (virtualThreads) {
+      ExecutorService executor = createVirtualThreadExecutor("ClientPool-virtual-");
+      if (executor != null) {
+        log.info("Running RPCs for {} on virtual threads", serverName);
+        return executor;
+      }
+      log.warn("Virtual threads are not supported by this JVM, running RPCs for {} on a thread"
+          + " pool", serverName);
+    }
+    return createSelfResizingThreadPool(serverName, executorThreads, simpleTimerThreads,
+        timeBetweenThreadChecks);
+  }
+
+  /**
+   * Creates an executor that starts a new virtual thread for each task, or returns null when the
+   * JVM does not support virtual threads. The Java 21 API is called reflectively because Accumulo
+   * is built for Java 11.
+   */
+  static ExecutorService createVirtualThreadExecutor(String namePrefix) {
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder =
+          builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+      ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+      return (ExecutorService) Executors.class
+          .getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      log.debug("Virtual threads are not available", e);
+      return null;
+    }
+  }
+
   /**
    * Creates a TThreadPoolServer for normal unsecure operation. Useful for comparing performance
    * against SSL or SASL transports.
@@ -347,13 +424,14 @@ public class TServerUtils {
    */
   public static ServerAddress createBlockingServer(HostAndPort address, TProcessor processor,
       TProtocolFactory protocolFactory, long maxMessageSize, String serverName, int numThreads,
-      int numSimpleTimerThreads, long timeBetweenThreadChecks) throws TTransportException {
+      int numSimpleTimerThreads, long timeBetweenThreadChecks, boolean virtualThreads)
+      throws TTransportException {
 
     InetSocketAddress isa = new InetSocketAddress(address.getHost(), address.getPort());
     // Must use an ISA, providing only a port would ignore the hostname given
     TServerSocket transport = new TServerSocket(isa);
-    ThreadPoolExecutor pool = createSelfResizingThreadPool(serverName, numThreads,
-        numSimpleTimerThreads, timeBetweenThreadChecks);
+    ExecutorService pool = createExecutor(serverName, numThreads, numSimpleTimerThreads,
+        timeBetweenThreadChecks, virtualThreads);
     TThreadPoolServer server = createTThreadPoolServer(transport, processor,
         ThriftUtil.transportFactory(maxMessageSize), protocolFactory, pool);
 
@@ -367,6 +445,37 @@ public class TServerUtils {
 
   }
 
+  /**
+   * Create a {@link MultiplexedThriftServer}, which serves multiplexed client connections as well
+   * as framed ones, with a custom thread pool that can dynamically resize itself. A multiplexed
+   * connection can have as many calls in flight as the pool has threads to start with, and at most
+   * maxConnections connections are served at once.
+   */
+  public static ServerAddress createMultiplexedServer(HostAndPort address, TProcessor processor,
+      TProtocolFactory protocolFactory, long maxMessageSize, String serverName, int numThreads,
+      int numSimpleTimerThreads, long timeBetweenThreadChecks, boolean virtualThreads,
+      int maxConnections) throws TTransportException {
+
+    InetSocketAddress isa = new InetSocketAddress(address.getHost(), address.getPort());
+    TServerSocket transport = new TServerSocket(isa);
+    ExecutorService pool = createExecutor(serverName, numThreads, numSimpleTimerThreads,
+        timeBetweenThreadChecks, virtualThreads);
+
+    TServer.Args options = new TServer.Args(transport);
+    options.protocolFactory(protocolFactory);
+    options.processorFactory(new TProcessorFactory(processor));
+
+    if (address.getPort() == 0) {
+      address =
+          HostAndPort.fromParts(address.getHost(), transport.getServerSocket().getLocalPort());
+      log.info("Multiplexed Server bound on {}", address);
+    }
+
+    return new ServerAddress(
+        new MultiplexedThriftServer(options, pool, maxMessageSize, numThreads, maxConnections),
+        address);
+  }
+
   /**
    * Create a {@link TThreadPoolServer} with the provided server transport, processor and transport
    * factory.
@@ -457,8 +566,8 @@ public class TServerUtils {
    */
   public static ServerAddress createSslThreadPoolServer(HostAndPort address, TProcessor processor,
       TProtocolFactory protocolFactory, long socketTimeout, SslConnectionParams sslParams,
-      String serverName, int numThreads, int numSimpleTimerThreads, long timeBetweenThreadChecks)
-      throws TTransportException {
+      String serverName, int numThreads, int numSimpleTimerThreads, long timeBetweenThreadChecks,
+      boolean virtualThreads) throws TTransportException {
     TServerSocket transport;
     try {
       transport = getSslServerSocket(address.getPort(), (int) socketTimeout,
@@ -473,8 +582,8 @@ public class TServerUtils {
       log.info("SSL Thread Pool Server bound on {}", address);
     }
 
-    ThreadPoolExecutor pool = createSelfResizingThreadPool(serverName, numThreads,
-        numSimpleTimerThreads, timeBetweenThreadChecks);
+    ExecutorService pool = createExecutor(serverName, numThreads, numSimpleTimerThreads,
+        timeBetweenThreadChecks, virtualThreads);
 
     return new ServerAddress(createTThreadPoolServer(transport, processor,
         ThriftUtil.transportFactory(), protocolFactory, pool), address);
@@ -483,7 +592,7 @@ public class TServerUtils {
   public static ServerAddress createSaslThreadPoolServer(HostAndPort address, TProcessor processor,
       TProtocolFactory protocolFactory, long socketTimeout, SaslServerConnectionParams params,
       final String serverName, final int numThreads, final int numSTThreads,
-      long timeBetweenThreadChecks) throws TTransportException {
+      long timeBetweenThreadChecks, boolean virtualThreads) throws TTransportException {
     // We'd really prefer to use THsHaServer (or similar) to avoid 1 RPC == 1 Thread that the
     // TThreadPoolServer does,
     // but sadly this isn't the case. Because TSaslTransport needs to issue a handshake when it
@@ -564,8 +673,8 @@ public class TServerUtils {
       log.info("SASL thrift server bound on {}", address);
     }
 
-    ThreadPoolExecutor pool =
-        createSelfResizingThreadPool(serverName, numThreads, numSTThreads, timeBetweenThreadChecks);
+    ExecutorService pool = createExecutor(serverName, numThreads, numSTThreads,
+        timeBetweenThreadChecks, virtualThreads);
 
     final TThreadPoolServer server =
         createTThreadPoolServer(transport, processor, ugiTransportFactory, protocolFactory, pool);
@@ -615,6 +724,27 @@ public class TServerUtils {
       int numSTThreads, long timeBetweenThreadChecks, long maxMessageSize,
       SslConnectionParams sslParams, SaslServerConnectionParams saslParams,
       long serverSocketTimeout, HostAndPort... addresses) throws TTransportException {
+    return startTServer(serverType, processor, protocolFactory, serverName, threadName, numThreads,
+        numSTThreads, timeBetweenThreadChecks, maxMessageSize, sslParams, saslParams,
+        serverSocketTimeout, false,
+        Integer.parseInt(Property.GENERAL_RPC_MULTIPLEX_SERVER_CONNECTIONS_MAX.getDefaultValue()),
+        addresses);
+  }
+
+  /**
+   * Start the appropriate Thrift server for the given parameters, running its RPCs on virtual
+   * threads when <code>virtualThreads</code> is true and the JVM supports them. A multiplexed
+   * server serves at most <code>maxConnections</code> connections at once.
+   *
+   * @see #startTServer(ThriftServerType, TimedProcessor, TProtocolFactory, String, String, int,
+   *      int, long, long, SslConnectionParams, SaslServerConnectionParams, long, HostAndPort...)
+   */
+  public static ServerAddress startTServer(ThriftServerType serverType, TimedProcessor processor,
+      TProtocolFactory protocolFactory, String serverName, String threadName, int numThreads,
+      int numSTThreads, long timeBetweenThreadChecks, long maxMessageSize,
+      SslConnectionParams sslParams, SaslServerConnectionParams saslParams,
+      long serverSocketTimeout, boolean virtualThreads, int maxConnections,
+      HostAndPort... addresses) throws TTransportException {
 
     // This is presently not supported. It's hypothetically possible, I believe, to work, but it
     // would require changes in how the transports
@@ -629,30 +759,40 @@ public class TServerUtils {
         switch (serverType) {
           case SSL:
             log.debug("Instantiating SSL Thrift server");
-            serverAddress =
-                createSslThreadPoolServer(address, processor, protocolFactory, serverSocketTimeout,
-                    sslParams, serverName, numThreads, numSTThreads, timeBetweenThreadChecks);
+            serverAddress = createSslThreadPoolServer(address, processor, protocolFactory,
+                serverSocketTimeout, sslParams, serverName, numThreads, numSTThreads,
+                timeBetweenThreadChecks, virtualThreads);
             break;
           case SASL:
             log.debug("Instantiating SASL Thrift server");
-            serverAddress =
-                createSaslThreadPoolServer(address, processor, protocolFactory, serverSocketTimeout,
-                    saslParams, serverName, numThreads, numSTThreads, timeBetweenThreadChecks);
+            serverAddress = createSaslThreadPoolServer(address, processor, protocolFactory,
+                serverSocketTimeout, saslParams, serverName, numThreads, numSTThreads,
+                timeBetweenThreadChecks, virtualThreads);
             break;
           case THREADPOOL:
             log.debug("Instantiating unsecure TThreadPool Thrift server");
-            serverAddress = createBlockingServer(address, processor, protocolFactory,
-                maxMessageSize, serverName, numThreads, numSTThreads, timeBetweenThreadChecks);
+            serverAddress =
+                createBlockingServer(address, processor, protocolFactory, maxMessageSize,
+                    serverName, numThreads, numSTThreads, timeBetweenThreadChecks, virtualThreads);
             break;
           case THREADED_SELECTOR:
             log.debug("Instantiating default, unsecure Threaded selector Thrift server");
             serverAddress = createThreadedSelectorServer(address, processor, protocolFactory,
-                serverName, numThreads, numSTThreads, timeBetweenThreadChecks, maxMessageSize);
+                serverName, numThreads, numSTThreads, timeBetweenThreadChecks, maxMessageSize,
+                virtualThreads);
+            break;
+          case MULTIPLEXED:
+            checkArgument(sslParams == null && saslParams == null,
+                "The multiplexed Thrift server does not support SSL or SASL");
+            log.debug("Instantiating unsecure multiplexed Thrift server");
+            serverAddress = createMultiplexedServer(address, processor, protocolFactory,
+                maxMessageSize, serverName, numThreads, numSTThreads, timeBetweenThreadChecks,
+                virtualThreads, maxConnections);
             break;
           case CUSTOM_HS_HA:
             log.debug("Instantiating unsecure custom half-async Thrift server");
             serverAddress = createNonBlockingServer(address, processor, protocolFactory, serverName,
-                numThreads, numSTThreads, timeBetweenThreadChecks, maxMessageSize);
+                numThreads, numSTThreads, timeBetweenThreadChecks, maxMessageSize, virtualThreads);
             break;
           default:
             throw new IllegalArgumentException("Unknown server type " + serverType);
@@ -34,7 +34,8 @@ public enum ThriftServerType {
   THREADPOOL("threadpool"),
   SSL("ssl"),
   SASL("sasl"),
-  THREADED_SELECTOR("threaded_selector");
+  THREADED_SELECTOR("threaded_selector"),
+  MULTIPLEXED("multiplexed");
 
   private final String name;
 
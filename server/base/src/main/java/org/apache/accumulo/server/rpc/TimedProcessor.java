@@ -19,16 +19,19 @@
 package org.apache.accumulo.server.rpc;
 
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.rpc.CompressedTransport;
 import org.apache.accumulo.server.metrics.ThriftMetrics;
 import org.apache.hadoop.metrics2.MetricsSystem;
 import org.apache.thrift.TException;
 import org.apache.thrift.TProcessor;
 import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TTransport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A {@link TProcessor} which tracks the duration of an RPC and adds it to the metrics subsystem.
+ * A {@link TProcessor} which tracks the duration of an RPC, and the size of its messages when they
+ * pass through a {@link CompressedTransport}, and adds them to the metrics subsystem.
  */
 public class TimedProcessor implements TProcessor {
   private static final Logger log = LoggerFactory.getLogger(TimedProcessor.class);
@@ -64,6 +67,18 @@ public class TimedProcessor implements TProcessor {
     } finally {
       idleStart = System.currentTimeMillis();
       thriftMetrics.addExecute(idleStart - now);
+      addBytes(in.getTransport(), out.getTransport());
+    }
+  }
+
+  private void addBytes(TTransport in, TTransport out) {
+    if (in instanceof CompressedTransport && out instanceof CompressedTransport) {
+      CompressedTransport input = (CompressedTransport) in;
+      CompressedTransport output = (CompressedTransport) out;
+      thriftMetrics.addBytesRead(input.getLogicalBytesRead(), input.getWireBytesRead());
+      thriftMetrics.addBytesWritten(output.getLogicalBytesWritten(), output.getWireBytesWritten());
+      input.resetCounts();
+      output.resetCounts();
     }
   }
 }
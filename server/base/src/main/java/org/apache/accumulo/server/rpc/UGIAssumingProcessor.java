@@ -22,6 +22,7 @@ import java.io.IOException;
 
 import javax.security.sasl.SaslServer;
 
+import org.apache.accumulo.core.rpc.CompressedTransport;
 import org.apache.accumulo.core.rpc.SaslConnectionParams.SaslMechanism;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.thrift.TException;
@@ -77,6 +78,9 @@ public class UGIAssumingProcessor implements TProcessor {
   @Override
   public boolean process(final TProtocol inProt, final TProtocol outProt) throws TException {
     TTransport trans = inProt.getTransport();
+    if (trans instanceof CompressedTransport) {
+      trans = ((CompressedTransport) trans).getWrapped();
+    }
     if (!(trans instanceof TSaslServerTransport)) {
       throw new TException("Unexpected non-SASL transport " + trans.getClass() + ": " + trans);
     }
@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.server.rpc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.accumulo.core.gc.thrift.GCMonitorService;
+import org.apache.accumulo.core.gc.thrift.GCStatus;
+import org.apache.accumulo.core.gc.thrift.GcCycleStats;
+import org.apache.accumulo.core.rpc.MultiplexedConnection;
+import org.apache.accumulo.core.rpc.ThriftUtil;
+import org.apache.accumulo.core.securityImpl.thrift.TCredentials;
+import org.apache.accumulo.core.trace.thrift.TInfo;
+import org.apache.accumulo.core.util.Daemon;
+import org.apache.accumulo.core.util.HostAndPort;
+import org.apache.thrift.TException;
+import org.apache.thrift.transport.TFramedTransport;
+import org.apache.thrift.transport.TSocket;
+import org.apache.thrift.transport.TTransport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class MultiplexedThriftServerTest {
+
+  private static final Logger log = LoggerFactory.getLogger(MultiplexedThriftServerTest.class);
+
+  private static final int CALL_MILLIS = 2;
+
+  private final AtomicInteger running = new AtomicInteger();
+  private final AtomicInteger maxRunning = new AtomicInteger();
+  private ServerAddress server;
+
+  /**
+   * Echoes the trace id of each call in the status it returns, after a short delay.
+   */
+  private class EchoHandler implements GCMonitorService.Iface {
+    @Override
+    public GCStatus getStatus(TInfo tinfo, TCredentials credentials) {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(CALL_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        running.decrementAndGet();
+      }
+      GcCycleStats stats = new GcCycleStats();
+      stats.setStarted(tinfo.getTraceId());
+      return new GCStatus(stats, new GcCycleStats(), new GcCycleStats(), new GcCycleStats());
+    }
+  }
+
+  @Before
+  public void startServer() throws Exception {
+    startServer(64, 64);
+  }
+
+  private void startServer(int numThreads, int maxConnections) throws Exception {
+    server = TServerUtils.createMultiplexedServer(HostAndPort.fromParts("localhost", 0),
+        new GCMonitorService.Processor<>(new EchoHandler()), ThriftUtil.protocolFactory(),
+        1024 * 1024, "MultiplexedThriftServerTest", numThreads, 1, 1000, false, maxConnections);
+    new Daemon(server.server::serve, "MultiplexedThriftServerTest").start();
+    while (!server.server.isServing()) {
+      Thread.sleep(10);
+    }
+  }
+
+  @After
+  public void stopServer() {
+    TServerUtils.stopTServer(server.server);
+  }
+
+  private static void call(TTransport transport, long id) throws Exception {
+    GCMonitorService.Client client =
+        new GCMonitorService.Client(ThriftUtil.protocolFactory().getProtocol(transport));
+    GCStatus status = client.getStatus(new TInfo(id, 0), new TCredentials());
+    assertEquals(id, status.getLast().getStarted());
+  }
+
+  /**
+   * Runs the calls of the given number of client threads over the given number of connections and
+   * returns the number of calls made per second.
+   */
+  private double run(int connections, int threads, int callsPerThread) throws Exception {
+    List<MultiplexedConnection> conns = new ArrayList<>();
+    for (int i = 0; i < connections; i++) {
+      conns.add(MultiplexedConnection.open(server.address, 5000, 1024 * 1024));
+    }
+
+    ExecutorService clients = Executors.newFixedThreadPool(threads);
+    try {
+      long start = System.nanoTime();
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        MultiplexedConnection conn = conns.get(t % connections);
+        long first = (long) t * callsPerThread;
+        futures.add(clients.submit(() -> {
+          TTransport transport = conn.newTransport(30000);
+          for (long id = first; id < first + callsPerThread; id++) {
+            call(transport, id);
+          }
+          transport.close();
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      long elapsed = System.nanoTime() - start;
+      return threads * callsPerThread / (elapsed / (double) TimeUnit.SECONDS.toNanos(1));
+    } finally {
+      clients.shutdownNow();
+      conns.forEach(MultiplexedConnection::close);
+    }
+  }
+
+  @Test
+  public void testConcurrentCallsOverOneConnection() throws Exception {
+    run(1, 16, 50);
+    // calls of different streams must have run at the same time over the single connection
+    assertTrue("max concurrent calls " + maxRunning.get(), maxRunning.get() > 1);
+  }
+
+  @Test
+  public void testCallsPerConnectionLimited() throws Exception {
+    stopServer();
+    startServer(2, 64);
+    run(1, 16, 20);
+    // the server stops reading calls from the connection while it has 2 in flight
+    assertTrue("max concurrent calls " + maxRunning.get(), maxRunning.get() <= 2);
+  }
+
+  @Test
+  public void testOversizedResponseFailsCalls() throws Exception {
+    try (ServerSocket fakeServer = new ServerSocket(0)) {
+      new Daemon(() -> {
+        try (Socket socket = fakeServer.accept()) {
+          DataInputStream in = new DataInputStream(socket.getInputStream());
+          DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+          in.readInt();
+          long tag = in.readLong();
+          in.readFully(new byte[in.readInt()]);
+          // answer with a frame larger than the client accepts
+          out.writeLong(tag);
+          out.writeInt(Integer.MAX_VALUE);
+          out.flush();
+          in.read();
+        } catch (IOException e) {
+          // the client closed the connection
+        }
+      }, "fake multiplexed server").start();
+
+      MultiplexedConnection conn = MultiplexedConnection
+          .open(HostAndPort.fromParts("localhost", fakeServer.getLocalPort()), 5000, 1024 * 1024);
+      TTransport transport = conn.newTransport(0);
+      // without a timeout the call would wait forever if the failure did not reach it
+      assertThrows(TException.class, () -> call(transport, 1));
+      assertFalse(conn.isOpen());
+      assertEquals(0, conn.getPendingCalls());
+    }
+  }
+
+  @Test
+  public void testConnectionCountVersusThroughput() throws Exception {
+    int threads = 32;
+    double oneConnectionPerThread = run(threads, threads, 50);
+    for (int connections : new int[] {1, 2, 4}) {
+      double throughput = run(connections, threads, 50);
+      log.info("{} client threads over {} connections: {} calls/sec ({} calls/sec with {})",
+          threads, connections, String.format("%.0f", throughput),
+          String.format("%.0f", oneConnectionPerThread), threads);
+      // a few connections should keep up with one connection per thread, allow for a noisy host
+      assertTrue(connections + " connections made " + throughput + " calls/sec",
+          throughput > oneConnectionPerThread / 4);
+    }
+  }
+
+  private TTransport openFramed() throws Exception {
+    TTransport transport =
+        new TFramedTransport(new TSocket(server.address.getHost(), server.address.getPort()));
+    transport.open();
+    return transport;
+  }
+
+  @Test
+  public void testFramedCallsRunOnWorkerPool() throws Exception {
+    stopServer();
+    startServer(2, 64);
+    ExecutorService clients = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        long first = t * 10L;
+        futures.add(clients.submit(() -> {
+          try (TTransport transport = openFramed()) {
+            for (long id = first; id < first + 10; id++) {
+              call(transport, id);
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      clients.shutdownNow();
+    }
+    // each framed connection has its own reader thread, but only the 2 workers run calls
+    assertTrue("max concurrent calls " + maxRunning.get(), maxRunning.get() <= 2);
+  }
+
+  @Test
+  public void testConnectionsLimited() throws Exception {
+    stopServer();
+    startServer(4, 2);
+    ExecutorService clients = Executors.newSingleThreadExecutor();
+    try (TTransport first = openFramed(); TTransport second = openFramed()) {
+      call(first, 1);
+      call(second, 2);
+      // the third connection is not served until one of the others closes
+      Future<?> third = clients.submit(() -> {
+        try (TTransport transport = openFramed()) {
+          call(transport, 3);
+        }
+        return null;
+      });
+      assertThrows(TimeoutException.class, () -> third.get(500, TimeUnit.MILLISECONDS));
+      first.close();
+      third.get(30, TimeUnit.SECONDS);
+    } finally {
+      clients.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testFramedClients() throws Exception {
+    try (TTransport transport =
+        new TFramedTransport(new TSocket(server.address.getHost(), server.address.getPort()))) {
+      transport.open();
+      for (long id = 0; id < 10; id++) {
+        call(transport, id);
+      }
+    }
+  }
+}
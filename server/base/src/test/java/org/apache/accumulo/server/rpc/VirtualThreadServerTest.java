@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.server.rpc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.gc.thrift.GCMonitorService;
+import org.apache.accumulo.core.gc.thrift.GCStatus;
+import org.apache.accumulo.core.gc.thrift.GcCycleStats;
+import org.apache.accumulo.core.rpc.ThriftUtil;
+import org.apache.accumulo.core.securityImpl.thrift.TCredentials;
+import org.apache.accumulo.core.trace.thrift.TInfo;
+import org.apache.accumulo.core.util.Daemon;
+import org.apache.accumulo.core.util.HostAndPort;
+import org.apache.thrift.transport.TFramedTransport;
+import org.apache.thrift.transport.TSocket;
+import org.apache.thrift.transport.TTransport;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class VirtualThreadServerTest {
+
+  private static final Logger log = LoggerFactory.getLogger(VirtualThreadServerTest.class);
+
+  /**
+   * Echoes the trace id of each call after blocking for a while, like a call waiting on a write
+   * ahead log sync would.
+   */
+  private static class BlockingHandler implements GCMonitorService.Iface {
+    @Override
+    public GCStatus getStatus(TInfo tinfo, TCredentials credentials) {
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      GcCycleStats stats = new GcCycleStats();
+      stats.setStarted(tinfo.getTraceId());
+      return new GCStatus(stats, new GcCycleStats(), new GcCycleStats(), new GcCycleStats());
+    }
+  }
+
+  @Test
+  public void testVirtualThreadExecutor() throws Exception {
+    ExecutorService executor = TServerUtils.createVirtualThreadExecutor("test-virtual-");
+    assumeTrue("virtual threads are not supported by this JVM", executor != null);
+    try {
+      String name = executor.submit(() -> Thread.currentThread().getName()).get();
+      assertTrue(name, name.startsWith("test-virtual-"));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Runs many client sessions that each hold a connection to a thread per connection server and
+   * returns the number of calls made per second.
+   */
+  private double runSessions(boolean virtualThreads, int sessions, int callsPerSession)
+      throws Exception {
+    ServerAddress server = TServerUtils.createBlockingServer(HostAndPort.fromParts("localhost", 0),
+        new GCMonitorService.Processor<>(new BlockingHandler()), ThriftUtil.protocolFactory(),
+        1024 * 1024, "VirtualThreadServerTest", 8, 1, 1000, virtualThreads);
+    new Daemon(server.server::serve, "VirtualThreadServerTest").start();
+    while (!server.server.isServing()) {
+      Thread.sleep(10);
+    }
+
+    ExecutorService clients = Executors.newFixedThreadPool(sessions);
+    try {
+      long start = System.nanoTime();
+      List<Future<?>> futures = new ArrayList<>();
+      for (int s = 0; s < sessions; s++) {
+        long first = (long) s * callsPerSession;
+        futures.add(clients.submit(() -> {
+          try (TTransport transport = new TFramedTransport(
+              new TSocket(server.address.getHost(), server.address.getPort()))) {
+            transport.open();
+            GCMonitorService.Client client =
+                new GCMonitorService.Client(ThriftUtil.protocolFactory().getProtocol(transport));
+            for (long id = first; id < first + callsPerSession; id++) {
+              assertEquals(id,
+                  client.getStatus(new TInfo(id, 0), new TCredentials()).getLast().getStarted());
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      double secs = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+      return sessions * callsPerSession / secs;
+    } finally {
+      clients.shutdownNow();
+      TServerUtils.stopTServer(server.server);
+    }
+  }
+
+  @Test
+  public void testConcurrentSessions() throws Exception {
+    int sessions = 64;
+    double pooled = runSessions(false, sessions, 20);
+    log.info("{} sessions on a thread pool: {} calls/sec", sessions, String.format("%.0f", pooled));
+
+    ExecutorService executor = TServerUtils.createVirtualThreadExecutor("probe-");
+    assumeTrue("virtual threads are not supported by this JVM", executor != null);
+    executor.shutdown();
+
+    double virtual = runSessions(true, sessions, 20);
+    log.info("{} sessions on virtual threads: {} calls/sec", sessions,
+        String.format("%.0f", virtual));
+    // every session gets a thread right away instead of waiting for the pool to grow
+    assertTrue("virtual " + virtual + " pooled " + pooled, virtual > pooled);
+  }
+}
@@ -25,6 +25,7 @@ import java.util.Set;
 import java.util.TimerTask;
 import java.util.TreeSet;
 
+import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.TableId;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
 import org.apache.accumulo.core.master.thrift.TabletLoadState;
@@ -187,6 +188,14 @@ class AssignmentHandler implements Runnable {
           server.recentlyUnloadedCache.remove(tablet.getExtent());
         }
       }
+      server.publishLocationUpdate(extent, true);
+
+      if (!extent.isRootTablet()
+          && tablet.getTableConfiguration().getBoolean(Property.TABLE_CACHE_WARMUP_ENABLED)) {
+        server.resourceManager
+            .executeCacheWarmup(new LoggingRunnable(log, tablet.createCacheWarmer()));
+      }
+
       tablet = null; // release this reference
       successful = true;
     } catch (Throwable e) {
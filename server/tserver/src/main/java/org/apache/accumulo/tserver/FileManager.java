@@ -40,6 +40,7 @@ import org.apache.accumulo.core.dataImpl.KeyExtent;
 import org.apache.accumulo.core.file.FileOperations;
 import org.apache.accumulo.core.file.FileSKVIterator;
 import org.apache.accumulo.core.file.blockfile.impl.CacheProvider;
+import org.apache.accumulo.core.file.blockfile.impl.ScanCacheProvider;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.InterruptibleIterator;
@@ -49,6 +50,7 @@ import org.apache.accumulo.core.iteratorsImpl.system.TimeSettingIterator;
 import org.apache.accumulo.core.metadata.TabletFile;
 import org.apache.accumulo.core.metadata.schema.DataFileValue;
 import org.apache.accumulo.core.sample.impl.SamplerConfigurationImpl;
+import org.apache.accumulo.core.spi.scan.ScanDirectives.CacheUsage;
 import org.apache.accumulo.server.ServerContext;
 import org.apache.accumulo.server.fs.VolumeManager;
 import org.apache.accumulo.server.problems.ProblemReport;
@@ -466,9 +468,9 @@ public class FileManager {
     private ArrayList<FileSKVIterator> tabletReservedReaders;
     private KeyExtent tablet;
     private boolean continueOnFailure;
-    private CacheProvider cacheProvider;
+    private ScanCacheProvider cacheProvider;
 
-    ScanFileManager(KeyExtent tablet, CacheProvider cacheProvider) {
+    ScanFileManager(KeyExtent tablet, ScanCacheProvider cacheProvider) {
       tabletReservedReaders = new ArrayList<>();
       dataSources = new ArrayList<>();
       this.tablet = tablet;
@@ -482,6 +484,13 @@ public class FileManager {
       }
     }
 
+    /**
+     * @return how this scan uses the data cache
+     */
+    public CacheUsage getDataCacheUsage() {
+      return cacheProvider.getDataCacheUsage();
+    }
+
     private Map<FileSKVIterator,String> openFiles(List<String> files)
         throws TooManyFilesException, IOException {
       // one tablet can not open more than maxOpen files, otherwise it could get stuck
@@ -598,7 +607,7 @@ public class FileManager {
     }
   }
 
-  public ScanFileManager newScanFileManager(KeyExtent tablet, CacheProvider cacheProvider) {
+  public ScanFileManager newScanFileManager(KeyExtent tablet, ScanCacheProvider cacheProvider) {
     return new ScanFileManager(tablet, cacheProvider);
   }
 }
@@ -50,12 +50,14 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.accumulo.core.Constants;
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.Durability;
 import org.apache.accumulo.core.clientImpl.DurabilityImpl;
+import org.apache.accumulo.core.clientImpl.TabletLocationUpdates;
 import org.apache.accumulo.core.clientImpl.TabletLocator;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.Property;
@@ -211,6 +213,9 @@ public class TabletServer extends AbstractServer {
   private final SecurityOperation security;
 
   private final BlockingDeque<MasterMessage> masterMessages = new LinkedBlockingDeque<>();
+  // publishes tablet location updates in the order the tablets were loaded and unloaded
+  private final ThreadPoolExecutor locationUpdatePublisher =
+      new SimpleThreadPool(1, "tablet location update publisher");
 
   private Thread majorCompactorThread;
 
@@ -218,6 +223,8 @@ public class TabletServer extends AbstractServer {
 
   private volatile boolean serverStopRequested = false;
   private volatile boolean shutdownComplete = false;
+  private final ReentrantLock shutdownLock = new ReentrantLock();
+  private final Condition shutdownCompleted = shutdownLock.newCondition();
 
   private ZooLock tabletServerLock;
 
@@ -447,9 +454,7 @@ public class TabletServer extends AbstractServer {
 
             tablet.checkIfMinorCompactionNeededForLogs(closedCopy);
 
-            synchronized (tablet) {
-              tablet.initiateMajorCompaction(MajorCompactionReason.NORMAL);
-            }
+            tablet.initiateMajorCompaction(MajorCompactionReason.NORMAL);
           }
         } catch (Throwable t) {
           log.error("Unexpected exception in {}", Thread.currentThread().getName(), t);
@@ -508,6 +513,8 @@ public class TabletServer extends AbstractServer {
 
     // lose the reference to the old tablet and open two new ones
     onlineTablets.split(tablet.getExtent(), newTablets[0], newTablets[1]);
+    publishLocationUpdate(newTablets[0].getExtent(), true);
+    publishLocationUpdate(newTablets[1].getExtent(), true);
 
     // tell the master
     enqueueMasterMessage(new SplitReportMessage(tablet.getExtent(), newTablets[0].getExtent(),
@@ -522,6 +529,67 @@ public class TabletServer extends AbstractServer {
     return tabletInfo;
   }
 
+  /**
+   * Publishes that a tablet was loaded on this server, or unloaded from it, for clients that watch
+   * the locations of the tablets of its table. The update is written to ZooKeeper by a background
+   * thread, so loading, splitting and unloading tablets do not wait on it. This is best effort,
+   * clients that miss an update find out that the tablet moved when a call to its old location
+   * fails.
+   */
+  void publishLocationUpdate(KeyExtent extent, boolean loaded) {
+    if (extent.isRootTablet()
+        || !getConfiguration().getBoolean(Property.GENERAL_TABLET_LOCATION_UPDATES)) {
+      return;
+    }
+
+    String location = null;
+    String session = null;
+    if (loaded) {
+      TServerInstance instance = getTabletSession();
+      if (instance == null) {
+        return;
+      }
+      location = instance.hostPort();
+      session = instance.getSession();
+    }
+
+    String path = TabletLocationUpdates.path(getContext().getZooKeeperRoot(), extent.getTableId());
+    byte[] update = TabletLocationUpdates.encode(extent, location, session);
+    locationUpdatePublisher.execute(() -> {
+      try {
+        publishLocationUpdate(path, update);
+      } catch (Exception e) {
+        log.debug("Unable to publish location update for {}", extent, e);
+      }
+    });
+  }
+
+  private void publishLocationUpdate(String path, byte[] update)
+      throws KeeperException, InterruptedException {
+    ZooReaderWriter zoo = getContext().getZooReaderWriter();
+    String updatePath = path + "/" + TabletLocationUpdates.UPDATE_PREFIX;
+    String node;
+    try {
+      node = zoo.putPersistentSequential(updatePath, update);
+    } catch (KeeperException.NoNodeException e) {
+      // the first update published for the table
+      zoo.putPersistentData(path, new byte[0], NodeExistsPolicy.SKIP);
+      node = zoo.putPersistentSequential(updatePath, update);
+    }
+
+    // now and then, delete the updates that clients no longer need
+    long seq = TabletLocationUpdates.sequence(node);
+    if (seq % TabletLocationUpdates.COMPACT_INTERVAL == 0) {
+      for (String expired : TabletLocationUpdates.expired(zoo.getChildren(path), seq)) {
+        try {
+          zoo.delete(path + "/" + expired, -1);
+        } catch (KeeperException.NoNodeException e) {
+          // deleted by another tablet server
+        }
+      }
+    }
+  }
+
   // add a message for the main thread to send back to the master
   public void enqueueMasterMessage(MasterMessage m) {
     masterMessages.addLast(m);
@@ -546,7 +614,7 @@ public class TabletServer extends AbstractServer {
     ServerAddress sp = TServerUtils.startServer(getMetricsSystem(), getContext(), address,
         Property.TSERV_CLIENTPORT, processor, this.getClass().getSimpleName(),
         "Thrift Client Server", Property.TSERV_PORTSEARCH, Property.TSERV_MINTHREADS,
-        Property.TSERV_THREADCHECK, maxMessageSizeProperty);
+        Property.TSERV_THREADCHECK, maxMessageSizeProperty, Property.TSERV_VIRTUAL_THREADS);
     this.server = sp.server;
     return sp.address;
   }
@@ -847,14 +915,17 @@ public class TabletServer extends AbstractServer {
     // running in the master listener thread to complete oldServer this happens.
     // consider making other threads daemon threads so that objects don't
     // get prematurely finalized
-    synchronized (this) {
+    shutdownLock.lock();
+    try {
       while (!shutdownComplete) {
         try {
-          this.wait(1000);
+          shutdownCompleted.await(1000, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
           log.error(e.toString());
         }
       }
+    } finally {
+      shutdownLock.unlock();
     }
     log.debug("Stopping Replication Server");
     TServerUtils.stopTServer(this.replServer);
@@ -43,6 +43,8 @@ import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.function.IntSupplier;
 
@@ -116,6 +118,7 @@ public class TabletServerResourceManager {
   private final ExecutorService summaryRetrievalPool;
   private final ExecutorService summaryParitionPool;
   private final ExecutorService summaryRemotePool;
+  private final ExecutorService cacheWarmupPool;
   private final Map<String,ExecutorService> threadPools = new TreeMap<>();
 
   private final Map<String,ExecutorService> scanExecutors;
@@ -133,6 +136,7 @@ public class TabletServerResourceManager {
   private final BlockCache _dCache;
   private final BlockCache _iCache;
   private final BlockCache _sCache;
+  private final BlockCache _bCache;
   private final ServerContext context;
 
   private Cache<String,Long> fileLenCache;
@@ -351,27 +355,28 @@ public class TabletServerResourceManager {
     _iCache = cacheManager.getBlockCache(CacheType.INDEX);
     _dCache = cacheManager.getBlockCache(CacheType.DATA);
     _sCache = cacheManager.getBlockCache(CacheType.SUMMARY);
+    _bCache = cacheManager.getBlockCache(CacheType.BLOOM);
 
     long dCacheSize = _dCache.getMaxHeapSize();
     long iCacheSize = _iCache.getMaxHeapSize();
     long sCacheSize = _sCache.getMaxHeapSize();
+    long bCacheSize = _bCache == null ? 0 : _bCache.getMaxHeapSize();
+    long totalCacheSize = dCacheSize + iCacheSize + sCacheSize + bCacheSize;
 
     Runtime runtime = Runtime.getRuntime();
     if (usingNativeMap) {
       // Still check block cache sizes when using native maps.
-      if (dCacheSize + iCacheSize + sCacheSize + totalQueueSize > runtime.maxMemory()) {
-        throw new IllegalArgumentException(String.format(
-            "Block cache sizes %,d" + " and mutation queue size %,d is too large for this JVM"
-                + " configuration %,d",
-            dCacheSize + iCacheSize + sCacheSize, totalQueueSize, runtime.maxMemory()));
+      if (totalCacheSize + totalQueueSize > runtime.maxMemory()) {
+        throw new IllegalArgumentException(String.format("Block cache sizes %,d"
+            + " and mutation queue size %,d is too large for this JVM" + " configuration %,d",
+            totalCacheSize, totalQueueSize, runtime.maxMemory()));
       }
-    } else if (maxMemory + dCacheSize + iCacheSize + sCacheSize + totalQueueSize
-        > runtime.maxMemory()) {
+    } else if (maxMemory + totalCacheSize + totalQueueSize > runtime.maxMemory()) {
       throw new IllegalArgumentException(String.format(
           "Maximum tablet server"
               + " map memory %,d block cache sizes %,d and mutation queue size %,d is"
               + " too large for this JVM configuration %,d",
-          maxMemory, dCacheSize + iCacheSize + sCacheSize, totalQueueSize, runtime.maxMemory()));
+          maxMemory, totalCacheSize, totalQueueSize, runtime.maxMemory()));
     }
     runtime.gc();
 
@@ -414,6 +419,8 @@ public class TabletServerResourceManager {
     summaryParitionPool =
         createIdlingEs(Property.TSERV_SUMMARY_PARTITION_THREADS, "summary partition");
 
+    cacheWarmupPool = createIdlingEs(Property.TSERV_CACHE_WARMUP_THREADS, "cache warmup");
+
     Collection<ScanExecutorConfig> scanExecCfg = acuConf.getScanExecutors();
     Map<String,Queue<?>> scanExecQueues = new HashMap<>();
     scanExecutors = createScanExecutors(scanExecCfg, scanExecQueues);
@@ -677,12 +684,15 @@ public class TabletServerResourceManager {
     }
   }
 
-  private final Object commitHold = new Object();
+  // a lock rather than a monitor, so writers held on virtual threads do not pin their carriers
+  private final ReentrantLock commitHold = new ReentrantLock();
+  private final Condition commitsEnabled = commitHold.newCondition();
   private volatile boolean holdCommits = false;
   private long holdStartTime;
 
   protected void holdAllCommits(boolean holdAllCommits) {
-    synchronized (commitHold) {
+    commitHold.lock();
+    try {
       if (holdCommits != holdAllCommits) {
         holdCommits = holdAllCommits;
 
@@ -693,9 +703,11 @@ public class TabletServerResourceManager {
         if (!holdCommits) {
           log.debug(String.format("Commits held for %6.2f secs",
               (System.currentTimeMillis() - holdStartTime) / 1000.0));
-          commitHold.notifyAll();
+          commitsEnabled.signalAll();
         }
       }
+    } finally {
+      commitHold.unlock();
     }
 
   }
@@ -704,15 +716,18 @@ public class TabletServerResourceManager {
     if (holdCommits) {
       long timeout = System.currentTimeMillis()
           + context.getConfiguration().getTimeInMillis(Property.GENERAL_RPC_TIMEOUT);
-      synchronized (commitHold) {
+      commitHold.lock();
+      try {
         while (holdCommits) {
           try {
             if (System.currentTimeMillis() > timeout) {
               throw new HoldTimeoutException("Commits are held");
             }
-            commitHold.wait(1000);
+            commitsEnabled.await(1, TimeUnit.SECONDS);
           } catch (InterruptedException e) {}
         }
+      } finally {
+        commitHold.unlock();
       }
     }
   }
@@ -721,8 +736,11 @@ public class TabletServerResourceManager {
     if (!holdCommits) {
       return 0;
     }
-    synchronized (commitHold) {
+    commitHold.lock();
+    try {
       return System.currentTimeMillis() - holdStartTime;
+    } finally {
+      commitHold.unlock();
     }
   }
 
@@ -772,7 +790,7 @@ public class TabletServerResourceManager {
       }
 
       return fileManager.newScanFileManager(extent,
-          new ScanCacheProvider(tableConf, scanDirectives, _iCache, _dCache));
+          new ScanCacheProvider(tableConf, scanDirectives, _iCache, _dCache, _bCache));
     }
 
     // END methods that Tablets call to manage their set of open map files
@@ -990,6 +1008,10 @@ public class TabletServerResourceManager {
         new LoggingRunnable(log, assignmentHandler)));
   }
 
+  public void executeCacheWarmup(Runnable warmupTask) {
+    cacheWarmupPool.execute(warmupTask);
+  }
+
   public void addMigration(KeyExtent tablet, Runnable migrationHandler) {
     if (tablet.isRootTablet()) {
       migrationHandler.run();
@@ -1012,6 +1034,13 @@ public class TabletServerResourceManager {
     return _sCache;
   }
 
+  /**
+   * @return the bloom filter cache, or null when bloom filters are cached in the index cache
+   */
+  public BlockCache getBloomCache() {
+    return _bCache;
+  }
+
   public Cache<String,Long> getFileLenCache() {
     return fileLenCache;
   }
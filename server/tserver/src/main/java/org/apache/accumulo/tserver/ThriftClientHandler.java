@@ -60,12 +60,12 @@ import org.apache.accumulo.core.clientImpl.thrift.ThriftTableOperationException;
 import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.Column;
 import org.apache.accumulo.core.data.ConstraintViolationSummary;
-import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.NamespaceId;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.TableId;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.dataImpl.ScanResultEncoding;
 import org.apache.accumulo.core.dataImpl.thrift.InitialMultiScan;
 import org.apache.accumulo.core.dataImpl.thrift.InitialScan;
 import org.apache.accumulo.core.dataImpl.thrift.IterInfo;
@@ -268,8 +268,8 @@ class ThriftClientHandler extends ClientServiceHandler implements TabletClientSe
       TRange range, List<TColumn> columns, int batchSize, List<IterInfo> ssiList,
       Map<String,Map<String,String>> ssio, List<ByteBuffer> authorizations, boolean waitForWrites,
       boolean isolated, long readaheadThreshold, TSamplerConfiguration tSamplerConfig,
-      long batchTimeOut, String contextArg, Map<String,String> executionHints)
-      throws NotServingTabletException, ThriftSecurityException,
+      long batchTimeOut, String contextArg, Map<String,String> executionHints,
+      boolean encodeResults) throws NotServingTabletException, ThriftSecurityException,
       org.apache.accumulo.core.tabletserver.thrift.TooManyFilesException,
       TSampleNotPresentException {
 
@@ -321,8 +321,8 @@ class ThriftClientHandler extends ClientServiceHandler implements TabletClientSe
         columnSet, ssiList, ssio, isolated, SamplerConfigurationImpl.fromThrift(tSamplerConfig),
         batchTimeOut, contextArg);
 
-    final SingleScanSession scanSession =
-        new SingleScanSession(credentials, extent, scanParams, readaheadThreshold, executionHints);
+    final SingleScanSession scanSession = new SingleScanSession(credentials, extent, scanParams,
+        readaheadThreshold, executionHints, encodeResults);
     scanSession.scanner =
         tablet.createScanner(new Range(range), scanParams, scanSession.interruptFlag);
 
@@ -410,9 +410,10 @@ class ThriftClientHandler extends ClientServiceHandler implements TabletClientSe
       throw new RuntimeException(t);
     }
 
-    ScanResult scanResult = new ScanResult(Key.compress(bresult.getResults()), bresult.isMore());
+    ScanResult scanResult = ScanResultEncoding.toThrift(bresult.getResults(), bresult.isMore(),
+        scanSession.encodeResults);
 
-    scanSession.entriesReturned += scanResult.results.size();
+    scanSession.entriesReturned += bresult.getResults().size();
 
     scanSession.batchCount++;
 
@@ -131,6 +131,8 @@ class UnloadTabletHandler implements Runnable {
       log.warn("Interrupted while getting our zookeeper session information", e);
     }
 
+    server.publishLocationUpdate(extent, false);
+
     // tell the master how it went
     server.enqueueMasterMessage(new TabletStatusMessage(TabletLoadState.UNLOADED, extent));
 
@@ -25,6 +25,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.accumulo.core.clientImpl.TabletType;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
@@ -36,12 +38,17 @@ import org.slf4j.LoggerFactory;
  * This little class keeps track of writes in progress and allows readers to wait for writes that
  * started before the read. It assumes that the operation ids are monotonically increasing.
  *
+ * <p>
+ * Readers wait on a {@link Condition} rather than a monitor, so a reader running on a virtual
+ * thread does not pin its carrier thread while it waits.
  */
 class WriteTracker {
   private static final Logger log = LoggerFactory.getLogger(WriteTracker.class);
 
   private static final AtomicLong operationCounter = new AtomicLong(1);
   private final Map<TabletType,TreeSet<Long>> inProgressWrites = new EnumMap<>(TabletType.class);
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition writesFinished = lock.newCondition();
 
   WriteTracker() {
     for (TabletType ttype : TabletType.values()) {
@@ -49,40 +56,55 @@ class WriteTracker {
     }
   }
 
-  synchronized long startWrite(TabletType ttype) {
-    long operationId = operationCounter.getAndIncrement();
-    inProgressWrites.get(ttype).add(operationId);
-    return operationId;
+  long startWrite(TabletType ttype) {
+    lock.lock();
+    try {
+      long operationId = operationCounter.getAndIncrement();
+      inProgressWrites.get(ttype).add(operationId);
+      return operationId;
+    } finally {
+      lock.unlock();
+    }
   }
 
-  synchronized void finishWrite(long operationId) {
+  void finishWrite(long operationId) {
     if (operationId == -1)
       return;
 
-    boolean removed = false;
+    lock.lock();
+    try {
+      boolean removed = false;
 
-    for (TabletType ttype : TabletType.values()) {
-      removed = inProgressWrites.get(ttype).remove(operationId);
-      if (removed)
-        break;
-    }
+      for (TabletType ttype : TabletType.values()) {
+        removed = inProgressWrites.get(ttype).remove(operationId);
+        if (removed)
+          break;
+      }
 
-    if (!removed) {
-      throw new IllegalArgumentException(
-          "Attempted to finish write not in progress,  operationId " + operationId);
-    }
+      if (!removed) {
+        throw new IllegalArgumentException(
+            "Attempted to finish write not in progress,  operationId " + operationId);
+      }
 
-    this.notifyAll();
+      writesFinished.signalAll();
+    } finally {
+      lock.unlock();
+    }
   }
 
-  synchronized void waitForWrites(TabletType ttype) {
-    long operationId = operationCounter.getAndIncrement();
-    while (inProgressWrites.get(ttype).floor(operationId) != null) {
-      try {
-        this.wait();
-      } catch (InterruptedException e) {
-        log.error("{}", e.getMessage(), e);
+  void waitForWrites(TabletType ttype) {
+    lock.lock();
+    try {
+      long operationId = operationCounter.getAndIncrement();
+      while (inProgressWrites.get(ttype).floor(operationId) != null) {
+        try {
+          writesFinished.await();
+        } catch (InterruptedException e) {
+          log.error("{}", e.getMessage(), e);
+        }
       }
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -18,6 +18,7 @@
  */
 package org.apache.accumulo.tserver.metrics;
 
+import org.apache.accumulo.core.file.BloomFilterLayer;
 import org.apache.accumulo.tserver.TabletServer;
 import org.apache.hadoop.metrics2.MetricsRecordBuilder;
 import org.apache.hadoop.metrics2.lib.Interns;
@@ -87,5 +88,22 @@ public class TabletServerMetrics extends TServerMetrics {
     builder.addGauge(Interns.info("queryByteRate", "Query rate (bytes/sec)"),
         util.getQueryByteRate());
     builder.addGauge(Interns.info("scannedRate", "Scanned rate"), util.getScannedRate());
+
+    BloomFilterLayer.Stats bloomStats = BloomFilterLayer.getStats();
+    long bloomLoads = bloomStats.getLoads();
+    builder.addCounter(Interns.info("bloomLoads", "Number of bloom filters loaded"), bloomLoads);
+    builder.addGauge(Interns.info("bloomLoadTime", "Average bloom filter load time (ms)"),
+        bloomLoads == 0 ? 0.0 : bloomStats.getLoadTime() / 1_000_000.0 / bloomLoads);
+    long negatives = bloomStats.getNegatives();
+    long falsePositives = bloomStats.getFalsePositives();
+    builder.addCounter(Interns.info("bloomNegatives", "Seeks skipped by bloom filters"), negatives);
+    builder.addCounter(
+        Interns.info("bloomFalsePositives", "Seeks allowed by bloom filters that found no data"),
+        falsePositives);
+    builder.addGauge(
+        Interns.info("bloomFalsePositiveRate",
+            "Fraction of seeks for absent keys that bloom filters did not skip"),
+        negatives + falsePositives == 0 ? 0.0
+            : falsePositives / (double) (negatives + falsePositives));
   }
 }
@@ -18,7 +18,9 @@
  */
 package org.apache.accumulo.tserver.metrics;
 
+import org.apache.accumulo.core.spi.scan.ScanDirectives.CacheUsage;
 import org.apache.hadoop.metrics2.lib.MetricsRegistry;
+import org.apache.hadoop.metrics2.lib.MutableCounterLong;
 import org.apache.hadoop.metrics2.lib.MutableStat;
 
 public class TabletServerScanMetrics extends TServerMetrics {
@@ -26,6 +28,9 @@ public class TabletServerScanMetrics extends TServerMetrics {
   private final MutableStat scans;
   private final MutableStat resultsPerScan;
   private final MutableStat yields;
+  private final MutableCounterLong dataCacheEnabled;
+  private final MutableCounterLong dataCacheOpportunistic;
+  private final MutableCounterLong dataCacheDisabled;
 
   public TabletServerScanMetrics() {
     super("Scans");
@@ -34,6 +39,15 @@ public class TabletServerScanMetrics extends TServerMetrics {
     scans = registry.newStat("scan", "Scans", "Ops", "Count", true);
     resultsPerScan = registry.newStat("result", "Results per scan", "Ops", "Count", true);
     yields = registry.newStat("yield", "Yields", "Ops", "Count", true);
+    dataCacheEnabled = registry.newCounter("tabletScanDataCacheEnabled",
+        "Scans of a tablet that read through the data cache and add the blocks they read to it",
+        0L);
+    dataCacheOpportunistic = registry.newCounter("tabletScanDataCacheOpportunistic",
+        "Scans of a tablet that use blocks in the data cache but do not add the blocks they read"
+            + " to it",
+        0L);
+    dataCacheDisabled = registry.newCounter("tabletScanDataCacheDisabled",
+        "Scans of a tablet that do not use the data cache", 0L);
   }
 
   public void addScan(long value) {
@@ -48,4 +62,24 @@ public class TabletServerScanMetrics extends TServerMetrics {
     yields.add(value);
   }
 
+  /**
+   * Counts a scan of a tablet, which is one scan session or one of the tablets of a multi-scan
+   * session, by how it uses the data cache.
+   */
+  public void addTabletScanDataCacheUsage(CacheUsage usage) {
+    switch (usage) {
+      case ENABLED:
+        dataCacheEnabled.incr();
+        break;
+      case OPPORTUNISTIC:
+        dataCacheOpportunistic.incr();
+        break;
+      case DISABLED:
+        dataCacheDisabled.incr();
+        break;
+      default:
+        throw new IllegalArgumentException("Unexpected cache usage " + usage);
+    }
+  }
+
 }
@@ -18,6 +18,10 @@
  */
 package org.apache.accumulo.tserver.session;
 
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
 import org.apache.accumulo.core.securityImpl.thrift.TCredentials;
 import org.apache.accumulo.server.rpc.TServerUtils;
 
@@ -31,6 +35,10 @@ public class Session {
   public long lastAccessTime;
   public long startTime;
   State state = State.NEW;
+  // guards the state and access time, a lock rather than the monitor so waiting on a reserved
+  // session does not pin a virtual thread
+  final Lock lock = new ReentrantLock();
+  final Condition unreserved = lock.newCondition();
   private final TCredentials credentials;
 
   Session(TCredentials credentials) {
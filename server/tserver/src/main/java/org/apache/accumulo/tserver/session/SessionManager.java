@@ -31,6 +31,7 @@ import java.util.Set;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.clientImpl.Translator;
 import org.apache.accumulo.core.clientImpl.Translators;
@@ -93,10 +94,13 @@ public class SessionManager {
   public long createSession(Session session, boolean reserve) {
     long sid = random.nextLong();
 
-    synchronized (session) {
+    session.lock.lock();
+    try {
       Preconditions.checkArgument(session.state == State.NEW);
       session.state = reserve ? State.RESERVED : State.UNRESERVED;
       session.startTime = session.lastAccessTime = System.currentTimeMillis();
+    } finally {
+      session.lock.unlock();
     }
 
     while (sessions.putIfAbsent(sid, session) != null) {
@@ -117,13 +121,16 @@ public class SessionManager {
   public Session reserveSession(long sessionId) {
     Session session = sessions.get(sessionId);
     if (session != null) {
-      synchronized (session) {
+      session.lock.lock();
+      try {
         if (session.state == State.RESERVED)
           throw new IllegalStateException(
               "Attempted to reserved session that is already reserved " + sessionId);
         if (session.state == State.REMOVED)
           return null;
         session.state = State.RESERVED;
+      } finally {
+        session.lock.unlock();
       }
     }
 
@@ -134,14 +141,15 @@ public class SessionManager {
   public Session reserveSession(long sessionId, boolean wait) {
     Session session = sessions.get(sessionId);
     if (session != null) {
-      synchronized (session) {
+      session.lock.lock();
+      try {
 
         if (session.state == State.REMOVED)
           return null;
 
         while (wait && session.state == State.RESERVED) {
           try {
-            session.wait(1000);
+            session.unreserved.await(1000, TimeUnit.MILLISECONDS);
           } catch (InterruptedException e) {
             throw new RuntimeException();
           }
@@ -153,6 +161,8 @@ public class SessionManager {
         if (session.state == State.REMOVED)
           return null;
         session.state = State.RESERVED;
+      } finally {
+        session.lock.unlock();
       }
     }
 
@@ -161,14 +171,17 @@ public class SessionManager {
   }
 
   public void unreserveSession(Session session) {
-    synchronized (session) {
+    session.lock.lock();
+    try {
       if (session.state == State.REMOVED)
         return;
       if (session.state != State.RESERVED)
         throw new IllegalStateException("Cannon unreserve, state: " + session.state);
-      session.notifyAll();
+      session.unreserved.signalAll();
       session.state = State.UNRESERVED;
       session.lastAccessTime = System.currentTimeMillis();
+    } finally {
+      session.lock.unlock();
     }
   }
 
@@ -183,11 +196,14 @@ public class SessionManager {
     Session session = sessions.get(sessionId);
 
     if (session != null) {
-      synchronized (session) {
+      session.lock.lock();
+      try {
         if (session.state == State.REMOVED) {
           return null;
         }
         session.lastAccessTime = System.currentTimeMillis();
+      } finally {
+        session.lock.unlock();
       }
     }
 
@@ -203,7 +219,8 @@ public class SessionManager {
     Session session = sessions.remove(sessionId);
     if (session != null) {
       boolean doCleanup = false;
-      synchronized (session) {
+      session.lock.lock();
+      try {
         if (session.state != State.REMOVED) {
           if (unreserve) {
             unreserveSession(session);
@@ -211,6 +228,8 @@ public class SessionManager {
           doCleanup = true;
           session.state = State.REMOVED;
         }
+      } finally {
+        session.lock.unlock();
       }
 
       if (doCleanup) {
@@ -226,7 +245,8 @@ public class SessionManager {
     Iterator<Session> iter = sessions.values().iterator();
     while (iter.hasNext()) {
       Session session = iter.next();
-      synchronized (session) {
+      session.lock.lock();
+      try {
         if (session.state == State.UNRESERVED) {
           long configuredIdle = maxIdle;
           if (session instanceof UpdateSession) {
@@ -241,6 +261,8 @@ public class SessionManager {
             session.state = State.REMOVED;
           }
         }
+      } finally {
+        session.lock.unlock();
       }
     }
 
@@ -265,8 +287,11 @@ public class SessionManager {
     Session session = sessions.get(sessionId);
     if (session != null) {
       long tmp;
-      synchronized (session) {
+      session.lock.lock();
+      try {
         tmp = session.lastAccessTime;
+      } finally {
+        session.lock.unlock();
       }
       final long removeTime = tmp;
       TimerTask r = new TimerTask() {
@@ -275,11 +300,14 @@ public class SessionManager {
           Session session2 = sessions.get(sessionId);
           if (session2 != null) {
             boolean shouldRemove = false;
-            synchronized (session2) {
+            session2.lock.lock();
+            try {
               if (session2.lastAccessTime == removeTime && session2.state == State.UNRESERVED) {
                 session2.state = State.REMOVED;
                 shouldRemove = true;
               }
+            } finally {
+              session2.lock.unlock();
             }
 
             if (shouldRemove) {
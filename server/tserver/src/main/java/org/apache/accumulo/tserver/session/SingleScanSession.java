@@ -37,12 +37,14 @@ public class SingleScanSession extends ScanSession {
   public volatile ScanTask<ScanBatch> nextBatchTask;
   public Scanner scanner;
   public final long readaheadThreshold;
+  public final boolean encodeResults;
 
   public SingleScanSession(TCredentials credentials, KeyExtent extent, ScanParameters scanParams,
-      long readaheadThreshold, Map<String,String> executionHints) {
+      long readaheadThreshold, Map<String,String> executionHints, boolean encodeResults) {
     super(credentials, scanParams, executionHints);
     this.extent = extent;
     this.readaheadThreshold = readaheadThreshold;
+    this.encodeResults = encodeResults;
   }
 
   @Override
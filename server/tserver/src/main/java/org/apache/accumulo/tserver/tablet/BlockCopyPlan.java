@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.tablet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.FileSKVIterator;
+import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+
+/**
+ * Determines which data blocks of a compaction's input files can be copied to the output file
+ * without being decompressed, iterated over and recompressed. A data block can be copied when no
+ * other input file has data in the columns spanned by the block, because then merging the inputs
+ * could not change the block. When the table keeps a limited number of versions, a block is only
+ * copied when it already holds no more versions of any column than are kept.
+ *
+ * <p>
+ * The plan consists of the blocks to copy, in key order, and the ranges between those blocks that
+ * must be compacted normally. There is always one more range than there are blocks, and a range is
+ * null when there is nothing between two blocks.
+ */
+class BlockCopyPlan {
+
+  private final List<RFile.DataBlock> blocks;
+  private final List<Range> ranges;
+
+  private BlockCopyPlan(List<RFile.DataBlock> blocks, List<Range> ranges) {
+    this.blocks = blocks;
+    this.ranges = ranges;
+  }
+
+  List<RFile.DataBlock> getBlocks() {
+    return blocks;
+  }
+
+  List<Range> getRanges() {
+    return ranges;
+  }
+
+  private static Key getColumnStart(Key key) {
+    return new Key(key.getRow(), key.getColumnFamily(), key.getColumnQualifier(),
+        key.getColumnVisibility());
+  }
+
+  /**
+   * @param readers
+   *          all files being compacted
+   * @param candidates
+   *          files whose blocks may be copied, in the same order as readers with null entries for
+   *          files that are not candidates
+   * @param lgName
+   *          the locality group being compacted, null for the default locality group
+   * @param columnFamilies
+   *          the column families used to seek the locality group
+   * @param inclusive
+   *          whether the column families are included or excluded when seeking
+   * @param writer
+   *          the compaction output file
+   * @param range
+   *          the range of data being compacted
+   * @param propagateDeletes
+   *          true if deletes will be written to the output, false if they are dropped
+   * @param maxVersions
+   *          the number of versions of each column the compaction keeps
+   */
+  static BlockCopyPlan create(List<FileSKVIterator> readers, List<RFile.Reader> candidates,
+      String lgName, Set<ByteSequence> columnFamilies, boolean inclusive, RFile.Writer writer,
+      Range range, boolean propagateDeletes, int maxVersions) throws IOException {
+
+    List<SortedKeyValueIterator<Key,Value>> probes = new ArrayList<>(readers.size());
+    for (FileSKVIterator reader : readers) {
+      probes.add(reader.deepCopy(null));
+    }
+
+    // copied blocks sorted by their first key, no two blocks can overlap
+    TreeMap<Key,RFile.DataBlock> sortedBlocks = new TreeMap<>();
+
+    for (int i = 0; i < candidates.size(); i++) {
+      RFile.Reader candidate = candidates.get(i);
+      if (candidate == null) {
+        continue;
+      }
+
+      List<RFile.DataBlock> fileBlocks = candidate.getDataBlocks(lgName);
+      for (int k = 0; k < fileBlocks.size(); k++) {
+        RFile.DataBlock block = fileBlocks.get(k);
+        if (!writer.canAppend(block) || !range.contains(block.getIndexKey())) {
+          continue;
+        }
+
+        // Deletes that the compaction drops could suppress data in other files or in earlier
+        // blocks of this file, so only copy blocks without deletes.
+        if (!propagateDeletes && block.containsDeletes()) {
+          continue;
+        }
+
+        Key firstKey = block.getFirstKey();
+        if (!range.contains(firstKey)) {
+          continue;
+        }
+
+        // A delete at the end of the previous block could suppress data in this block.
+        if (block.getPrevIndexKey() != null
+            && block.getPrevIndexKey().equals(firstKey, PartialKey.ROW_COLFAM_COLQUAL_COLVIS)) {
+          continue;
+        }
+
+        // The start of the next block would be compacted without the deletes and versions of its
+        // column in this block.
+        if (k + 1 < fileBlocks.size() && fileBlocks.get(k + 1).getFirstKey()
+            .equals(block.getIndexKey(), PartialKey.ROW_COLFAM_COLQUAL_COLVIS)) {
+          continue;
+        }
+
+        if (!block.isCompacted(maxVersions)) {
+          continue;
+        }
+
+        // Widen the range of the block to whole columns so that deletes and timestamps set on
+        // other files can not interact with the block.
+        Range blockRange = new Range(getColumnStart(firstKey), true,
+            block.getIndexKey().followingKey(PartialKey.ROW_COLFAM_COLQUAL_COLVIS), false);
+
+        boolean overlaps = false;
+        for (int j = 0; j < readers.size() && !overlaps; j++) {
+          if (j != i) {
+            overlaps =
+                hasData(readers.get(j), probes.get(j), blockRange, columnFamilies, inclusive);
+          }
+        }
+
+        if (!overlaps) {
+          sortedBlocks.put(firstKey, block);
+        }
+      }
+    }
+
+    List<RFile.DataBlock> blocks = new ArrayList<>(sortedBlocks.values());
+    List<Range> ranges = new ArrayList<>(blocks.size() + 1);
+    Key prevIndexKey = null;
+    for (RFile.DataBlock block : blocks) {
+      Key firstKey = block.getFirstKey();
+      if (prevIndexKey == null) {
+        ranges.add(range.clip(new Range(null, false, firstKey, false), true));
+      } else if (prevIndexKey.compareTo(firstKey) < 0) {
+        ranges.add(range.clip(new Range(prevIndexKey, false, firstKey, false), true));
+      } else {
+        ranges.add(null);
+      }
+      prevIndexKey = block.getIndexKey();
+    }
+
+    if (prevIndexKey == null) {
+      ranges.add(range);
+    } else {
+      ranges.add(range.clip(new Range(prevIndexKey, false, null, true), true));
+    }
+
+    return new BlockCopyPlan(Collections.unmodifiableList(blocks),
+        Collections.unmodifiableList(ranges));
+  }
+
+  private static boolean hasData(FileSKVIterator reader, SortedKeyValueIterator<Key,Value> probe,
+      Range blockRange, Set<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+    Key firstKey = reader.getFirstKey();
+    Key lastKey = reader.getLastKey();
+    if (firstKey == null || blockRange.afterEndKey(firstKey)
+        || blockRange.beforeStartKey(lastKey)) {
+      return false;
+    }
+
+    probe.seek(blockRange, columnFamilies, inclusive);
+    return probe.hasTop();
+  }
+}
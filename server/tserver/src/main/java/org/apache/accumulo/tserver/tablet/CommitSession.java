@@ -55,7 +55,7 @@ public class CommitSession {
 
     commitsInProgress--;
     if (commitsInProgress == 0)
-      committer.notifyAll();
+      committer.signalStateChange();
   }
 
   public void incrementCommitsInProgress() {
@@ -68,7 +68,7 @@ public class CommitSession {
   public void waitForCommitsToFinish() {
     while (commitsInProgress > 0) {
       try {
-        committer.wait(50);
+        committer.awaitStateChange(50);
       } catch (InterruptedException e) {
         log.warn("InterruptedException", e);
       }
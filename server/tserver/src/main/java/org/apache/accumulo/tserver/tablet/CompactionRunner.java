@@ -44,9 +44,12 @@ final class CompactionRunner implements Runnable, Comparable<CompactionRunner> {
     // compaction actually did something.
     if (stats != null && stats.getEntriesRead() > 0) {
       // if there is more work to be done, queue another major compaction
-      synchronized (tablet) {
+      tablet.lock();
+      try {
         if (reason == MajorCompactionReason.NORMAL && tablet.needsMajorCompaction(reason))
           tablet.initiateMajorCompaction(reason);
+      } finally {
+        tablet.unlock();
       }
     }
   }
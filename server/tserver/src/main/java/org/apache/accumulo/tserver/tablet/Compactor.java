@@ -25,7 +25,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -36,15 +38,20 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.IterConfigUtil;
+import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.dataImpl.thrift.IterInfo;
 import org.apache.accumulo.core.file.FileOperations;
 import org.apache.accumulo.core.file.FileSKVIterator;
 import org.apache.accumulo.core.file.FileSKVWriter;
+import org.apache.accumulo.core.file.rfile.RFile;
 import org.apache.accumulo.core.iterators.IteratorUtil.IteratorScope;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.user.VersioningIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.ColumnFamilySkippingIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.DeletingIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.MultiIterator;
@@ -341,6 +348,7 @@ public class Compactor implements Callable<CompactionStats> {
     ArrayList<FileSKVIterator> readers = new ArrayList<>(filesToCompact.size());
     try (TraceScope span = Trace.startSpan("compact")) {
       long entriesCompacted = 0;
+      long entriesCopied = 0;
       List<SortedKeyValueIterator<Key,Value>> iters = openMapDataFiles(readers);
 
       if (imm != null) {
@@ -368,7 +376,18 @@ public class Compactor implements Callable<CompactionStats> {
       SortedKeyValueIterator<Key,Value> itr = iterEnv.getTopLevelIterator(IterConfigUtil
           .convertItersAndLoad(env.getIteratorScope(), cfsi, acuTableConf, iterators, iterEnv));
 
-      itr.seek(extent.toDataRange(), columnFamilies, inclusive);
+      BlockCopyPlan copyPlan = null;
+      int maxVersions = isBlockCopyEnabled(mfw) ? getBlockCopyMaxVersions() : -1;
+      if (maxVersions > 0) {
+        copyPlan =
+            BlockCopyPlan.create(readers, getBlockCopyCandidates(readers), lgName, columnFamilies,
+                inclusive, (RFile.Writer) mfw, extent.toDataRange(), propogateDeletes, maxVersions);
+      }
+
+      List<RFile.DataBlock> blocksToCopy =
+          copyPlan == null ? Collections.emptyList() : copyPlan.getBlocks();
+      List<Range> rangesToCompact =
+          copyPlan == null ? Collections.singletonList(extent.toDataRange()) : copyPlan.getRanges();
 
       if (inclusive) {
         mfw.startNewLocalityGroup(lgName, columnFamilies);
@@ -377,34 +396,50 @@ public class Compactor implements Callable<CompactionStats> {
       }
 
       try (TraceScope write = Trace.startSpan("write")) {
-        while (itr.hasTop() && env.isCompactionEnabled()) {
-          mfw.append(itr.getTopKey(), itr.getTopValue());
-          itr.next();
-          entriesCompacted++;
-
-          if (entriesCompacted % 1024 == 0) {
-            // Periodically update stats, do not want to do this too often since its volatile
-            entriesWritten.addAndGet(1024);
+        for (int i = 0; i < rangesToCompact.size(); i++) {
+          if (i > 0) {
+            if (!env.isCompactionEnabled()) {
+              cancelCompaction(mfw);
+            }
+
+            RFile.DataBlock block = blocksToCopy.get(i - 1);
+            ((RFile.Writer) mfw).append(block);
+            entriesCopied += block.getNumEntries();
+            entriesRead.addAndGet(block.getNumEntries());
+            entriesWritten.addAndGet(block.getNumEntries());
           }
-        }
 
-        if (itr.hasTop() && !env.isCompactionEnabled()) {
-          // cancel major compaction operation
-          try {
-            try {
-              mfw.close();
-            } catch (IOException e) {
-              log.error("{}", e.getMessage(), e);
+          Range range = rangesToCompact.get(i);
+          if (range == null) {
+            continue;
+          }
+
+          itr.seek(range, columnFamilies, inclusive);
+
+          while (itr.hasTop() && env.isCompactionEnabled()) {
+            mfw.append(itr.getTopKey(), itr.getTopValue());
+            itr.next();
+            entriesCompacted++;
+
+            if (entriesCompacted % 1024 == 0) {
+              // Periodically update stats, do not want to do this too often since its volatile
+              entriesWritten.addAndGet(1024);
             }
-            fs.deleteRecursively(outputFile.getPath());
-          } catch (Exception e) {
-            log.warn("Failed to delete Canceled compaction output file {}", outputFile, e);
           }
-          throw new CompactionCanceledException();
+
+          if (itr.hasTop() && !env.isCompactionEnabled()) {
+            cancelCompaction(mfw);
+          }
+        }
+
+        if (!blocksToCopy.isEmpty()) {
+          log.debug("Compaction {} copied {} data blocks with {} entries for locality group {}",
+              extent, blocksToCopy.size(), entriesCopied, lgName);
         }
 
       } finally {
-        CompactionStats lgMajcStats = new CompactionStats(citr.getCount(), entriesCompacted);
+        CompactionStats lgMajcStats =
+            new CompactionStats(citr.getCount() + entriesCopied, entriesCompacted + entriesCopied);
         majCStats.add(lgMajcStats);
       }
 
@@ -420,6 +455,87 @@ public class Compactor implements Callable<CompactionStats> {
     }
   }
 
+  private void cancelCompaction(FileSKVWriter mfw) throws CompactionCanceledException {
+    // cancel major compaction operation
+    try {
+      try {
+        mfw.close();
+      } catch (IOException e) {
+        log.error("{}", e.getMessage(), e);
+      }
+      fs.deleteRecursively(outputFile.getPath());
+    } catch (Exception e) {
+      log.warn("Failed to delete Canceled compaction output file {}", outputFile, e);
+    }
+    throw new CompactionCanceledException();
+  }
+
+  /**
+   * Copying data blocks is only done when nothing but merging the input files and dropping old
+   * versions could change the data. So there can be no compaction iterators, and the output file
+   * can not be wrapped by anything that needs to see every key like bloom filters or summaries.
+   */
+  private boolean isBlockCopyEnabled(FileSKVWriter mfw) {
+    return acuTableConf.getBoolean(Property.TABLE_MAJC_BLOCK_COPY)
+        && env.getIteratorScope() == IteratorScope.majc && imm == null && iterators.isEmpty()
+        && mfw instanceof RFile.Writer
+        && DeletingIterator.getBehavior(acuTableConf) == DeletingIterator.Behavior.PROCESS;
+  }
+
+  /**
+   * @return the number of versions of each column kept by the table's majc iterators, which is
+   *         unlimited when there are none, or -1 when the iterators may change the data in ways
+   *         other than dropping versions and blocks can not be copied
+   */
+  private int getBlockCopyMaxVersions() {
+    Map<String,Map<String,String>> options = new HashMap<>();
+    List<IterInfo> majcIters = IterConfigUtil.parseIterConf(IteratorScope.majc,
+        Collections.emptyList(), options, acuTableConf);
+    if (majcIters.isEmpty()) {
+      return Integer.MAX_VALUE;
+    }
+    if (majcIters.size() == 1
+        && majcIters.get(0).getClassName().equals(VersioningIterator.class.getName())) {
+      String maxVersions = options
+          .getOrDefault(majcIters.get(0).getIterName(), Collections.emptyMap()).get("maxVersions");
+      return maxVersions == null ? 1 : Integer.parseInt(maxVersions);
+    }
+    return -1;
+  }
+
+  /**
+   * @return the readers whose data blocks may be copied, in the same order as the given readers
+   *         with nulls for files that are not rfiles, have a time set or have locality groups that
+   *         differ from the table's
+   */
+  private List<RFile.Reader> getBlockCopyCandidates(List<FileSKVIterator> readers)
+      throws IOException {
+    Map<String,Set<ByteSequence>> lGroups = getLocalityGroups(acuTableConf);
+
+    List<RFile.Reader> candidates = new ArrayList<>(readers.size());
+    Iterator<StoredTabletFile> files = filesToCompact.keySet().iterator();
+    for (FileSKVIterator reader : readers) {
+      StoredTabletFile file = files.next();
+      RFile.Reader candidate = null;
+      if (reader instanceof RFile.Reader && !filesToCompact.get(file).isTimeSet()) {
+        Map<String,ArrayList<ByteSequence>> fileGroups =
+            ((RFile.Reader) reader).getLocalityGroupCF();
+        boolean sameGroups = fileGroups.keySet().containsAll(lGroups.keySet());
+        for (Entry<String,ArrayList<ByteSequence>> entry : fileGroups.entrySet()) {
+          if (entry.getKey() != null
+              && !new HashSet<>(entry.getValue()).equals(lGroups.get(entry.getKey()))) {
+            sameGroups = false;
+          }
+        }
+        if (sameGroups) {
+          candidate = (RFile.Reader) reader;
+        }
+      }
+      candidates.add(candidate);
+    }
+    return candidates;
+  }
+
   Collection<StoredTabletFile> getFilesToCompact() {
     return filesToCompact.keySet();
   }
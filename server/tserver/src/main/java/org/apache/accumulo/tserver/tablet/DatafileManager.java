@@ -90,11 +90,12 @@ class DatafileManager {
   }
 
   Pair<Long,Map<TabletFile,DataFileValue>> reserveFilesForScan() {
-    synchronized (tablet) {
+    tablet.lock();
+    try {
 
       while (reservationsBlocked) {
         try {
-          tablet.wait(50);
+          tablet.awaitStateChange(50);
         } catch (InterruptedException e) {
           log.warn("{}", e.getMessage(), e);
         }
@@ -114,6 +115,8 @@ class DatafileManager {
       }
 
       return new Pair<>(rid, ret);
+    } finally {
+      tablet.unlock();
     }
   }
 
@@ -121,7 +124,8 @@ class DatafileManager {
 
     final Set<StoredTabletFile> filesToDelete = new HashSet<>();
 
-    synchronized (tablet) {
+    tablet.lock();
+    try {
       Set<StoredTabletFile> absFilePaths = scanFileReservations.remove(reservationId);
 
       if (absFilePaths == null)
@@ -139,7 +143,9 @@ class DatafileManager {
       }
 
       if (notify)
-        tablet.notifyAll();
+        tablet.signalStateChange();
+    } finally {
+      tablet.unlock();
     }
 
     if (!filesToDelete.isEmpty()) {
@@ -155,13 +161,16 @@ class DatafileManager {
 
     Set<StoredTabletFile> filesToDelete = new HashSet<>();
 
-    synchronized (tablet) {
+    tablet.lock();
+    try {
       for (StoredTabletFile path : scanFiles) {
         if (fileScanReferenceCounts.get(path) == 0)
           filesToDelete.add(path);
         else
           filesToDeleteAfterScan.add(path);
       }
+    } finally {
+      tablet.unlock();
     }
 
     if (!filesToDelete.isEmpty()) {
@@ -177,12 +186,13 @@ class DatafileManager {
     TreeSet<StoredTabletFile> inUse = new TreeSet<>();
 
     try (TraceScope waitForScans = Trace.startSpan("waitForScans")) {
-      synchronized (tablet) {
+      tablet.lock();
+      try {
         for (StoredTabletFile path : pathsToWaitFor) {
           while (fileScanReferenceCounts.get(path) > 0
               && System.currentTimeMillis() - startTime < maxWait) {
             try {
-              tablet.wait(100);
+              tablet.awaitStateChange(100);
             } catch (InterruptedException e) {
               log.warn("{}", e.getMessage(), e);
             }
@@ -193,6 +203,8 @@ class DatafileManager {
           if (fileScanReferenceCounts.get(path) > 0)
             inUse.add(path);
         }
+      } finally {
+        tablet.unlock();
       }
     }
     return inUse;
@@ -248,7 +260,8 @@ class DatafileManager {
       }
     }
 
-    synchronized (tablet) {
+    tablet.lock();
+    try {
       for (Entry<StoredTabletFile,DataFileValue> tpath : newFiles.entrySet()) {
         if (datafileSizes.containsKey(tpath.getKey())) {
           log.error("Adding file that is already in set {}", tpath.getKey());
@@ -259,6 +272,8 @@ class DatafileManager {
       tablet.getTabletResources().importedMapFiles();
 
       tablet.computeNumEntries();
+    } finally {
+      tablet.unlock();
     }
 
     for (Entry<StoredTabletFile,DataFileValue> entry : newFiles.entrySet()) {
@@ -446,7 +461,8 @@ class DatafileManager {
       }
     } while (true);
 
-    synchronized (tablet) {
+    tablet.lock();
+    try {
       t1 = System.currentTimeMillis();
 
       if (dfv.getNumEntries() > 0) {
@@ -465,6 +481,8 @@ class DatafileManager {
       tablet.flushComplete(flushId);
 
       t2 = System.currentTimeMillis();
+    } finally {
+      tablet.unlock();
     }
 
     // must do this after list of files in memory is updated above
@@ -522,7 +540,8 @@ class DatafileManager {
     TServerInstance lastLocation = null;
     // calling insert to get the new file before inserting into the metadata
     StoredTabletFile newFile = newDatafile.insert();
-    synchronized (tablet) {
+    tablet.lock();
+    try {
       t1 = System.currentTimeMillis();
 
       tablet.incrementDataSourceDeletions();
@@ -551,6 +570,8 @@ class DatafileManager {
 
       tablet.setLastCompactionID(compactionId);
       t2 = System.currentTimeMillis();
+    } finally {
+      tablet.unlock();
     }
 
     // known consistency issue between minor and major compactions - see ACCUMULO-18
@@ -572,16 +593,22 @@ class DatafileManager {
   }
 
   public SortedMap<StoredTabletFile,DataFileValue> getDatafileSizes() {
-    synchronized (tablet) {
+    tablet.lock();
+    try {
       TreeMap<StoredTabletFile,DataFileValue> copy = new TreeMap<>(datafileSizes);
       return Collections.unmodifiableSortedMap(copy);
+    } finally {
+      tablet.unlock();
     }
   }
 
   public Set<TabletFile> getFiles() {
-    synchronized (tablet) {
+    tablet.lock();
+    try {
       HashSet<TabletFile> files = new HashSet<>(datafileSizes.keySet());
       return Collections.unmodifiableSet(files);
+    } finally {
+      tablet.unlock();
     }
   }
 
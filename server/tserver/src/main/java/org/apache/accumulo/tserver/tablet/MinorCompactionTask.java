@@ -67,8 +67,11 @@ class MinorCompactionTask implements Runnable {
         TabletFile newFile = tablet.getNextMapFilename(mergeFile == null ? "F" : "M");
         TabletFile tmpFile = new TabletFile(new Path(newFile.getPathStr() + "_tmp"));
         try (TraceScope span = Trace.startSpan("waitForCommits")) {
-          synchronized (tablet) {
+          tablet.lock();
+          try {
             commitSession.waitForCommitsToFinish();
+          } finally {
+            tablet.unlock();
           }
         }
         try (TraceScope span = Trace.startSpan("start")) {
@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.accumulo.core.conf.IterConfigUtil;
 import org.apache.accumulo.core.conf.IterLoad;
@@ -44,6 +45,7 @@ import org.apache.accumulo.core.metadata.TabletFile;
 import org.apache.accumulo.core.metadata.schema.DataFileValue;
 import org.apache.accumulo.core.sample.impl.SamplerConfigurationImpl;
 import org.apache.accumulo.core.util.Pair;
+import org.apache.accumulo.server.conf.TableConfiguration;
 import org.apache.accumulo.server.conf.TableConfiguration.ParsedIteratorConfig;
 import org.apache.accumulo.tserver.FileManager.ScanFileManager;
 import org.apache.accumulo.tserver.InMemoryMap.MemoryIterator;
@@ -61,6 +63,7 @@ class ScanDataSource implements DataSource {
   // data source state
   private final Tablet tablet;
   private ScanFileManager fileManager;
+  private boolean cacheUsageCounted = false;
   private SortedKeyValueIterator<Key,Value> iter;
   private long expectedDeletionCount;
   private List<MemoryIterator> memIters = null;
@@ -127,7 +130,8 @@ class ScanDataSource implements DataSource {
 
     SamplerConfigurationImpl samplerConfig = scanParams.getSamplerConfigurationImpl();
 
-    synchronized (tablet) {
+    tablet.lock();
+    try {
 
       if (memIters != null)
         throw new IllegalStateException("Tried to create new scan iterator w/o releasing memory");
@@ -143,6 +147,12 @@ class ScanDataSource implements DataSource {
       if (fileManager == null) {
         fileManager =
             tablet.getTabletResources().newScanFileManager(scanParams.getScanDirectives());
+        if (!cacheUsageCounted) {
+          // the file manager may be released between batches, only count the first one
+          tablet.getTabletServer().getScanMetrics()
+              .addTabletScanDataCacheUsage(fileManager.getDataCacheUsage());
+          cacheUsageCounted = true;
+        }
         tablet.addActiveScans(this);
       }
 
@@ -158,6 +168,8 @@ class ScanDataSource implements DataSource {
           tablet.getDatafileManager().reserveFilesForScan();
       fileReservationId = reservation.getFirst();
       files = reservation.getSecond();
+    } finally {
+      tablet.unlock();
     }
 
     Collection<InterruptibleIterator> mapfiles =
@@ -182,16 +194,17 @@ class ScanDataSource implements DataSource {
     statsIterator =
         new StatsIterator(multiIter, TabletServer.seekCount, tablet.getScannedCounter());
 
+    TableConfiguration tableConf = tablet.getTableConfiguration();
+    AtomicLong deletedCounter = tablet.getScannedDeletedCounter();
     SortedKeyValueIterator<Key,Value> visFilter =
         SystemIteratorUtil.setupSystemScanIterators(statsIterator, scanParams.getColumnSet(),
-            scanParams.getAuthorizations(), defaultLabels, tablet.getTableConfiguration());
+            scanParams.getAuthorizations(), defaultLabels, tableConf, deletedCounter);
 
     if (loadIters) {
       List<IterInfo> iterInfos;
       Map<String,Map<String,String>> iterOpts;
 
-      ParsedIteratorConfig pic =
-          tablet.getTableConfiguration().getParsedIteratorConfig(IteratorScope.scan);
+      ParsedIteratorConfig pic = tableConf.getParsedIteratorConfig(IteratorScope.scan);
       if (scanParams.getSsiList().isEmpty() && scanParams.getSsio().isEmpty()) {
         // No scan time iterator options were set, so can just use the pre-parsed table iterator
         // options.
@@ -238,9 +251,12 @@ class ScanDataSource implements DataSource {
       fileReservationId = -1;
     }
 
-    synchronized (tablet) {
+    tablet.lock();
+    try {
       if (tablet.removeScan(this) == 0)
-        tablet.notifyAll();
+        tablet.signalStateChange();
+    } finally {
+      tablet.unlock();
     }
 
     if (fileManager != null) {
@@ -46,6 +46,7 @@ import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.accumulo.core.Constants;
@@ -123,6 +124,7 @@ import org.apache.accumulo.tserver.ConditionCheckerContext.ConditionChecker;
 import org.apache.accumulo.tserver.InMemoryMap;
 import org.apache.accumulo.tserver.MinorCompactionReason;
 import org.apache.accumulo.tserver.TabletServer;
+import org.apache.accumulo.tserver.TabletServerResourceManager;
 import org.apache.accumulo.tserver.TabletServerResourceManager.TabletResourceManager;
 import org.apache.accumulo.tserver.TabletStatsKeeper;
 import org.apache.accumulo.tserver.TabletStatsKeeper.Operation;
@@ -221,6 +223,11 @@ public class Tablet {
   private volatile CompactionState minorCompactionState = null;
   private volatile CompactionState majorCompactionState = null;
 
+  // guards the tablet's state; a lock and condition are used instead of the tablet's monitor so
+  // threads waiting on the tablet do not pin a virtual thread to its carrier
+  private final ReentrantLock tabletLock = new ReentrantLock();
+  private final Condition stateChanged = tabletLock.newCondition();
+
   private final Set<MajorCompactionReason> majorCompactionQueued =
       Collections.synchronizedSet(EnumSet.noneOf(MajorCompactionReason.class));
 
@@ -252,6 +259,12 @@ public class Tablet {
 
   private final Rate scannedRate = new Rate(0.95);
   private final AtomicLong scannedCount = new AtomicLong(0);
+  private final AtomicLong scannedDeletedCount = new AtomicLong(0);
+
+  // The scan counts when all of the tablet's files were last compacted. Used to decide if scans
+  // are skipping enough deleted keys to warrant compacting all files to drop the deletes.
+  private long scannedCountAtFullMajc = 0;
+  private long scannedDeletedCountAtFullMajc = 0;
 
   // Files that are currently in the process of bulk importing. Access to this is protected by the
   // tablet lock.
@@ -687,11 +700,14 @@ public class Tablet {
       // to return mapfiles, even when exception is thrown
       dataSource.close(false);
 
-      synchronized (this) {
+      tabletLock.lock();
+      try {
         queryCount += results.size();
         if (result != null) {
           queryBytes += result.dataSize;
         }
+      } finally {
+        tabletLock.unlock();
       }
     }
   }
@@ -847,25 +863,29 @@ public class Tablet {
     }
   }
 
-  private synchronized MinorCompactionTask prepareForMinC(long flushId,
-      MinorCompactionReason mincReason) {
-    Preconditions.checkState(otherLogs.isEmpty());
-    Preconditions.checkState(referencedLogs.equals(currentLogs));
-    CommitSession oldCommitSession = getTabletMemory().prepareForMinC();
-    otherLogs = currentLogs;
-    currentLogs = new HashSet<>();
+  private MinorCompactionTask prepareForMinC(long flushId, MinorCompactionReason mincReason) {
+    tabletLock.lock();
+    try {
+      Preconditions.checkState(otherLogs.isEmpty());
+      Preconditions.checkState(referencedLogs.equals(currentLogs));
+      CommitSession oldCommitSession = getTabletMemory().prepareForMinC();
+      otherLogs = currentLogs;
+      currentLogs = new HashSet<>();
 
-    StoredTabletFile mergeFile = null;
-    if (mincReason != MinorCompactionReason.RECOVERY) {
-      mergeFile = getDatafileManager().reserveMergingMinorCompactionFile();
-    }
+      StoredTabletFile mergeFile = null;
+      if (mincReason != MinorCompactionReason.RECOVERY) {
+        mergeFile = getDatafileManager().reserveMergingMinorCompactionFile();
+      }
 
-    double tracePercent =
-        tabletServer.getConfiguration().getFraction(Property.TSERV_MINC_TRACE_PERCENT);
+      double tracePercent =
+          tabletServer.getConfiguration().getFraction(Property.TSERV_MINC_TRACE_PERCENT);
 
-    return new MinorCompactionTask(this, mergeFile, oldCommitSession, flushId, mincReason,
-        tracePercent);
+      return new MinorCompactionTask(this, mergeFile, oldCommitSession, flushId, mincReason,
+          tracePercent);
 
+    } finally {
+      tabletLock.unlock();
+    }
   }
 
   public void flush(long tableFlushID) {
@@ -874,7 +894,8 @@ public class Tablet {
 
     try {
 
-      synchronized (this) {
+      tabletLock.lock();
+      try {
 
         // only want one thing at a time to update flush ID to ensure that metadata table and tablet
         // in memory state are consistent
@@ -897,6 +918,8 @@ public class Tablet {
         } else {
           initiateMinor = true;
         }
+      } finally {
+        tabletLock.unlock();
       }
 
       if (updateMetadata) {
@@ -910,9 +933,12 @@ public class Tablet {
 
     } finally {
       if (updateMetadata) {
-        synchronized (this) {
+        tabletLock.lock();
+        try {
           updatingFlushID = false;
-          this.notifyAll();
+          stateChanged.signalAll();
+        } finally {
+          tabletLock.unlock();
         }
       }
     }
@@ -970,7 +996,8 @@ public class Tablet {
     StringBuilder logMessage = null;
 
     try {
-      synchronized (this) {
+      tabletLock.lock();
+      try {
         t1 = System.currentTimeMillis();
 
         if (isClosing() || isClosed() || majorCompactionState == CompactionState.WAITING_TO_START
@@ -997,6 +1024,8 @@ public class Tablet {
 
         mct = prepareForMinC(flushId, mincReason);
         t2 = System.currentTimeMillis();
+      } finally {
+        tabletLock.unlock();
       }
     } finally {
       // log outside of sync block
@@ -1078,16 +1107,21 @@ public class Tablet {
     }
   }
 
-  private synchronized CommitSession finishPreparingMutations(long time) {
-    if (isClosed() || getTabletMemory() == null) {
-      return null;
-    }
+  private CommitSession finishPreparingMutations(long time) {
+    tabletLock.lock();
+    try {
+      if (isClosed() || getTabletMemory() == null) {
+        return null;
+      }
 
-    CommitSession commitSession = getTabletMemory().getCommitSession();
-    incrementWritesInProgress(commitSession);
+      CommitSession commitSession = getTabletMemory().getCommitSession();
+      incrementWritesInProgress(commitSession);
 
-    commitSession.updateMaxCommittedTime(time);
-    return commitSession;
+      commitSession.updateMaxCommittedTime(time);
+      return commitSession;
+    } finally {
+      tabletLock.unlock();
+    }
   }
 
   public PreparedMutations prepareMutationsForCommit(final TservConstraintEnv cenv,
@@ -1146,43 +1180,68 @@ public class Tablet {
     return new PreparedMutations(cs, nonViolators, violations, violators);
   }
 
-  private synchronized void incrementWritesInProgress(CommitSession cs) {
-    incrementWritesInProgress();
-    cs.incrementCommitsInProgress();
+  private void incrementWritesInProgress(CommitSession cs) {
+    tabletLock.lock();
+    try {
+      incrementWritesInProgress();
+      cs.incrementCommitsInProgress();
+    } finally {
+      tabletLock.unlock();
+    }
   }
 
-  private synchronized void incrementWritesInProgress() {
-    if (writesInProgress < 0) {
-      throw new IllegalStateException("FATAL: Something really bad went wrong. Attempted to "
-          + "increment a negative number of writes in progress " + writesInProgress + "on tablet "
-          + extent);
+  private void incrementWritesInProgress() {
+    tabletLock.lock();
+    try {
+      if (writesInProgress < 0) {
+        throw new IllegalStateException("FATAL: Something really bad went wrong. Attempted to "
+            + "increment a negative number of writes in progress " + writesInProgress + "on tablet "
+            + extent);
+      }
+      writesInProgress++;
+    } finally {
+      tabletLock.unlock();
     }
-    writesInProgress++;
   }
 
-  private synchronized void decrementWritesInProgress(CommitSession cs) {
-    decrementWritesInProgress();
-    cs.decrementCommitsInProgress();
+  private void decrementWritesInProgress(CommitSession cs) {
+    tabletLock.lock();
+    try {
+      decrementWritesInProgress();
+      cs.decrementCommitsInProgress();
+    } finally {
+      tabletLock.unlock();
+    }
   }
 
-  private synchronized void decrementWritesInProgress() {
-    if (writesInProgress <= 0) {
-      throw new IllegalStateException("FATAL: Something really bad went wrong. Attempted to "
-          + "decrement the number of writes in progress " + writesInProgress + " to < 0 on tablet "
-          + extent);
-    }
-    writesInProgress--;
-    if (writesInProgress == 0) {
-      this.notifyAll();
+  private void decrementWritesInProgress() {
+    tabletLock.lock();
+    try {
+      if (writesInProgress <= 0) {
+        throw new IllegalStateException("FATAL: Something really bad went wrong. Attempted to "
+            + "decrement the number of writes in progress " + writesInProgress
+            + " to < 0 on tablet " + extent);
+      }
+      writesInProgress--;
+      if (writesInProgress == 0) {
+        stateChanged.signalAll();
+      }
+    } finally {
+      tabletLock.unlock();
     }
   }
 
-  public synchronized void abortCommit(CommitSession commitSession) {
-    if (isCloseComplete() || getTabletMemory() == null) {
-      throw new IllegalStateException("Aborting commit when tablet " + extent + " is closed");
-    }
+  public void abortCommit(CommitSession commitSession) {
+    tabletLock.lock();
+    try {
+      if (isCloseComplete() || getTabletMemory() == null) {
+        throw new IllegalStateException("Aborting commit when tablet " + extent + " is closed");
+      }
 
-    decrementWritesInProgress(commitSession);
+      decrementWritesInProgress(commitSession);
+    } finally {
+      tabletLock.unlock();
+    }
   }
 
   public void commit(CommitSession commitSession, List<Mutation> mutations) {
@@ -1198,7 +1257,8 @@ public class Tablet {
 
     getTabletMemory().mutate(commitSession, mutations, totalCount);
 
-    synchronized (this) {
+    tabletLock.lock();
+    try {
       if (isCloseComplete()) {
         throw new IllegalStateException(
             "Tablet " + extent + " closed with outstanding messages to the logger");
@@ -1212,6 +1272,8 @@ public class Tablet {
       numEntriesInMemory += totalCount;
       ingestCount += totalCount;
       ingestBytes += totalBytes;
+    } finally {
+      tabletLock.unlock();
     }
   }
 
@@ -1229,7 +1291,8 @@ public class Tablet {
 
     MinorCompactionTask mct = null;
 
-    synchronized (this) {
+    tabletLock.lock();
+    try {
       if (isClosed() || isClosing()) {
         String msg = "Tablet " + getExtent() + " already " + closeState;
         throw new IllegalStateException(msg);
@@ -1238,13 +1301,13 @@ public class Tablet {
       // enter the closing state, no splits, minor, or major compactions can start
       // should cause running major compactions to stop
       closeState = CloseState.CLOSING;
-      this.notifyAll();
+      stateChanged.signalAll();
 
       // wait for major compactions to finish, setting closing to
       // true should cause any running major compactions to abort
       while (isMajorCompactionRunning()) {
         try {
-          this.wait(50);
+          stateChanged.await(50, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
           log.error(e.toString());
         }
@@ -1252,7 +1315,7 @@ public class Tablet {
 
       while (updatingFlushID) {
         try {
-          this.wait(50);
+          stateChanged.await(50, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
           log.error(e.toString());
         }
@@ -1269,6 +1332,8 @@ public class Tablet {
       } catch (NoNodeException e) {
         throw new RuntimeException("Exception on " + extent + " during prep for MinC", e);
       }
+    } finally {
+      tabletLock.unlock();
     }
 
     // do minor compaction outside of synch block so that tablet can be read and written to while
@@ -1278,80 +1343,86 @@ public class Tablet {
 
   private boolean closeCompleting = false;
 
-  synchronized void completeClose(boolean saveState, boolean completeClose) throws IOException {
-
-    if (!isClosing() || isCloseComplete() || closeCompleting) {
-      throw new IllegalStateException("Bad close state " + closeState + " on tablet " + extent);
-    }
+  void completeClose(boolean saveState, boolean completeClose) throws IOException {
+    tabletLock.lock();
+    try {
 
-    log.trace("completeClose(saveState={} completeClose={}) {}", saveState, completeClose, extent);
+      if (!isClosing() || isCloseComplete() || closeCompleting) {
+        throw new IllegalStateException("Bad close state " + closeState + " on tablet " + extent);
+      }
 
-    // ensure this method is only called once, also guards against multiple
-    // threads entering the method at the same time
-    closeCompleting = true;
-    closeState = CloseState.CLOSED;
+      log.trace("completeClose(saveState={} completeClose={}) {}", saveState, completeClose,
+          extent);
 
-    // modify dataSourceDeletions so scans will try to switch data sources and fail because the
-    // tablet is closed
-    dataSourceDeletions.incrementAndGet();
+      // ensure this method is only called once, also guards against multiple
+      // threads entering the method at the same time
+      closeCompleting = true;
+      closeState = CloseState.CLOSED;
 
-    for (ScanDataSource activeScan : activeScans) {
-      activeScan.interrupt();
-    }
+      // modify dataSourceDeletions so scans will try to switch data sources and fail because the
+      // tablet is closed
+      dataSourceDeletions.incrementAndGet();
 
-    // wait for reads and writes to complete
-    while (writesInProgress > 0 || !activeScans.isEmpty()) {
-      try {
-        this.wait(50);
-      } catch (InterruptedException e) {
-        log.error(e.toString());
+      for (ScanDataSource activeScan : activeScans) {
+        activeScan.interrupt();
       }
-    }
-
-    getTabletMemory().waitForMinC();
 
-    if (saveState && getTabletMemory().getMemTable().getNumEntries() > 0) {
-      try {
-        prepareForMinC(getFlushID(), MinorCompactionReason.CLOSE).run();
-      } catch (NoNodeException e) {
-        throw new RuntimeException("Exception on " + extent + " during prep for MinC", e);
+      // wait for reads and writes to complete
+      while (writesInProgress > 0 || !activeScans.isEmpty()) {
+        try {
+          stateChanged.await(50, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+          log.error(e.toString());
+        }
       }
-    }
 
-    if (saveState) {
-      // at this point all tablet data is flushed, so do a consistency check
-      RuntimeException err = null;
-      for (int i = 0; i < 5; i++) {
+      getTabletMemory().waitForMinC();
+
+      if (saveState && getTabletMemory().getMemTable().getNumEntries() > 0) {
         try {
-          closeConsistencyCheck();
-          err = null;
-        } catch (RuntimeException t) {
-          err = t;
-          log.error("Consistency check fails, retrying", t);
-          sleepUninterruptibly(500, TimeUnit.MILLISECONDS);
+          prepareForMinC(getFlushID(), MinorCompactionReason.CLOSE).run();
+        } catch (NoNodeException e) {
+          throw new RuntimeException("Exception on " + extent + " during prep for MinC", e);
         }
       }
-      if (err != null) {
-        ProblemReports.getInstance(context).report(new ProblemReport(extent.getTableId(),
-            ProblemType.TABLET_LOAD, this.extent.toString(), err));
-        log.error("Tablet closed consistency check has failed for {} giving up and closing",
-            this.extent);
+
+      if (saveState) {
+        // at this point all tablet data is flushed, so do a consistency check
+        RuntimeException err = null;
+        for (int i = 0; i < 5; i++) {
+          try {
+            closeConsistencyCheck();
+            err = null;
+          } catch (RuntimeException t) {
+            err = t;
+            log.error("Consistency check fails, retrying", t);
+            sleepUninterruptibly(500, TimeUnit.MILLISECONDS);
+          }
+        }
+        if (err != null) {
+          ProblemReports.getInstance(context).report(new ProblemReport(extent.getTableId(),
+              ProblemType.TABLET_LOAD, this.extent.toString(), err));
+          log.error("Tablet closed consistency check has failed for {} giving up and closing",
+              this.extent);
+        }
       }
-    }
 
-    try {
-      getTabletMemory().getMemTable().delete(0);
-    } catch (Throwable t) {
-      log.error("Failed to delete mem table : " + t.getMessage() + " for tablet " + extent, t);
-    }
+      try {
+        getTabletMemory().getMemTable().delete(0);
+      } catch (Throwable t) {
+        log.error("Failed to delete mem table : " + t.getMessage() + " for tablet " + extent, t);
+      }
 
-    getTabletMemory().close();
+      getTabletMemory().close();
 
-    // close map files
-    getTabletResources().close();
+      // close map files
+      getTabletResources().close();
 
-    if (completeClose) {
-      closeState = CloseState.COMPLETE;
+      if (completeClose) {
+        closeState = CloseState.COMPLETE;
+      }
+    } finally {
+      tabletLock.unlock();
     }
   }
 
@@ -1404,22 +1475,28 @@ public class Tablet {
     // TODO check lastFlushID and lostCompactID - ACCUMULO-1290
   }
 
-  public synchronized void initiateMajorCompaction(MajorCompactionReason reason) {
+  public void initiateMajorCompaction(MajorCompactionReason reason) {
+    tabletLock.lock();
+    try {
 
-    if (isClosing() || isClosed() || !needsMajorCompaction(reason) || isMajorCompactionRunning()
-        || majorCompactionQueued.contains(reason)) {
-      return;
-    }
+      if (isClosing() || isClosed() || !needsMajorCompaction(reason) || isMajorCompactionRunning()
+          || majorCompactionQueued.contains(reason)) {
+        return;
+      }
 
-    majorCompactionQueued.add(reason);
+      majorCompactionQueued.add(reason);
 
-    try {
-      getTabletResources().executeMajorCompaction(getExtent(), new CompactionRunner(this, reason));
-    } catch (RuntimeException t) {
-      log.debug("removing {} because we encountered an exception enqueing the CompactionRunner",
-          reason, t);
-      majorCompactionQueued.remove(reason);
-      throw t;
+      try {
+        getTabletResources().executeMajorCompaction(getExtent(),
+            new CompactionRunner(this, reason));
+      } catch (RuntimeException t) {
+        log.debug("removing {} because we encountered an exception enqueing the CompactionRunner",
+            reason, t);
+        majorCompactionQueued.remove(reason);
+        throw t;
+      }
+    } finally {
+      tabletLock.unlock();
     }
   }
 
@@ -1434,10 +1511,38 @@ public class Tablet {
     if (reason == MajorCompactionReason.CHOP || reason == MajorCompactionReason.USER) {
       return true;
     }
+    if (reason == MajorCompactionReason.NORMAL && needsDeletesCompaction()) {
+      return true;
+    }
     return getTabletResources().needsMajorCompaction(getDatafileManager().getDatafileSizes(),
         reason);
   }
 
+  /**
+   * Returns true if scans of this tablet have skipped enough deleted keys, since all of its files
+   * were last compacted, that all of its files should be compacted to drop the deletes.
+   */
+  private boolean needsDeletesCompaction() {
+    tabletLock.lock();
+    try {
+      long threshold = tableConfiguration.getCount(Property.TABLE_MAJC_SCAN_DELETES_THRESHOLD);
+      if (threshold <= 0 || getDatafileManager().getDatafileSizes().isEmpty()) {
+        return false;
+      }
+
+      long deleted = scannedDeletedCount.get() - scannedDeletedCountAtFullMajc;
+      long scanned = scannedCount.get() - scannedCountAtFullMajc;
+      if (deleted < threshold || scanned <= 0) {
+        return false;
+      }
+
+      return (double) deleted / scanned
+          >= tableConfiguration.getFraction(Property.TABLE_MAJC_SCAN_DELETES_RATIO);
+    } finally {
+      tabletLock.unlock();
+    }
+  }
+
   /**
    * Returns an int representing the total block size of the files served by this tablet.
    *
@@ -1657,11 +1762,16 @@ public class Tablet {
    * Returns true if this tablet needs to be split
    *
    */
-  public synchronized boolean needsSplit() {
-    if (isClosing() || isClosed()) {
-      return false;
+  public boolean needsSplit() {
+    tabletLock.lock();
+    try {
+      if (isClosing() || isClosed()) {
+        return false;
+      }
+      return findSplitRow(getDatafileManager().getFiles()) != null;
+    } finally {
+      tabletLock.unlock();
     }
-    return findSplitRow(getDatafileManager().getFiles()) != null;
   }
 
   // BEGIN PRIVATE METHODS RELATED TO MAJOR COMPACTION
@@ -1673,6 +1783,7 @@ public class Tablet {
     Pair<Long,UserCompactionConfig> compactionId = null;
     CompactionStrategy strategy = null;
     Map<StoredTabletFile,Pair<Key,Key>> firstAndLastKeys = null;
+    boolean compactDeletes = false;
 
     if (reason == MajorCompactionReason.USER) {
       try {
@@ -1681,6 +1792,9 @@ public class Tablet {
       } catch (NoNodeException e) {
         throw new RuntimeException("Exception on " + extent + " during MajC", e);
       }
+    } else if (reason == MajorCompactionReason.NORMAL && needsDeletesCompaction()) {
+      // scans are skipping lots of deleted keys, so compact everything to drop the deletes
+      compactDeletes = true;
     } else if (reason == MajorCompactionReason.NORMAL || reason == MajorCompactionReason.IDLE) {
       strategy = Property.createTableInstanceFromPropertyName(tableConfiguration,
           Property.TABLE_COMPACTION_STRATEGY, CompactionStrategy.class,
@@ -1714,7 +1828,8 @@ public class Tablet {
     boolean propogateDeletes = false;
     boolean updateCompactionID = false;
 
-    synchronized (this) {
+    tabletLock.lock();
+    try {
       // plan all that work that needs to be done in the sync block... then do the actual work
       // outside the sync block
 
@@ -1727,13 +1842,16 @@ public class Tablet {
       t2 = System.currentTimeMillis();
 
       majorCompactionState = CompactionState.IN_PROGRESS;
-      notifyAll();
+      stateChanged.signalAll();
 
       SortedMap<StoredTabletFile,DataFileValue> allFiles = getDatafileManager().getDatafileSizes();
       List<StoredTabletFile> inputFiles = new ArrayList<>();
       if (reason == MajorCompactionReason.CHOP) {
         // enforce rules: files with keys outside our range need to be compacted
         inputFiles.addAll(findChopFiles(extent, firstAndLastKeys, allFiles.keySet()));
+      } else if (compactDeletes) {
+        log.debug("Compacting all files of {} to drop deletes skipped by scans", extent);
+        inputFiles.addAll(allFiles.keySet());
       } else {
         MajorCompactionRequest request =
             new MajorCompactionRequest(extent, reason, tableConfiguration, context);
@@ -1776,6 +1894,8 @@ public class Tablet {
       }
 
       t3 = System.currentTimeMillis();
+    } finally {
+      tabletLock.unlock();
     }
 
     try {
@@ -1812,11 +1932,14 @@ public class Tablet {
           }
           compactionIterators = compactionId.getSecond().getIterators();
 
-          synchronized (this) {
+          tabletLock.lock();
+          try {
             if (lastCompactID >= compactionId.getFirst()) {
               // already compacted
               return majCStats;
             }
+          } finally {
+            tabletLock.unlock();
           }
         }
 
@@ -1900,6 +2023,18 @@ public class Tablet {
               filesToCompact.isEmpty() && compactionId != null ? compactionId.getFirst() : null,
               new DataFileValue(mcs.getFileSize(), mcs.getEntriesWritten()));
 
+          if (lastBatch && !propogateDeletes) {
+            // the deletes are gone once all of the files have been replaced, so start counting the
+            // deletes scans skip again
+            tabletLock.lock();
+            try {
+              scannedCountAtFullMajc = scannedCount.get();
+              scannedDeletedCountAtFullMajc = scannedDeletedCount.get();
+            } finally {
+              tabletLock.unlock();
+            }
+          }
+
           // when major compaction produces a file w/ zero entries, it will be deleted... do not
           // want to add the deleted file
           if (!filesToCompact.isEmpty() && mcs.getEntriesWritten() > 0) {
@@ -1911,8 +2046,11 @@ public class Tablet {
       } while (!filesToCompact.isEmpty());
       return majCStats;
     } finally {
-      synchronized (Tablet.this) {
+      tabletLock.lock();
+      try {
         getDatafileManager().clearMajorCompactingFile();
+      } finally {
+        tabletLock.unlock();
       }
     }
   }
@@ -1992,7 +2130,8 @@ public class Tablet {
 
     timer.incrementStatusMajor();
 
-    synchronized (this) {
+    tabletLock.lock();
+    try {
       // check that compaction is still needed - defer to splitting
       majorCompactionQueued.remove(reason);
 
@@ -2002,6 +2141,8 @@ public class Tablet {
       }
 
       majorCompactionState = CompactionState.WAITING_TO_START;
+    } finally {
+      tabletLock.unlock();
     }
 
     double tracePercent =
@@ -2033,9 +2174,12 @@ public class Tablet {
     } finally {
       // ensure we always reset boolean, even
       // when an exception is thrown
-      synchronized (this) {
+      tabletLock.lock();
+      try {
         majorCompactionState = null;
-        this.notifyAll();
+        stateChanged.signalAll();
+      } finally {
+        tabletLock.unlock();
       }
     }
     long count = 0;
@@ -2051,19 +2195,24 @@ public class Tablet {
     return extent;
   }
 
-  synchronized void computeNumEntries() {
-    Collection<DataFileValue> vals = getDatafileManager().getDatafileSizes().values();
+  void computeNumEntries() {
+    tabletLock.lock();
+    try {
+      Collection<DataFileValue> vals = getDatafileManager().getDatafileSizes().values();
 
-    long numEntries = 0;
+      long numEntries = 0;
 
-    for (DataFileValue tableValue : vals) {
-      numEntries += tableValue.getNumEntries();
-    }
+      for (DataFileValue tableValue : vals) {
+        numEntries += tableValue.getNumEntries();
+      }
 
-    this.numEntriesInMemory = getTabletMemory().getNumEntries();
-    numEntries += getTabletMemory().getNumEntries();
+      this.numEntriesInMemory = getTabletMemory().getNumEntries();
+      numEntries += getTabletMemory().getNumEntries();
 
-    this.numEntries = numEntries;
+      this.numEntries = numEntries;
+    } finally {
+      tabletLock.unlock();
+    }
   }
 
   public long getNumEntries() {
@@ -2075,6 +2224,30 @@ public class Tablet {
   }
 
   // Do not synchronize this method, it is called frequently by compactions
+  /**
+   * Acquires the lock guarding the tablet's state. Callers must release it with {@link #unlock()}
+   * in a finally block.
+   */
+  void lock() {
+    tabletLock.lock();
+  }
+
+  void unlock() {
+    tabletLock.unlock();
+  }
+
+  /**
+   * Waits up to the given number of milliseconds for a change in the tablet's state to be
+   * signalled. The caller must hold the tablet lock.
+   */
+  void awaitStateChange(long millis) throws InterruptedException {
+    stateChanged.await(millis, TimeUnit.MILLISECONDS);
+  }
+
+  void signalStateChange() {
+    stateChanged.signalAll();
+  }
+
   public boolean isClosing() {
     return closeState == CloseState.CLOSING;
   }
@@ -2141,7 +2314,8 @@ public class Tablet {
     Map<TabletFile,FileUtil.FileInfo> firstAndLastRows =
         FileUtil.tryToGetFirstAndLastRows(context, getDatafileManager().getFiles());
 
-    synchronized (this) {
+    tabletLock.lock();
+    try {
       // java needs tuples ...
       TreeMap<KeyExtent,TabletData> newTablets = new TreeMap<>();
 
@@ -2208,6 +2382,8 @@ public class Tablet {
 
       closeState = CloseState.COMPLETE;
       return newTablets;
+    } finally {
+      tabletLock.unlock();
     }
   }
 
@@ -2269,7 +2445,8 @@ public class Tablet {
     // Clients timeout and will think that this operation failed.
     // Don't do it if we spent too long waiting for the lock
     long now = System.currentTimeMillis();
-    synchronized (this) {
+    tabletLock.lock();
+    try {
       if (isClosed()) {
         throw new IOException("tablet " + extent + " is closed");
       }
@@ -2307,6 +2484,8 @@ public class Tablet {
 
       // prevent other threads from processing this file while its added to the metadata table.
       bulkImporting.addAll(fileMap.keySet());
+    } finally {
+      tabletLock.unlock();
     }
     try {
       tabletServer.updateBulkImportState(files, BulkImportState.LOADING);
@@ -2320,7 +2499,8 @@ public class Tablet {
         initiateMajorCompaction(MajorCompactionReason.NORMAL);
       }
     } finally {
-      synchronized (this) {
+      tabletLock.lock();
+      try {
         decrementWritesInProgress();
 
         if (!bulkImporting.removeAll(fileMap.keySet())) {
@@ -2334,6 +2514,8 @@ public class Tablet {
           log.info(ex.toString(), ex);
         }
         tabletServer.removeBulkImportState(files);
+      } finally {
+        tabletLock.unlock();
       }
     }
   }
@@ -2345,35 +2527,40 @@ public class Tablet {
   // have to get the tablet lock. See #558
   private volatile Set<DfsLogger> referencedLogs = Collections.emptySet();
 
-  private synchronized void rebuildReferencedLogs() {
-    /*
-     * Each tablet has the following sets of WALogs. While a WALog exists in one set, garbage
-     * collection must be avoided.
-     *
-     * 1. WALogs for the active in memory map
-     *
-     * 2. WAlogs for the minor compacting in memory map
-     *
-     * 3. WAlogs for a newly minor compacted file that is being added to the metadata table.
-     *
-     * Set 1 is currentLogs. Set 2 is otherLogs. Set 3 only exist in referenced logs as a side
-     * effect of not calling this method in beginClearingUnusedLogs() when otherLogs is cleared.
-     *
-     * Ensuring referencedLogs accurately tracks these sets ensures in use walogs are not GCed.
-     */
-
-    var prev = referencedLogs;
-
-    var builder = ImmutableSet.<DfsLogger>builder();
-    builder.addAll(currentLogs);
-    builder.addAll(otherLogs);
-    referencedLogs = builder.build();
+  private void rebuildReferencedLogs() {
+    tabletLock.lock();
+    try {
+      /*
+       * Each tablet has the following sets of WALogs. While a WALog exists in one set, garbage
+       * collection must be avoided.
+       *
+       * 1. WALogs for the active in memory map
+       *
+       * 2. WAlogs for the minor compacting in memory map
+       *
+       * 3. WAlogs for a newly minor compacted file that is being added to the metadata table.
+       *
+       * Set 1 is currentLogs. Set 2 is otherLogs. Set 3 only exist in referenced logs as a side
+       * effect of not calling this method in beginClearingUnusedLogs() when otherLogs is cleared.
+       *
+       * Ensuring referencedLogs accurately tracks these sets ensures in use walogs are not GCed.
+       */
+
+      var prev = referencedLogs;
+
+      var builder = ImmutableSet.<DfsLogger>builder();
+      builder.addAll(currentLogs);
+      builder.addAll(otherLogs);
+      referencedLogs = builder.build();
+
+      if (TabletLogger.isWalRefLoggingEnabled() && !prev.equals(referencedLogs)) {
+        TabletLogger.walRefsChanged(extent,
+            referencedLogs.stream().map(DfsLogger::getPath).map(Path::getName).collect(toList()));
+      }
 
-    if (TabletLogger.isWalRefLoggingEnabled() && !prev.equals(referencedLogs)) {
-      TabletLogger.walRefsChanged(extent,
-          referencedLogs.stream().map(DfsLogger::getPath).map(Path::getName).collect(toList()));
+    } finally {
+      tabletLock.unlock();
     }
-
   }
 
   public void removeInUseLogs(Set<DfsLogger> candidates) {
@@ -2388,7 +2575,8 @@ public class Tablet {
         .resolve(Property.TSERV_WALOG_MAX_REFERENCED, Property.TABLE_MINC_LOGS_MAX));
 
     String reason = null;
-    synchronized (this) {
+    tabletLock.lock();
+    try {
       if (currentLogs.size() >= maxLogs) {
         reason = "referenced " + currentLogs.size() + " write ahead logs";
       } else if (maxLogs < closedLogs.size()) {
@@ -2405,6 +2593,8 @@ public class Tablet {
           }
         }
       }
+    } finally {
+      tabletLock.unlock();
     }
 
     if (reason != null) {
@@ -2423,7 +2613,8 @@ public class Tablet {
     // do not hold tablet lock while acquiring the log lock
     logLock.lock();
 
-    synchronized (this) {
+    tabletLock.lock();
+    try {
       if (removingLogs) {
         throw new IllegalStateException(
             "Attempted to clear logs when removal of logs in progress on " + extent);
@@ -2448,6 +2639,8 @@ public class Tablet {
       if (!unusedLogs.isEmpty()) {
         removingLogs = true;
       }
+    } finally {
+      tabletLock.unlock();
     }
 
     // do debug logging outside tablet lock
@@ -2466,10 +2659,15 @@ public class Tablet {
     return unusedLogs;
   }
 
-  synchronized void finishClearingUnusedLogs() {
-    removingLogs = false;
-    rebuildReferencedLogs();
-    logLock.unlock();
+  void finishClearingUnusedLogs() {
+    tabletLock.lock();
+    try {
+      removingLogs = false;
+      rebuildReferencedLogs();
+      logLock.unlock();
+    } finally {
+      tabletLock.unlock();
+    }
   }
 
   private boolean removingLogs = false;
@@ -2489,7 +2687,8 @@ public class Tablet {
     logLock.lock();
 
     try {
-      synchronized (this) {
+      tabletLock.lock();
+      try {
 
         if (isCloseComplete()) {
           throw new IllegalStateException("Can not update logs of closed tablet " + extent);
@@ -2540,6 +2739,8 @@ public class Tablet {
         }
 
         return !releaseLock;
+      } finally {
+        tabletLock.unlock();
       }
     } finally {
       if (releaseLock) {
@@ -2552,8 +2753,13 @@ public class Tablet {
     logLock.unlock();
   }
 
-  public synchronized void chopFiles() {
-    initiateMajorCompaction(MajorCompactionReason.CHOP);
+  public void chopFiles() {
+    tabletLock.lock();
+    try {
+      initiateMajorCompaction(MajorCompactionReason.CHOP);
+    } finally {
+      tabletLock.unlock();
+    }
   }
 
   private CompactionStrategy createCompactionStrategy(CompactionStrategyConfig strategyConfig) {
@@ -2578,7 +2784,8 @@ public class Tablet {
   public void compactAll(long compactionId, UserCompactionConfig compactionConfig) {
     boolean updateMetadata = false;
 
-    synchronized (this) {
+    tabletLock.lock();
+    try {
       if (lastCompactID >= compactionId) {
         return;
       }
@@ -2619,6 +2826,8 @@ public class Tablet {
       } catch (IOException e) {
         throw new UncheckedIOException("IOException on " + extent + " during compact all", e);
       }
+    } finally {
+      tabletLock.unlock();
     }
 
     if (updateMetadata) {
@@ -2628,9 +2837,12 @@ public class Tablet {
         MetadataTableUtil.updateTabletCompactID(extent, compactionId,
             getTabletServer().getContext(), getTabletServer().getLock());
       } finally {
-        synchronized (this) {
+        tabletLock.lock();
+        try {
           majorCompactionState = null;
-          this.notifyAll();
+          stateChanged.signalAll();
+        } finally {
+          tabletLock.unlock();
         }
       }
     }
@@ -2640,6 +2852,17 @@ public class Tablet {
     return tableConfiguration;
   }
 
+  /**
+   * @return a task that reads the index blocks of this tablet's current files, and optionally some
+   *         of their data blocks, into the block caches
+   */
+  public Runnable createCacheWarmer() {
+    TabletServerResourceManager tsrm = tabletResources.getTabletServerResourceManager();
+    return new TabletCacheWarmer(context, getTabletServer().getFileSystem(), extent,
+        tableConfiguration, getDatafileManager().getFiles(), tsrm.getIndexCache(),
+        tsrm.getDataCache(), tsrm.getBloomCache(), tsrm.getFileLenCache());
+  }
+
   public Durability getDurability() {
     return DurabilityImpl.fromString(getTableConfiguration().get(Property.TABLE_DURABILITY));
   }
@@ -2652,9 +2875,14 @@ public class Tablet {
     return dataSourceDeletions.incrementAndGet();
   }
 
-  public synchronized void updateQueryStats(int size, long numBytes) {
-    queryCount += size;
-    queryBytes += numBytes;
+  public void updateQueryStats(int size, long numBytes) {
+    tabletLock.lock();
+    try {
+      queryCount += size;
+      queryBytes += numBytes;
+    } finally {
+      tabletLock.unlock();
+    }
   }
 
   TabletServer getTabletServer() {
@@ -2725,8 +2953,13 @@ public class Tablet {
     return result;
   }
 
-  public synchronized void addActiveScans(ScanDataSource scanDataSource) {
-    activeScans.add(scanDataSource);
+  public void addActiveScans(ScanDataSource scanDataSource) {
+    tabletLock.lock();
+    try {
+      activeScans.add(scanDataSource);
+    } finally {
+      tabletLock.unlock();
+    }
   }
 
   public int removeScan(ScanDataSource scanDataSource) {
@@ -2734,9 +2967,14 @@ public class Tablet {
     return activeScans.size();
   }
 
-  public synchronized void setLastCompactionID(Long compactionId) {
-    if (compactionId != null) {
-      this.lastCompactID = compactionId;
+  public void setLastCompactionID(Long compactionId) {
+    tabletLock.lock();
+    try {
+      if (compactionId != null) {
+        this.lastCompactID = compactionId;
+      }
+    } finally {
+      tabletLock.unlock();
     }
   }
 
@@ -2760,6 +2998,10 @@ public class Tablet {
     return scannedCount;
   }
 
+  public AtomicLong getScannedDeletedCounter() {
+    return scannedDeletedCount;
+  }
+
   private static String createTabletDirectoryName(ServerContext context, Text endRow) {
     if (endRow == null) {
       return ServerColumnFamily.DEFAULT_TABLET_DIR_NAME;
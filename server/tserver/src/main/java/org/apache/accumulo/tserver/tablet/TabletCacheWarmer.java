@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.tablet;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.file.BloomFilterLayer;
+import org.apache.accumulo.core.file.FileSKVIterator;
+import org.apache.accumulo.core.file.blockfile.impl.BasicCacheProvider;
+import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.accumulo.core.file.rfile.RFileOperations;
+import org.apache.accumulo.core.metadata.TabletFile;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.server.ServerContext;
+import org.apache.accumulo.server.fs.VolumeManager;
+import org.apache.hadoop.fs.FileSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+
+/**
+ * Reads the index blocks and bloom filters of a newly loaded tablet's files, and optionally some of
+ * their data blocks, into the tablet server's block caches. This avoids slow scans right after a
+ * tablet migrates or a tablet server restarts.
+ *
+ * <p>
+ * Data blocks are warmed as a prefix: they are read in key order from the start of the tablet, one
+ * file after another, until {@link Property#TABLE_CACHE_WARMUP_DATA_MAX} bytes have been read.
+ * Block access frequencies are not tracked, so this is not a warm-up of the hottest blocks.
+ */
+class TabletCacheWarmer implements Runnable {
+
+  private static final Logger log = LoggerFactory.getLogger(TabletCacheWarmer.class);
+
+  private static final Collection<ByteSequence> EMPTY_CF_SET = Collections.emptySet();
+
+  private final ServerContext context;
+  private final VolumeManager fs;
+  private final KeyExtent extent;
+  private final AccumuloConfiguration tableConf;
+  private final Collection<? extends TabletFile> files;
+  private final BlockCache indexCache;
+  private final BlockCache dataCache;
+  private final BlockCache bloomCache;
+  private final Cache<String,Long> fileLenCache;
+
+  TabletCacheWarmer(ServerContext context, VolumeManager fs, KeyExtent extent,
+      AccumuloConfiguration tableConf, Collection<? extends TabletFile> files,
+      BlockCache indexCache, BlockCache dataCache, BlockCache bloomCache,
+      Cache<String,Long> fileLenCache) {
+    this.context = context;
+    this.fs = fs;
+    this.extent = extent;
+    this.tableConf = tableConf;
+    this.files = files;
+    this.indexCache = indexCache;
+    this.dataCache = dataCache;
+    this.bloomCache = bloomCache;
+    this.fileLenCache = fileLenCache;
+  }
+
+  @Override
+  public void run() {
+    boolean warmIndex =
+        tableConf.getBoolean(Property.TABLE_INDEXCACHE_ENABLED) && indexCache != null;
+    boolean warmBloom = tableConf.getBoolean(Property.TABLE_BLOOM_ENABLED) && bloomCache != null;
+    if (!warmIndex && !warmBloom) {
+      return;
+    }
+
+    long dataMax = 0;
+    if (warmIndex && tableConf.getBoolean(Property.TABLE_BLOCKCACHE_ENABLED) && dataCache != null) {
+      dataMax = tableConf.getAsBytes(Property.TABLE_CACHE_WARMUP_DATA_MAX);
+    }
+
+    long start = System.currentTimeMillis();
+    long dataRead = 0;
+    for (TabletFile file : files) {
+      if (!file.getFileName().endsWith("." + RFile.EXTENSION)) {
+        continue;
+      }
+
+      try {
+        dataRead += warm(file, warmIndex, warmBloom, dataMax - dataRead);
+      } catch (IOException e) {
+        // the tablet may have compacted the file away, warming the cache is only an optimization
+        log.debug("Failed to warm caches for {} file {}", extent, file, e);
+      }
+    }
+
+    log.debug("Warmed caches for {} files of {} with {} bytes of data in {}ms", files.size(),
+        extent, dataRead, System.currentTimeMillis() - start);
+  }
+
+  /**
+   * @return the uncompressed size of the data blocks read
+   */
+  private long warm(TabletFile file, boolean warmIndex, boolean warmBloom, long dataMax)
+      throws IOException {
+    FileSystem ns = fs.getFileSystemByPath(file.getPath());
+    // Open the file as an RFile, without the bloom filter layer, to access its data blocks.
+    try (FileSKVIterator reader = new RFileOperations().newReaderBuilder()
+        .forFile(file.getPathStr(), ns, ns.getConf(), context.getCryptoService())
+        .withTableConfiguration(tableConf)
+        .withCacheProvider(new BasicCacheProvider(warmIndex ? indexCache : null,
+            dataMax > 0 ? dataCache : null, warmBloom ? bloomCache : null))
+        .withFileLenCache(fileLenCache).build()) {
+      RFile.Reader rfile = (RFile.Reader) reader;
+
+      if (warmBloom) {
+        BloomFilterLayer.loadBloomFilter(reader, tableConf);
+      }
+
+      if (!warmIndex) {
+        return 0;
+      }
+
+      // iterating over the whole index reads every index block through the index cache
+      FileSKVIterator index = rfile.getIndex();
+      index.seek(new Range(), EMPTY_CF_SET, false);
+      while (index.hasTop()) {
+        index.next();
+      }
+
+      if (dataMax <= 0) {
+        return 0;
+      }
+
+      long dataRead = 0;
+      Range range = extent.toDataRange();
+      for (String lgName : rfile.getLocalityGroupCF().keySet()) {
+        for (RFile.DataBlock block : rfile.getDataBlocks(lgName)) {
+          if (dataRead >= dataMax) {
+            return dataRead;
+          }
+
+          // a block holds the keys after the previous index key up to its own index key
+          if (range.beforeStartKey(block.getIndexKey())
+              || (block.getPrevIndexKey() != null && range.afterEndKey(block.getPrevIndexKey()))) {
+            continue;
+          }
+
+          block.cache();
+          dataRead += block.getRawSize();
+        }
+      }
+      return dataRead;
+    }
+  }
+}
@@ -101,7 +101,7 @@ class TabletMemory implements Closeable {
     deletingMemTable = otherMemTable;
 
     otherMemTable = null;
-    tablet.notifyAll();
+    tablet.signalStateChange();
   }
 
   public void finalizeMinC() {
@@ -111,7 +111,8 @@ class TabletMemory implements Closeable {
     try {
       deletingMemTable.delete(15000);
     } finally {
-      synchronized (tablet) {
+      tablet.lock();
+      try {
         if (otherMemTable != null) {
           throw new IllegalStateException();
         }
@@ -123,6 +124,8 @@ class TabletMemory implements Closeable {
         deletingMemTable = null;
 
         tablet.updateMemoryUsageStats(memTable.estimatedSizeInBytes(), 0);
+      } finally {
+        tablet.unlock();
       }
     }
   }
@@ -134,7 +137,7 @@ class TabletMemory implements Closeable {
   public void waitForMinC() {
     while (otherMemTable != null || deletingMemTable != null) {
       try {
-        tablet.wait(50);
+        tablet.awaitStateChange(50);
       } catch (InterruptedException e) {
         log.warn("{}", e.getMessage(), e);
       }
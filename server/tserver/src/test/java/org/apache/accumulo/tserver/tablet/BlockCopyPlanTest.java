@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.tablet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.crypto.CryptoServiceFactory;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.FileOperations;
+import org.apache.accumulo.core.file.FileSKVIterator;
+import org.apache.accumulo.core.file.FileSKVWriter;
+import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.user.VersioningIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.DeletingIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.MultiIterator;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+@SuppressFBWarnings(value = "PATH_TRAVERSAL_IN", justification = "paths not set by user input")
+public class BlockCopyPlanTest {
+
+  @Rule
+  public TemporaryFolder tempFolder =
+      new TemporaryFolder(new File(System.getProperty("user.dir"), "target"));
+
+  private FileSystem fs;
+  private AccumuloConfiguration tableConf;
+  private int fileCount = 0;
+
+  @Before
+  public void setUp() throws IOException {
+    fs = FileSystem.getLocal(new Configuration());
+    ConfigurationCopy conf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    conf.set(Property.TABLE_FILE_COMPRESSED_BLOCK_SIZE, "1K");
+    tableConf = conf;
+  }
+
+  private String newFile() throws IOException {
+    return new File(tempFolder.getRoot(), "f" + fileCount++ + ".rf").getAbsolutePath();
+  }
+
+  private FileSKVWriter openWriter(String file) throws IOException {
+    return FileOperations.getInstance().newWriterBuilder()
+        .forFile(file, fs, fs.getConf(), CryptoServiceFactory.newDefaultInstance())
+        .withTableConfiguration(tableConf).build();
+  }
+
+  private FileSKVIterator openReader(String file) throws IOException {
+    return FileOperations.getInstance().newReaderBuilder()
+        .forFile(file, fs, fs.getConf(), CryptoServiceFactory.newDefaultInstance())
+        .withTableConfiguration(tableConf).build();
+  }
+
+  private static Key newKey(int row, long ts) {
+    return new Key(String.format("r%05d", row), "f", "q", ts);
+  }
+
+  private FileSKVIterator writeFile(TreeMap<Key,Value> data) throws IOException {
+    String file = newFile();
+    FileSKVWriter writer = openWriter(file);
+    writer.startDefaultLocalityGroup();
+    for (Map.Entry<Key,Value> entry : data.entrySet()) {
+      writer.append(entry.getKey(), entry.getValue());
+    }
+    writer.close();
+    return openReader(file);
+  }
+
+  private static TreeMap<Key,Value> createData(int start, int end, long... timestamps) {
+    TreeMap<Key,Value> data = new TreeMap<>();
+    for (int row = start; row < end; row++) {
+      for (long ts : timestamps) {
+        data.put(newKey(row, ts), new Value("value of row " + row + " at " + ts));
+      }
+    }
+    return data;
+  }
+
+  private static SortedKeyValueIterator<Key,Value>
+      createCompactionStack(List<FileSKVIterator> readers, int maxVersions) throws IOException {
+    List<SortedKeyValueIterator<Key,Value>> iters = new ArrayList<>();
+    for (FileSKVIterator reader : readers) {
+      iters.add(reader.deepCopy(null));
+    }
+    SortedKeyValueIterator<Key,Value> iter = DeletingIterator
+        .wrap(new MultiIterator(iters, new Range()), true, DeletingIterator.Behavior.PROCESS);
+    if (maxVersions < Integer.MAX_VALUE) {
+      VersioningIterator vi = new VersioningIterator();
+      vi.init(iter, Collections.singletonMap("maxVersions", Integer.toString(maxVersions)), null);
+      iter = vi;
+    }
+    return iter;
+  }
+
+  /**
+   * Compacts the readers the way the Compactor does, copying the blocks of the plan
+   */
+  private TreeMap<Key,Value> compact(List<FileSKVIterator> readers, int maxVersions,
+      boolean copyBlocks) throws IOException {
+    String file = newFile();
+    RFile.Writer writer = (RFile.Writer) openWriter(file);
+    writer.startDefaultLocalityGroup();
+
+    List<RFile.Reader> candidates = new ArrayList<>();
+    for (FileSKVIterator reader : readers) {
+      candidates.add((RFile.Reader) reader);
+    }
+
+    BlockCopyPlan plan = BlockCopyPlan.create(readers, candidates, null, Collections.emptySet(),
+        false, writer, new Range(), true, maxVersions);
+    List<RFile.DataBlock> blocks = copyBlocks ? plan.getBlocks() : Collections.emptyList();
+    List<Range> ranges = copyBlocks ? plan.getRanges() : Collections.singletonList(new Range());
+    assertEquals(blocks.size() + 1, ranges.size());
+
+    SortedKeyValueIterator<Key,Value> iter = createCompactionStack(readers, maxVersions);
+    for (int i = 0; i < ranges.size(); i++) {
+      if (i > 0) {
+        writer.append(blocks.get(i - 1));
+      }
+      if (ranges.get(i) != null) {
+        iter.seek(ranges.get(i), Collections.emptySet(), false);
+        while (iter.hasTop()) {
+          writer.append(iter.getTopKey(), iter.getTopValue());
+          iter.next();
+        }
+      }
+    }
+    writer.close();
+
+    TreeMap<Key,Value> output = new TreeMap<>();
+    FileSKVIterator reader = openReader(file);
+    reader.seek(new Range(), Collections.emptySet(), false);
+    while (reader.hasTop()) {
+      output.put(new Key(reader.getTopKey()), new Value(reader.getTopValue()));
+      reader.next();
+    }
+    reader.close();
+    return output;
+  }
+
+  @Test
+  public void testCopyBlocks() throws IOException {
+    FileSKVIterator file1 = writeFile(createData(0, 2000, 1));
+    FileSKVIterator file2 = writeFile(createData(1000, 1010, 2));
+    List<FileSKVIterator> readers = Arrays.asList(file1, file2);
+
+    List<RFile.DataBlock> file1Blocks = ((RFile.Reader) file1).getDataBlocks(null);
+    assertTrue(file1Blocks.size() > 10);
+
+    TreeMap<Key,Value> expected = compact(readers, Integer.MAX_VALUE, false);
+    assertEquals(2010, expected.size());
+    assertEquals(expected, compact(readers, Integer.MAX_VALUE, true));
+
+    // every block of the first file is copied, except the one or two that overlap the second file
+    String file3 = newFile();
+    RFile.Writer writer = (RFile.Writer) openWriter(file3);
+    writer.startDefaultLocalityGroup();
+    BlockCopyPlan plan =
+        BlockCopyPlan.create(readers, Arrays.asList((RFile.Reader) file1, (RFile.Reader) file2),
+            null, Collections.emptySet(), false, writer, new Range(), true, Integer.MAX_VALUE);
+    writer.close();
+    int copied = plan.getBlocks().size();
+    assertTrue(copied >= file1Blocks.size() - 3);
+    assertTrue(copied < file1Blocks.size());
+    Range overlap = new Range(newKey(1000, 2), true, newKey(1009, 1), true);
+    for (RFile.DataBlock block : plan.getBlocks()) {
+      assertFalse(overlap.contains(block.getFirstKey()));
+    }
+
+    file1.close();
+    file2.close();
+  }
+
+  @Test
+  public void testVersions() throws IOException {
+    // a file written by an earlier compaction keeping one version, and a file where every row has
+    // three versions
+    FileSKVIterator file1 = writeFile(createData(0, 1000, 1));
+    FileSKVIterator file2 = writeFile(createData(2000, 3000, 1, 2, 3));
+    FileSKVIterator file3 = writeFile(createData(500, 505, 2));
+    List<FileSKVIterator> readers = Arrays.asList(file1, file2, file3);
+    Key file2Start = newKey(2000, Long.MAX_VALUE);
+
+    for (int maxVersions : new int[] {1, 2, 3}) {
+      String file = newFile();
+      RFile.Writer writer = (RFile.Writer) openWriter(file);
+      writer.startDefaultLocalityGroup();
+      List<RFile.Reader> candidates =
+          Arrays.asList((RFile.Reader) file1, (RFile.Reader) file2, (RFile.Reader) file3);
+      BlockCopyPlan plan = BlockCopyPlan.create(readers, candidates, null, Collections.emptySet(),
+          false, writer, new Range(), true, maxVersions);
+      writer.close();
+
+      int copiedFromFile1 = 0;
+      int copiedFromFile2 = 0;
+      for (RFile.DataBlock block : plan.getBlocks()) {
+        if (block.getFirstKey().compareTo(file2Start) < 0) {
+          copiedFromFile1++;
+        } else {
+          copiedFromFile2++;
+        }
+      }
+      assertTrue(copiedFromFile1 > 10);
+      if (maxVersions < 3) {
+        assertEquals(0, copiedFromFile2);
+      }
+
+      TreeMap<Key,Value> expected = compact(readers, maxVersions, false);
+      // the rows of the third file have a second version when more than one is kept
+      assertEquals(1000 + 1000 * maxVersions + (maxVersions > 1 ? 5 : 0), expected.size());
+      assertEquals(expected, compact(readers, maxVersions, true));
+    }
+
+    file1.close();
+    file2.close();
+    file3.close();
+  }
+
+  @Test
+  public void testDeletes() throws IOException {
+    TreeMap<Key,Value> data = createData(0, 1000, 1);
+    // a delete and the entry it deletes, in the middle of the file
+    Key delete = newKey(500, 2);
+    delete.setDeleted(true);
+    data.put(delete, new Value());
+    FileSKVIterator file1 = writeFile(data);
+    FileSKVIterator file2 = writeFile(createData(2000, 2010, 1));
+    List<FileSKVIterator> readers = Arrays.asList(file1, file2);
+
+    TreeMap<Key,Value> expected = compact(readers, Integer.MAX_VALUE, false);
+    assertTrue(expected.containsKey(delete));
+    assertFalse(expected.containsKey(newKey(500, 1)));
+    assertEquals(expected, compact(readers, Integer.MAX_VALUE, true));
+
+    file1.close();
+    file2.close();
+  }
+}
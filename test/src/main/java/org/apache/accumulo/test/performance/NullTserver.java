@@ -158,7 +158,7 @@ public class NullTserver {
         TRange range, List<TColumn> columns, int batchSize, List<IterInfo> ssiList,
         Map<String,Map<String,String>> ssio, List<ByteBuffer> authorizations, boolean waitForWrites,
         boolean isolated, long readaheadThreshold, TSamplerConfiguration tsc, long batchTimeOut,
-        String classLoaderContext, Map<String,String> executionHints) {
+        String classLoaderContext, Map<String,String> executionHints, boolean encodeResults) {
       return null;
     }
 